@@ -0,0 +1,353 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import org.eclipse.ecf.core.sharedobject.util.SimpleFIFOQueue;
+
+/**
+ * FIFO queue with optional limits on the number and the total size of the
+ * elements it holds, and a policy for what happens when a producer would
+ * exceed them:
+ * <ul>
+ * <li>{@link #POLICY_BLOCK} the producer waits until the consumer has made
+ * room, for at most the block timeout, and the element is rejected if there
+ * is still no room.</li>
+ * <li>{@link #POLICY_DROP_OLDEST} the oldest elements are dropped to make
+ * room.  The head is never dropped, as the consumer may be working on it.</li>
+ * <li>{@link #POLICY_DISCONNECT} the element is rejected, the queue is
+ * emptied and closed and {@link #handleOverflow()} is called, so that the
+ * owner can drop the slow consumer.</li>
+ * </ul>
+ * Only elements for which {@link #isBounded(Object)} returns true count
+ * against the limits, so control messages are never dropped or held up.  An
+ * element larger than the byte limit is accepted if there are no other
+ * bounded elements queued.  With no limits (the default) the queue behaves
+ * as a {@link SimpleFIFOQueue}.
+ * <p>
+ * The depth, high-water mark and the number of dropped and rejected elements
+ * are available for monitoring.
+ *
+ * @since 4.10
+ */
+public class BoundedFIFOQueue extends SimpleFIFOQueue {
+
+	public static final int POLICY_BLOCK = 0;
+	public static final int POLICY_DROP_OLDEST = 1;
+	public static final int POLICY_DISCONNECT = 2;
+
+	private final LinkedList list = new LinkedList();
+
+	private int maxCount;
+	private long maxBytes;
+	private int policy;
+	private long blockTimeout;
+
+	// Bounded elements and their size
+	private int count;
+	private long bytes;
+
+	private int highWaterMark;
+	private long dropCount;
+	private long rejectCount;
+
+	public BoundedFIFOQueue() {
+		this(0, 0, POLICY_BLOCK, 0);
+	}
+
+	/**
+	 * @param maxCount maximum number of bounded elements.  If &lt;= 0 the
+	 * number is not limited.
+	 * @param maxBytes maximum total size of bounded elements.  If &lt;= 0 the
+	 * size is not limited.
+	 * @param policy one of {@link #POLICY_BLOCK}, {@link #POLICY_DROP_OLDEST}
+	 * or {@link #POLICY_DISCONNECT}
+	 * @param blockTimeout maximum time (ms) a producer waits with
+	 * {@link #POLICY_BLOCK}.  If &lt;= 0 it waits until there is room or the
+	 * queue is closed.
+	 */
+	public BoundedFIFOQueue(int maxCount, long maxBytes, int policy, long blockTimeout) {
+		setLimits(maxCount, maxBytes, policy, blockTimeout);
+	}
+
+	/**
+	 * Change the limits of this queue.  Elements already queued are kept even
+	 * if they exceed the new limits.
+	 *
+	 * @param maxCount maximum number of bounded elements, &lt;= 0 for no limit
+	 * @param maxBytes maximum total size of bounded elements, &lt;= 0 for no
+	 * limit
+	 * @param policy one of {@link #POLICY_BLOCK}, {@link #POLICY_DROP_OLDEST}
+	 * or {@link #POLICY_DISCONNECT}
+	 * @param blockTimeout maximum time (ms) a producer waits with
+	 * {@link #POLICY_BLOCK}, &lt;= 0 to wait indefinitely
+	 */
+	public synchronized void setLimits(int maxCount, long maxBytes, int policy, long blockTimeout) {
+		if (policy < POLICY_BLOCK || policy > POLICY_DISCONNECT)
+			throw new IllegalArgumentException("Invalid queue policy " + policy); //$NON-NLS-1$
+		this.maxCount = maxCount;
+		this.maxBytes = maxBytes;
+		this.policy = policy;
+		this.blockTimeout = blockTimeout;
+		// Blocked producers may now have room
+		notifyAll();
+	}
+
+	/**
+	 * @param policy the policy name: block, dropoldest or disconnect
+	 * @return int the policy constant
+	 * @throws IllegalArgumentException if policy is not a known policy name
+	 */
+	public static int parsePolicy(String policy) {
+		if ("block".equalsIgnoreCase(policy)) //$NON-NLS-1$
+			return POLICY_BLOCK;
+		if ("dropoldest".equalsIgnoreCase(policy)) //$NON-NLS-1$
+			return POLICY_DROP_OLDEST;
+		if ("disconnect".equalsIgnoreCase(policy)) //$NON-NLS-1$
+			return POLICY_DISCONNECT;
+		throw new IllegalArgumentException("Invalid queue policy " + policy); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param obj an element about to be queued or removed
+	 * @return boolean true if obj counts against the limits of this queue.
+	 * This implementation returns true.
+	 */
+	protected boolean isBounded(Object obj) {
+		return true;
+	}
+
+	/**
+	 * @param obj a bounded element.  Must return the same value each time
+	 * it is called for the same element.
+	 * @return long the size of obj for the byte limit.  This implementation
+	 * returns the length of byte arrays, and 0 for other elements.
+	 */
+	protected long sizeOf(Object obj) {
+		return (obj instanceof byte[]) ? ((byte[]) obj).length : 0;
+	}
+
+	/**
+	 * Called with {@link #POLICY_DISCONNECT}, after the queue has been closed
+	 * because a producer exceeded its limits.  Called on the producer's
+	 * thread, without holding the lock of this queue.  This implementation
+	 * does nothing.
+	 */
+	protected void handleOverflow() {
+		// nothing by default
+	}
+
+	public boolean enqueue(final Object obj) {
+		boolean overflow = false;
+		synchronized (this) {
+			if (isStopped() || obj == null)
+				return false;
+			if (isBounded(obj)) {
+				final long size = sizeOf(obj);
+				if (isFull(size)) {
+					switch (policy) {
+						case POLICY_BLOCK :
+							if (!waitForRoom(size)) {
+								rejectCount++;
+								return false;
+							}
+							break;
+						case POLICY_DROP_OLDEST :
+							dropOldest(size);
+							break;
+						default :
+							rejectCount++;
+							clear();
+							close();
+							overflow = true;
+					}
+				}
+				if (!overflow) {
+					count++;
+					bytes += size;
+					if (count > highWaterMark)
+						highWaterMark = count;
+				}
+			}
+			if (!overflow) {
+				list.add(obj);
+				// Wake the consumer, and with POLICY_BLOCK there may be
+				// producers waiting as well
+				notifyAll();
+				return true;
+			}
+		}
+		handleOverflow();
+		return false;
+	}
+
+	// Must be called while holding the lock of this queue
+	private boolean isFull(long size) {
+		if (count == 0)
+			return false;
+		return (maxCount > 0 && count >= maxCount) || (maxBytes > 0 && bytes + size > maxBytes);
+	}
+
+	// Must be called while holding the lock of this queue
+	private boolean waitForRoom(long size) {
+		final long deadline = (blockTimeout > 0) ? System.currentTimeMillis() + blockTimeout : 0;
+		while (isFull(size)) {
+			if (isStopped())
+				return false;
+			long wait = 0;
+			if (deadline != 0) {
+				wait = deadline - System.currentTimeMillis();
+				if (wait <= 0)
+					return false;
+			}
+			try {
+				wait(wait);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return !isStopped();
+	}
+
+	// Must be called while holding the lock of this queue
+	private void dropOldest(long size) {
+		final Iterator i = list.iterator();
+		// Skip the head
+		if (i.hasNext())
+			i.next();
+		while (isFull(size) && i.hasNext()) {
+			final Object o = i.next();
+			if (isBounded(o)) {
+				i.remove();
+				removed(o);
+				dropCount++;
+			}
+		}
+	}
+
+	// Must be called while holding the lock of this queue
+	private void removed(Object obj) {
+		if (isBounded(obj)) {
+			count--;
+			bytes -= sizeOf(obj);
+		}
+	}
+
+	// Must be called while holding the lock of this queue
+	private void clear() {
+		list.clear();
+		count = 0;
+		bytes = 0;
+	}
+
+	public synchronized Object peekQueue() {
+		while (list.isEmpty()) {
+			if (isStopped())
+				return null;
+			try {
+				wait();
+			} catch (final Exception e) {
+				return null;
+			}
+		}
+		return list.getFirst();
+	}
+
+	public synchronized Object peekQueue(final long waitMS) {
+		if (waitMS == 0)
+			return peekQueue();
+		if (list.isEmpty()) {
+			if (isStopped())
+				return null;
+			try {
+				wait(waitMS);
+			} catch (final Exception e) {
+				return null;
+			}
+		}
+		return list.isEmpty() ? null : list.getFirst();
+	}
+
+	public synchronized Object removeHead() {
+		if (list.isEmpty())
+			return null;
+		final Object obj = list.removeFirst();
+		removed(obj);
+		// Wake producers waiting for room
+		if (policy == POLICY_BLOCK)
+			notifyAll();
+		return obj;
+	}
+
+	public synchronized boolean isEmpty() {
+		return list.isEmpty();
+	}
+
+	public synchronized int size() {
+		return list.size();
+	}
+
+	public synchronized Object[] flush() {
+		final Object[] out = list.toArray();
+		clear();
+		close();
+		return out;
+	}
+
+	/**
+	 * @return int the number of bounded elements queued
+	 */
+	public synchronized int getDepth() {
+		return count;
+	}
+
+	/**
+	 * @return long the total size of the bounded elements queued
+	 */
+	public synchronized long getByteSize() {
+		return bytes;
+	}
+
+	/**
+	 * @return int the largest number of bounded elements queued at once
+	 */
+	public synchronized int getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * @return long the number of elements dropped with
+	 * {@link #POLICY_DROP_OLDEST}
+	 */
+	public synchronized long getDropCount() {
+		return dropCount;
+	}
+
+	/**
+	 * @return long the number of elements not queued because the queue was
+	 * full
+	 */
+	public synchronized long getRejectCount() {
+		return rejectCount;
+	}
+
+	public synchronized String toString() {
+		final StringBuffer sb = new StringBuffer("BoundedFIFOQueue["); //$NON-NLS-1$
+		sb.append("depth=").append(count).append(";bytes=").append(bytes); //$NON-NLS-1$ //$NON-NLS-2$
+		sb.append(";hwm=").append(highWaterMark).append(";dropped=").append(dropCount); //$NON-NLS-1$ //$NON-NLS-2$
+		sb.append(";rejected=").append(rejectCount).append(";").append(list).append("]"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return sb.toString();
+	}
+}
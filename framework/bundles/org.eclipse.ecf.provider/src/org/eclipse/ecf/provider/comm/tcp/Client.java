@@ -37,6 +37,25 @@ public final class Client implements ISynchAsynchConnection {
 	// Default maximum cached messages on object stream is 50
 	public static final int DEFAULT_MAX_BUFFER_MSG = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.maxmsgs", "50")); //$NON-NLS-1$ //$NON-NLS-2$
 	public static final int DEFAULT_WAIT_INTERVAL = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.waitinterval", "10")); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Maximum payload bytes the sender thread writes from the queue before
+	 * flushing.  If &lt;= 0 every message is flushed as soon as it is written.
+	 * @since 4.10
+	 */
+	public static final int DEFAULT_BATCH_MAX_BYTES = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.batch.maxbytes", "16384")); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Maximum time (ms) the sender thread waits for more messages to be queued
+	 * before flushing a batch that is not full.  Default is 0 (flush as soon as
+	 * the queue is drained).
+	 * @since 4.10
+	 */
+	public static final int DEFAULT_BATCH_MAX_LATENCY = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.batch.maxlatency", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Size of the buffer between the object output stream and the socket, so
+	 * that a batch goes out in as few writes as possible.
+	 * @since 4.10
+	 */
+	public static final int DEFAULT_OUTPUT_BUFFER_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.outputbuffer", String.valueOf(Math.max(8192, DEFAULT_BATCH_MAX_BYTES)))); //$NON-NLS-1$
 	protected Socket socket;
 	private String addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
 	// Underlying streams
@@ -44,13 +63,21 @@ public final class Client implements ISynchAsynchConnection {
 	protected ObjectInputStream inputStream;
 	// Event handler
 	protected ISynchAsynchEventHandler handler;
-	// Our queue
-	protected SimpleFIFOQueue queue = new SimpleFIFOQueue();
+	// Our queue.  A slow consumer is disconnected by closing the socket, the
+	// sender or receiver thread then reports the disconnect
+	protected SimpleFIFOQueue queue = new ClientQueue(new Runnable() {
+		public void run() {
+			debug("send queue overflow, disconnecting"); //$NON-NLS-1$
+			synchronized (Client.this) {
+				closeSocket();
+			}
+		}
+	});
 	protected int keepAlive = 0;
 	protected Thread sendThread;
 	protected Thread rcvThread;
 	protected Thread keepAliveThread;
-	protected boolean isClosing = false;
+	protected volatile boolean isClosing = false;
 	protected boolean waitForPing = false;
 	protected PingMessage ping = new PingMessage();
 	protected PingResponseMessage pingResp = new PingResponseMessage();
@@ -62,6 +89,12 @@ public final class Client implements ISynchAsynchConnection {
 	private final Object disconnectLock = new Object();
 	protected final Object outputStreamLock = new Object();
 	private int maxmsgs = DEFAULT_MAX_BUFFER_MSG;
+	private int batchMaxBytes = DEFAULT_BATCH_MAX_BYTES;
+	private int batchMaxLatency = DEFAULT_BATCH_MAX_LATENCY;
+	// Send statistics.  Only updated while holding outputStreamLock
+	private volatile long flushCount = 0;
+	private volatile long sentMessageCount = 0;
+	private volatile long sentByteCount = 0;
 
 	private String getHostNameForAddressWithoutLookup(InetAddress inetAddress) {
 		// First get InetAddress.toString(), which returns
@@ -215,19 +248,26 @@ public final class Client implements ISynchAsynchConnection {
 			setSocketOptions(s);
 			// Now we've got a connection so set our socket
 			setSocket(s);
-			outputStream = new ObjectOutputStream(s.getOutputStream());
+			outputStream = new ObjectOutputStream(new BufferedOutputStream(s.getOutputStream(), DEFAULT_OUTPUT_BUFFER_SIZE));
 			outputStream.flush();
 			inputStream = ProviderPlugin.getDefault().createObjectInputStream(s.getInputStream());
 			debug("connect;" + anURI); //$NON-NLS-1$
 			// send connect data and get synchronous response
-			send(new ConnectRequestMessage(anURI, (Serializable) data));
+			final ConnectRequestMessage req = new ConnectRequestMessage(anURI, (Serializable) data);
+			req.setCodecs(getOfferedCodecs());
+			send(req);
 			res = (ConnectResultMessage) readObject();
 		} catch (final IOException e) {
+			abortConnect();
 			throw new ECFException("Exception during connection to " + remote.getName(), e); //$NON-NLS-1$
 		}
 		debug("connect;rcv:" + res); //$NON-NLS-1$
-		if (res == null)
+		if (res == null) {
+			abortConnect();
 			throw new ECFException("Result cannot be null"); //$NON-NLS-1$
+		}
+		if (res.getCodec() != null)
+			properties.put(ConnectResultMessage.CODEC_PROPERTY, res.getCodec());
 		// Setup threads
 		setupThreads();
 		// Return results.
@@ -236,6 +276,27 @@ public final class Client implements ISynchAsynchConnection {
 		return ret;
 	}
 
+	// Close the streams and socket of a failed connect
+	private void abortConnect() {
+		if (outputStream != null) {
+			try {
+				outputStream.close();
+			} catch (final IOException e) {
+				traceStack("abortConnect", e); //$NON-NLS-1$
+			}
+			outputStream = null;
+		}
+		if (inputStream != null) {
+			try {
+				inputStream.close();
+			} catch (final IOException e) {
+				traceStack("abortConnect", e); //$NON-NLS-1$
+			}
+			inputStream = null;
+		}
+		closeSocket();
+	}
+
 	@SuppressWarnings("unchecked")
 	private void setupThreads() {
 		// Setup threads
@@ -267,10 +328,15 @@ public final class Client implements ISynchAsynchConnection {
 					if (me.isInterrupted() || aMsg == null)
 						break;
 					try {
-						// Actually send message
-						send(aMsg);
-						// Successful...remove message from queue
-						queue.removeHead();
+						if (batchMaxBytes > 0)
+							// Send this and any other queued messages with one flush
+							sendBatch(aMsg);
+						else {
+							// Actually send message
+							send(aMsg);
+							// Successful...remove message from queue
+							queue.removeHead();
+						}
 					} catch (Exception e) {
 						handleException(e);
 						break;
@@ -315,16 +381,79 @@ public final class Client implements ISynchAsynchConnection {
 
 	void send(Serializable snd) throws IOException {
 		synchronized (outputStreamLock) {
-			outputStream.writeObject(snd);
+			write(snd);
 			outputStream.flush();
-			if (resetCounter > this.maxmsgs) {
-				outputStream.reset();
-				resetCounter = 0;
-			} else
-				resetCounter++;
+			flushed(1, getPayloadLength(snd));
+		}
+	}
+
+	// Must be called while holding outputStreamLock
+	private void write(Serializable snd) throws IOException {
+		outputStream.writeObject(snd);
+		if (resetCounter > this.maxmsgs) {
+			outputStream.reset();
+			resetCounter = 0;
+		} else
+			resetCounter++;
+	}
+
+	// Must be called while holding outputStreamLock
+	private void flushed(int messages, long bytes) {
+		flushCount++;
+		sentMessageCount += messages;
+		sentByteCount += bytes;
+	}
+
+	/**
+	 * Write the given message and then any other messages already in the queue
+	 * (or queued within batchMaxLatency) and flush once.  The output stream lock
+	 * is only held per write, so pings and close messages are not held up by
+	 * a batch.
+	 */
+	private void sendBatch(Serializable first) throws IOException {
+		final long deadline = (batchMaxLatency > 0) ? System.currentTimeMillis() + batchMaxLatency : 0;
+		int messages = 0;
+		long bytes = 0;
+		Serializable aMsg = first;
+		while (aMsg != null) {
+			synchronized (outputStreamLock) {
+				write(aMsg);
+			}
+			queue.removeHead();
+			messages++;
+			bytes += getPayloadLength(aMsg);
+			if (bytes >= batchMaxBytes || messages >= maxmsgs || Thread.currentThread().isInterrupted())
+				break;
+			aMsg = nextBatchMessage(deadline);
+		}
+		synchronized (outputStreamLock) {
+			outputStream.flush();
+			flushed(messages, bytes);
 		}
 	}
 
+	private Serializable nextBatchMessage(long deadline) {
+		// The sender thread is the only consumer, so a non-empty queue cannot
+		// become empty before peekQueue
+		if (!queue.isEmpty())
+			return (Serializable) queue.peekQueue();
+		if (deadline == 0 || queue.isStopped())
+			return null;
+		final long wait = deadline - System.currentTimeMillis();
+		if (wait <= 0)
+			return null;
+		return (Serializable) queue.peekQueue(wait);
+	}
+
+	private int getPayloadLength(Serializable snd) {
+		Object data = null;
+		if (snd instanceof AsynchMessage)
+			data = ((AsynchMessage) snd).getData();
+		else if (snd instanceof SynchMessage)
+			data = ((SynchMessage) snd).getData();
+		return (data instanceof byte[]) ? ((byte[]) data).length : 0;
+	}
+
 	private void handlePingResp() {
 		synchronized (pingLock) {
 			waitForPing = false;
@@ -335,6 +464,67 @@ public final class Client implements ISynchAsynchConnection {
 		closeTimeout = t;
 	}
 
+	/**
+	 * @param maxBytes maximum payload bytes written by the sender thread before
+	 * flushing.  If &lt;= 0 every message is flushed individually.
+	 * @since 4.10
+	 */
+	public void setBatchMaxBytes(int maxBytes) {
+		batchMaxBytes = maxBytes;
+	}
+
+	/**
+	 * @param maxLatency maximum time (ms) to wait for more messages before
+	 * flushing a batch that is not full
+	 * @since 4.10
+	 */
+	public void setBatchMaxLatency(int maxLatency) {
+		batchMaxLatency = maxLatency;
+	}
+
+	/**
+	 * @return long the number of flushes of the output stream
+	 * @since 4.10
+	 */
+	public long getFlushCount() {
+		return flushCount;
+	}
+
+	/**
+	 * @return long the number of messages sent, including pings
+	 * @since 4.10
+	 */
+	public long getSentMessageCount() {
+		return sentMessageCount;
+	}
+
+	/**
+	 * @return long the number of byte[] payload bytes sent.  Stream and
+	 * message overhead is not included.
+	 * @since 4.10
+	 */
+	public long getSentByteCount() {
+		return sentByteCount;
+	}
+
+	/**
+	 * @return double the average number of messages per flush
+	 * @since 4.10
+	 */
+	public double getMessagesPerFlush() {
+		final long flushes = flushCount;
+		return (flushes == 0) ? 0 : (double) sentMessageCount / flushes;
+	}
+
+	/**
+	 * @return double the average number of payload bytes per flush
+	 * @since 4.10
+	 */
+	public double getBytesPerFlush() {
+		final long flushes = flushCount;
+		return (flushes == 0) ? 0 : (double) sentByteCount / flushes;
+	}
+
 	private void sendClose(Serializable snd) throws IOException {
 		isClosing = true;
 		debug("sendClose(" + snd + ")"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -502,10 +692,26 @@ public final class Client implements ISynchAsynchConnection {
 		queueObject(recipient, (Serializable) obj);
 	}
 
-	public synchronized void queueObject(ID recipient, Serializable obj) throws IOException {
+	public void queueObject(ID recipient, Serializable obj) throws IOException {
+		// Not synchronized, as with a queue limit the caller may wait here
+		// for the sender thread
 		if (queue.isStopped() || isClosing)
 			throw new ConnectException("Not connected"); //$NON-NLS-1$
-		queue.enqueue(new AsynchMessage(obj));
+		if (!queue.enqueue(new AsynchMessage(obj))) {
+			if (queue.isStopped())
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			throw new IOException("Send queue full"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * @return BoundedFIFOQueue the queue of messages waiting to be sent.  Its
+	 * limits may be set per connection, and it keeps the depth, high-water
+	 * mark and drop statistics.
+	 * @since 4.10
+	 */
+	public BoundedFIFOQueue getSendQueue() {
+		return (BoundedFIFOQueue) queue;
 	}
 
 	public synchronized Serializable sendObject(ID recipient, Serializable obj) throws IOException {
@@ -540,6 +746,11 @@ public final class Client implements ISynchAsynchConnection {
 		return properties;
 	}
 
+	private String[] getOfferedCodecs() {
+		final Object codecs = properties.get(ConnectRequestMessage.CODECS_PROPERTY);
+		return (codecs instanceof String[]) ? (String[]) codecs : null;
+	}
+
 	@SuppressWarnings("unchecked")
 	public Object getAdapter(Class clazz) {
 		return null;
@@ -0,0 +1,54 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp;
+
+import org.eclipse.ecf.provider.comm.BoundedFIFOQueue;
+
+/**
+ * Send queue of {@link Client} and {@link SSLClient}.  Only asynchronous
+ * messages count against the limits, so pings are always sent.  The limits
+ * default to the system properties
+ * org.eclipse.ecf.provider.comm.tcp.client.queue.maxmsgs and .maxbytes (both
+ * default 0, unlimited), .policy (block, dropoldest or disconnect, default
+ * block) and .blocktimeout (default 30000ms).
+ */
+class ClientQueue extends BoundedFIFOQueue {
+
+	static final int DEFAULT_MAX_MSGS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.queue.maxmsgs", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+	static final long DEFAULT_MAX_BYTES = Long.parseLong(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.queue.maxbytes", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+	static final int DEFAULT_POLICY = parsePolicy(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.queue.policy", "block")); //$NON-NLS-1$ //$NON-NLS-2$
+	static final long DEFAULT_BLOCK_TIMEOUT = Long.parseLong(System.getProperty("org.eclipse.ecf.provider.comm.tcp.client.queue.blocktimeout", "30000")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final Runnable overflowHandler;
+
+	/**
+	 * @param overflowHandler called when the queue overflows with
+	 * {@link #POLICY_DISCONNECT}
+	 */
+	ClientQueue(Runnable overflowHandler) {
+		super(DEFAULT_MAX_MSGS, DEFAULT_MAX_BYTES, DEFAULT_POLICY, DEFAULT_BLOCK_TIMEOUT);
+		this.overflowHandler = overflowHandler;
+	}
+
+	protected boolean isBounded(Object obj) {
+		return obj instanceof AsynchMessage;
+	}
+
+	protected long sizeOf(Object obj) {
+		return super.sizeOf(((AsynchMessage) obj).getData());
+	}
+
+	protected void handleOverflow() {
+		overflowHandler.run();
+	}
+}
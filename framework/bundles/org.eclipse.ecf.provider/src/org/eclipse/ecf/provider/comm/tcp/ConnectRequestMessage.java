@@ -18,8 +18,16 @@ import java.net.URI;
 
 public class ConnectRequestMessage implements Serializable {
 	private static final long serialVersionUID = 3257844363974226229L;
+	/**
+	 * Connection property holding the String[] of container message codec
+	 * names to offer when connecting.
+	 * @since 4.10
+	 */
+	public static final String CODECS_PROPERTY = "org.eclipse.ecf.provider.comm.tcp.codecs"; //$NON-NLS-1$
 	URI target;
 	Serializable data;
+	// Added in 4.10.  Null when sent by older clients
+	String[] codecs;
 
 	public ConnectRequestMessage(URI target, Serializable data) {
 		this.target = target;
@@ -34,6 +42,23 @@ public class ConnectRequestMessage implements Serializable {
 		return data;
 	}
 
+	/**
+	 * @return String[] names of the codecs offered by the client, most
+	 * preferred first.  May be <code>null</code>.
+	 * @since 4.10
+	 */
+	public String[] getCodecs() {
+		return codecs;
+	}
+
+	/**
+	 * @param codecs names of the codecs offered by the client.  May be <code>null</code>.
+	 * @since 4.10
+	 */
+	public void setCodecs(String[] codecs) {
+		this.codecs = codecs;
+	}
+
 	public String toString() {
 		StringBuffer buf = new StringBuffer("ConnectRequestMessage["); //$NON-NLS-1$
 		buf.append(target).append(";").append(data).append("]"); //$NON-NLS-1$ //$NON-NLS-2$
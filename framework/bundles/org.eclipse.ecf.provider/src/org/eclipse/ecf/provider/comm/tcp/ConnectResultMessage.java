@@ -17,7 +17,15 @@ import java.io.Serializable;
 
 public class ConnectResultMessage implements Serializable {
 	private static final long serialVersionUID = 3833188038300938804L;
+	/**
+	 * Connection property holding the name of the container message codec
+	 * selected by the server.  Not set if no codec was selected.
+	 * @since 4.10
+	 */
+	public static final String CODEC_PROPERTY = "org.eclipse.ecf.provider.comm.tcp.codec"; //$NON-NLS-1$
 	Serializable data;
+	// Added in 4.10.  Null when sent by older servers
+	String codec;
 
 	public ConnectResultMessage(Serializable data) {
 		this.data = data;
@@ -27,6 +35,22 @@ public class ConnectResultMessage implements Serializable {
 		return data;
 	}
 
+	/**
+	 * @return String the name of the codec selected by the server.  May be <code>null</code>.
+	 * @since 4.10
+	 */
+	public String getCodec() {
+		return codec;
+	}
+
+	/**
+	 * @param codec the name of the selected codec.  May be <code>null</code>.
+	 * @since 4.10
+	 */
+	public void setCodec(String codec) {
+		this.codec = codec;
+	}
+
 	public String toString() {
 		StringBuffer buf = new StringBuffer("ConnectResultMessage["); //$NON-NLS-1$
 		buf.append(data).append("]"); //$NON-NLS-1$
@@ -48,13 +48,21 @@ public final class SSLClient implements ISynchAsynchConnection {
 	protected ObjectInputStream inputStream;
 	// Event handler
 	protected ISynchAsynchEventHandler handler;
-	// Our queue
-	protected SimpleFIFOQueue queue = new SimpleFIFOQueue();
+	// Our queue.  A slow consumer is disconnected by closing the socket, the
+	// sender or receiver thread then reports the disconnect
+	protected SimpleFIFOQueue queue = new ClientQueue(new Runnable() {
+		public void run() {
+			debug("send queue overflow, disconnecting"); //$NON-NLS-1$
+			synchronized (SSLClient.this) {
+				closeSocket();
+			}
+		}
+	});
 	protected int keepAlive = 0;
 	protected Thread sendThread;
 	protected Thread rcvThread;
 	protected Thread keepAliveThread;
-	protected boolean isClosing = false;
+	protected volatile boolean isClosing = false;
 	protected boolean waitForPing = false;
 	protected PingMessage ping = new PingMessage();
 	protected PingResponseMessage pingResp = new PingResponseMessage();
@@ -200,12 +208,16 @@ public final class SSLClient implements ISynchAsynchConnection {
 			inputStream = ProviderPlugin.getDefault().createObjectInputStream(s.getInputStream());
 			debug("connect;" + anURI); //$NON-NLS-1$
 			// send connect data and get synchronous response
-			send(new ConnectRequestMessage(anURI, (Serializable) data));
+			final ConnectRequestMessage req = new ConnectRequestMessage(anURI, (Serializable) data);
+			req.setCodecs(getOfferedCodecs());
+			send(req);
 			res = (ConnectResultMessage) readObject();
 		} catch (final Exception e) {
 			throw new ECFException("Exception during connection to " + remote.getName(), e); //$NON-NLS-1$
 		}
 		debug("connect;rcv:" + res); //$NON-NLS-1$
+		if (res.getCodec() != null)
+			properties.put(ConnectResultMessage.CODEC_PROPERTY, res.getCodec());
 		// Setup threads
 		setupThreads();
 		// Return results.
@@ -482,10 +494,26 @@ public final class SSLClient implements ISynchAsynchConnection {
 		queueObject(recipient, (Serializable) obj);
 	}
 
-	public synchronized void queueObject(ID recipient, Serializable obj) throws IOException {
+	public void queueObject(ID recipient, Serializable obj) throws IOException {
+		// Not synchronized, as with a queue limit the caller may wait here
+		// for the sender thread
 		if (queue.isStopped() || isClosing)
 			throw new ConnectException("Not connected"); //$NON-NLS-1$
-		queue.enqueue(new AsynchMessage(obj));
+		if (!queue.enqueue(new AsynchMessage(obj))) {
+			if (queue.isStopped())
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			throw new IOException("Send queue full"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * @return BoundedFIFOQueue the queue of messages waiting to be sent.  Its
+	 * limits may be set per connection, and it keeps the depth, high-water
+	 * mark and drop statistics.
+	 * @since 4.10
+	 */
+	public BoundedFIFOQueue getSendQueue() {
+		return (BoundedFIFOQueue) queue;
 	}
 
 	public synchronized Serializable sendObject(ID recipient, Serializable obj) throws IOException {
@@ -520,6 +548,11 @@ public final class SSLClient implements ISynchAsynchConnection {
 		return properties;
 	}
 
+	private String[] getOfferedCodecs() {
+		final Object codecs = properties.get(ConnectRequestMessage.CODECS_PROPERTY);
+		return (codecs instanceof String[]) ? (String[]) codecs : null;
+	}
+
 	@SuppressWarnings("unchecked")
 	public Object getAdapter(Class clazz) {
 		return null;
@@ -0,0 +1,39 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp.nio;
+
+import org.eclipse.ecf.provider.comm.tcp.ConnectRequestMessage;
+import org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage;
+
+/**
+ * Handler for the connect request received on a connection accepted by
+ * {@link NIOServer}.  This is the non-blocking counterpart of
+ * {@link org.eclipse.ecf.provider.comm.tcp.ISocketAcceptHandler}.
+ * 
+ * @since 4.10
+ */
+public interface INIOConnectRequestHandler {
+	/**
+	 * Handle connect request.  Called on a dispatch thread of the connection's
+	 * {@link NIOEventLoopGroup}, before any other message is delivered on the
+	 * connection.  Implementers must set the event handler of the connection
+	 * via {@link NIOClient#setEventHandler(org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler)}
+	 * before starting it.
+	 * 
+	 * @param connection the accepted connection.  Will not be <code>null</code>.
+	 * @param request the connect request.  Will not be <code>null</code>.
+	 * @return ConnectResultMessage the result to send back to the client.  Must not be <code>null</code>.
+	 * @throws Exception if the request is invalid.  The connection is then closed.
+	 */
+	public ConnectResultMessage handleConnectRequest(NIOClient connection, ConnectRequestMessage request) throws Exception;
+}
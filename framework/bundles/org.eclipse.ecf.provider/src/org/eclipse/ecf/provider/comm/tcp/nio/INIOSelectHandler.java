@@ -0,0 +1,27 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp.nio;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+
+/**
+ * Callback for channels registered with a {@link NIOEventLoop}.  Methods are
+ * only called on the event loop thread and must not block.
+ */
+interface INIOSelectHandler {
+
+	void handleSelect(SelectionKey key) throws IOException;
+
+	void handleSelectException(Throwable t);
+}
@@ -0,0 +1,744 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp.nio;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.util.ECFException;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.*;
+import org.eclipse.ecf.provider.comm.tcp.*;
+
+/**
+ * Non-blocking connection for the generic provider.  Unlike
+ * {@link org.eclipse.ecf.provider.comm.tcp.Client}, which uses dedicated send,
+ * receive and keep alive threads per connection, all I/O is done by the
+ * {@link NIOEventLoop} the channel is registered with, received messages are
+ * delivered (in order) to the event handler on the group's dispatch executor
+ * and keep alive pings are driven by the group's timer.
+ * <p>
+ * The wire format is the length-prefixed framing of {@link NIOFrame} and is
+ * not compatible with {@link org.eclipse.ecf.provider.comm.tcp.Client}, so
+ * both ends of a connection must use this class.
+ * <p>
+ * {@link IConnectionListener}s are notified when the connect handshake
+ * completes, in either direction, and when the connection is disconnected.
+ * 
+ * @since 4.10
+ */
+public class NIOClient implements ISynchAsynchConnection, INIOSelectHandler {
+
+	public static final String PROTOCOL = Client.PROTOCOL;
+
+	public static final int DEFAULT_READ_BUFFER_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.readbuffer", "16384")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	// Maximum number of received messages delivered in one dispatch task, so
+	// that one busy connection cannot monopolize a dispatch thread
+	public static final int DEFAULT_DISPATCH_BATCH = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.dispatchbatch", "64")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final NIOEventLoopGroup group;
+	private final NIOEventLoop loop;
+	private SocketChannel channel;
+	private SelectionKey key;
+	private String addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
+
+	protected ISynchAsynchEventHandler handler;
+	protected ID containerID = null;
+	protected int keepAlive = 0;
+	protected long closeTimeout = Client.DEFAULT_CLOSE_TIMEOUT;
+	protected Map properties;
+	private final List listeners = new CopyOnWriteArrayList();
+
+	// Non-null only for accepted connections that have not yet received their
+	// connect request
+	private INIOConnectRequestHandler connectRequestHandler;
+
+	// Read state.  Only accessed on the event loop thread
+	private final ByteBuffer readBuffer;
+	private byte frameType;
+	private byte[] framePayload;
+	private int framePosition;
+
+	// Outbound frames.  Guarded by outputLock
+	private final Object outputLock = new Object();
+	private final ArrayDeque<ByteBuffer> outputQueue = new ArrayDeque<ByteBuffer>();
+	private boolean writeScheduled = false;
+	private boolean handshakeComplete = false;
+	private boolean outputClosed = false;
+
+	// Inbound frames waiting for delivery to the handler
+	private final Queue<NIOFrame> inputQueue = new ConcurrentLinkedQueue<NIOFrame>();
+	private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+	private volatile boolean started = false;
+	private volatile Throwable remoteCloseException;
+	private volatile boolean remoteClosed = false;
+
+	protected volatile boolean isClosing = false;
+	protected volatile boolean waitForPing = false;
+	private ScheduledFuture<?> keepAliveFuture;
+	volatile boolean disconnectHandled = false;
+	private final Object disconnectLock = new Object();
+
+	private final Runnable flushTask = new Runnable() {
+		public void run() {
+			try {
+				doWrite();
+			} catch (final Exception e) {
+				handleSelectException(e);
+			}
+		}
+	};
+
+	private final Runnable dispatchTask = new Runnable() {
+		public void run() {
+			dispatch();
+		}
+	};
+
+	/**
+	 * Create a connection that will connect to a remote server via
+	 * {@link #connect(ID, Object, int)}.
+	 * @param group the event loop group to use.  Must not be <code>null</code>.
+	 * @param handler the event handler.  Must not be <code>null</code>.
+	 * @param keepAlive keep alive interval in ms.  If &lt;= 0 no keep alive pings are sent.
+	 */
+	public NIOClient(NIOEventLoopGroup group, ISynchAsynchEventHandler handler, int keepAlive) {
+		if (group == null)
+			throw new NullPointerException("event loop group cannot be null"); //$NON-NLS-1$
+		if (handler == null)
+			throw new NullPointerException("event handler cannot be null"); //$NON-NLS-1$
+		this.group = group;
+		this.loop = group.next();
+		this.handler = handler;
+		this.keepAlive = keepAlive;
+		this.containerID = handler.getEventHandlerID();
+		this.properties = new HashMap();
+		this.readBuffer = ByteBuffer.allocate(DEFAULT_READ_BUFFER_SIZE);
+	}
+
+	NIOClient(NIOEventLoopGroup group, SocketChannel channel, INIOConnectRequestHandler connectRequestHandler, int keepAlive) {
+		this.group = group;
+		this.loop = group.next();
+		this.connectRequestHandler = connectRequestHandler;
+		this.keepAlive = keepAlive;
+		this.properties = new Properties();
+		this.readBuffer = ByteBuffer.allocate(DEFAULT_READ_BUFFER_SIZE);
+		setChannel(channel);
+	}
+
+	void register() {
+		loop.register(channel, SelectionKey.OP_READ, this);
+	}
+
+	private void setChannel(SocketChannel ch) {
+		channel = ch;
+		if (ch != null) {
+			final Socket s = ch.socket();
+			addressPort = s.getLocalPort() + ":" //$NON-NLS-1$
+					+ getHostNameForAddressWithoutLookup(s.getInetAddress()) + ":" + s.getPort(); //$NON-NLS-1$
+		} else
+			addressPort = "-1:<no endpoint>:-1"; //$NON-NLS-1$
+	}
+
+	private String getHostNameForAddressWithoutLookup(InetAddress inetAddress) {
+		if (inetAddress == null)
+			return "<unresolved>"; //$NON-NLS-1$
+		final String inetAddressStr = inetAddress.toString();
+		final int slashPos = inetAddressStr.indexOf('/');
+		if (slashPos == 0)
+			return inetAddressStr.substring(1);
+		return inetAddressStr.substring(0, slashPos);
+	}
+
+	/**
+	 * Set the event handler for an accepted connection.  Must be called by the
+	 * {@link INIOConnectRequestHandler} before the connection is started.
+	 * @param handler the event handler.  Must not be <code>null</code>.
+	 */
+	public synchronized void setEventHandler(ISynchAsynchEventHandler handler) {
+		if (handler == null)
+			throw new NullPointerException("event handler cannot be null"); //$NON-NLS-1$
+		this.handler = handler;
+		this.containerID = handler.getEventHandlerID();
+	}
+
+	public Socket getSocket() {
+		final SocketChannel ch = channel;
+		return (ch == null) ? null : ch.socket();
+	}
+
+	public synchronized ID getLocalID() {
+		if (containerID != null)
+			return containerID;
+		if (channel == null)
+			return null;
+		try {
+			final Socket s = channel.socket();
+			return IDFactory.getDefault().createStringID(PROTOCOL + "://" + getHostNameForAddressWithoutLookup(s.getLocalAddress()) //$NON-NLS-1$
+					+ ":" + s.getLocalPort()); //$NON-NLS-1$
+		} catch (final Exception e) {
+			traceStack("Exception in getLocalID()", e); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	public void removeListener(IConnectionListener l) {
+		listeners.remove(l);
+	}
+
+	public void addListener(IConnectionListener l) {
+		if (l != null)
+			listeners.add(l);
+	}
+
+	private void fireConnectEvent(Object data) {
+		for (final Iterator i = listeners.iterator(); i.hasNext();) {
+			try {
+				((IConnectionListener) i.next()).handleConnectEvent(new ConnectionEvent(this, data));
+			} catch (final RuntimeException e) {
+				traceStack("fireConnectEvent", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private void fireDisconnectEvent(Throwable e) {
+		for (final Iterator i = listeners.iterator(); i.hasNext();) {
+			try {
+				((IConnectionListener) i.next()).handleDisconnectEvent(new DisconnectEvent(this, e, null));
+			} catch (final RuntimeException re) {
+				traceStack("fireDisconnectEvent", re); //$NON-NLS-1$
+			}
+		}
+	}
+
+	public synchronized boolean isConnected() {
+		if (channel != null)
+			return channel.isConnected();
+		return false;
+	}
+
+	public boolean isStarted() {
+		return started && !disconnectHandled;
+	}
+
+	protected URI parseRemoteID(ID remote) throws ECFException {
+		try {
+			return new URI(remote.getName());
+		} catch (final URISyntaxException e) {
+			throw new ECFException("Invalid URI for remoteID=" + remote, e); //$NON-NLS-1$
+		}
+	}
+
+	public synchronized Object connect(ID remote, Object data, int timeout) throws ECFException {
+		debug("connect(" + remote + "," + data + "," + timeout + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		if (channel != null)
+			throw new ECFException("Already connected"); //$NON-NLS-1$
+		if (remote == null)
+			throw new ECFException("remote cannot be null"); //$NON-NLS-1$
+		final URI anURI = parseRemoteID(remote);
+		SocketChannel ch = null;
+		ConnectResultMessage res = null;
+		try {
+			ch = SocketChannel.open();
+			final Socket s = ch.socket();
+			s.connect(new InetSocketAddress(anURI.getHost(), anURI.getPort()), timeout);
+			s.setTcpNoDelay(true);
+			if (keepAlive > 0)
+				s.setKeepAlive(true);
+			// The connect handshake is done in blocking mode, with the connect
+			// timeout as read timeout
+			s.setSoTimeout(timeout);
+			setChannel(ch);
+			final ConnectRequestMessage req = new ConnectRequestMessage(anURI, (Serializable) data);
+			req.setCodecs(getOfferedCodecs());
+			writeFully(ch, NIOFrame.encode(NIOFrame.OBJECT, NIOFrame.serialize(req)));
+			res = readConnectResult(s.getInputStream());
+			s.setSoTimeout(0);
+			ch.configureBlocking(false);
+		} catch (final IOException e) {
+			closeQuietly(ch);
+			setChannel(null);
+			throw new ECFException("Exception during connection to " + remote.getName(), e); //$NON-NLS-1$
+		}
+		debug("connect;rcv:" + res); //$NON-NLS-1$
+		if (res.getCodec() != null)
+			properties.put(ConnectResultMessage.CODEC_PROPERTY, res.getCodec());
+		synchronized (outputLock) {
+			handshakeComplete = true;
+		}
+		register();
+		scheduleFlush();
+		fireConnectEvent(res.getData());
+		return res.getData();
+	}
+
+	private void writeFully(SocketChannel ch, ByteBuffer buf) throws IOException {
+		while (buf.hasRemaining())
+			ch.write(buf);
+	}
+
+	private ConnectResultMessage readConnectResult(InputStream ins) throws IOException {
+		// Read exactly one frame so that no following frame is consumed
+		final DataInputStream dis = new DataInputStream(ins);
+		final int length = dis.readInt();
+		NIOFrame.checkLength(length);
+		final byte type = dis.readByte();
+		final byte[] payload = new byte[length];
+		dis.readFully(payload);
+		if (type != NIOFrame.OBJECT)
+			throw new IOException("Invalid connect response frame type=" + type); //$NON-NLS-1$
+		final Serializable result = NIOFrame.deserialize(payload);
+		if (!(result instanceof ConnectResultMessage))
+			throw new IOException("Invalid connect response=" + result); //$NON-NLS-1$
+		return (ConnectResultMessage) result;
+	}
+
+	// The connect result is written before any message queued on an accepted
+	// connection while its connect request was being handled
+	void sendConnectResult(ConnectResultMessage result) throws IOException {
+		final ByteBuffer buf = NIOFrame.encode(NIOFrame.OBJECT, NIOFrame.serialize(result));
+		synchronized (outputLock) {
+			if (outputClosed)
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			outputQueue.addFirst(buf);
+			handshakeComplete = true;
+		}
+		scheduleFlush();
+		fireConnectEvent(result.getData());
+	}
+
+	// Event loop callbacks
+
+	public void handleSelect(SelectionKey k) throws IOException {
+		key = k;
+		if (k.isReadable())
+			doRead();
+		if (k.isValid() && k.isWritable())
+			doWrite();
+	}
+
+	public void handleSelectException(Throwable t) {
+		final boolean closedLocally;
+		synchronized (outputLock) {
+			closedLocally = outputClosed;
+		}
+		closeChannel();
+		// Failures caused by our own close are not reported
+		remoteCloseException = closedLocally ? null : t;
+		remoteClosed = true;
+		scheduleDispatch();
+	}
+
+	private void doRead() throws IOException {
+		final int n = channel.read(readBuffer);
+		if (n < 0)
+			throw new EOFException("Connection closed by remote " + getAddressPort()); //$NON-NLS-1$
+		readBuffer.flip();
+		for (;;) {
+			if (framePayload == null) {
+				if (readBuffer.remaining() < NIOFrame.HEADER_LENGTH)
+					break;
+				final int length = readBuffer.getInt();
+				NIOFrame.checkLength(length);
+				frameType = readBuffer.get();
+				framePayload = (length == 0) ? NIOFrame.EMPTY : new byte[length];
+				framePosition = 0;
+			}
+			final int count = Math.min(readBuffer.remaining(), framePayload.length - framePosition);
+			readBuffer.get(framePayload, framePosition, count);
+			framePosition += count;
+			if (framePosition < framePayload.length)
+				break;
+			final byte[] payload = framePayload;
+			framePayload = null;
+			handleFrame(new NIOFrame(frameType, payload));
+		}
+		readBuffer.compact();
+	}
+
+	private void handleFrame(NIOFrame frame) throws IOException {
+		switch (frame.type) {
+			case NIOFrame.PING :
+				enqueue(NIOFrame.encode(NIOFrame.PING_RESPONSE, NIOFrame.EMPTY));
+				break;
+			case NIOFrame.PING_RESPONSE :
+				waitForPing = false;
+				break;
+			default :
+				final INIOConnectRequestHandler h = connectRequestHandler;
+				if (h != null) {
+					connectRequestHandler = null;
+					handleConnectRequest(h, frame);
+				} else {
+					inputQueue.add(frame);
+					if (started)
+						scheduleDispatch();
+				}
+		}
+	}
+
+	private void handleConnectRequest(final INIOConnectRequestHandler h, final NIOFrame frame) {
+		group.getDispatchExecutor().execute(new Runnable() {
+			public void run() {
+				try {
+					if (frame.type != NIOFrame.OBJECT)
+						throw new InvalidObjectException("Invalid connect request frame type=" + frame.type); //$NON-NLS-1$
+					final Serializable req = NIOFrame.deserialize(frame.payload);
+					if (!(req instanceof ConnectRequestMessage))
+						throw new InvalidObjectException("Invalid connect request=" + req); //$NON-NLS-1$
+					sendConnectResult(h.handleConnectRequest(NIOClient.this, (ConnectRequestMessage) req));
+				} catch (final Exception e) {
+					traceStack("Unexpected exception in handleConnectRequest...closing", e); //$NON-NLS-1$
+					closeChannel();
+				}
+			}
+		});
+	}
+
+	private void doWrite() throws IOException {
+		synchronized (outputLock) {
+			if (channel == null || !channel.isOpen())
+				return;
+			ByteBuffer buf;
+			while ((buf = outputQueue.peek()) != null) {
+				channel.write(buf);
+				if (buf.hasRemaining()) {
+					// Socket send buffer is full.  Wait for OP_WRITE
+					setWriteInterest(true);
+					return;
+				}
+				outputQueue.poll();
+			}
+			writeScheduled = false;
+			setWriteInterest(false);
+		}
+	}
+
+	private void setWriteInterest(boolean write) {
+		SelectionKey k = key;
+		if (k == null)
+			k = key = loop.keyFor(channel);
+		if (k == null || !k.isValid())
+			return;
+		final int ops = k.interestOps();
+		if (write)
+			k.interestOps(ops | SelectionKey.OP_WRITE);
+		else
+			k.interestOps(ops & ~SelectionKey.OP_WRITE);
+	}
+
+	// Outbound
+
+	private void enqueue(ByteBuffer buf) throws IOException {
+		synchronized (outputLock) {
+			if (outputClosed)
+				throw new ConnectException("Not connected"); //$NON-NLS-1$
+			outputQueue.add(buf);
+			if (!handshakeComplete || writeScheduled)
+				return;
+			writeScheduled = true;
+		}
+		loop.execute(flushTask);
+	}
+
+	private void scheduleFlush() {
+		synchronized (outputLock) {
+			if (writeScheduled || outputQueue.isEmpty())
+				return;
+			writeScheduled = true;
+		}
+		loop.execute(flushTask);
+	}
+
+	public void sendAsynch(ID recipient, byte[] obj) throws IOException {
+		queueObject(recipient, obj);
+	}
+
+	public void sendAsynch(ID recipient, Object obj) throws IOException {
+		queueObject(recipient, (Serializable) obj);
+	}
+
+	public synchronized void queueObject(ID recipient, Serializable obj) throws IOException {
+		if (outputClosed || isClosing)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		if (obj instanceof byte[])
+			enqueue(NIOFrame.encode(NIOFrame.ASYNCH, (byte[]) obj));
+		else
+			enqueue(NIOFrame.encode(NIOFrame.OBJECT, NIOFrame.serialize(new AsynchMessage(obj))));
+	}
+
+	public synchronized Serializable sendObject(ID recipient, Serializable obj) throws IOException {
+		if (outputClosed || isClosing)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		sendClose(obj);
+		return null;
+	}
+
+	public Object sendSynch(ID rec, Object obj) throws IOException {
+		return sendObject(rec, (Serializable) obj);
+	}
+
+	public Object sendSynch(ID rec, byte[] obj) throws IOException {
+		return sendObject(rec, obj);
+	}
+
+	public void setCloseTimeout(long t) {
+		closeTimeout = t;
+	}
+
+	private void sendClose(Serializable snd) throws IOException {
+		isClosing = true;
+		debug("sendClose(" + snd + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (snd instanceof byte[])
+			enqueue(NIOFrame.encode(NIOFrame.SYNCH, (byte[]) snd));
+		else
+			enqueue(NIOFrame.encode(NIOFrame.OBJECT, NIOFrame.serialize(new SynchMessage(snd))));
+		// Wait for remote to close connection (or timeout)
+		final long end = System.currentTimeMillis() + closeTimeout;
+		long remaining = closeTimeout;
+		while (!disconnectHandled && remaining > 0) {
+			try {
+				wait(remaining);
+			} catch (final InterruptedException e) {
+				traceStack("sendClose wait", e); //$NON-NLS-1$
+				return;
+			}
+			remaining = end - System.currentTimeMillis();
+		}
+	}
+
+	// Inbound delivery
+
+	private void scheduleDispatch() {
+		if (dispatchScheduled.compareAndSet(false, true)) {
+			try {
+				group.getDispatchExecutor().execute(dispatchTask);
+			} catch (final RejectedExecutionException e) {
+				dispatchScheduled.set(false);
+				traceStack("dispatch rejected", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	void dispatch() {
+		try {
+			if (started) {
+				NIOFrame frame;
+				int count = 0;
+				while (count++ < DEFAULT_DISPATCH_BATCH && (frame = inputQueue.poll()) != null)
+					handleRcv(frame);
+			}
+		} catch (final Exception e) {
+			dispatchScheduled.set(false);
+			handleException(e);
+			return;
+		}
+		dispatchScheduled.set(false);
+		if (!started)
+			// Delivered by start(), if it is ever called
+			return;
+		if (!inputQueue.isEmpty())
+			scheduleDispatch();
+		else if (remoteClosed)
+			handleException(remoteCloseException);
+	}
+
+	void handleRcv(NIOFrame frame) throws IOException {
+		try {
+			switch (frame.type) {
+				case NIOFrame.ASYNCH :
+					handler.handleAsynchEvent(new AsynchEvent(this, frame.payload));
+					break;
+				case NIOFrame.SYNCH :
+					handler.handleSynchEvent(new SynchEvent(this, frame.payload));
+					break;
+				case NIOFrame.OBJECT :
+					final Serializable rcv = NIOFrame.deserialize(frame.payload);
+					if (rcv instanceof SynchMessage)
+						handler.handleSynchEvent(new SynchEvent(this, ((SynchMessage) rcv).getData()));
+					else if (rcv instanceof AsynchMessage)
+						handler.handleAsynchEvent(new AsynchEvent(this, ((AsynchMessage) rcv).getData()));
+					else
+						throw new IOException("Invalid message received"); //$NON-NLS-1$
+					break;
+				default :
+					throw new IOException("Invalid frame type received=" + frame.type); //$NON-NLS-1$
+			}
+		} catch (final IOException e) {
+			disconnect();
+			throw e;
+		}
+	}
+
+	void handleException(Throwable e) {
+		synchronized (disconnectLock) {
+			if (!disconnectHandled) {
+				disconnectHandled = true;
+				if (e != null)
+					traceStack("handleException in thread=" //$NON-NLS-1$
+							+ Thread.currentThread().getName(), e);
+				cancelKeepAlive();
+				closeChannel();
+				if (handler != null)
+					handler.handleDisconnectEvent(new DisconnectEvent(this, e, null));
+				fireDisconnectEvent(e);
+			}
+		}
+		synchronized (this) {
+			notifyAll();
+		}
+	}
+
+	// Lifecycle
+
+	public synchronized void start() {
+		debug("start()"); //$NON-NLS-1$
+		if (started)
+			return;
+		started = true;
+		if (keepAlive > 0)
+			setupPing();
+		if (!inputQueue.isEmpty() || remoteClosed)
+			scheduleDispatch();
+	}
+
+	public void stop() {
+		debug("stop()"); //$NON-NLS-1$
+	}
+
+	private void setupPing() {
+		debug("setupPing()"); //$NON-NLS-1$
+		// Ping frequency is keepAlive / 2, starting after a random interval
+		final int frequency = Math.max(1, keepAlive / 2);
+		final int pingStartWait = (new SecureRandom()).nextInt(frequency);
+		keepAliveFuture = group.getTimer().scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				ping();
+			}
+		}, pingStartWait + frequency, frequency, TimeUnit.MILLISECONDS);
+	}
+
+	void ping() {
+		if (disconnectHandled) {
+			cancelKeepAlive();
+			return;
+		}
+		// If we haven't received a response to the last ping, then we assume
+		// the remote is not reachable
+		if (waitForPing) {
+			final IOException e = new IOException(getAddressPort() + " remote not reachable by ping"); //$NON-NLS-1$
+			closeChannel();
+			group.getDispatchExecutor().execute(new Runnable() {
+				public void run() {
+					handleException(e);
+				}
+			});
+			return;
+		}
+		waitForPing = true;
+		try {
+			enqueue(NIOFrame.encode(NIOFrame.PING, NIOFrame.EMPTY));
+		} catch (final IOException e) {
+			cancelKeepAlive();
+		}
+	}
+
+	private synchronized void cancelKeepAlive() {
+		if (keepAliveFuture != null) {
+			keepAliveFuture.cancel(false);
+			keepAliveFuture = null;
+		}
+	}
+
+	private void closeChannel() {
+		synchronized (outputLock) {
+			outputClosed = true;
+			outputQueue.clear();
+		}
+		closeQuietly(channel);
+	}
+
+	private void closeQuietly(SocketChannel ch) {
+		if (ch == null)
+			return;
+		try {
+			ch.close();
+		} catch (final IOException e) {
+			traceStack("closeChannel Exception", e); //$NON-NLS-1$
+		}
+	}
+
+	public synchronized void disconnect() {
+		debug("disconnect()"); //$NON-NLS-1$
+		cancelKeepAlive();
+		closeChannel();
+		// Like the Client sender thread, report the disconnect asynchronously
+		if (!disconnectHandled) {
+			try {
+				group.getDispatchExecutor().execute(new Runnable() {
+					public void run() {
+						handleException(null);
+					}
+				});
+			} catch (final RejectedExecutionException e) {
+				// group shut down
+			}
+		}
+		// Notify any threads waiting to get hold of our lock
+		notifyAll();
+	}
+
+	public Map getProperties() {
+		return properties;
+	}
+
+	private String[] getOfferedCodecs() {
+		final Object codecs = properties.get(ConnectRequestMessage.CODECS_PROPERTY);
+		return (codecs instanceof String[]) ? (String[]) codecs : null;
+	}
+
+	public void setProperties(Map props) {
+		this.properties = props;
+	}
+
+	public Object getAdapter(Class clazz) {
+		return null;
+	}
+
+	String getAddressPort() {
+		return addressPort;
+	}
+
+	public String toString() {
+		return "NIOClient[" + getAddressPort() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, getLocalID() + "." + msg); //$NON-NLS-1$
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOClient.class, msg, e);
+	}
+}
@@ -0,0 +1,138 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp.nio;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * A single selector thread.  All channel registration and interest changes
+ * are run on the loop thread via {@link #execute(Runnable)}.
+ * 
+ * @since 4.10
+ */
+public class NIOEventLoop implements Runnable {
+
+	private final Selector selector;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	NIOEventLoop(ThreadGroup threadGroup, String name) throws IOException {
+		selector = Selector.open();
+		thread = new Thread(threadGroup, this, name);
+		thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	public boolean inEventLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	public void execute(Runnable task) {
+		tasks.add(task);
+		if (!inEventLoop())
+			selector.wakeup();
+	}
+
+	void register(final SelectableChannel channel, final int ops, final INIOSelectHandler handler) {
+		execute(new Runnable() {
+			public void run() {
+				try {
+					channel.register(selector, ops, handler);
+				} catch (final IOException e) {
+					handler.handleSelectException(e);
+				}
+			}
+		});
+	}
+
+	SelectionKey keyFor(SelectableChannel channel) {
+		return (channel == null) ? null : channel.keyFor(selector);
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (final Throwable t) {
+				traceStack("Exception in event loop task", t); //$NON-NLS-1$
+			}
+		}
+	}
+
+	public void run() {
+		while (running) {
+			try {
+				runTasks();
+				selector.select();
+				final Iterator<SelectionKey> i = selector.selectedKeys().iterator();
+				while (i.hasNext()) {
+					final SelectionKey key = i.next();
+					i.remove();
+					final INIOSelectHandler handler = (INIOSelectHandler) key.attachment();
+					if (!key.isValid())
+						continue;
+					try {
+						handler.handleSelect(key);
+					} catch (final CancelledKeyException e) {
+						// channel closed by another thread
+					} catch (final Throwable t) {
+						handler.handleSelectException(t);
+					}
+				}
+			} catch (final ClosedSelectorException e) {
+				break;
+			} catch (final IOException e) {
+				traceStack("Exception in select", e); //$NON-NLS-1$
+			}
+		}
+		runTasks();
+		for (final SelectionKey key : selector.keys()) {
+			try {
+				key.channel().close();
+			} catch (final IOException e) {
+				traceStack("Exception closing channel", e); //$NON-NLS-1$
+			}
+		}
+		try {
+			selector.close();
+		} catch (final IOException e) {
+			traceStack("Exception closing selector", e); //$NON-NLS-1$
+		}
+		debug("EVENT LOOP TERMINATING"); //$NON-NLS-1$
+	}
+
+	void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, thread.getName() + "." + msg); //$NON-NLS-1$
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOEventLoop.class, msg, e);
+	}
+}
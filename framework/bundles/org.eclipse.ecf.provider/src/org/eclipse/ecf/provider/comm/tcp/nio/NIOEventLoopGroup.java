@@ -0,0 +1,126 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp.nio;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of {@link NIOEventLoop}s plus a bounded pool of dispatch
+ * threads and one timer thread, shared by all {@link NIOClient} and
+ * {@link NIOServer} instances created with it.  The number of threads does not
+ * depend on the number of connections.
+ * 
+ * @since 4.10
+ */
+public class NIOEventLoopGroup {
+
+	public static final int DEFAULT_LOOPS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.loops", String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)))); //$NON-NLS-1$
+
+	public static final int DEFAULT_DISPATCHERS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.dispatchers", String.valueOf(Runtime.getRuntime().availableProcessors() * 2))); //$NON-NLS-1$
+
+	public static final String DEFAULT_GROUP_NAME = "ECF NIO"; //$NON-NLS-1$
+
+	private static NIOEventLoopGroup defaultGroup;
+
+	private final String name;
+	private final ThreadGroup threadGroup;
+	private final NIOEventLoop[] loops;
+	private final AtomicInteger nextLoop = new AtomicInteger();
+	private final ThreadPoolExecutor dispatchExecutor;
+	private final ScheduledThreadPoolExecutor timer;
+	private volatile boolean shutdown = false;
+
+	public static synchronized NIOEventLoopGroup getDefault() throws IOException {
+		if (defaultGroup == null || defaultGroup.isShutdown())
+			defaultGroup = new NIOEventLoopGroup(DEFAULT_GROUP_NAME, DEFAULT_LOOPS, DEFAULT_DISPATCHERS);
+		return defaultGroup;
+	}
+
+	public NIOEventLoopGroup(String name, int loopCount, int dispatcherCount) throws IOException {
+		if (loopCount < 1 || dispatcherCount < 1)
+			throw new IllegalArgumentException("loopCount and dispatcherCount must be > 0"); //$NON-NLS-1$
+		this.name = name;
+		this.threadGroup = new ThreadGroup(name);
+		this.loops = new NIOEventLoop[loopCount];
+		try {
+			for (int i = 0; i < loopCount; i++)
+				loops[i] = new NIOEventLoop(threadGroup, name + ":loop:" + i); //$NON-NLS-1$
+		} catch (final IOException e) {
+			for (int i = 0; i < loopCount; i++)
+				if (loops[i] != null)
+					loops[i].shutdown();
+			throw e;
+		}
+		for (int i = 0; i < loopCount; i++)
+			loops[i].start();
+		this.dispatchExecutor = new ThreadPoolExecutor(dispatcherCount, dispatcherCount, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), createThreadFactory(":dispatch:")); //$NON-NLS-1$
+		this.dispatchExecutor.allowCoreThreadTimeOut(true);
+		this.timer = new ScheduledThreadPoolExecutor(1, createThreadFactory(":timer:")); //$NON-NLS-1$
+		this.timer.setRemoveOnCancelPolicy(true);
+	}
+
+	private ThreadFactory createThreadFactory(final String kind) {
+		return new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				final Thread t = new Thread(threadGroup, r, name + kind + count.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * @return NIOEventLoop the next event loop to assign a channel to (round robin)
+	 */
+	public NIOEventLoop next() {
+		return loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+	}
+
+	/**
+	 * @return Executor used to deliver received messages to connection event handlers
+	 */
+	public Executor getDispatchExecutor() {
+		return dispatchExecutor;
+	}
+
+	/**
+	 * @return ScheduledExecutorService used for keep alive and close timeouts
+	 */
+	public ScheduledExecutorService getTimer() {
+		return timer;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	public void shutdown() {
+		shutdown = true;
+		for (int i = 0; i < loops.length; i++)
+			loops[i].shutdown();
+		dispatchExecutor.shutdown();
+		timer.shutdownNow();
+	}
+
+	public String toString() {
+		return "NIOEventLoopGroup[" + name + ";loops=" + loops.length + ";dispatchers=" + dispatchExecutor.getMaximumPoolSize() + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
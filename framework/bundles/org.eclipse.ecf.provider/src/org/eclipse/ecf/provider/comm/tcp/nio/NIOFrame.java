@@ -0,0 +1,84 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp.nio;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * Framing used by {@link NIOClient}.  Every frame on the wire is a four byte
+ * big-endian payload length, a one byte frame type and the payload bytes.
+ * Asynch and synch frames carry the raw byte[] handed to the connection, so
+ * the container message is not wrapped in another Java serialization stream.
+ */
+final class NIOFrame {
+
+	/**
+	 * Java serialized {@link org.eclipse.ecf.provider.comm.tcp.ConnectRequestMessage},
+	 * {@link org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage} or non-byte[]
+	 * asynch/synch message
+	 */
+	static final byte OBJECT = 0;
+	static final byte ASYNCH = 1;
+	static final byte SYNCH = 2;
+	static final byte PING = 3;
+	static final byte PING_RESPONSE = 4;
+
+	static final int HEADER_LENGTH = 5;
+
+	static final int MAX_PAYLOAD_LENGTH = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.comm.tcp.nio.maxframe", "67108864")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	static final byte[] EMPTY = new byte[0];
+
+	final byte type;
+	final byte[] payload;
+
+	NIOFrame(byte type, byte[] payload) {
+		this.type = type;
+		this.payload = payload;
+	}
+
+	static ByteBuffer encode(byte type, byte[] payload) {
+		final ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+		buf.putInt(payload.length);
+		buf.put(type);
+		buf.put(payload);
+		buf.flip();
+		return buf;
+	}
+
+	static void checkLength(int length) throws IOException {
+		if (length < 0 || length > MAX_PAYLOAD_LENGTH)
+			throw new IOException("Invalid frame length=" + length); //$NON-NLS-1$
+	}
+
+	static byte[] serialize(Serializable obj) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(obj);
+		oos.close();
+		return bos.toByteArray();
+	}
+
+	static Serializable deserialize(byte[] bytes) throws IOException {
+		final ObjectInputStream ois = ProviderPlugin.getDefault().createObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return (Serializable) ois.readObject();
+		} catch (final ClassNotFoundException e) {
+			final IOException except = new IOException("Protocol violation due to class load failure"); //$NON-NLS-1$
+			except.setStackTrace(e.getStackTrace());
+			throw except;
+		}
+	}
+}
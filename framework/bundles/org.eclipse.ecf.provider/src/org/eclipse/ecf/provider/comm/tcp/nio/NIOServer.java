@@ -0,0 +1,98 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.comm.tcp.nio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.tcp.Server;
+
+/**
+ * Non-blocking listener.  Accepted channels are spread over the loops of the
+ * {@link NIOEventLoopGroup} as {@link NIOClient} connections, rather than each
+ * getting its own thread as with {@link Server}.
+ * 
+ * @since 4.10
+ */
+public class NIOServer implements INIOSelectHandler {
+
+	private final NIOEventLoopGroup group;
+	private final ServerSocketChannel serverChannel;
+	private final INIOConnectRequestHandler handler;
+	private final int keepAlive;
+
+	public NIOServer(NIOEventLoopGroup group, int port, int backlog, InetAddress bindAddress, INIOConnectRequestHandler handler, int keepAlive) throws IOException {
+		if (group == null)
+			throw new NullPointerException("event loop group cannot be null"); //$NON-NLS-1$
+		if (handler == null)
+			throw new NullPointerException("connect request handler cannot be null"); //$NON-NLS-1$
+		this.group = group;
+		this.handler = handler;
+		this.keepAlive = keepAlive;
+		serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.socket().bind((bindAddress == null) ? new InetSocketAddress(port) : new InetSocketAddress(bindAddress, port), backlog);
+			serverChannel.configureBlocking(false);
+		} catch (final IOException e) {
+			serverChannel.close();
+			throw e;
+		}
+		group.next().register(serverChannel, SelectionKey.OP_ACCEPT, this);
+	}
+
+	public NIOServer(NIOEventLoopGroup group, int port, INIOConnectRequestHandler handler, int keepAlive) throws IOException {
+		this(group, port, Server.DEFAULT_BACKLOG, null, handler, keepAlive);
+	}
+
+	public void handleSelect(SelectionKey key) throws IOException {
+		SocketChannel ch;
+		while ((ch = serverChannel.accept()) != null) {
+			try {
+				ch.configureBlocking(false);
+				ch.socket().setTcpNoDelay(true);
+				if (keepAlive > 0)
+					ch.socket().setKeepAlive(true);
+			} catch (final IOException e) {
+				traceStack("Exception configuring accepted channel", e); //$NON-NLS-1$
+				ch.close();
+				continue;
+			}
+			debug("accepted " + ch); //$NON-NLS-1$
+			new NIOClient(group, ch, handler, keepAlive).register();
+		}
+	}
+
+	public void handleSelectException(Throwable t) {
+		traceStack("Exception in accept", t); //$NON-NLS-1$
+	}
+
+	public int getLocalPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	public void close() throws IOException {
+		serverChannel.close();
+	}
+
+	protected void debug(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.CONNECTION, msg);
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOServer.class, msg, e);
+	}
+}
@@ -0,0 +1,580 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.ecf.core.identity.*;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * Length-prefixed binary encoding of the fixed {@link ContainerMessage}
+ * types.  Only the application data carried by a message (e.g. join data or
+ * a non-byte[] shared object message payload) is Java serialized.
+ * <p>
+ * IDs of the identity bundle's own namespaces are written as a namespace token
+ * and external form, an ID repeated within one message (e.g. container and
+ * shared object ID being the same) is written as a back reference, and decoded
+ * IDs are interned so that the same ID instance is reused for every message
+ * from a peer.  Other IDs are Java serialized.
+ * 
+ * @since 4.10
+ */
+public class BinaryContainerMessageCodec implements IContainerMessageCodec {
+
+	public static final String NAME = "ecf.binary.1"; //$NON-NLS-1$
+
+	// Java serialization streams start with 0xAC
+	static final byte MAGIC = (byte) 0xEC;
+	static final byte VERSION = 1;
+
+	// Message types
+	static final byte OTHER = 0;
+	static final byte VIEW_CHANGE = 1;
+	static final byte JOIN_GROUP = 2;
+	static final byte LEAVE_GROUP = 3;
+	static final byte CREATE = 4;
+	static final byte CREATE_RESPONSE = 5;
+	static final byte SHARED_OBJECT = 6;
+	static final byte SHARED_OBJECT_DISPOSE = 7;
+
+	// Data tags
+	static final byte DATA_NULL = 0;
+	static final byte DATA_BYTES = 1;
+	static final byte DATA_STRING = 2;
+	static final byte DATA_OBJECT = 3;
+
+	// ID tags
+	static final byte ID_NULL = 0;
+	static final byte ID_REF = 1;
+	static final byte ID_EXTERNAL = 2;
+	static final byte ID_OBJECT = 3;
+
+	// Namespace tokens for ID_EXTERNAL.  The index into this array is written
+	// instead of the namespace name.  Entries must only ever be appended.
+	static final String[] NAMESPACES = {StringID.class.getName(), GUID.class.getName(), LongID.class.getName(), URIID.class.getName()};
+
+	static final int MAX_INTERNED_IDS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.generic.codec.maxinternedids", "8192")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final ConcurrentHashMap<String, ID> internedIDs = new ConcurrentHashMap<String, ID>();
+
+	public String getName() {
+		return NAME;
+	}
+
+	public boolean isEncoding(byte[] bytes) {
+		return bytes.length > 1 && bytes[0] == MAGIC && bytes[1] == VERSION;
+	}
+
+	public byte[] encode(ContainerMessage message) throws IOException {
+		// Subclasses of ContainerMessage may carry state we do not know about
+		if (message.getClass() != ContainerMessage.class)
+			return SOContainer.serialize(message);
+		final Serializable data = message.getData();
+		final Encoder out = Encoder.acquire();
+		try {
+			return encode(out, message, data);
+		} finally {
+			out.release();
+		}
+	}
+
+	private byte[] encode(Encoder out, ContainerMessage message, Serializable data) throws IOException {
+		out.writeByte(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(getType(data));
+		out.writeVarLong(message.getSequence());
+		out.writeID(message.getFromContainerID());
+		out.writeID(message.getToContainerID());
+		writeBody(out, data);
+		return out.toByteArray();
+	}
+
+	private void writeBody(Encoder out, Serializable data) throws IOException {
+		if (data instanceof ContainerMessage.SharedObjectMessage) {
+			final ContainerMessage.SharedObjectMessage m = (ContainerMessage.SharedObjectMessage) data;
+			// Size for the payload up front rather than growing through it
+			if (m.getData() instanceof byte[])
+				out.ensureCapacity(out.size() + 64 + ((byte[]) m.getData()).length);
+			out.writeID(m.getFromSharedObjectID());
+			out.writeData(m.getData());
+		} else if (data instanceof ContainerMessage.ViewChangeMessage) {
+			final ContainerMessage.ViewChangeMessage m = (ContainerMessage.ViewChangeMessage) data;
+			out.writeBoolean(m.isAdd());
+			final ID[] ids = m.getChangeIDs();
+			if (ids == null)
+				out.writeVarInt(0);
+			else {
+				out.writeVarInt(ids.length + 1);
+				for (int i = 0; i < ids.length; i++)
+					out.writeID(ids[i]);
+			}
+			out.writeData(m.getData());
+		} else if (data instanceof ContainerMessage.JoinGroupMessage)
+			out.writeData(((ContainerMessage.JoinGroupMessage) data).getData());
+		else if (data instanceof ContainerMessage.LeaveGroupMessage)
+			out.writeData(((ContainerMessage.LeaveGroupMessage) data).getData());
+		else if (data instanceof ContainerMessage.CreateMessage)
+			out.writeData(((ContainerMessage.CreateMessage) data).getData());
+		else if (data instanceof ContainerMessage.CreateResponseMessage) {
+			final ContainerMessage.CreateResponseMessage m = (ContainerMessage.CreateResponseMessage) data;
+			out.writeID(m.getSharedObjectID());
+			out.writeData(m.getException());
+			out.writeLong(m.getSequence());
+		} else if (data instanceof ContainerMessage.SharedObjectDisposeMessage)
+			out.writeID(((ContainerMessage.SharedObjectDisposeMessage) data).getSharedObjectID());
+		else
+			out.writeData(data);
+	}
+
+	/**
+	 * Encodes all of a message but its sequence and receiver once, for
+	 * {@link #encode(SharedEncoding, ID, long)} to send it to many receivers.
+	 * @param message the message to encode.  Its sequence and receiver are ignored.
+	 * @param toReceivers <code>true</code> if every copy will be sent with a
+	 * receiver ID, <code>false</code> if none will
+	 * @return SharedEncoding the shared encoding, or <code>null</code> if the
+	 * message cannot be encoded in parts
+	 * @throws IOException if the message cannot be encoded
+	 */
+	SharedEncoding encodeShared(ContainerMessage message, boolean toReceivers) throws IOException {
+		if (message.getClass() != ContainerMessage.class)
+			return null;
+		final ID from = message.getFromContainerID();
+		final Serializable data = message.getData();
+		final Encoder out = Encoder.acquire();
+		try {
+			out.writeID(from);
+			final byte[] fromBytes = out.toByteArray();
+			// Leave the slot a receiver ID takes in the header's back
+			// references, so the body refers to the same indices in every copy
+			if (toReceivers)
+				out.ids.add(null);
+			out.reset();
+			writeBody(out, data);
+			return new SharedEncoding(getType(data), from, fromBytes, toReceivers, out.toByteArray(), data);
+		} finally {
+			out.release();
+		}
+	}
+
+	/**
+	 * @param shared a message encoded by {@link #encodeShared(ContainerMessage, boolean)}
+	 * @param to the receiver of this copy
+	 * @param sequence the sequence of this copy
+	 * @return byte[] the encoded message, decoded as if the whole message had
+	 * been passed to {@link #encode(ContainerMessage)}
+	 * @throws IOException if the message cannot be encoded
+	 */
+	byte[] encode(SharedEncoding shared, ID to, long sequence) throws IOException {
+		// A receiver that is absent where a slot was left, or is written as a
+		// back reference to the sender, would shift the body's references
+		if ((to != null) != shared.toReceivers || (to != null && to.equals(shared.from)))
+			return encode(new ContainerMessage(shared.from, to, sequence, shared.data));
+		final Encoder out = Encoder.acquire();
+		try {
+			out.writeByte(MAGIC);
+			out.writeByte(VERSION);
+			out.writeByte(shared.type);
+			out.writeVarLong(sequence);
+			out.write(shared.fromBytes, 0, shared.fromBytes.length);
+			out.writeID(to);
+			return out.toByteArray(shared.body);
+		} finally {
+			out.release();
+		}
+	}
+
+	private byte getType(Serializable data) {
+		if (data instanceof ContainerMessage.SharedObjectMessage)
+			return SHARED_OBJECT;
+		if (data instanceof ContainerMessage.ViewChangeMessage)
+			return VIEW_CHANGE;
+		if (data instanceof ContainerMessage.JoinGroupMessage)
+			return JOIN_GROUP;
+		if (data instanceof ContainerMessage.LeaveGroupMessage)
+			return LEAVE_GROUP;
+		if (data instanceof ContainerMessage.CreateMessage)
+			return CREATE;
+		if (data instanceof ContainerMessage.CreateResponseMessage)
+			return CREATE_RESPONSE;
+		if (data instanceof ContainerMessage.SharedObjectDisposeMessage)
+			return SHARED_OBJECT_DISPOSE;
+		return OTHER;
+	}
+
+	public ContainerMessage decode(byte[] bytes) throws IOException {
+		final Decoder in = new Decoder(bytes);
+		if (in.readByte() != MAGIC || in.readByte() != VERSION)
+			throw new InvalidObjectException("Not a " + NAME + " container message"); //$NON-NLS-1$ //$NON-NLS-2$
+		final byte type = in.readByte();
+		final long sequence = in.readVarLong();
+		final ID from = in.readID();
+		final ID to = in.readID();
+		Serializable data;
+		switch (type) {
+			case SHARED_OBJECT :
+				final ID fromSharedObject = in.readID();
+				data = new ContainerMessage.SharedObjectMessage(fromSharedObject, in.readData());
+				break;
+			case VIEW_CHANGE :
+				final boolean add = in.readBoolean();
+				final int count = in.readVarInt() - 1;
+				ID[] ids = null;
+				if (count >= 0) {
+					ids = new ID[count];
+					for (int i = 0; i < count; i++)
+						ids[i] = in.readID();
+				}
+				data = new ContainerMessage.ViewChangeMessage(ids, add, in.readData());
+				break;
+			case JOIN_GROUP :
+				data = new ContainerMessage.JoinGroupMessage(in.readData());
+				break;
+			case LEAVE_GROUP :
+				data = new ContainerMessage.LeaveGroupMessage(in.readData());
+				break;
+			case CREATE :
+				data = new ContainerMessage.CreateMessage(in.readData());
+				break;
+			case CREATE_RESPONSE :
+				final ID sharedObjectID = in.readID();
+				final Serializable exception = in.readData();
+				if (exception != null && !(exception instanceof Throwable))
+					throw new InvalidObjectException("Invalid create response exception"); //$NON-NLS-1$
+				data = new ContainerMessage.CreateResponseMessage(sharedObjectID, (Throwable) exception, in.readLong());
+				break;
+			case SHARED_OBJECT_DISPOSE :
+				data = new ContainerMessage.SharedObjectDisposeMessage(in.readID());
+				break;
+			case OTHER :
+				data = in.readData();
+				break;
+			default :
+				throw new InvalidObjectException("Invalid container message type=" + type); //$NON-NLS-1$
+		}
+		if (in.available() != 0)
+			throw new InvalidObjectException("Unexpected bytes after container message"); //$NON-NLS-1$
+		return new ContainerMessage(from, to, sequence, data);
+	}
+
+	ID internID(int namespace, String externalForm) throws IOException {
+		final String key = namespace + externalForm;
+		ID id = internedIDs.get(key);
+		if (id == null) {
+			try {
+				id = IDFactory.getDefault().createID(NAMESPACES[namespace], new Object[] {externalForm});
+			} catch (final IDCreateException e) {
+				final IOException ioe = new InvalidObjectException("Cannot create ID from " + externalForm); //$NON-NLS-1$
+				ioe.initCause(e);
+				throw ioe;
+			}
+			// Simple bound for long running servers with many transient peers
+			if (internedIDs.size() >= MAX_INTERNED_IDS)
+				internedIDs.clear();
+			internedIDs.put(key, id);
+		}
+		return id;
+	}
+
+	static int getNamespaceToken(ID id) {
+		final Class<?> c = id.getClass();
+		// Only exact classes in their default namespace are known to be
+		// re-created from their external form
+		int token = -1;
+		if (c == StringID.class)
+			token = 0;
+		else if (c == GUID.class)
+			token = 1;
+		else if (c == LongID.class)
+			token = 2;
+		else if (c == URIID.class)
+			token = 3;
+		if (token < 0)
+			return -1;
+		final Namespace ns = id.getNamespace();
+		return (ns != null && NAMESPACES[token].equals(ns.getName())) ? token : -1;
+	}
+
+	/**
+	 * A message encoded once for many receivers.  The byte arrays are never
+	 * modified after construction.
+	 */
+	static final class SharedEncoding {
+		final byte type;
+		final ID from;
+		final byte[] fromBytes;
+		final boolean toReceivers;
+		final byte[] body;
+		final Serializable data;
+
+		SharedEncoding(byte type, ID from, byte[] fromBytes, boolean toReceivers, byte[] body, Serializable data) {
+			this.type = type;
+			this.from = from;
+			this.fromBytes = fromBytes;
+			this.toReceivers = toReceivers;
+			this.body = body;
+			this.data = data;
+		}
+	}
+
+	static final class Encoder extends ByteArrayOutputStream {
+		private static final int MAX_RETAINED = 65536;
+		private static final ThreadLocal<Encoder> local = new ThreadLocal<Encoder>();
+
+		private final List<ID> ids = new ArrayList<ID>(4);
+		private boolean inUse;
+
+		Encoder() {
+			super(128);
+		}
+
+		/**
+		 * @return this thread's Encoder if not in use, otherwise a new one
+		 */
+		static Encoder acquire() {
+			Encoder e = local.get();
+			if (e == null) {
+				e = new Encoder();
+				local.set(e);
+			} else if (e.inUse)
+				return new Encoder();
+			e.inUse = true;
+			return e;
+		}
+
+		void ensureCapacity(int capacity) {
+			if (buf.length < capacity)
+				buf = Arrays.copyOf(buf, capacity);
+		}
+
+		/**
+		 * @param tail bytes to append
+		 * @return byte[] the bytes written followed by tail, copied once
+		 */
+		byte[] toByteArray(byte[] tail) {
+			final byte[] result = new byte[count + tail.length];
+			System.arraycopy(buf, 0, result, 0, count);
+			System.arraycopy(tail, 0, result, count, tail.length);
+			return result;
+		}
+
+		void release() {
+			inUse = false;
+			ids.clear();
+			if (buf.length > MAX_RETAINED)
+				buf = new byte[128];
+			count = 0;
+		}
+
+		void writeByte(int b) {
+			write(b);
+		}
+
+		void writeBoolean(boolean b) {
+			write(b ? 1 : 0);
+		}
+
+		void writeVarInt(int v) {
+			writeVarLong(v & 0xFFFFFFFFL);
+		}
+
+		void writeVarLong(long v) {
+			while ((v & ~0x7FL) != 0) {
+				write((int) ((v & 0x7F) | 0x80));
+				v >>>= 7;
+			}
+			write((int) v);
+		}
+
+		void writeLong(long v) {
+			for (int shift = 56; shift >= 0; shift -= 8)
+				write((int) (v >>> shift));
+		}
+
+		void writeLengthPrefixed(byte[] b) {
+			writeVarInt(b.length);
+			write(b, 0, b.length);
+		}
+
+		void writeString(String s) {
+			writeLengthPrefixed(s.getBytes(StandardCharsets.UTF_8));
+		}
+
+		void writeID(ID id) throws IOException {
+			if (id == null) {
+				write(ID_NULL);
+				return;
+			}
+			for (int i = 0; i < ids.size(); i++) {
+				if (id.equals(ids.get(i))) {
+					write(ID_REF);
+					writeVarInt(i);
+					return;
+				}
+			}
+			ids.add(id);
+			final int namespace = getNamespaceToken(id);
+			if (namespace >= 0) {
+				write(ID_EXTERNAL);
+				write(namespace);
+				writeString(id.toExternalForm());
+			} else {
+				write(ID_OBJECT);
+				writeLengthPrefixed(SOContainer.serialize(id));
+			}
+		}
+
+		void writeData(Serializable data) throws IOException {
+			if (data == null)
+				write(DATA_NULL);
+			else if (data instanceof byte[]) {
+				write(DATA_BYTES);
+				writeLengthPrefixed((byte[]) data);
+			} else if (data instanceof String) {
+				write(DATA_STRING);
+				writeString((String) data);
+			} else {
+				write(DATA_OBJECT);
+				writeLengthPrefixed(SOContainer.serialize(data));
+			}
+		}
+	}
+
+	final class Decoder {
+		private final byte[] buf;
+		private int pos = 0;
+		private final List<ID> ids = new ArrayList<ID>(4);
+
+		Decoder(byte[] buf) {
+			this.buf = buf;
+		}
+
+		int available() {
+			return buf.length - pos;
+		}
+
+		byte readByte() throws IOException {
+			if (pos >= buf.length)
+				throw new EOFException();
+			return buf[pos++];
+		}
+
+		boolean readBoolean() throws IOException {
+			return readByte() != 0;
+		}
+
+		long readVarLong() throws IOException {
+			long result = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				final byte b = readByte();
+				result |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return result;
+			}
+			throw new InvalidObjectException("Malformed varint"); //$NON-NLS-1$
+		}
+
+		int readVarInt() throws IOException {
+			final long v = readVarLong();
+			if (v < 0 || v > Integer.MAX_VALUE)
+				throw new InvalidObjectException("Malformed varint"); //$NON-NLS-1$
+			return (int) v;
+		}
+
+		long readLong() throws IOException {
+			long v = 0;
+			for (int i = 0; i < 8; i++)
+				v = (v << 8) | (readByte() & 0xFF);
+			return v;
+		}
+
+		byte[] readBytes() throws IOException {
+			final int length = readVarInt();
+			if (length > available())
+				throw new EOFException();
+			final byte[] result = new byte[length];
+			System.arraycopy(buf, pos, result, 0, length);
+			pos += length;
+			return result;
+		}
+
+		String readString() throws IOException {
+			final int length = readVarInt();
+			if (length > available())
+				throw new EOFException();
+			final String result = new String(buf, pos, length, StandardCharsets.UTF_8);
+			pos += length;
+			return result;
+		}
+
+		ID readID() throws IOException {
+			final byte tag = readByte();
+			ID id;
+			switch (tag) {
+				case ID_NULL :
+					return null;
+				case ID_REF :
+					final int index = readVarInt();
+					if (index >= ids.size())
+						throw new InvalidObjectException("Invalid ID reference=" + index); //$NON-NLS-1$
+					return ids.get(index);
+				case ID_EXTERNAL :
+					final int namespace = readByte();
+					if (namespace < 0 || namespace >= NAMESPACES.length)
+						throw new InvalidObjectException("Invalid namespace token=" + namespace); //$NON-NLS-1$
+					id = internID(namespace, readString());
+					break;
+				case ID_OBJECT :
+					final Serializable o = readObject(readBytes());
+					if (!(o instanceof ID))
+						throw new InvalidObjectException("Invalid ID=" + o); //$NON-NLS-1$
+					id = (ID) o;
+					break;
+				default :
+					throw new InvalidObjectException("Invalid ID tag=" + tag); //$NON-NLS-1$
+			}
+			ids.add(id);
+			return id;
+		}
+
+		Serializable readData() throws IOException {
+			final byte tag = readByte();
+			switch (tag) {
+				case DATA_NULL :
+					return null;
+				case DATA_BYTES :
+					return readBytes();
+				case DATA_STRING :
+					return readString();
+				case DATA_OBJECT :
+					return readObject(readBytes());
+				default :
+					throw new InvalidObjectException("Invalid data tag=" + tag); //$NON-NLS-1$
+			}
+		}
+
+		private Serializable readObject(byte[] bytes) throws IOException {
+			final ObjectInputStream ois = ProviderPlugin.getDefault().createObjectInputStream(new ByteArrayInputStream(bytes));
+			try {
+				return (Serializable) ois.readObject();
+			} catch (final ClassNotFoundException e) {
+				final IOException except = new IOException("Protocol violation due to class load failure"); //$NON-NLS-1$
+				except.setStackTrace(e.getStackTrace());
+				throw except;
+			}
+		}
+	}
+}
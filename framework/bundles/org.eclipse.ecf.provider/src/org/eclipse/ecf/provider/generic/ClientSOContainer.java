@@ -13,6 +13,7 @@ package org.eclipse.ecf.provider.generic;
 
 import java.io.*;
 import java.net.ConnectException;
+import java.util.Map;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.ecf.core.ContainerConnectException;
@@ -22,13 +23,14 @@ import org.eclipse.ecf.core.security.*;
 import org.eclipse.ecf.core.sharedobject.*;
 import org.eclipse.ecf.core.util.ECFException;
 import org.eclipse.ecf.provider.comm.*;
+import org.eclipse.ecf.provider.comm.tcp.ConnectRequestMessage;
 import org.eclipse.ecf.provider.generic.gmm.Member;
 
 public abstract class ClientSOContainer extends SOContainer implements ISharedObjectContainerClient {
 
 	public static final int DEFAULT_CONNECT_TIMEOUT = 30000;
 
-	protected ISynchAsynchConnection connection;
+	protected volatile ISynchAsynchConnection connection;
 
 	protected ID remoteServerID;
 
@@ -135,6 +137,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 				// first notify synchonously
 				final ISynchAsynchConnection aConnection = createConnection(targetID, joinContext);
 				setStateConnecting(aConnection);
+				offerContainerMessageCodecs(aConnection);
 
 				fireContainerEvent(new ContainerConnectingEvent(this.getID(), targetID, joinContext));
 
@@ -200,6 +203,15 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 		return ContainerMessage.createJoinGroupMessage(getID(), remote, getNextSequenceNumber(), (Serializable) connectData);
 	}
 
+	@SuppressWarnings("unchecked")
+	private void offerContainerMessageCodecs(ISynchAsynchConnection conn) {
+		final String[] codecs = getContainerMessageCodecNames();
+		final Map props = conn.getProperties();
+		// Connections that do not support properties just use Java serialization
+		if (codecs.length > 0 && props != null)
+			props.put(ConnectRequestMessage.CODECS_PROPERTY, codecs);
+	}
+
 	protected int getConnectTimeout() {
 		if (connectPolicy != null)
 			return connectPolicy.getConnectTimeout();
@@ -309,8 +321,11 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 	 * @see org.eclipse.ecf.provider.generic.SOContainer#queueContainerMessage(org.eclipse.ecf.provider.generic.ContainerMessage)
 	 */
 	protected void queueContainerMessage(ContainerMessage message) throws IOException {
-		// Do it
-		connection.sendAsynch(message.getToContainerID(), serialize(message));
+		// Sent without the group membership lock, so read the connection once
+		final ISynchAsynchConnection conn = connection;
+		if (conn == null)
+			throw new ConnectException("Not connected"); //$NON-NLS-1$
+		conn.sendAsynch(message.getToContainerID(), serializeContainerMessage(conn, message));
 	}
 
 	/**
@@ -448,7 +463,7 @@ public abstract class ClientSOContainer extends SOContainer implements ISharedOb
 					fireContainerEvent(new ContainerDisconnectingEvent(this.getID(), groupID));
 				synchronized (connection) {
 					try {
-						connection.sendSynch(groupID, serialize(ContainerMessage.createLeaveGroupMessage(getID(), groupID, getNextSequenceNumber(), getLeaveData(groupID))));
+						connection.sendSynch(groupID, serializeContainerMessage(connection, ContainerMessage.createLeaveGroupMessage(getID(), groupID, getNextSequenceNumber(), getLeaveData(groupID))));
 					} catch (final Exception e) {
 						// This is not necessary to log
 						// see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=476263
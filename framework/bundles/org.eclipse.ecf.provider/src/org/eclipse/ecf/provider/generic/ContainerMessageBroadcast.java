@@ -0,0 +1,91 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.provider.comm.IConnection;
+
+/**
+ * A container message sent by a server to many group members.  The message
+ * is encoded at most once per codec in use by the members' connections,
+ * rather than once per member.
+ * <p>
+ * Without receivers every member is sent the same encoded bytes.  With
+ * receivers the {@link BinaryContainerMessageCodec} writes only the sequence
+ * and receiver ID per member in front of the shared encoding of the rest of
+ * the message; other codecs and Java serialization still encode per member.
+ * Encoded bytes are not modified once created and may be queued on any
+ * number of connections.
+ * <p>
+ * Instances are not thread safe and are meant to be used for a single
+ * broadcast.
+ */
+final class ContainerMessageBroadcast {
+
+	private final ContainerMessage message;
+	private final boolean toReceivers;
+
+	// IContainerMessageCodec -> byte[] or BinaryContainerMessageCodec.SharedEncoding
+	private final Map<IContainerMessageCodec, Object> encodings = new HashMap<IContainerMessageCodec, Object>(4);
+	private byte[] serialized;
+
+	/**
+	 * @param message the message to send.  If toReceivers is <code>true</code>
+	 * only its sender and data are used.
+	 * @param toReceivers <code>true</code> if each member is sent its own copy
+	 * with its ID as receiver and a sequence of its own
+	 */
+	ContainerMessageBroadcast(ContainerMessage message, boolean toReceivers) {
+		this.message = message;
+		this.toReceivers = toReceivers;
+	}
+
+	/**
+	 * @param conn the connection to the member
+	 * @param to the member's ID.  Ignored unless sent to receivers.
+	 * @param sequence the sequence for the member's copy.  Ignored unless sent to receivers.
+	 * @return byte[] the message encoded for the member's connection
+	 * @throws IOException if the message cannot be encoded
+	 */
+	byte[] encode(IConnection conn, ID to, long sequence) throws IOException {
+		final IContainerMessageCodec codec = SOContainer.getContainerMessageCodec(conn);
+		if (!toReceivers) {
+			if (codec == null) {
+				if (serialized == null)
+					serialized = SOContainer.serialize(message);
+				return serialized;
+			}
+			byte[] bytes = (byte[]) encodings.get(codec);
+			if (bytes == null) {
+				bytes = codec.encode(message);
+				encodings.put(codec, bytes);
+			}
+			return bytes;
+		}
+		if (codec instanceof BinaryContainerMessageCodec) {
+			final BinaryContainerMessageCodec binary = (BinaryContainerMessageCodec) codec;
+			BinaryContainerMessageCodec.SharedEncoding shared = (BinaryContainerMessageCodec.SharedEncoding) encodings.get(codec);
+			if (shared == null && !encodings.containsKey(codec)) {
+				shared = binary.encodeShared(message, true);
+				encodings.put(codec, shared);
+			}
+			if (shared != null)
+				return binary.encode(shared, to, sequence);
+		}
+		final ContainerMessage copy = new ContainerMessage(message.getFromContainerID(), to, sequence, message.getData());
+		return (codec == null) ? SOContainer.serialize(copy) : codec.encode(copy);
+	}
+}
@@ -0,0 +1,111 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of the {@link IContainerMessageCodec}s offered and accepted by the
+ * generic provider containers, in order of preference.  By default the
+ * codecs named by the comma separated system property
+ * <code>org.eclipse.ecf.provider.generic.codecs</code> (default
+ * {@link BinaryContainerMessageCodec#NAME}) are registered.  Setting the
+ * property to the empty string disables negotiation, so only Java
+ * serialization is used.
+ * 
+ * @since 4.10
+ */
+public final class ContainerMessageCodecs {
+
+	public static final String CODECS_PROP = "org.eclipse.ecf.provider.generic.codecs"; //$NON-NLS-1$
+
+	private static final List<IContainerMessageCodec> codecs = new CopyOnWriteArrayList<IContainerMessageCodec>();
+
+	static {
+		final StringTokenizer st = new StringTokenizer(System.getProperty(CODECS_PROP, BinaryContainerMessageCodec.NAME), ","); //$NON-NLS-1$
+		while (st.hasMoreTokens()) {
+			final String name = st.nextToken().trim();
+			if (BinaryContainerMessageCodec.NAME.equals(name))
+				codecs.add(new BinaryContainerMessageCodec());
+		}
+	}
+
+	private ContainerMessageCodecs() {
+		// no instances
+	}
+
+	/**
+	 * Add codec.  If a codec with the same name is already present it is replaced.
+	 * @param codec the codec to add.  Must not be <code>null</code>.
+	 * @param preferred if <code>true</code> the codec is added as the most preferred codec, otherwise as the least
+	 */
+	public static synchronized void addCodec(IContainerMessageCodec codec, boolean preferred) {
+		removeCodec(codec.getName());
+		if (preferred)
+			codecs.add(0, codec);
+		else
+			codecs.add(codec);
+	}
+
+	/**
+	 * @param name the name of the codec to remove
+	 * @return IContainerMessageCodec the removed codec, or <code>null</code> if not present
+	 */
+	public static synchronized IContainerMessageCodec removeCodec(String name) {
+		for (final IContainerMessageCodec c : codecs) {
+			if (c.getName().equals(name)) {
+				codecs.remove(c);
+				return c;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param name the codec name.  May be <code>null</code>.
+	 * @return IContainerMessageCodec the codec with the given name, or <code>null</code> if none
+	 */
+	public static IContainerMessageCodec getCodec(String name) {
+		if (name == null)
+			return null;
+		for (final IContainerMessageCodec c : codecs)
+			if (c.getName().equals(name))
+				return c;
+		return null;
+	}
+
+	/**
+	 * @return String[] the names of all registered codecs, most preferred first
+	 */
+	public static String[] getCodecNames() {
+		final List<String> result = new ArrayList<String>();
+		for (final IContainerMessageCodec c : codecs)
+			result.add(c.getName());
+		return result.toArray(new String[result.size()]);
+	}
+
+	/**
+	 * @param bytes received bytes
+	 * @return IContainerMessageCodec the codec that produced the given bytes, or
+	 * <code>null</code> if none did (i.e. they are Java serialized)
+	 */
+	public static IContainerMessageCodec getDecoder(byte[] bytes) {
+		if (bytes == null || bytes.length == 0)
+			return null;
+		for (final IContainerMessageCodec c : codecs)
+			if (c.isEncoding(bytes))
+				return c;
+		return null;
+	}
+}
@@ -0,0 +1,58 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+
+/**
+ * Wire encoding for {@link ContainerMessage}s.  Codecs are registered with
+ * {@link ContainerMessageCodecs} and are negotiated per connection when a
+ * client connects: the client offers the names of its codecs and the server
+ * selects the first one it also supports.  A connection without a negotiated
+ * codec uses Java serialization.
+ * <p>
+ * Since messages may arrive before negotiation completes (or from peers that
+ * do not negotiate), every encoding must be recognizable from its first bytes
+ * via {@link #isEncoding(byte[])} and must not be confused with a Java
+ * serialization stream (which starts with 0xACED).
+ * 
+ * @since 4.10
+ */
+public interface IContainerMessageCodec {
+
+	/**
+	 * @return String the unique name of this codec, as exchanged during
+	 * connect.  Must not be <code>null</code>.
+	 */
+	public String getName();
+
+	/**
+	 * @param bytes received bytes.  Will not be <code>null</code>.
+	 * @return <code>true</code> if the given bytes were produced by {@link #encode(ContainerMessage)}
+	 */
+	public boolean isEncoding(byte[] bytes);
+
+	/**
+	 * @param message the message to encode.  Will not be <code>null</code>.
+	 * @return byte[] the encoded message
+	 * @throws IOException if the message cannot be encoded
+	 */
+	public byte[] encode(ContainerMessage message) throws IOException;
+
+	/**
+	 * @param bytes the encoded message.  Will not be <code>null</code>.
+	 * @return ContainerMessage the decoded message
+	 * @throws IOException if the bytes cannot be decoded
+	 */
+	public ContainerMessage decode(byte[] bytes) throws IOException;
+}
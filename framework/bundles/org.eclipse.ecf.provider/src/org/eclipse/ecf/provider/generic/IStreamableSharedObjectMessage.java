@@ -0,0 +1,48 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ * Shared object message that writes itself directly into the container's
+ * shared object message stream, rather than being written as a single object.
+ * This lets a shared object that already controls its own encoding (e.g. with
+ * a specific classloader on the receiver) avoid serializing into an
+ * intermediate byte[] that the container would then serialize again.
+ * <p>
+ * The receiving shared object must implement
+ * {@link IStreamableSharedObjectMessageReader} to read what
+ * {@link #writeMessage(ObjectOutputStream)} wrote.  Pass instances to
+ * {@link org.eclipse.ecf.core.sharedobject.ISharedObjectContext#sendMessage(org.eclipse.ecf.core.identity.ID, Object)}.
+ * Containers with a non-default
+ * {@link org.eclipse.ecf.core.sharedobject.util.ISharedObjectMessageSerializer}
+ * will not know how to send it.
+ * </p>
+ * @since 4.10
+ */
+public interface IStreamableSharedObjectMessage {
+
+	/**
+	 * Written after the shared object ID to identify streamed messages.
+	 */
+	public static final String STREAM_MARKER = "ecf.streamed.1"; //$NON-NLS-1$
+
+	/**
+	 * Write message.
+	 * @param out the stream to write to.  Will not be <code>null</code>.
+	 * @throws IOException if some problem writing
+	 */
+	public void writeMessage(ObjectOutputStream out) throws IOException;
+}
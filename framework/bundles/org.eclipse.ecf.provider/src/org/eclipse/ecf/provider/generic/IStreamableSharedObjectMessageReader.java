@@ -0,0 +1,33 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import org.eclipse.ecf.core.util.OSGIObjectInputStream;
+
+/**
+ * Implemented by shared objects that receive {@link IStreamableSharedObjectMessage}s.
+ * @since 4.10
+ */
+public interface IStreamableSharedObjectMessageReader {
+
+	/**
+	 * Read a message written by {@link IStreamableSharedObjectMessage#writeMessage(java.io.ObjectOutputStream)}.
+	 * The stream's classloader is initially set to the shared object's classloader.
+	 * @param in the stream to read from.  Will not be <code>null</code>.
+	 * @return Object the message to deliver to the shared object.  May be <code>null</code> to deliver nothing.
+	 * @throws IOException if some problem reading
+	 * @throws ClassNotFoundException if some class cannot be loaded
+	 */
+	public Object readMessage(OSGIObjectInputStream in) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,54 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContainerConfig;
+import org.eclipse.ecf.provider.comm.ConnectionCreateException;
+import org.eclipse.ecf.provider.comm.ISynchAsynchConnection;
+import org.eclipse.ecf.provider.comm.tcp.nio.NIOClient;
+import org.eclipse.ecf.provider.comm.tcp.nio.NIOEventLoopGroup;
+
+/**
+ * Client container connecting via {@link NIOClient} to a {@link NIOServerSOContainer}.
+ * 
+ * @since 4.10
+ */
+public class NIOClientSOContainer extends ClientSOContainer {
+	int keepAlive = 0;
+
+	public static final int DEFAULT_TCP_CONNECT_TIMEOUT = TCPClientSOContainer.DEFAULT_TCP_CONNECT_TIMEOUT;
+
+	public NIOClientSOContainer(ISharedObjectContainerConfig config) {
+		super(config);
+	}
+
+	public NIOClientSOContainer(ISharedObjectContainerConfig config, int ka) {
+		super(config);
+		keepAlive = ka;
+	}
+
+	protected int getConnectTimeout() {
+		return DEFAULT_TCP_CONNECT_TIMEOUT;
+	}
+
+	protected ISynchAsynchConnection createConnection(ID remoteSpace, Object data) throws ConnectionCreateException {
+		debug("createClientConnection:" + remoteSpace + ":" + data); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			return new NIOClient(NIOEventLoopGroup.getDefault(), receiver, keepAlive);
+		} catch (final IOException e) {
+			throw new ConnectionCreateException("Could not create event loop group", e); //$NON-NLS-1$
+		}
+	}
+}
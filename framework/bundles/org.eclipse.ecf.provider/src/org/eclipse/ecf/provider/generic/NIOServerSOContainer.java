@@ -0,0 +1,99 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.*;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContainerConfig;
+import org.eclipse.ecf.provider.comm.IConnectRequestHandler;
+import org.eclipse.ecf.provider.comm.ISynchAsynchConnection;
+import org.eclipse.ecf.provider.comm.tcp.Server;
+
+/**
+ * Server container accepting connections via a {@link NIOServerSOContainerGroup}.
+ * Clients must connect with a {@link NIOClientSOContainer}.
+ * 
+ * @since 4.10
+ */
+public class NIOServerSOContainer extends ServerSOContainer implements IConnectRequestHandler {
+
+	public static final String DEFAULT_PROTOCOL = TCPServerSOContainer.DEFAULT_PROTOCOL;
+
+	// Keep alive value
+	protected int keepAlive;
+
+	protected NIOServerSOContainerGroup group;
+
+	protected boolean isSingle = false;
+
+	protected int getKeepAlive() {
+		return keepAlive;
+	}
+
+	public NIOServerSOContainer(ISharedObjectContainerConfig config, InetAddress bindAddress, int keepAlive) throws IOException, URISyntaxException {
+		super(config);
+		isSingle = true;
+		this.keepAlive = keepAlive;
+		final URI actualURI = parseAndValidateURI();
+		final String path = actualURI.getPath();
+		if (path == null)
+			throw new NullPointerException("path cannot be null"); //$NON-NLS-1$
+		this.group = new NIOServerSOContainerGroup(NIOServerSOContainerGroup.DEFAULT_GROUP_NAME, null, actualURI.getPort(), Server.DEFAULT_BACKLOG, bindAddress);
+		this.group.setKeepAlive(keepAlive);
+		this.group.add(path, this);
+		this.group.putOnTheAir();
+	}
+
+	public NIOServerSOContainer(ISharedObjectContainerConfig config, NIOServerSOContainerGroup grp, int keepAlive) throws IOException, URISyntaxException {
+		super(config);
+		this.keepAlive = keepAlive;
+		final URI actualURI = parseAndValidateURI();
+		final String path = actualURI.getPath();
+		if (grp == null) {
+			isSingle = true;
+			this.group = new NIOServerSOContainerGroup(actualURI.getPort());
+			this.group.setKeepAlive(keepAlive);
+		} else
+			this.group = grp;
+		group.add(path, this);
+		if (grp == null)
+			this.group.putOnTheAir();
+	}
+
+	public NIOServerSOContainer(ISharedObjectContainerConfig config) throws IOException, URISyntaxException {
+		this(config, (NIOServerSOContainerGroup) null, TCPServerSOContainer.DEFAULT_KEEPALIVE);
+	}
+
+	private URI parseAndValidateURI() throws URISyntaxException {
+		final URI uri = new URI(getID().getName());
+		uri.parseServerAuthority();
+		return uri;
+	}
+
+	public void dispose() {
+		try {
+			group.remove(new URI(getID().getName()).getPath());
+		} catch (final URISyntaxException e) {
+			// Should never happen, the ID was parsed by the constructor
+			traceStack("dispose", e); //$NON-NLS-1$
+		}
+		if (isSingle)
+			group.takeOffTheAir();
+		super.dispose();
+	}
+
+	public Serializable handleConnectRequest(Socket socket, String target, Serializable data, ISynchAsynchConnection conn) {
+		return acceptNewClient(socket, target, data, conn);
+	}
+}
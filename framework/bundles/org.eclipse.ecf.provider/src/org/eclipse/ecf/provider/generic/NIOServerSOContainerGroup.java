@@ -0,0 +1,141 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.URI;
+import org.eclipse.ecf.core.util.Trace;
+import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+import org.eclipse.ecf.provider.comm.IConnectRequestHandler;
+import org.eclipse.ecf.provider.comm.tcp.*;
+import org.eclipse.ecf.provider.comm.tcp.nio.*;
+
+/**
+ * Container group listening with a {@link NIOServer}.  All connections of all
+ * containers in the group share the loops and dispatch threads of one
+ * {@link NIOEventLoopGroup}.
+ * 
+ * @since 4.10
+ */
+public class NIOServerSOContainerGroup extends SOContainerGroup implements INIOConnectRequestHandler {
+
+	public static final String DEFAULT_GROUP_NAME = NIOServerSOContainerGroup.class.getName();
+
+	private int port;
+	private NIOServer listener;
+	private boolean isOnTheAir = false;
+	private final NIOEventLoopGroup eventLoopGroup;
+
+	private int backlog = Server.DEFAULT_BACKLOG;
+	private InetAddress bindAddress;
+	private int keepAlive = TCPServerSOContainer.DEFAULT_KEEPALIVE;
+
+	/**
+	 * @param name name
+	 * @param eventLoopGroup event loop group to use.  If <code>null</code> the default group is used.
+	 * @param port port
+	 * @param backlog backlog
+	 * @param bindAddress bind address.  May be <code>null</code>.
+	 * @throws IOException if the default event loop group cannot be created
+	 */
+	public NIOServerSOContainerGroup(String name, NIOEventLoopGroup eventLoopGroup, int port, int backlog, InetAddress bindAddress) throws IOException {
+		super(name);
+		this.eventLoopGroup = (eventLoopGroup == null) ? NIOEventLoopGroup.getDefault() : eventLoopGroup;
+		this.port = port;
+		this.backlog = backlog;
+		this.bindAddress = bindAddress;
+	}
+
+	public NIOServerSOContainerGroup(String name, int port) throws IOException {
+		this(name, null, port, Server.DEFAULT_BACKLOG, null);
+	}
+
+	public NIOServerSOContainerGroup(int port) throws IOException {
+		this(DEFAULT_GROUP_NAME, port);
+	}
+
+	/**
+	 * @param keepAlive keep alive interval (ms) for accepted connections.  Only
+	 * takes effect for connections accepted after the next {@link #putOnTheAir()}.
+	 */
+	public synchronized void setKeepAlive(int keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	protected void trace(String msg) {
+		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.DEBUG, "TRACING " + msg); //$NON-NLS-1$
+	}
+
+	protected void traceStack(String msg, Throwable e) {
+		Trace.catching(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.EXCEPTIONS_CATCHING, NIOServerSOContainerGroup.class, msg, e);
+	}
+
+	public synchronized void putOnTheAir() throws IOException {
+		trace("NIOServerSOContainerGroup at port " + port + " on the air"); //$NON-NLS-1$ //$NON-NLS-2$
+		listener = new NIOServer(eventLoopGroup, port, backlog, bindAddress, this, keepAlive);
+		port = listener.getLocalPort();
+		isOnTheAir = true;
+	}
+
+	public synchronized boolean isOnTheAir() {
+		return isOnTheAir;
+	}
+
+	public synchronized void takeOffTheAir() {
+		if (listener != null) {
+			trace("Taking " + getName() + " off the air."); //$NON-NLS-1$ //$NON-NLS-2$
+			try {
+				listener.close();
+			} catch (final IOException e) {
+				traceStack("Exception in closeListener", e); //$NON-NLS-1$
+			}
+			listener = null;
+		}
+		isOnTheAir = false;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public ConnectResultMessage handleConnectRequest(NIOClient connection, ConnectRequestMessage req) throws Exception {
+		final URI uri = req.getTarget();
+		if (uri == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " URI connect target cannot be null"); //$NON-NLS-1$
+		final String path = uri.getPath();
+		if (path == null)
+			throw new InvalidObjectException(INVALID_CONNECT + " Path cannot be null"); //$NON-NLS-1$
+
+		// Given path, lookup associated container
+		final SOContainer srs = get(path);
+		if (srs == null)
+			throw new InvalidObjectException("Container not found for path=" + path); //$NON-NLS-1$
+
+		connection.setEventHandler(srs.getMessageReceiver());
+		final String codec = selectContainerMessageCodec(srs, req, connection);
+		// Nothing queued on the connection is written before the result is
+		// returned, so the connect handler may start the connection and send
+		final Serializable resp = ((IConnectRequestHandler) srs).handleConnectRequest(connection.getSocket(), path, req.getData(), connection);
+		final ConnectResultMessage result = new ConnectResultMessage(resp);
+		result.setCodec(codec);
+		return result;
+	}
+
+	public String toString() {
+		return super.toString() + ";port:" + port; //$NON-NLS-1$
+	}
+}
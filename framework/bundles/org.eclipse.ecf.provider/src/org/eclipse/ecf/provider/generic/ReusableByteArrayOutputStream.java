@@ -0,0 +1,60 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * ByteArrayOutputStream whose buffer is kept per thread and reused for the next
+ * message, so serializing a large message does not reallocate and copy the
+ * buffer as it grows every time.  Buffers larger than
+ * org.eclipse.ecf.provider.generic.reusablebuffer.max (default 1MB) are not kept.
+ */
+final class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+	private static final int INITIAL_SIZE = 1024;
+
+	private static final int MAX_RETAINED = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.generic.reusablebuffer.max", "1048576")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final ThreadLocal<ReusableByteArrayOutputStream> local = new ThreadLocal<ReusableByteArrayOutputStream>();
+
+	private boolean inUse;
+
+	private ReusableByteArrayOutputStream() {
+		super(INITIAL_SIZE);
+	}
+
+	/**
+	 * @return ReusableByteArrayOutputStream this thread's stream, reset.  If it is
+	 * already in use (nested serialization), a new stream that will not be kept.
+	 * Must be passed to {@link #release()} when done.
+	 */
+	static ReusableByteArrayOutputStream acquire() {
+		ReusableByteArrayOutputStream s = local.get();
+		if (s == null) {
+			s = new ReusableByteArrayOutputStream();
+			local.set(s);
+		} else if (s.inUse)
+			return new ReusableByteArrayOutputStream();
+		s.inUse = true;
+		s.reset();
+		return s;
+	}
+
+	void release() {
+		inUse = false;
+		if (buf.length > MAX_RETAINED)
+			buf = new byte[INITIAL_SIZE];
+		count = 0;
+	}
+}
@@ -15,6 +15,8 @@ import java.io.*;
 import java.security.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.AbstractContainer;
 import org.eclipse.ecf.core.ContainerConnectException;
@@ -30,6 +32,7 @@ import org.eclipse.ecf.core.util.*;
 import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
 import org.eclipse.ecf.internal.provider.ProviderPlugin;
 import org.eclipse.ecf.provider.comm.*;
+import org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage;
 import org.eclipse.ecf.provider.generic.ContainerMessage.SharedObjectMessage;
 import org.eclipse.ecf.provider.generic.gmm.Member;
 
@@ -139,13 +142,13 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	public static final String DEFAULT_OBJECT_ARG_KEY = SOContainer.class.getName() + ".sharedobjectargs"; //$NON-NLS-1$
 	public static final String DEFAULT_OBJECT_ARGTYPES_KEY = SOContainer.class.getName() + ".sharedobjectargtypes"; //$NON-NLS-1$
 
-	private long sequenceNumber = 0L;
+	private final AtomicLong sequenceNumber = new AtomicLong();
 
 	protected ISharedObjectContainerConfig config = null;
 
 	protected SOContainerGMM groupManager = null;
 
-	protected boolean isClosing = false;
+	protected volatile boolean isClosing = false;
 
 	protected ThreadGroup loadingThreadGroup = null;
 
@@ -482,11 +485,15 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	}
 
 	public static byte[] serialize(Serializable obj) throws IOException {
-		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		final ObjectOutputStream oos = new ObjectOutputStream(bos);
-		oos.writeObject(obj);
-		oos.close();
-		return bos.toByteArray();
+		final ReusableByteArrayOutputStream bos = ReusableByteArrayOutputStream.acquire();
+		try {
+			final ObjectOutputStream oos = new ObjectOutputStream(bos);
+			oos.writeObject(obj);
+			oos.close();
+			return bos.toByteArray();
+		} finally {
+			bos.release();
+		}
 	}
 
 	protected ClassLoader getClassLoaderForContainer() {
@@ -516,15 +523,77 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		return new Thread(sharedObjectThreadGroup, runnable, sharedObjectID.getName() + ":run"); //$NON-NLS-1$
 	}
 
+	/**
+	 * Get the executor that dispatches events to shared objects.  By default
+	 * this is <code>null</code>, so each shared object has a thread of its own
+	 * from {@link #getNewSharedObjectThread(ID, Runnable)}.  If the system
+	 * property org.eclipse.ecf.provider.generic.sharedObjectDispatch is set to
+	 * <code>pool</code> it is a bounded pool shared by all containers.  Either
+	 * way a shared object receives its events one at a time and in order.
+	 * Subclasses may override to use an executor of their own.
+	 * @return Executor the executor for shared object events, or <code>null</code>
+	 * to use a thread per shared object
+	 * @since 4.10
+	 */
+	protected Executor getSharedObjectExecutor() {
+		return SOMailbox.POOL_DISPATCH ? SOMailbox.getPool() : null;
+	}
+
 	protected long getNextSequenceNumber() {
-		if (sequenceNumber == Long.MAX_VALUE) {
-			sequenceNumber = 0;
-			return sequenceNumber;
-		}
-		return sequenceNumber++;
+		return sequenceNumber.getAndUpdate(s -> (s == Long.MAX_VALUE - 1) ? 0 : s + 1);
+	}
+
+	/**
+	 * Serialize message for sending on the given connection, with the
+	 * container message codec negotiated for the connection (if any).
+	 * @param conn the connection the message will be sent on.  Must not be <code>null</code>.
+	 * @param message the message to serialize.  Must not be <code>null</code>.
+	 * @return byte[] the serialized message
+	 * @throws IOException if the message cannot be serialized
+	 * @since 4.10
+	 */
+	protected byte[] serializeContainerMessage(IConnection conn, ContainerMessage message) throws IOException {
+		final IContainerMessageCodec codec = getContainerMessageCodec(conn);
+		return (codec == null) ? serialize(message) : codec.encode(message);
+	}
+
+	static IContainerMessageCodec getContainerMessageCodec(IConnection conn) {
+		final Map props = conn.getProperties();
+		return (props == null) ? null : ContainerMessageCodecs.getCodec((String) props.get(ConnectResultMessage.CODEC_PROPERTY));
+	}
+
+	/**
+	 * @return String[] the names of the container message codecs this container
+	 * supports, most preferred first
+	 * @since 4.10
+	 */
+	protected String[] getContainerMessageCodecNames() {
+		return ContainerMessageCodecs.getCodecNames();
+	}
+
+	/**
+	 * Select the codec to use for a new connection.
+	 * @param offered the codec names offered by the connecting client.  May be <code>null</code>.
+	 * @return String the first offered codec also supported by this container, or <code>null</code>
+	 * if none is (Java serialization is then used)
+	 * @since 4.10
+	 */
+	protected String selectContainerMessageCodec(String[] offered) {
+		if (offered == null)
+			return null;
+		final String[] supported = getContainerMessageCodecNames();
+		for (int i = 0; i < offered.length; i++)
+			for (int j = 0; j < supported.length; j++)
+				if (supported[j].equals(offered[i]))
+					return offered[i];
+		return null;
 	}
 
 	public static ContainerMessage deserializeContainerMessage(byte[] bytes) throws IOException {
+		// Messages encoded by a negotiated codec are self-identifying
+		final IContainerMessageCodec codec = ContainerMessageCodecs.getDecoder(bytes);
+		if (codec != null)
+			return codec.decode(bytes);
 		final ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
 
 		final ObjectInputStream ois = ProviderPlugin.getDefault().createObjectInputStream(bis);
@@ -628,23 +697,19 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 			// ignore
 			if (checkCreateResult != null) {
 				final LoadingSharedObject lso = new LoadingSharedObject(fromID, desc);
-				synchronized (getGroupMembershipLock()) {
-					if (!addToLoading(lso)) {
-						try {
-							sendCreateResponse(fromID, sharedObjectID, new SharedObjectAddException("shared object=" + sharedObjectID + " already exists in container=" + getID()), desc.getIdentifier()); //$NON-NLS-1$ //$NON-NLS-2$
-						} catch (final IOException e) {
-							traceStack("Exception in handleCreateMessage.sendCreateResponse", //$NON-NLS-1$
-									e);
-						}
+				if (!addToLoading(lso)) {
+					try {
+						sendCreateResponse(fromID, sharedObjectID, new SharedObjectAddException("shared object=" + sharedObjectID + " already exists in container=" + getID()), desc.getIdentifier()); //$NON-NLS-1$ //$NON-NLS-2$
+					} catch (final IOException e) {
+						traceStack("Exception in handleCreateMessage.sendCreateResponse", //$NON-NLS-1$
+								e);
 					}
-					forward(fromID, toID, mess);
-					return;
 				}
-			}
-		} else {
-			synchronized (getGroupMembershipLock()) {
 				forward(fromID, toID, mess);
+				return;
 			}
+		} else {
+			forward(fromID, toID, mess);
 		}
 	}
 
@@ -652,16 +717,14 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		final ID fromID = mess.getFromContainerID();
 		final ID toID = mess.getToContainerID();
 		final ContainerMessage.CreateResponseMessage resp = (ContainerMessage.CreateResponseMessage) mess.getData();
-		synchronized (getGroupMembershipLock()) {
-			if (verifySharedObjectMessageTarget(toID)) {
-				final ID sharedObjectID = resp.getSharedObjectID();
-				final SOWrapper sow = getSharedObjectWrapper(sharedObjectID);
-				if (sow != null) {
-					sow.deliverCreateResponse(fromID, resp);
-				}
-			} else
-				forward(fromID, toID, mess);
-		}
+		if (verifySharedObjectMessageTarget(toID)) {
+			final ID sharedObjectID = resp.getSharedObjectID();
+			final SOWrapper sow = getSharedObjectWrapper(sharedObjectID);
+			if (sow != null) {
+				sow.deliverCreateResponse(fromID, resp);
+			}
+		} else
+			forward(fromID, toID, mess);
 	}
 
 	/**
@@ -683,16 +746,16 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		final ID toID = mess.getToContainerID();
 		final ContainerMessage.SharedObjectDisposeMessage resp = (ContainerMessage.SharedObjectDisposeMessage) mess.getData();
 		final ID sharedObjectID = resp.getSharedObjectID();
-		synchronized (getGroupMembershipLock()) {
-			if (verifySharedObjectMessageTarget(toID)) {
+		if (verifySharedObjectMessageTarget(toID)) {
+			synchronized (getGroupMembershipLock()) {
 				if (groupManager.isLoading(sharedObjectID)) {
 					groupManager.removeSharedObjectFromLoading(sharedObjectID);
 				} else {
 					groupManager.removeSharedObject(sharedObjectID);
 				}
 			}
-			forward(fromID, toID, mess);
 		}
+		forward(fromID, toID, mess);
 	}
 
 	protected boolean verifyToIDForSharedObjectMessage(ID toID) {
@@ -708,34 +771,33 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 		final ID sharedObjectID = resp.getFromSharedObjectID();
 		SOWrapper sow = null;
 		Serializable obj = null;
-		synchronized (getGroupMembershipLock()) {
-			// We only deliver to local copy if the toID equals null (all), or it equals ours
-			if (verifySharedObjectMessageTarget(toID)) {
-				sow = getSharedObjectWrapper(sharedObjectID);
-				if (sow != null) {
-					try {
-						obj = (Serializable) deserializeSharedObjectMessage((byte[]) resp.getData());
-						// Actually deliver event to shared object asynchronously
+		// We only deliver to local copy if the toID equals null (all), or it equals ours
+		if (verifySharedObjectMessageTarget(toID)) {
+			sow = getSharedObjectWrapper(sharedObjectID);
+			if (sow != null) {
+				try {
+					obj = (Serializable) deserializeSharedObjectMessage((byte[]) resp.getData());
+					// Actually deliver event to shared object asynchronously
+					if (obj != null)
 						sow.deliverSharedObjectMessage(fromID, obj);
-					} catch (final ClassNotFoundException e) {
-						String message = "shared object message ClassNotFoundException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
-						ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
-						printToSystemError(message, e);
-					} catch (final IOException e) {
-						String message = "shared object message IOException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
-						ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
-						printToSystemError(message, e);
-					} catch (final NoClassDefFoundError e) {
-						String message = "shared object message NoClassDefFoundError.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
-						ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
-						printToSystemError(message, e);
-					}
-				} else
-					handleUndeliveredSharedObjectMessage(resp);
-			}
-			// forward in any case
-			forward(fromID, toID, mess);
+				} catch (final ClassNotFoundException e) {
+					String message = "shared object message ClassNotFoundException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
+					ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
+					printToSystemError(message, e);
+				} catch (final IOException e) {
+					String message = "shared object message IOException.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
+					ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
+					printToSystemError(message, e);
+				} catch (final NoClassDefFoundError e) {
+					String message = "shared object message NoClassDefFoundError.  sharedObjectID=" + sharedObjectID + " fromContainerID=" + fromID; //$NON-NLS-1$ //$NON-NLS-2$
+					ProviderPlugin.getDefault().log(new Status(IStatus.ERROR, ProviderPlugin.PLUGIN_ID, message, e));
+					printToSystemError(message, e);
+				}
+			} else
+				handleUndeliveredSharedObjectMessage(resp);
 		}
+		// forward in any case
+		forward(fromID, toID, mess);
 		// Fire container event notifying container listeners about
 		// receiving event.
 		if (sow != null)
@@ -980,12 +1042,10 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	}
 
 	protected void sendMessage(ContainerMessage data) throws IOException {
-		synchronized (getGroupMembershipLock()) {
-			final ID ourID = getID();
-			// We don't send to ourselves
-			if (!ourID.equals(data.getToContainerID()))
-				queueContainerMessage(data);
-		}
+		final ID ourID = getID();
+		// We don't send to ourselves
+		if (!ourID.equals(data.getToContainerID()))
+			queueContainerMessage(data);
 	}
 
 	protected byte[] serializeSharedObjectMessage(ID sharedObjectID, Object message) throws IOException {
@@ -1001,19 +1061,27 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 	 * @since 2.0
 	 */
 	protected byte[] defaultSerializeSharedObjectMessage(ID sharedObjectID, Object message) throws IOException {
-		if (!(message instanceof Serializable))
+		if (!(message instanceof Serializable || message instanceof IStreamableSharedObjectMessage))
 			throw new NotSerializableException("shared object=" + sharedObjectID + " message=" + message + " not serializable"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		try {
 			return AccessController.doPrivileged((PrivilegedExceptionAction<byte[]>) () -> {
-				final ByteArrayOutputStream bouts = new ByteArrayOutputStream();
-				// If system property set to osgi.basic then use OSGIObjectOutputStream, if not then  
-				// use ObjectOutputStream
-				final ObjectOutputStream oos = new OSGIObjectOutputStream(bouts);
-				// write shared object id, so we can read it on receiver and get the classloader for the given shared object
-				oos.writeObject(sharedObjectID);
-				oos.writeObject(message);
-				oos.close();
-				return bouts.toByteArray();
+				final ReusableByteArrayOutputStream bouts = ReusableByteArrayOutputStream.acquire();
+				try {
+					// If system property set to osgi.basic then use OSGIObjectOutputStream, if not then  
+					// use ObjectOutputStream
+					final ObjectOutputStream oos = new OSGIObjectOutputStream(bouts);
+					// write shared object id, so we can read it on receiver and get the classloader for the given shared object
+					oos.writeObject(sharedObjectID);
+					if (message instanceof IStreamableSharedObjectMessage) {
+						oos.writeObject(IStreamableSharedObjectMessage.STREAM_MARKER);
+						((IStreamableSharedObjectMessage) message).writeMessage(oos);
+					} else
+						oos.writeObject(message);
+					oos.close();
+					return bouts.toByteArray();
+				} finally {
+					bouts.release();
+				}
 			});
 		} catch (PrivilegedActionException e) {
 			Throwable t = e.getCause();
@@ -1036,18 +1104,26 @@ public abstract class SOContainer extends AbstractContainer implements ISharedOb
 			return AccessController.doPrivileged((PrivilegedExceptionAction<Object>) () -> {
 				final ByteArrayInputStream bins = new ByteArrayInputStream(bytes);
 				final OSGIObjectInputStream oins = new OSGIObjectInputStream(ProviderPlugin.getDefault().getContext().getBundle(), bins);
-				ID sharedObjectID = (ID) oins.readObject();
-				if (sharedObjectID != null) {
-					ISharedObject so = getSharedObject(sharedObjectID);
-					if (so != null) {
-						oins.setClassLoader(so.getClass().getClassLoader());
-						Object result = oins.readObject();
-						oins.close();
-						return result;
+				try {
+					ID sharedObjectID = (ID) oins.readObject();
+					if (sharedObjectID != null) {
+						ISharedObject so = getSharedObject(sharedObjectID);
+						if (so != null) {
+							oins.setClassLoader(so.getClass().getClassLoader());
+							Object result = oins.readObject();
+							if (IStreamableSharedObjectMessage.STREAM_MARKER.equals(result)) {
+								if (!(so instanceof IStreamableSharedObjectMessageReader))
+									throw new IOException("sharedObjectID=" + sharedObjectID + " cannot read streamed message"); //$NON-NLS-1$ //$NON-NLS-2$
+								result = ((IStreamableSharedObjectMessageReader) so).readMessage(oins);
+							}
+							return result;
+						}
+						throw new IOException("Could not find sharedObjectID=" + sharedObjectID + " in defaultDeserializeSharedObjectMessage"); //$NON-NLS-1$//$NON-NLS-2$
 					}
 					throw new IOException("Could not find sharedObjectID=" + sharedObjectID + " in defaultDeserializeSharedObjectMessage"); //$NON-NLS-1$//$NON-NLS-2$
+				} finally {
+					oins.close();
 				}
-				throw new IOException("Could not find sharedObjectID=" + sharedObjectID + " in defaultDeserializeSharedObjectMessage"); //$NON-NLS-1$//$NON-NLS-2$
 			});
 		} catch (PrivilegedActionException e) {
 			Throwable t = e.getCause();
@@ -14,30 +14,57 @@
 package org.eclipse.ecf.provider.generic;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.eclipse.ecf.core.identity.ID;
 import org.eclipse.ecf.core.util.Trace;
 import org.eclipse.ecf.internal.provider.ECFProviderDebugOptions;
 import org.eclipse.ecf.internal.provider.ProviderPlugin;
 import org.eclipse.ecf.provider.generic.gmm.*;
 
+/**
+ * Group membership and shared object tables of a container.  Changes are
+ * made while holding this object's lock (the container's group membership
+ * lock).  Reads used for routing messages do not take the lock: members are
+ * read from an immutable snapshot that is replaced on every membership
+ * change, and shared objects from concurrent maps.
+ */
 class SOContainerGMM implements Observer {
 	SOContainer container;
 	Member localMember;
 	GMMImpl groupManager;
 	// Maximum number of members. Default is -1 (no maximum).
 	int maxMembers = -1;
-	TreeMap loading, active;
+	ConcurrentSkipListMap loading, active;
+
+	private volatile Member[] members = new Member[0];
+	private volatile Map<ID, Member> membersByID = Collections.emptyMap();
 
 	SOContainerGMM(SOContainer cont, Member local) {
 		container = cont;
 		groupManager = new GMMImpl();
 		groupManager.addObserver(this);
-		loading = new TreeMap();
-		active = new TreeMap();
+		loading = new ConcurrentSkipListMap();
+		active = new ConcurrentSkipListMap();
 		localMember = local;
 		addMember(local);
 	}
 
+	/**
+	 * Called with the lock held, before shared objects are notified of the
+	 * change, so that they see the new membership.
+	 */
+	private void updateSnapshot() {
+		final Object[] ms = groupManager.getMembers();
+		final Member[] newMembers = new Member[ms.length];
+		final Map<ID, Member> newMembersByID = new HashMap<ID, Member>(ms.length * 2);
+		for (int i = 0; i < ms.length; i++) {
+			newMembers[i] = (Member) ms[i];
+			newMembersByID.put(newMembers[i].getID(), newMembers[i]);
+		}
+		membersByID = newMembersByID;
+		members = newMembers;
+	}
+
 	protected void debug(String msg) {
 		Trace.trace(ProviderPlugin.PLUGIN_ID, ECFProviderDebugOptions.SOCONTAINERGMM, msg + ";container=" + container.getID() + ";existingmembers=" + groupManager); //$NON-NLS-1$ //$NON-NLS-2$
 	}
@@ -107,30 +134,36 @@ class SOContainerGMM implements Observer {
 		}
 	}
 
-	synchronized Object[] getMembers() {
-		return groupManager.getMembers();
+	/**
+	 * @return Object[] the current members.  The array is shared and must not be modified.
+	 */
+	Object[] getMembers() {
+		return members;
 	}
 
-	synchronized ID[] getOtherMemberIDs() {
-		return groupManager.getMemberIDs(localMember.getID());
+	ID[] getOtherMemberIDs() {
+		return getMemberIDs(localMember.getID());
 	}
 
-	synchronized ID[] getMemberIDs() {
-		return groupManager.getMemberIDs(null);
+	ID[] getMemberIDs() {
+		return getMemberIDs(null);
 	}
 
-	synchronized Member getMemberForID(ID id) {
-		final Member newMem = new Member(id);
-		for (final Iterator i = iterator(); i.hasNext();) {
-			final Member oldMem = (Member) i.next();
-			if (newMem.equals(oldMem))
-				return oldMem;
-		}
-		return null;
+	private ID[] getMemberIDs(ID exclude) {
+		final Member[] ms = members;
+		final List<ID> ids = new ArrayList<ID>(ms.length);
+		for (int i = 0; i < ms.length; i++)
+			if (exclude == null || !exclude.equals(ms[i].getID()))
+				ids.add(ms[i].getID());
+		return ids.toArray(new ID[ids.size()]);
+	}
+
+	Member getMemberForID(ID id) {
+		return (id == null) ? null : membersByID.get(id);
 	}
 
-	synchronized int getSize() {
-		return groupManager.getSize();
+	int getSize() {
+		return members.length;
 	}
 
 	synchronized boolean containsMember(Member m) {
@@ -172,7 +205,7 @@ class SOContainerGMM implements Observer {
 			addSharedObjectToActive(ro);
 	}
 
-	boolean removeSharedObjectFromLoading(ID id) {
+	synchronized boolean removeSharedObjectFromLoading(ID id) {
 		debug("removeSharedObjectFromLoading(" + id + ")"); //$NON-NLS-1$ //$NON-NLS-2$
 		if (loading.remove(id) != null) {
 			return true;
@@ -180,7 +213,7 @@ class SOContainerGMM implements Observer {
 		return false;
 	}
 
-	synchronized ID[] getActiveKeys() {
+	ID[] getActiveKeys() {
 		return (ID[]) active.keySet().toArray(new ID[0]);
 	}
 
@@ -201,7 +234,7 @@ class SOContainerGMM implements Observer {
 		notifyOtherChanged(id, active, false);
 	}
 
-	void notifyOtherChanged(ID id, TreeMap aMap, boolean activated) {
+	void notifyOtherChanged(ID id, Map aMap, boolean activated) {
 		for (final Iterator i = aMap.values().iterator(); i.hasNext();) {
 			final SOWrapper other = (SOWrapper) i.next();
 			if (!id.equals(other.getObjID())) {
@@ -219,11 +252,11 @@ class SOContainerGMM implements Observer {
 		return true;
 	}
 
-	synchronized SOWrapper getFromMap(ID objID, TreeMap aMap) {
+	SOWrapper getFromMap(ID objID, Map aMap) {
 		return (SOWrapper) aMap.get(objID);
 	}
 
-	synchronized SOWrapper removeFromMap(ID objID, TreeMap aMap) {
+	synchronized SOWrapper removeFromMap(ID objID, Map aMap) {
 		return (SOWrapper) aMap.remove(objID);
 	}
 
@@ -235,7 +268,7 @@ class SOContainerGMM implements Observer {
 		return getFromMap(objID, active);
 	}
 
-	synchronized SOWrapper getFromAny(ID objID) {
+	SOWrapper getFromAny(ID objID) {
 		SOWrapper ro = getFromMap(objID, active);
 		if (ro != null)
 			return ro;
@@ -244,7 +277,7 @@ class SOContainerGMM implements Observer {
 	}
 
 	// Notification methods
-	void notifyAllOfMemberChange(Member m, TreeMap map, boolean add) {
+	void notifyAllOfMemberChange(Member m, Map map, boolean add) {
 		for (final Iterator i = map.values().iterator(); i.hasNext();) {
 			final SOWrapper ro = (SOWrapper) i.next();
 			ro.memberChanged(m, add);
@@ -253,6 +286,7 @@ class SOContainerGMM implements Observer {
 
 	public void update(Observable o, Object arg) {
 		final MemberChanged mc = (MemberChanged) arg;
+		updateSnapshot();
 		notifyAllOfMemberChange(mc.getMember(), active, mc.getAdded());
 	}
 
@@ -289,11 +323,11 @@ class SOContainerGMM implements Observer {
 		return aSet;
 	}
 
-	synchronized boolean isActive(ID id) {
+	boolean isActive(ID id) {
 		return active.containsKey(id);
 	}
 
-	synchronized boolean isLoading(ID id) {
+	boolean isLoading(ID id) {
 		return loading.containsKey(id);
 	}
 
@@ -313,7 +347,7 @@ class DestroyIterator implements Iterator {
 	Iterator i;
 	boolean match;
 
-	public DestroyIterator(TreeMap map, ID hID, boolean m) {
+	public DestroyIterator(Map map, ID hID, boolean m) {
 		i = map.values().iterator();
 		homeID = hID;
 		next = null;
@@ -19,6 +19,7 @@ import java.net.URI;
 import java.util.*;
 import org.eclipse.ecf.internal.provider.ProviderPlugin;
 import org.eclipse.ecf.provider.comm.IConnectRequestHandler;
+import org.eclipse.ecf.provider.comm.IConnection;
 import org.eclipse.ecf.provider.comm.tcp.*;
 
 public class SOContainerGroup implements ISocketAcceptHandler {
@@ -76,7 +77,7 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 	 * @since 4.7
 	 */
 	protected ObjectOutputStream createObjectOutputStream(Socket aSocket) throws IOException {
-		return new ObjectOutputStream(aSocket.getOutputStream());
+		return new ObjectOutputStream(new BufferedOutputStream(aSocket.getOutputStream(), Client.DEFAULT_OUTPUT_BUFFER_SIZE));
 	}
 
 	/**
@@ -103,6 +104,24 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 		return req;
 	}
 
+	/**
+	 * Select the container message codec for a new connection and set it as
+	 * the connection's {@link ConnectResultMessage#CODEC_PROPERTY}.
+	 * @param container the container being connected to.  Will not be <code>null</code>.
+	 * @param req the connect request.  Will not be <code>null</code>.
+	 * @param conn the new connection.  Will not be <code>null</code>.
+	 * @return String the name of the selected codec, or <code>null</code> if none
+	 * @since 4.10
+	 */
+	@SuppressWarnings("unchecked")
+	protected String selectContainerMessageCodec(SOContainer container, ConnectRequestMessage req, IConnection conn) {
+		final String codec = container.selectContainerMessageCodec(req.getCodecs());
+		final Map props = conn.getProperties();
+		if (codec != null && props != null)
+			props.put(ConnectResultMessage.CODEC_PROPERTY, codec);
+		return codec;
+	}
+
 	/**
 	 * @param aSocket socket
 	 * @since 4.7
@@ -131,6 +150,8 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 
 		// Create our local messaging interface
 		final Client newClient = new Client(aSocket, iStream, oStream, srs.getMessageReceiver());
+		// Select codec before anything can be sent to the new client
+		final String codec = selectContainerMessageCodec(srs, req, newClient);
 		// Get output stream lock so nothing is sent until we've responded
 		Object outputStreamLock = newClient.getOutputStreamLock();
 		// No other threads can access messaging interface until connect request handler has
@@ -139,7 +160,9 @@ public class SOContainerGroup implements ISocketAcceptHandler {
 			// Call checkConnect
 			final Serializable resp = ((IConnectRequestHandler) srs).handleConnectRequest(aSocket, path, req.getData(), newClient);
 			// Create connect response wrapper and send it back
-			oStream.writeObject(new ConnectResultMessage(resp));
+			final ConnectResultMessage result = new ConnectResultMessage(resp);
+			result.setCodec(codec);
+			oStream.writeObject(result);
 			oStream.flush();
 		}
 	}
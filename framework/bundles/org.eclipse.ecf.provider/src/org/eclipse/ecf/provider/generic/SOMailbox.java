@@ -0,0 +1,144 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.ecf.core.util.Event;
+import org.eclipse.ecf.internal.provider.ProviderPlugin;
+
+/**
+ * Event queue of a shared object whose events are dispatched by an
+ * {@link Executor} shared with other shared objects, instead of by a thread
+ * of its own.  At most one task per mailbox is submitted at a time, so a
+ * shared object still sees its events one at a time and in the order they
+ * were enqueued.  A task dispatches at most {@link #BATCH_SIZE} events and
+ * then resubmits itself, so that a busy shared object does not hold a pool
+ * thread from the others.
+ * <p>
+ * Containers use mailboxes when
+ * org.eclipse.ecf.provider.generic.sharedObjectDispatch=pool, dispatching
+ * on one pool of org.eclipse.ecf.provider.generic.sharedObjectPool.threads
+ * threads (default twice the number of processors, at least 4), or with
+ * org.eclipse.ecf.provider.generic.sharedObjectPool.virtual=true on a JVM that
+ * supports them, a virtual thread per task.
+ */
+final class SOMailbox extends SOQueue implements Runnable {
+
+	static final boolean POOL_DISPATCH = "pool".equals(System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectDispatch", "thread")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final int POOL_THREADS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectPool.threads", String.valueOf(Math.max(4, 2 * Runtime.getRuntime().availableProcessors())))); //$NON-NLS-1$
+
+	private static final boolean POOL_VIRTUAL = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectPool.virtual", "false")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
+	static final int BATCH_SIZE = 32;
+
+	private static Executor pool;
+
+	private final Executor executor;
+	private final SOWrapper wrapper;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private volatile boolean started;
+
+	SOMailbox(Executor executor, SOWrapper wrapper) {
+		this.executor = executor;
+		this.wrapper = wrapper;
+	}
+
+	/**
+	 * @return Executor the pool shared by the mailboxes of all containers
+	 */
+	static synchronized Executor getPool() {
+		if (pool == null) {
+			if (POOL_VIRTUAL)
+				pool = createVirtualThreadExecutor();
+			if (pool == null) {
+				final AtomicInteger count = new AtomicInteger();
+				// Each mailbox has at most one task queued, so the queue is
+				// bounded by the number of shared objects.  Rejecting a task
+				// would lose its mailbox's events.
+				final ThreadPoolExecutor tpe = new ThreadPoolExecutor(POOL_THREADS, POOL_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "SharedObject Dispatcher-" + count.incrementAndGet()); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				});
+				tpe.allowCoreThreadTimeOut(true);
+				pool = tpe;
+			}
+		}
+		return pool;
+	}
+
+	private static Executor createVirtualThreadExecutor() {
+		try {
+			// Java 21+
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor"); //$NON-NLS-1$
+			return (Executor) m.invoke(null);
+		} catch (Exception e) {
+			ProviderPlugin.getDefault().log(new Status(IStatus.WARNING, ProviderPlugin.PLUGIN_ID, "Virtual threads not available, using thread pool for shared objects", e)); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	public boolean enqueue(Object obj) {
+		if (!super.enqueue(obj))
+			return false;
+		schedule();
+		return true;
+	}
+
+	/**
+	 * Start dispatching events, including those enqueued so far.
+	 */
+	void start() {
+		started = true;
+		schedule();
+	}
+
+	boolean isStarted() {
+		return started;
+	}
+
+	private void schedule() {
+		if (started && scheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(this);
+			} catch (final RejectedExecutionException e) {
+				scheduled.set(false);
+				wrapper.handleRuntimeException(e);
+			}
+		}
+	}
+
+	public void run() {
+		try {
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				final Event evt = (Event) removeHead();
+				if (evt == null)
+					break;
+				wrapper.dispatch(evt);
+			}
+		} finally {
+			scheduled.set(false);
+			// Events enqueued while scheduled were not submitted
+			if (!isEmpty())
+				schedule();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.generic;
+
+import org.eclipse.ecf.core.sharedobject.events.RemoteSharedObjectEvent;
+import org.eclipse.ecf.provider.comm.BoundedFIFOQueue;
+
+/**
+ * Event queue of a shared object.  Only messages from other containers count
+ * against the limits; lifecycle and membership events are always queued.
+ * The limits default to the system properties
+ * org.eclipse.ecf.provider.generic.sharedObjectQueue.maxmsgs and .maxbytes
+ * (both default 0, unlimited), .policy (block or dropoldest, default block)
+ * and .blocktimeout (default 30000ms).  A blocked producer is usually a
+ * connection's receiver thread, so blocking pushes back on the remote sender.
+ * There is no connection to drop for a shared object, so the disconnect policy
+ * drops the oldest messages instead.
+ */
+class SOQueue extends BoundedFIFOQueue {
+
+	static final int MAX_MSGS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectQueue.maxmsgs", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+	static final long MAX_BYTES = Long.parseLong(System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectQueue.maxbytes", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+	static final int POLICY = parsePolicy(System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectQueue.policy", "block")); //$NON-NLS-1$ //$NON-NLS-2$
+	static final long BLOCK_TIMEOUT = Long.parseLong(System.getProperty("org.eclipse.ecf.provider.generic.sharedObjectQueue.blocktimeout", "30000")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	SOQueue() {
+		super(MAX_MSGS, MAX_BYTES, (POLICY == POLICY_DISCONNECT) ? POLICY_DROP_OLDEST : POLICY, BLOCK_TIMEOUT);
+	}
+
+	protected boolean isBounded(Object obj) {
+		return obj instanceof SOWrapper.ProcEvent && ((SOWrapper.ProcEvent) obj).getEvent() instanceof RemoteSharedObjectEvent;
+	}
+
+	protected long sizeOf(Object obj) {
+		return super.sizeOf(((RemoteSharedObjectEvent) ((SOWrapper.ProcEvent) obj).getEvent()).getData());
+	}
+}
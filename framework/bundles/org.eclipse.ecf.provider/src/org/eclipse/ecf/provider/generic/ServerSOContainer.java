@@ -76,7 +76,7 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 			if (conn == null)
 				return;
 			try {
-				conn.sendSynch(memberID, serialize(ContainerMessage.createLeaveGroupMessage(getID(), memberID, getNextSequenceNumber(), reason)));
+				conn.sendSynch(memberID, serializeContainerMessage(conn, ContainerMessage.createLeaveGroupMessage(getID(), memberID, getNextSequenceNumber(), reason)));
 			} catch (final Exception e) {
 				traceStack("Exception in ejectGroupMember.sendAsynch()", e); //$NON-NLS-1$
 			}
@@ -139,7 +139,7 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 		} else {
 			final IAsynchConnection conn = getConnectionForID(message.getToContainerID());
 			if (conn != null)
-				conn.sendAsynch(message.getToContainerID(), serialize(message));
+				conn.sendAsynch(message.getToContainerID(), serializeContainerMessage(conn, message));
 		}
 	}
 
@@ -152,6 +152,8 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 			queueContainerMessage(new ContainerMessage(from, null, getNextSequenceNumber(), data.getData()));
 		} else {
 			final Object ms[] = groupManager.getMembers();
+			// Encode the data once, each member gets its own receiver and sequence
+			final ContainerMessageBroadcast broadcast = new ContainerMessageBroadcast(new ContainerMessage(from, null, 0, data.getData()), true);
 			for (int i = 0; i < ms.length; i++) {
 				final Member m = (Member) ms[i];
 				final ID oldID = m.getID();
@@ -159,7 +161,7 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 					final IAsynchConnection conn = (IAsynchConnection) m.getData();
 					if (conn != null) {
 						try {
-							conn.sendAsynch(oldID, serialize(new ContainerMessage(from, oldID, getNextSequenceNumber(), data.getData())));
+							conn.sendAsynch(oldID, broadcast.encode(conn, oldID, getNextSequenceNumber()));
 						} catch (final IOException e) {
 							traceStack("Exception in forwardExcluding from " //$NON-NLS-1$
 									+ from + " with oldID " + oldID, e); //$NON-NLS-1$
@@ -286,11 +288,13 @@ public class ServerSOContainer extends SOContainer implements ISharedObjectConta
 
 	private final void queueToAll(ContainerMessage message) {
 		final Object[] members = groupManager.getMembers();
+		// Members sharing a codec are sent the same bytes
+		final ContainerMessageBroadcast broadcast = new ContainerMessageBroadcast(message, false);
 		for (int i = 0; i < members.length; i++) {
 			final IAsynchConnection conn = (IAsynchConnection) ((Member) members[i]).getData();
 			if (conn != null) {
 				try {
-					conn.sendAsynch(message.getToContainerID(), serialize(message));
+					conn.sendAsynch(message.getToContainerID(), broadcast.encode(conn, null, 0));
 				} catch (final IOException e) {
 					traceStack("Exception in queueToAll for ContainerMessage " + message, e); //$NON-NLS-1$
 				}
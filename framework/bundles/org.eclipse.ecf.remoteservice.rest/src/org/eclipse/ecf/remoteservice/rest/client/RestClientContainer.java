@@ -12,6 +12,14 @@
  *****************************************************************************/
 package org.eclipse.ecf.remoteservice.rest.client;
 
+import java.io.IOException;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.*;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.eclipse.ecf.remoteservice.IRemoteService;
 import org.eclipse.ecf.remoteservice.client.IRemoteServiceClientContainerAdapter;
 import org.eclipse.ecf.remoteservice.client.RemoteServiceClientRegistration;
@@ -22,10 +30,99 @@ import org.eclipse.ecf.remoteservice.rest.identity.RestID;
  */
 public class RestClientContainer extends AbstractRestClientContainer implements IRemoteServiceClientContainerAdapter {
 
+	private static final int MAX_CONNECTIONS_PER_ROUTE = Integer.parseInt(System.getProperty("org.eclipse.ecf.remoteservice.rest.RestClientContainer.maxConnectionsPerRoute", "20")); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final int MAX_CONNECTIONS = Integer.parseInt(System.getProperty("org.eclipse.ecf.remoteservice.rest.RestClientContainer.maxConnections", "100")); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final long KEEP_ALIVE = Long.parseLong(System.getProperty("org.eclipse.ecf.remoteservice.rest.RestClientContainer.keepAlive", "-1")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private CloseableHttpClient httpClient;
+
 	public RestClientContainer(RestID id) {
 		super(id);
 	}
 
+	/**
+	 * Get the http client shared by all remote services of this container.  It is created
+	 * on first use via {@link #createHttpClient()} and closed when the container is disposed.
+	 * 
+	 * @return HttpClient the shared client.  Will not be <code>null</code>.
+	 * @since 2.9
+	 */
+	public synchronized HttpClient getHttpClient() {
+		if (httpClient == null)
+			httpClient = createHttpClient();
+		return httpClient;
+	}
+
+	/**
+	 * @return int the max number of pooled connections per route.  By default the
+	 * org.eclipse.ecf.remoteservice.rest.RestClientContainer.maxConnectionsPerRoute
+	 * system property, or 20.
+	 * @since 2.9
+	 */
+	protected int getMaxConnectionsPerRoute() {
+		return MAX_CONNECTIONS_PER_ROUTE;
+	}
+
+	/**
+	 * @return int the max number of pooled connections.  By default the
+	 * org.eclipse.ecf.remoteservice.rest.RestClientContainer.maxConnections
+	 * system property, or 100.
+	 * @since 2.9
+	 */
+	protected int getMaxConnections() {
+		return MAX_CONNECTIONS;
+	}
+
+	/**
+	 * @return long the max time in ms an idle connection is kept for reuse.  -1 keeps it
+	 * for as long as the server's Keep-Alive header allows, or indefinitely without one.
+	 * 0 closes every connection after its response.
+	 * By default the org.eclipse.ecf.remoteservice.rest.RestClientContainer.keepAlive
+	 * system property, or -1.
+	 * @since 2.9
+	 */
+	protected long getKeepAlive() {
+		return KEEP_ALIVE;
+	}
+
+	/**
+	 * @return CloseableHttpClient with a connection pool configured from
+	 * {@link #getMaxConnectionsPerRoute()}, {@link #getMaxConnections()} and
+	 * {@link #getKeepAlive()}
+	 * @since 2.9
+	 */
+	protected CloseableHttpClient createHttpClient() {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setDefaultMaxPerRoute(getMaxConnectionsPerRoute());
+		connectionManager.setMaxTotal(getMaxConnections());
+		HttpClientBuilder builder = HttpClientBuilder.create().setConnectionManager(connectionManager);
+		final long keepAlive = getKeepAlive();
+		if (keepAlive == 0)
+			builder.setConnectionReuseStrategy(NoConnectionReuseStrategy.INSTANCE);
+		else if (keepAlive > 0)
+			builder.setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+				public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+					long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+					return (duration < 0 || duration > keepAlive) ? keepAlive : duration;
+				}
+			});
+		return builder.build();
+	}
+
+	public void dispose() {
+		super.dispose();
+		synchronized (this) {
+			if (httpClient != null) {
+				try {
+					httpClient.close();
+				} catch (IOException e) {
+					// ignore
+				}
+				httpClient = null;
+			}
+		}
+	}
+
 	protected IRemoteService createRemoteService(RemoteServiceClientRegistration registration) {
 		return new RestClientService(this, registration);
 	}
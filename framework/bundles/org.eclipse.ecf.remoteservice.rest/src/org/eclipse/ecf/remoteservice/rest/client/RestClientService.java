@@ -28,6 +28,7 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.AbstractHttpMessage;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.util.EntityUtils;
 import org.eclipse.ecf.core.security.*;
 import org.eclipse.ecf.core.util.ECFException;
 import org.eclipse.ecf.remoteservice.IRemoteCall;
@@ -59,7 +60,13 @@ public class RestClientService extends AbstractRestClientService {
 		this.httpClient = createHttpClient();
 	}
 
+	/**
+	 * @return HttpClient to use for this service.  By default this is the pooled client
+	 * shared by all services of the container.
+	 */
 	protected HttpClient createHttpClient() {
+		if (container instanceof RestClientContainer)
+			return ((RestClientContainer) container).getHttpClient();
 		return HttpClientBuilder.create().build();
 	}
 
@@ -134,13 +141,28 @@ public class RestClientService extends AbstractRestClientService {
 		byte[] responseBody = null;
 		int responseCode = 500;
 		HttpResponse response = null;
+		Object result = null;
 		try {
 			response = httpClient.execute(httpMethod);
 			trace("invokeRemoteCall", "httpMethod executed. response=" + response); //$NON-NLS-1$ //$NON-NLS-2$
 			responseCode = response.getStatusLine().getStatusCode();
 			if (isResponseOk(response)) {
-				// Get responseBody as String
-				responseBody = getResponseAsBytes(response);
+				Map responseHeaders = convertResponseHeaders(response.getAllHeaders());
+				HttpEntity entity = response.getEntity();
+				if (entity != null && isResponseStreamed()) {
+					trace("processResponse", "httpMethod=" + httpMethod + ";call=" + call + ";callable=" + callable + ";responseHeaders=" + responseHeaders + ";streamed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+					InputStream responseStream = entity.getContent();
+					try {
+						result = processResponseStream(endpointUri, call, callable, responseHeaders, responseStream);
+					} finally {
+						responseStream.close();
+					}
+				} else {
+					// Get responseBody as bytes
+					responseBody = getResponseAsBytes(response);
+					trace("processResponse", "httpMethod=" + httpMethod + ";call=" + call + ";callable=" + callable + ";responseHeaders=" + responseHeaders + ";responseBody=" + responseBody); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+					result = processResponse(endpointUri, call, callable, responseHeaders, responseBody);
+				}
 			} else {
 				// If this method returns true, we should retrieve the response body
 				if (retrieveErrorResponseBody(response)) {
@@ -149,16 +171,14 @@ public class RestClientService extends AbstractRestClientService {
 				// Now pass to the exception handler
 				handleException("Http response not OK.  httpMethod=" + httpMethod + " responseCode=" + Integer.valueOf(responseCode), null, responseCode, responseBody); //$NON-NLS-1$ //$NON-NLS-2$
 			}
-		} catch (IOException e) {
-			handleException("RestClientService transport IOException", e, responseCode); //$NON-NLS-1$
-		}
-		Object result = null;
-		try {
-			Map responseHeaders = convertResponseHeaders(response.getAllHeaders());
-			trace("processResponse", "httpMethod=" + httpMethod + ";call=" + call + ";callable=" + callable + ";responseHeaders=" + responseHeaders + ";responseBody=" + responseBody); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
-			result = processResponse(endpointUri, call, callable, responseHeaders, responseBody);
 		} catch (NotSerializableException e) {
 			handleException("Exception deserializing response.  httpMethod=" + httpMethod + " responseCode=" + Integer.valueOf(responseCode), e, responseCode); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (IOException e) {
+			handleException("RestClientService transport IOException", e, responseCode); //$NON-NLS-1$
+		} finally {
+			// release the connection back to the pool
+			if (response != null)
+				EntityUtils.consumeQuietly(response.getEntity());
 		}
 		return result;
 	}
@@ -169,9 +189,8 @@ public class RestClientService extends AbstractRestClientService {
 	}
 
 	protected byte[] getResponseAsBytes(HttpResponse response) throws IOException {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		response.getEntity().writeTo(os);
-		return os.toByteArray();
+		// sized from the Content-Length, when there is one
+		return EntityUtils.toByteArray(response.getEntity());
 	}
 
 	/*
@@ -12,8 +12,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.remoteservice.rest.client;
 
-import java.io.NotSerializableException;
-import java.io.StringReader;
+import java.io.*;
 import java.util.Map;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -21,6 +20,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.eclipse.ecf.remoteservice.IRemoteCall;
 import org.eclipse.ecf.remoteservice.client.IRemoteCallable;
 import org.eclipse.ecf.remoteservice.client.IRemoteResponseDeserializer;
+import org.eclipse.ecf.remoteservice.client.IRemoteResponseStreamDeserializer;
 import org.w3c.dom.Document;
 import org.xml.sax.InputSource;
 
@@ -29,9 +29,21 @@ import org.xml.sax.InputSource;
  * used to create XML Resource representations and will be registered when the
  * API is started.
  */
-public class XMLRemoteResponseDeserializer implements IRemoteResponseDeserializer {
+public class XMLRemoteResponseDeserializer implements IRemoteResponseStreamDeserializer {
 
 	public Object deserializeResponse(String uri, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, byte[] responseBody) throws NotSerializableException {
+		return parse(new InputSource(new StringReader(new String(responseBody))));
+	}
+
+	/**
+	 * @since 2.9
+	 */
+	public Object deserializeResponse(String uri, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, InputStream responseStream) throws NotSerializableException {
+		// the parser detects the encoding from the document
+		return parse(new InputSource(responseStream));
+	}
+
+	private Document parse(InputSource src) throws NotSerializableException {
 		DocumentBuilderFactory documentFactory = DocumentBuilderFactory.newInstance();
 		String FEATURE = "http://apache.org/xml/features/disallow-doctype-decl";
 		try {
@@ -43,7 +55,6 @@ public class XMLRemoteResponseDeserializer implements IRemoteResponseDeserialize
 		String errorMsg = "XML response can't be parsed: "; //$NON-NLS-1$
 		try {
 			DocumentBuilder builder = documentFactory.newDocumentBuilder();
-			InputSource src = new InputSource(new StringReader(new String(responseBody)));
 			Document dom = builder.parse(src);
 			return dom;
 		} catch (Exception e) {
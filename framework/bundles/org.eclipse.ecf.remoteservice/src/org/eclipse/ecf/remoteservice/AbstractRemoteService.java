@@ -50,6 +50,68 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	 */
 	protected ExecutorService futureExecutorService;
 
+	/**
+	 * Set to false to evaluate the proxy dispatch methods on every proxy call rather than
+	 * once per Method, for subclasses whose call method name or timeout depend on the call
+	 * arguments.
+	 * 
+	 * @since 8.15
+	 */
+	protected static final boolean cacheInvocationPlans = Boolean.valueOf(System.getProperty("ecf.remoteservice.cacheInvocationPlans", "true")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * How a proxy Method is dispatched, as decided by {@link AbstractRemoteService#isObjectMethod(Method)},
+	 * {@link AbstractAsyncProxyRemoteService#isReturnAsync(Object, Method, Object[])},
+	 * {@link AbstractRemoteService#isInterfaceAsync(Class)}, {@link AbstractRemoteService#isMethodAsync(String)},
+	 * {@link AbstractRemoteService#getCallMethodNameForProxyInvoke(Method, Object[])} and
+	 * {@link AbstractRemoteService#getCallTimeoutForProxyInvoke(String, Method, Object[])}.
+	 * 
+	 * @since 8.15
+	 */
+	protected static class InvocationPlan {
+		/**
+		 * Method may be answered locally by invokeObject
+		 */
+		public final boolean objectMethod;
+		/**
+		 * Method returns Future, IFuture, CompletableFuture or CompletionStage
+		 */
+		public final boolean returnAsync;
+		/**
+		 * Method is an xxxAsync method of an IxxxAsync interface
+		 */
+		public final boolean asyncMethod;
+		public final String callMethod;
+		public final long callTimeout;
+
+		public InvocationPlan(boolean objectMethod, boolean returnAsync, boolean asyncMethod, String callMethod, long callTimeout) {
+			this.objectMethod = objectMethod;
+			this.returnAsync = returnAsync;
+			this.asyncMethod = asyncMethod;
+			this.callMethod = callMethod;
+			this.callTimeout = callTimeout;
+		}
+	}
+
+	private final ConcurrentMap<Method, InvocationPlan> invocationPlans = new ConcurrentHashMap<Method, InvocationPlan>();
+
+	// A subclass that overrides invokeObject may answer any method, so it is called for all of them
+	private final boolean invokeObjectOverridden = isInvokeObjectOverridden(getClass());
+
+	private static boolean isInvokeObjectOverridden(Class<?> clazz) {
+		for (Class<?> c = clazz; c != null && c != AbstractRemoteService.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("invokeObject", Object.class, Method.class, Object[].class); //$NON-NLS-1$
+				return true;
+			} catch (NoSuchMethodException e) {
+				// not declared here
+			} catch (SecurityException e) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * @since 8.2
 	 * @param call the remote call to get the ExecutorService for
@@ -365,6 +427,50 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 		return method.getName();
 	}
 
+	/**
+	 * @since 8.15
+	 * @param method the java Method invoked
+	 * @return true if {@link #invokeObject(Object, Method, Object[])} may answer calls of the given method.
+	 * If a subclass overrides invokeObject, it is called for all methods regardless.
+	 */
+	protected boolean isObjectMethod(Method method) {
+		String methodName = method.getName();
+		return methodName.equals("toString") || methodName.equals("hashCode") || methodName.equals("equals") || methodName.equals("getRemoteService") || methodName.equals("getRemoteServiceReference"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	/**
+	 * @since 8.15
+	 * @param proxy proxy instance
+	 * @param method the java Method invoked
+	 * @param args arguments of the first call of the method
+	 * @return InvocationPlan for all calls of the given method.  Must not be <code>null</code>.
+	 */
+	protected InvocationPlan createInvocationPlan(Object proxy, Method method, Object[] args) {
+		final boolean returnAsync = isReturnAsync(proxy, method, args);
+		final String callMethod = getCallMethodNameForProxyInvoke(method, args);
+		return new InvocationPlan(invokeObjectOverridden || isObjectMethod(method), returnAsync, returnAsync && isInterfaceAsync(method.getDeclaringClass()) && isMethodAsync(method.getName()), callMethod, getCallTimeoutForProxyInvoke(callMethod, method, args));
+	}
+
+	/**
+	 * @since 8.15
+	 * @param proxy proxy instance
+	 * @param method the java Method invoked
+	 * @param args arguments
+	 * @return InvocationPlan for the given method, created on the first call of the method
+	 */
+	protected InvocationPlan getInvocationPlan(Object proxy, Method method, Object[] args) {
+		if (!cacheInvocationPlans)
+			return createInvocationPlan(proxy, method, args);
+		InvocationPlan plan = invocationPlans.get(method);
+		if (plan == null) {
+			plan = createInvocationPlan(proxy, method, args);
+			InvocationPlan existing = invocationPlans.putIfAbsent(method, plan);
+			if (existing != null)
+				plan = existing;
+		}
+		return plan;
+	}
+
 	protected Object invokeObject(Object proxy, final Method method, final Object[] args) throws Throwable {
 		String methodName = method.getName();
 		if (methodName.equals("toString")) { //$NON-NLS-1$
@@ -490,21 +596,31 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 	}
 
 	public Object invoke(Object proxy, final Method method, final Object[] args) throws Throwable {
-		Object resultObject = null;
+		InvocationPlan plan = null;
 		try {
-			// If the method is from Class Object, or from IRemoteServiceProxy
-			// then return result by directly invoking on the proxy
-			resultObject = invokeObject(proxy, method, args);
+			plan = getInvocationPlan(proxy, method, args);
 		} catch (Throwable t) {
-			handleProxyException("Exception invoking local Object method on remote service proxy=" + getRemoteServiceID(), t); //$NON-NLS-1$
+			handleProxyException("Exception planning invocation of method=" + method.getName() + " on remote service proxy=" + getRemoteServiceID(), t); //$NON-NLS-1$ //$NON-NLS-2$
+			// If the above method doesn't throw as it should, we return null
+			return null;
+		}
+		if (plan.objectMethod) {
+			Object resultObject = null;
+			try {
+				// If the method is from Class Object, or from IRemoteServiceProxy
+				// then return result by directly invoking on the proxy
+				resultObject = invokeObject(proxy, method, args);
+			} catch (Throwable t) {
+				handleProxyException("Exception invoking local Object method on remote service proxy=" + getRemoteServiceID(), t); //$NON-NLS-1$
+			}
+			if (resultObject != null)
+				return resultObject;
 		}
-		if (resultObject != null)
-			return resultObject;
 
 		try {
 			// If return is async type (Future, IFuture, CompletableFuture, CompletionStage)
-			if (isReturnAsync(proxy, method, args)) {
-				if (isInterfaceAsync(method.getDeclaringClass()) && isMethodAsync(method.getName()))
+			if (plan.returnAsync) {
+				if (plan.asyncMethod)
 					return invokeAsync(method, args);
 				// If OSGI Async then invoke method directly
 				if (isOSGIAsync())
@@ -516,9 +632,9 @@ public abstract class AbstractRemoteService extends AbstractAsyncProxyRemoteServ
 		}
 
 		// Get the callMethod, callParameters, and callTimeout
-		final String callMethod = getCallMethodNameForProxyInvoke(method, args);
+		final String callMethod = plan.callMethod;
 		final Object[] callParameters = getCallParametersForProxyInvoke(callMethod, method, args);
-		final long callTimeout = getCallTimeoutForProxyInvoke(callMethod, method, args);
+		final long callTimeout = plan.callTimeout;
 		// Create IRemoteCall instance from method, parameters, and timeout
 		final IRemoteCall remoteCall = createRemoteCall(callMethod, callParameters, callTimeout);
 		// Invoke synchronously
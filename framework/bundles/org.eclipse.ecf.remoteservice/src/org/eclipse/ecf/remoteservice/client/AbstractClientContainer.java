@@ -12,7 +12,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.remoteservice.client;
 
-import java.io.NotSerializableException;
+import java.io.*;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.AbstractContainer;
@@ -515,6 +515,32 @@ public abstract class AbstractClientContainer extends AbstractContainer implemen
 		return (deserializer == null) ? null : deserializer.deserializeResponse(uri, call, callable, responseHeaders, responseBody);
 	}
 
+	/**
+	 * Deserialize a response body read from a stream.  If the response deserializer is an
+	 * {@link IRemoteResponseStreamDeserializer} it reads the stream directly, otherwise the body
+	 * is read into memory and passed to {@link #processResponse(String, IRemoteCall, IRemoteCallable, Map, byte[])}.
+	 * 
+	 * @param uri uri
+	 * @param call call
+	 * @param callable callable
+	 * @param responseHeaders http response headers
+	 * @param responseStream response body as stream.  Will not be <code>null</code>.
+	 * @return Object response deserialized via response deserializer
+	 * @throws IOException if response cannot be read or deserialized for processing
+	 * @since 8.15
+	 */
+	protected Object processResponseStream(String uri, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, InputStream responseStream) throws IOException {
+		IRemoteResponseDeserializer deserializer = getResponseDeserializer();
+		if (deserializer instanceof IRemoteResponseStreamDeserializer)
+			return ((IRemoteResponseStreamDeserializer) deserializer).deserializeResponse(uri, call, callable, responseHeaders, responseStream);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buf = new byte[4096];
+		int count;
+		while ((count = responseStream.read(buf)) != -1)
+			bos.write(buf, 0, count);
+		return processResponse(uri, call, callable, responseHeaders, bos.toByteArray());
+	}
+
 	/**
 	 * Create a remote service for a given remote service registration.   This method will be 
 	 * called as part of the RemoteServiceAdmin.importService.   
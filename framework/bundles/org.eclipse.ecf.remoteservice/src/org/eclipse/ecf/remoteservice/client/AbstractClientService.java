@@ -12,7 +12,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.remoteservice.client;
 
-import java.io.NotSerializableException;
+import java.io.*;
 import java.lang.reflect.Method;
 import java.util.Map;
 import org.eclipse.core.runtime.Assert;
@@ -219,6 +219,29 @@ public abstract class AbstractClientService extends AbstractRemoteService {
 		return getClientContainer().processResponse(uri, call, callable, responseHeaders, responseBody);
 	}
 
+	/**
+	 * @param uri uri
+	 * @param call call
+	 * @param callable callable
+	 * @param responseHeaders responseHeaders
+	 * @param responseStream responseStream
+	 * @return Object processed response
+	 * @throws IOException if response cannot be read or deserialized
+	 * @since 8.15
+	 */
+	protected Object processResponseStream(String uri, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, InputStream responseStream) throws IOException {
+		return getClientContainer().processResponseStream(uri, call, callable, responseHeaders, responseStream);
+	}
+
+	/**
+	 * @return <code>true</code> if the container's response deserializer reads response bodies
+	 * from a stream
+	 * @since 8.15
+	 */
+	protected boolean isResponseStreamed() {
+		return getClientContainer().getResponseDeserializer() instanceof IRemoteResponseStreamDeserializer;
+	}
+
 	protected IRemoteServiceID getRemoteServiceID() {
 		return registration.getID();
 	}
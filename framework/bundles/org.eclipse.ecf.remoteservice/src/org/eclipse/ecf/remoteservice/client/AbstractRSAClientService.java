@@ -108,13 +108,16 @@ public abstract class AbstractRSAClientService extends AbstractClientService {
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 		try {
-			Object resultObject = invokeObject(proxy, method, args);
-			if (resultObject != null)
-				return resultObject;
+			final InvocationPlan plan = getInvocationPlan(proxy, method, args);
+			if (plan.objectMethod) {
+				Object resultObject = invokeObject(proxy, method, args);
+				if (resultObject != null)
+					return resultObject;
+			}
 			try {
 				// If return is async type (Future, IFuture, CompletableFuture, CompletionStage)
-				if (isReturnAsync(proxy, method, args)) {
-					if (isInterfaceAsync(method.getDeclaringClass()) && isMethodAsync(method.getName()))
+				if (plan.returnAsync) {
+					if (plan.asyncMethod)
 						return invokeAsync(createRemoteCall(proxy, method, getAsyncInvokeMethodName(method), args, getDefaultTimeout()));
 					// If OSGI Async then invoke method directly
 					if (isOSGIAsync())
@@ -124,9 +127,9 @@ public abstract class AbstractRSAClientService extends AbstractClientService {
 				handleProxyException("Exception invoking async method on remote service proxy=" + getRemoteServiceID(), t); //$NON-NLS-1$
 			}
 
-			final String callMethod = getCallMethodNameForProxyInvoke(method, args);
+			final String callMethod = plan.callMethod;
 			final Object[] callParameters = getCallParametersForProxyInvoke(callMethod, method, args);
-			final long callTimeout = getCallTimeoutForProxyInvoke(callMethod, method, args);
+			final long callTimeout = plan.callTimeout;
 			return invokeSync(createRemoteCall(proxy, method, callMethod, callParameters, callTimeout));
 		} catch (Throwable t) {
 			if (t instanceof ServiceException)
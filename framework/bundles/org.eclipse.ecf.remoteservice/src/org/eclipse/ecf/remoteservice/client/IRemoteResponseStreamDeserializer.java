@@ -0,0 +1,47 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.remoteservice.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import org.eclipse.ecf.remoteservice.IRemoteCall;
+
+/**
+ * Deserializer that reads the response body directly from the transport's
+ * input stream, rather than from a byte array holding the whole body.
+ * Containers that support streaming use this variant when the response
+ * deserializer implements it, and
+ * {@link IRemoteResponseDeserializer#deserializeResponse(String, IRemoteCall, IRemoteCallable, Map, byte[])}
+ * otherwise.
+ * 
+ * @since 8.15
+ */
+public interface IRemoteResponseStreamDeserializer extends IRemoteResponseDeserializer {
+
+	/**
+	 * Deserialize remote response from a stream.
+	 * 
+	 * @param endpoint the endpoint.  Should not be <code>null</code>.
+	 * @param call the call associated with the response.  Will not be <code>null</code>.
+	 * @param callable the callable associated with the response.  Will not be <code>null</code>.
+	 * @param responseHeaders response headers associated with the successful remote call.  May be <code>null</code>.
+	 * @param responseStream the response body to deserialize.  Will not be <code>null</code>.
+	 * The stream is closed by the caller and must not be used after this method returns.
+	 * @return Object the deserialized response.  May be <code>null</code>.
+	 * @throws IOException thrown if the response body cannot be read, or a
+	 * {@link java.io.NotSerializableException} if it cannot be deserialized.
+	 */
+	public Object deserializeResponse(String endpoint, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, InputStream responseStream) throws IOException;
+
+}
@@ -0,0 +1,152 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors: Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.core.util;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Per-class field accessor plan used by {@link OSGIObjectOutputStream},
+ * {@link OSGIObjectInputStream} and {@link SerDTO}.  The reflective lookup,
+ * modifier checks and setAccessible calls are done once per class rather than
+ * once per serialized instance.
+ */
+final class ClassPlan {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	/**
+	 * Non-static, non-transient fields declared by exactly the given class (not
+	 * its superclasses)
+	 */
+	private static final ClassValue<ClassPlan> DECLARED = new ClassValue<ClassPlan>() {
+		@Override
+		protected ClassPlan computeValue(Class<?> type) {
+			return new ClassPlan(type, type.getDeclaredFields(), false);
+		}
+	};
+
+	/**
+	 * Public non-static, non-transient fields of the given class and its
+	 * superclasses, as used for DTOs
+	 */
+	private static final ClassValue<ClassPlan> PUBLIC = new ClassValue<ClassPlan>() {
+		@Override
+		protected ClassPlan computeValue(Class<?> type) {
+			return new ClassPlan(type, type.getFields(), true);
+		}
+	};
+
+	static ClassPlan declared(Class<?> clazz) {
+		return DECLARED.get(clazz);
+	}
+
+	static ClassPlan dto(Class<?> clazz) {
+		return PUBLIC.get(clazz);
+	}
+
+	final Class<?> clazz;
+	final String[] names;
+	/**
+	 * Field getters with type (Object)Object, or <code>null</code> for fields that
+	 * could not be made accessible
+	 */
+	final MethodHandle[] getters;
+	/**
+	 * Field setters with type (Object,Object)void, or <code>null</code> for
+	 * fields that could not be made accessible (or are final)
+	 */
+	final MethodHandle[] setters;
+	private final Map<String, Integer> indexes;
+	private final boolean publicConstructor;
+	private volatile MethodHandle constructor;
+
+	private ClassPlan(Class<?> clazz, Field[] fields, boolean publicConstructor) {
+		this.clazz = clazz;
+		this.publicConstructor = publicConstructor;
+		final List<Field> accepted = new ArrayList<Field>(fields.length);
+		for (Field f : fields) {
+			final int mod = f.getModifiers();
+			if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod)))
+				accepted.add(f);
+		}
+		final int size = accepted.size();
+		this.names = new String[size];
+		this.getters = new MethodHandle[size];
+		this.setters = new MethodHandle[size];
+		this.indexes = new HashMap<String, Integer>(size * 2);
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+		for (int i = 0; i < size; i++) {
+			final Field f = accepted.get(i);
+			names[i] = f.getName();
+			indexes.put(names[i], Integer.valueOf(i));
+			final int mod = f.getModifiers();
+			// final fields are only writable through an accessible Field
+			if (!Modifier.isPublic(mod) || Modifier.isFinal(mod) || !Modifier.isPublic(f.getDeclaringClass().getModifiers()))
+				f.trySetAccessible();
+			try {
+				getters[i] = lookup.unreflectGetter(f).asType(GETTER_TYPE);
+			} catch (IllegalAccessException e) {
+				// not accessible, left null
+			}
+			try {
+				setters[i] = lookup.unreflectSetter(f).asType(SETTER_TYPE);
+			} catch (IllegalAccessException e) {
+				// not accessible or final, left null
+			}
+		}
+	}
+
+	int size() {
+		return names.length;
+	}
+
+	int indexOf(String name) {
+		final Integer i = indexes.get(name);
+		return (i == null) ? -1 : i.intValue();
+	}
+
+	Object get(int index, Object obj) throws Throwable {
+		final MethodHandle getter = getters[index];
+		if (getter == null)
+			throw new IllegalAccessException("Cannot access field=" + names[index] + " of class=" + clazz.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		return getter.invokeExact(obj);
+	}
+
+	void set(int index, Object obj, Object value) throws Throwable {
+		final MethodHandle setter = setters[index];
+		if (setter == null)
+			throw new IllegalAccessException("Cannot set field=" + names[index] + " of class=" + clazz.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		setter.invokeExact(obj, value);
+	}
+
+	/**
+	 * @return new instance created with the class's no-arg constructor (which
+	 * must be public for DTOs)
+	 */
+	Object newInstance() throws Throwable {
+		MethodHandle cons = constructor;
+		if (cons == null) {
+			final Constructor<?> c = publicConstructor ? clazz.getConstructor() : clazz.getDeclaredConstructor();
+			if (!publicConstructor || !Modifier.isPublic(clazz.getModifiers()))
+				c.trySetAccessible();
+			cons = MethodHandles.lookup().unreflectConstructor(c).asType(CONSTRUCTOR_TYPE);
+			constructor = cons;
+		}
+		return cons.invokeExact();
+	}
+}
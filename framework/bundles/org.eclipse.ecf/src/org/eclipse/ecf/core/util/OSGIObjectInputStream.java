@@ -12,7 +12,9 @@
 package org.eclipse.ecf.core.util;
 
 import java.io.*;
-import java.lang.reflect.*;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
 import java.util.*;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.Version;
@@ -32,6 +34,10 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 	 */
 	ClassLoader classLoader;
 
+	// class and field names read from this stream, by back-reference index
+	private List<String> names;
+	private byte[] scratch;
+
 	class ReplaceableObjectInputStream extends ObjectInputStream {
 		public ReplaceableObjectInputStream(InputStream ins) throws IOException {
 			super(ins);
@@ -149,6 +155,10 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 				for (int i = 0; i < ol; i++)
 					Array.set(oresult, i, readObjectOverride());
 				return oresult;
+			case C_PARRAY : // primitive array
+				return readPrimitiveArray();
+			case C_DTO : // non-serializable with public fields
+				return readDTO();
 			case C_DICT : // Dictionary
 				Class<?> dictClazz = loadClass(in.readUTF());
 				Dictionary dict = null;
@@ -246,22 +256,20 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 		try {
 			int fieldCount = in.readInt();
 			while (fieldCount > -1) {
+				final ClassPlan plan = ClassPlan.declared(clazz);
 				for (int i = 0; i < fieldCount; i++) {
 					final String fieldName = in.readUTF();
-					final Field field = clazz.getDeclaredField(fieldName);
-					final int mod = field.getModifiers();
-					if (!Modifier.isPublic(mod))
-						field.setAccessible(true);
-
-					//
+					final int index = plan.indexOf(fieldName);
+					if (index < 0)
+						throw new NoSuchFieldException(fieldName);
 					final Object value = readObjectOverride();
-					field.set(inst, value);
+					plan.set(index, inst, value);
 				}
 				clazz = clazz.getSuperclass();
 				fieldCount = in.readInt();
 			}
 			return inst;
-		} catch (final Exception e) {
+		} catch (final Throwable e) {
 			IOException t = new IOException("Error while deserializing class=" + clazz.getName() + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
 			t.setStackTrace(e.getStackTrace());
 			throw t;
@@ -270,8 +278,8 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 
 	protected Object createInstance(Class<?> clazz) throws IOException {
 		try {
-			return clazz.getDeclaredConstructor().newInstance();
-		} catch (Exception e) {
+			return ClassPlan.declared(clazz).newInstance();
+		} catch (Throwable e) {
 			throw new IOException("Could create new instance of class=" + clazz.getName() + ".  Class must have public no-arg constructor"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
 	}
@@ -290,6 +298,147 @@ public class OSGIObjectInputStream extends ObjectInputStream implements OSGIObje
 		return in.readObject();
 	}
 
+	/**
+	 * Read object written by {@link OSGIObjectOutputStream#writeDTO(Object, Class)}.
+	 * As with {@link SerDTO}, fields not present in the local class are ignored.
+	 * @return Object the new instance
+	 * @throws IOException if some problem reading or creating the instance
+	 * @throws ClassNotFoundException if the class cannot be loaded
+	 * @since 3.11
+	 */
+	protected Object readDTO() throws IOException, ClassNotFoundException {
+		final String className = readName();
+		trace("readDTO " + className); //$NON-NLS-1$
+		final ClassPlan plan = ClassPlan.dto(loadClass(className));
+		final Object result;
+		try {
+			result = plan.newInstance();
+		} catch (Throwable e) {
+			throw new IOException("Could not create instance of DTO class=" + className + ".  Class must have public no-arg constructor"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		final int fieldCount = in.readInt();
+		for (int i = 0; i < fieldCount; i++) {
+			final int index = plan.indexOf(readName());
+			final Object value = readObjectOverride();
+			if (index >= 0) {
+				try {
+					plan.set(index, result, value);
+				} catch (Throwable e) {
+					// ignore, as with SerDTO
+				}
+			}
+		}
+		return result;
+	}
+
+	private String readName() throws IOException {
+		if (names == null)
+			names = new ArrayList<String>();
+		final int ref = in.readInt();
+		if (ref == -1) {
+			final String name = in.readUTF();
+			names.add(name);
+			return name;
+		}
+		if (ref < 0 || ref >= names.size())
+			throw new IOException("Invalid name reference=" + ref); //$NON-NLS-1$
+		return names.get(ref);
+	}
+
+	/**
+	 * Read up to count elements of the given size into the scratch buffer.
+	 * @return ByteBuffer wrapping the bytes read
+	 */
+	private ByteBuffer readChunk(int count, int size) throws IOException {
+		if (scratch == null)
+			scratch = new byte[8192];
+		final int n = Math.min(count, scratch.length / size);
+		in.readFully(scratch, 0, n * size);
+		return ByteBuffer.wrap(scratch, 0, n * size);
+	}
+
+	private Object readPrimitiveArray() throws IOException {
+		final byte componentType = in.readByte();
+		final int len = in.readInt();
+		if (len < 0)
+			throw new IOException("Invalid array length=" + len); //$NON-NLS-1$
+		switch (componentType) {
+			case C_BYTE : {
+				final byte[] a = new byte[len];
+				in.readFully(a);
+				return a;
+			}
+			case C_BOOL : {
+				final boolean[] a = new boolean[len];
+				for (int i = 0; i < len; i++)
+					a[i] = in.readBoolean();
+				return a;
+			}
+			case C_INT : {
+				final int[] a = new int[len];
+				for (int i = 0; i < len;) {
+					final ByteBuffer buf = readChunk(len - i, 4);
+					final int n = buf.remaining() / 4;
+					buf.asIntBuffer().get(a, i, n);
+					i += n;
+				}
+				return a;
+			}
+			case C_LONG : {
+				final long[] a = new long[len];
+				for (int i = 0; i < len;) {
+					final ByteBuffer buf = readChunk(len - i, 8);
+					final int n = buf.remaining() / 8;
+					buf.asLongBuffer().get(a, i, n);
+					i += n;
+				}
+				return a;
+			}
+			case C_DOUBLE : {
+				final double[] a = new double[len];
+				for (int i = 0; i < len;) {
+					final ByteBuffer buf = readChunk(len - i, 8);
+					final int n = buf.remaining() / 8;
+					buf.asDoubleBuffer().get(a, i, n);
+					i += n;
+				}
+				return a;
+			}
+			case C_FLOAT : {
+				final float[] a = new float[len];
+				for (int i = 0; i < len;) {
+					final ByteBuffer buf = readChunk(len - i, 4);
+					final int n = buf.remaining() / 4;
+					buf.asFloatBuffer().get(a, i, n);
+					i += n;
+				}
+				return a;
+			}
+			case C_SHORT : {
+				final short[] a = new short[len];
+				for (int i = 0; i < len;) {
+					final ByteBuffer buf = readChunk(len - i, 2);
+					final int n = buf.remaining() / 2;
+					buf.asShortBuffer().get(a, i, n);
+					i += n;
+				}
+				return a;
+			}
+			case C_CHAR : {
+				final char[] a = new char[len];
+				for (int i = 0; i < len;) {
+					final ByteBuffer buf = readChunk(len - i, 2);
+					final int n = buf.remaining() / 2;
+					buf.asCharBuffer().get(a, i, n);
+					i += n;
+				}
+				return a;
+			}
+			default :
+				throw new IOException("Cannot deserialize primitive array with type=" + componentType); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * 
 	 * @see java.io.ObjectInputStream#read()
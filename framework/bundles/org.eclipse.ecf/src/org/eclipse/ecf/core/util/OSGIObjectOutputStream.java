@@ -12,7 +12,8 @@
 package org.eclipse.ecf.core.util;
 
 import java.io.*;
-import java.lang.reflect.*;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.*;
 import org.osgi.framework.Version;
 import org.osgi.service.log.LogService;
@@ -22,10 +23,28 @@ import org.osgi.service.log.LogService;
  */
 public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIObjectStreamConstants {
 
+	/**
+	 * System property to enable the {@link #C_DTO} and {@link #C_PARRAY}
+	 * encodings.  An OSGIObjectInputStream older than 3.11 cannot read them,
+	 * so only enable them when every reader has been updated.  Default is
+	 * <code>false</code>.
+	 * @since 3.11
+	 */
+	public static final String COMPACT_PROP = "org.eclipse.ecf.core.util.osgiobjectstream.compact"; //$NON-NLS-1$
+
+	private static final boolean DEFAULT_COMPACT = Boolean.parseBoolean(System.getProperty(COMPACT_PROP, "false")); //$NON-NLS-1$
+
+	private static final int SCRATCH_SIZE = 8192;
+
 	protected final ObjectOutputStream out;
 	protected LogService logger;
 	protected boolean allowNonSerializable = false;
 
+	private boolean compact = DEFAULT_COMPACT;
+	// class and field names already written to this stream, with their back-reference index
+	private Map<String, Integer> names;
+	private ByteBuffer scratch;
+
 	class ReplaceableObjectOutputStream extends ObjectOutputStream {
 
 		public ReplaceableObjectOutputStream(OutputStream out) throws IOException {
@@ -67,6 +86,18 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 		this.logger = log;
 	}
 
+	/**
+	 * @param value <code>true</code> to write non-serializable objects and
+	 * primitive arrays with the compact encodings, which readers before 3.11
+	 * cannot read.  <code>false</code> (the default unless
+	 * {@link #COMPACT_PROP} is set) writes them as {@link SerDTO} and element
+	 * by element.
+	 * @since 3.11
+	 */
+	public void setCompact(boolean value) {
+		this.compact = value;
+	}
+
 	protected void writeExternalizable(Externalizable obj, Class<?> clazz) throws IOException {
 		out.writeObject(obj);
 	}
@@ -81,36 +112,31 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 
 	protected void writeFields(Object obj, Class<?> clazz) throws IOException {
 		while (clazz != Object.class) {
+			final ClassPlan plan = ClassPlan.declared(clazz);
+			final int fieldCount = plan.size();
+			final Object[] vals = new Object[fieldCount];
+			int actualFieldCount = 0;
 			try {
-				final Field[] allFields = clazz.getDeclaredFields();
-				final int allFieldCount = allFields.length;
-				int actualFieldCount = 0;
-				for (int i = 0; i < allFieldCount; i++) {
-					final int mod = allFields[i].getModifiers();
-					if (!(Modifier.isStatic(mod) || Modifier.isTransient(mod)))
-						actualFieldCount++;
-				}
-				// write field count
-				out.writeInt(actualFieldCount);
-				for (int i = 0; i < allFieldCount; i++) {
-					final int mod = allFields[i].getModifiers();
-					if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
-						continue;
-					else if (!Modifier.isPublic(mod))
-						allFields[i].setAccessible(true);
-					Object val = allFields[i].get(obj);
+				for (int i = 0; i < fieldCount; i++) {
+					vals[i] = plan.get(i, obj);
 					// Check to see it's not a circular ref
-					if (val != obj) {
-						// write field name
-						out.writeUTF(allFields[i].getName());
-						// field value
-						writeObjectOverride(val);
-					}
+					if (vals[i] != obj)
+						actualFieldCount++;
 				}
-			} catch (final Exception e) {
+			} catch (final Throwable e) {
 				throw new NotSerializableException("Exception while serializing " + obj.toString() //$NON-NLS-1$
 						+ ":\n" + e.getMessage()); //$NON-NLS-1$ 
 			}
+			// write field count
+			out.writeInt(actualFieldCount);
+			for (int i = 0; i < fieldCount; i++) {
+				if (vals[i] != obj) {
+					// write field name
+					out.writeUTF(plan.names[i]);
+					// field value
+					writeObjectOverride(vals[i]);
+				}
+			}
 			clazz = clazz.getSuperclass();
 		}
 		// Write out a terminator so reader can detect end of object
@@ -127,6 +153,148 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 		out.writeObject(obj);
 	}
 
+	/**
+	 * Write a non-serializable object's public fields, as {@link SerDTO} would,
+	 * but with class and field names written once per stream and field values
+	 * written by this stream rather than by Java serialization.
+	 * @param obj the object to write
+	 * @param clazz the object's class
+	 * @throws IOException if some problem writing
+	 * @since 3.11
+	 */
+	protected void writeDTO(Object obj, Class<?> clazz) throws IOException {
+		final ClassPlan plan = ClassPlan.dto(clazz);
+		final int fieldCount = plan.size();
+		final Object[] vals = new Object[fieldCount];
+		int actualFieldCount = 0;
+		for (int i = 0; i < fieldCount; i++) {
+			try {
+				vals[i] = plan.get(i, obj);
+			} catch (Throwable e) {
+				// inaccessible fields are skipped, as with SerDTO
+			}
+			if (vals[i] == obj)
+				vals[i] = null;
+			if (vals[i] != null)
+				actualFieldCount++;
+		}
+		out.writeByte(C_DTO);
+		writeName(clazz.getName());
+		out.writeInt(actualFieldCount);
+		for (int i = 0; i < fieldCount; i++) {
+			if (vals[i] != null) {
+				writeName(plan.names[i]);
+				writeObjectOverride(vals[i]);
+			}
+		}
+	}
+
+	private void writeName(String name) throws IOException {
+		if (names == null)
+			names = new HashMap<String, Integer>();
+		final Integer ref = names.get(name);
+		if (ref != null)
+			out.writeInt(ref.intValue());
+		else {
+			names.put(name, Integer.valueOf(names.size()));
+			out.writeInt(-1);
+			out.writeUTF(name);
+		}
+	}
+
+	private ByteBuffer scratch() {
+		if (scratch == null)
+			scratch = ByteBuffer.allocate(SCRATCH_SIZE);
+		scratch.clear();
+		return scratch;
+	}
+
+	/**
+	 * Write a primitive array as its element type and the raw big-endian
+	 * element values, without boxing each element.
+	 */
+	private void writePrimitiveArray(Object array, Class<?> componentType) throws IOException {
+		out.writeByte(C_PARRAY);
+		final int len = Array.getLength(array);
+		if (componentType == byte.class) {
+			out.writeByte(C_BYTE);
+			out.writeInt(len);
+			out.write((byte[]) array);
+		} else if (componentType == boolean.class) {
+			out.writeByte(C_BOOL);
+			out.writeInt(len);
+			final boolean[] a = (boolean[]) array;
+			for (int i = 0; i < len; i++)
+				out.writeBoolean(a[i]);
+		} else if (componentType == int.class) {
+			out.writeByte(C_INT);
+			out.writeInt(len);
+			final int[] a = (int[]) array;
+			for (int i = 0; i < len;) {
+				final ByteBuffer buf = scratch();
+				final int n = Math.min(len - i, SCRATCH_SIZE / 4);
+				buf.asIntBuffer().put(a, i, n);
+				out.write(buf.array(), 0, n * 4);
+				i += n;
+			}
+		} else if (componentType == long.class) {
+			out.writeByte(C_LONG);
+			out.writeInt(len);
+			final long[] a = (long[]) array;
+			for (int i = 0; i < len;) {
+				final ByteBuffer buf = scratch();
+				final int n = Math.min(len - i, SCRATCH_SIZE / 8);
+				buf.asLongBuffer().put(a, i, n);
+				out.write(buf.array(), 0, n * 8);
+				i += n;
+			}
+		} else if (componentType == double.class) {
+			out.writeByte(C_DOUBLE);
+			out.writeInt(len);
+			final double[] a = (double[]) array;
+			for (int i = 0; i < len;) {
+				final ByteBuffer buf = scratch();
+				final int n = Math.min(len - i, SCRATCH_SIZE / 8);
+				buf.asDoubleBuffer().put(a, i, n);
+				out.write(buf.array(), 0, n * 8);
+				i += n;
+			}
+		} else if (componentType == float.class) {
+			out.writeByte(C_FLOAT);
+			out.writeInt(len);
+			final float[] a = (float[]) array;
+			for (int i = 0; i < len;) {
+				final ByteBuffer buf = scratch();
+				final int n = Math.min(len - i, SCRATCH_SIZE / 4);
+				buf.asFloatBuffer().put(a, i, n);
+				out.write(buf.array(), 0, n * 4);
+				i += n;
+			}
+		} else if (componentType == short.class) {
+			out.writeByte(C_SHORT);
+			out.writeInt(len);
+			final short[] a = (short[]) array;
+			for (int i = 0; i < len;) {
+				final ByteBuffer buf = scratch();
+				final int n = Math.min(len - i, SCRATCH_SIZE / 2);
+				buf.asShortBuffer().put(a, i, n);
+				out.write(buf.array(), 0, n * 2);
+				i += n;
+			}
+		} else {
+			out.writeByte(C_CHAR);
+			out.writeInt(len);
+			final char[] a = (char[]) array;
+			for (int i = 0; i < len;) {
+				final ByteBuffer buf = scratch();
+				final int n = Math.min(len - i, SCRATCH_SIZE / 2);
+				buf.asCharBuffer().put(a, i, n);
+				out.write(buf.array(), 0, n * 2);
+				i += n;
+			}
+		}
+	}
+
 	@Override
 	protected void writeObjectOverride(Object obj) throws IOException {
 		if (obj == null) {
@@ -135,12 +303,17 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 		}
 		Class<?> clazz = obj.getClass();
 		if (clazz.isArray()) {
+			final Class<?> componentType = clazz.getComponentType();
+			if (compact && componentType.isPrimitive()) {
+				writePrimitiveArray(obj, componentType);
+				return;
+			}
 			out.writeByte(C_ARRAY);
 			int len = Array.getLength(obj);
 			// write length
 			out.writeInt(len);
 			// write component type
-			out.writeUTF(clazz.getComponentType().getName());
+			out.writeUTF(componentType.getName());
 			// write out each array entry
 			for (int i = 0; i < len; i++)
 				writeObjectOverride(Array.get(obj, i));
@@ -301,6 +474,8 @@ public class OSGIObjectOutputStream extends ObjectOutputStream implements OSGIOb
 			return;
 		} else if (obj instanceof Version) {
 			writeObjectOverride(new SerVersion((Version) obj));
+		} else if (compact) {
+			writeDTO(obj, clazz);
 		} else {
 			writeObjectOverride(new SerDTO(obj));
 			return;
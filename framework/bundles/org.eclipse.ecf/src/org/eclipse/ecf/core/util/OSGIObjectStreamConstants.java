@@ -20,7 +20,7 @@ public interface OSGIObjectStreamConstants {
 	public static final byte C_SER = 1; // Serializable
 	public static final byte C_VER = 2; // Version
 	public static final byte C_ARRAY = 3; // array
-	public static final byte C_DTO = 4; // DTO
+	public static final byte C_DTO = 4; // DTO, written since 3.11
 	public static final byte C_MAP = 5; // Map
 	public static final byte C_LIST = 6; // List
 	public static final byte C_SET = 7; // Set
@@ -31,6 +31,10 @@ public interface OSGIObjectStreamConstants {
 	public static final byte C_ENUM = 12; // Enum
 	public static final byte C_OBJECT = 13; // Everything else
 	public static final byte C_DICT = 14; // Dictionary
+	/**
+	 * @since 3.11
+	 */
+	public static final byte C_PARRAY = 15; // primitive array
 
 	// primitive types
 	public static final byte C_LONG = 20; // primitive long
@@ -13,8 +13,6 @@ package org.eclipse.ecf.core.util;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,18 +29,16 @@ public class SerDTO implements Serializable {
 		Class<?> clazz = obj.getClass();
 		this.className = clazz.getName();
 		this.fields = new HashMap<String, Object>();
-		for (Field f : clazz.getFields()) {
-			final int mod = f.getModifiers();
-			if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
-				continue;
+		final ClassPlan plan = ClassPlan.dto(clazz);
+		for (int i = 0; i < plan.size(); i++) {
 			Object value = null;
 			try {
-				value = f.get(obj);
-			} catch (Exception e) {
+				value = plan.get(i, obj);
+			} catch (Throwable e) {
 				//
 			}
 			if (value != null) {
-				fields.put(f.getName(), value);
+				fields.put(plan.names[i], value);
 			}
 		}
 	}
@@ -58,14 +54,14 @@ public class SerDTO implements Serializable {
 	public Object readObject(Class<?> clazz) throws IOException {
 		Object result = null;
 		try {
-			result = clazz.getConstructor(new Class[] {}).newInstance();
-			for (Field f : clazz.getFields()) {
-				Object v = fields.get(f.getName());
+			final ClassPlan plan = ClassPlan.dto(clazz);
+			result = plan.newInstance();
+			for (int i = 0; i < plan.size(); i++) {
+				Object v = fields.get(plan.names[i]);
 				if (v != null) {
-					f.setAccessible(true);
 					try {
-						f.set(result, v);
-					} catch (Exception e) {
+						plan.set(i, result, v);
+					} catch (Throwable e) {
 						// ignore
 					}
 				}
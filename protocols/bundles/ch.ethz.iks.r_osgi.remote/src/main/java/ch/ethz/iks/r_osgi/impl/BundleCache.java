@@ -0,0 +1,321 @@
+/* Copyright (c) 2026 Composent, Inc. and others.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    - Redistributions of source code must retain the above copyright notice,
+ *      this list of conditions and the following disclaimer.
+ *    - Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    - Neither the name of ETH Zurich nor the names of its contributors may be
+ *      used to endorse or promote products derived from this software without
+ *      specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache for the bytes of bundles that R-OSGi builds, i.e., the proxy bundles
+ * generated for remote services and the bundles packaged for
+ * <code>DeliverBundlesMessage</code>s. The entries are addressed by a digest
+ * of everything the bundle is built from and of the version of R-OSGi that
+ * built it, so an entry never has to be invalidated. Recently used entries are kept in memory, and all entries are
+ * stored in a directory so that they survive restarts. Both levels evict the
+ * least recently used entries when they exceed their size limit.
+ */
+final class BundleCache {
+
+	/**
+	 * the version of R-OSGi, part of every key.
+	 */
+	private final String version;
+
+	/**
+	 * the entries in memory, in access order.
+	 */
+	private final LinkedHashMap memory = new LinkedHashMap(16, 0.75f, true);
+
+	/**
+	 * the maximum number of bytes in memory.
+	 */
+	private final long maxMemory;
+
+	/**
+	 * the number of bytes in memory.
+	 */
+	private long memorySize;
+
+	/**
+	 * the directory with the entries on disk, <code>null</code> if there is
+	 * none.
+	 */
+	private final File directory;
+
+	/**
+	 * the maximum number of bytes on disk.
+	 */
+	private final long maxDisk;
+
+	/**
+	 * the number of bytes on disk.
+	 */
+	private long diskSize;
+
+	/**
+	 * create a new cache.
+	 * 
+	 * @param version
+	 *            the version of R-OSGi. Entries built by another version are
+	 *            not found and eventually evicted.
+	 * @param directory
+	 *            the directory to store entries in or <code>null</code> to
+	 *            keep them in memory only.
+	 * @param maxMemory
+	 *            the maximum number of bytes to keep in memory.
+	 * @param maxDisk
+	 *            the maximum number of bytes to store on disk.
+	 */
+	BundleCache(final String version, final File directory,
+			final long maxMemory, final long maxDisk) {
+		this.version = version;
+		this.maxMemory = maxMemory;
+		this.maxDisk = maxDisk;
+		if (directory != null && maxDisk > 0
+				&& (directory.isDirectory() || directory.mkdirs())) {
+			this.directory = directory;
+			final File[] files = directory.listFiles();
+			for (int i = 0; i < files.length; i++) {
+				diskSize += files[i].length();
+			}
+		} else {
+			this.directory = null;
+		}
+	}
+
+	/**
+	 * get the digest of the inputs of a bundle and the version of R-OSGi, to
+	 * be used as key.
+	 * 
+	 * @param parts
+	 *            the inputs, <code>String</code>s, <code>byte[]</code>s,
+	 *            <code>String[]</code>s, or <code>null</code>.
+	 * @return the key.
+	 */
+	String key(final Object[] parts) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+		update(digest, version);
+		for (int i = 0; i < parts.length; i++) {
+			update(digest, parts[i]);
+		}
+		final byte[] hash = digest.digest();
+		final StringBuffer buffer = new StringBuffer(hash.length * 2);
+		for (int i = 0; i < hash.length; i++) {
+			buffer.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+			buffer.append(Character.forDigit(hash[i] & 0xf, 16));
+		}
+		return buffer.toString();
+	}
+
+	private static void update(final MessageDigest digest, final Object part) {
+		final byte[] bytes;
+		if (part == null) {
+			bytes = new byte[0];
+			digest.update((byte) 0);
+		} else if (part instanceof byte[]) {
+			bytes = (byte[]) part;
+			digest.update((byte) 1);
+		} else if (part instanceof String[]) {
+			final String[] strings = (String[]) part;
+			digest.update((byte) 2);
+			updateLength(digest, strings.length);
+			for (int i = 0; i < strings.length; i++) {
+				update(digest, strings[i]);
+			}
+			return;
+		} else {
+			bytes = part.toString().getBytes(StandardCharsets.UTF_8);
+			digest.update((byte) 3);
+		}
+		// the length keeps adjacent parts from running into each other
+		updateLength(digest, bytes.length);
+		digest.update(bytes);
+	}
+
+	private static void updateLength(final MessageDigest digest,
+			final int length) {
+		digest.update((byte) (length >>> 24));
+		digest.update((byte) (length >>> 16));
+		digest.update((byte) (length >>> 8));
+		digest.update((byte) length);
+	}
+
+	/**
+	 * get the bytes of a bundle.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @return the bytes or <code>null</code> if the bundle is not cached.
+	 */
+	byte[] get(final String key) {
+		synchronized (memory) {
+			final byte[] bytes = (byte[]) memory.get(key);
+			if (bytes != null) {
+				return bytes;
+			}
+		}
+		if (directory == null) {
+			return null;
+		}
+		final File file = new File(directory, key);
+		final byte[] bytes;
+		synchronized (this) {
+			if (!file.exists()) {
+				return null;
+			}
+			try {
+				bytes = read(file);
+			} catch (final IOException ioe) {
+				return null;
+			}
+			file.setLastModified(System.currentTimeMillis());
+		}
+		putInMemory(key, bytes);
+		return bytes;
+	}
+
+	/**
+	 * add the bytes of a bundle.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @param bytes
+	 *            the bytes of the bundle, must not be modified afterwards.
+	 */
+	void put(final String key, final byte[] bytes) {
+		putInMemory(key, bytes);
+		if (directory == null || bytes.length > maxDisk) {
+			return;
+		}
+		synchronized (this) {
+			final File file = new File(directory, key);
+			if (file.exists()) {
+				return;
+			}
+			// written under a temporary name so that a partial entry is never
+			// read
+			final File tmp = new File(directory, key + ".tmp"); //$NON-NLS-1$
+			try {
+				final OutputStream out = new FileOutputStream(tmp);
+				try {
+					out.write(bytes);
+				} finally {
+					out.close();
+				}
+				if (!tmp.renameTo(file)) {
+					tmp.delete();
+					return;
+				}
+			} catch (final IOException ioe) {
+				tmp.delete();
+				return;
+			}
+			diskSize += bytes.length;
+			if (diskSize > maxDisk) {
+				evictFromDisk();
+			}
+		}
+	}
+
+	private void putInMemory(final String key, final byte[] bytes) {
+		if (bytes.length > maxMemory) {
+			return;
+		}
+		synchronized (memory) {
+			final byte[] old = (byte[]) memory.put(key, bytes);
+			if (old != null) {
+				memorySize -= old.length;
+			}
+			memorySize += bytes.length;
+			for (final Iterator i = memory.values().iterator(); memorySize > maxMemory
+					&& i.hasNext();) {
+				memorySize -= ((byte[]) i.next()).length;
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * delete the least recently used files until the size limit is met.
+	 */
+	private void evictFromDisk() {
+		final File[] files = directory.listFiles();
+		Arrays.sort(files, new Comparator() {
+			public int compare(final Object o1, final Object o2) {
+				final long m1 = ((File) o1).lastModified();
+				final long m2 = ((File) o2).lastModified();
+				return m1 < m2 ? -1 : m1 == m2 ? 0 : 1;
+			}
+		});
+		diskSize = 0;
+		for (int i = 0; i < files.length; i++) {
+			diskSize += files[i].length();
+		}
+		for (int i = 0; i < files.length && diskSize > maxDisk; i++) {
+			final long length = files[i].length();
+			if (files[i].delete()) {
+				diskSize -= length;
+			}
+		}
+	}
+
+	private static byte[] read(final File file) throws IOException {
+		final byte[] bytes = new byte[(int) file.length()];
+		final InputStream in = new FileInputStream(file);
+		try {
+			int pos = 0;
+			int read;
+			while (pos < bytes.length
+					&& (read = in.read(bytes, pos, bytes.length - pos)) > 0) {
+				pos += read;
+			}
+			if (pos < bytes.length) {
+				throw new IOException("Premature end of " + file); //$NON-NLS-1$
+			}
+		} finally {
+			in.close();
+		}
+		return bytes;
+	}
+
+}
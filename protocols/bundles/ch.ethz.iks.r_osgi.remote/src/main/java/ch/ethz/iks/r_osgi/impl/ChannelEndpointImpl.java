@@ -46,6 +46,12 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.ecf.remoteservice.asyncproxy.AsyncReturnUtil;
 import org.objectweb.asm.Type;
@@ -198,6 +204,41 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 
 	private ArrayList workQueue = new ArrayList();
 
+	/**
+	 * the worker threads shared by all endpoints, <code>null</code> if every
+	 * endpoint has its own threads.
+	 */
+	private static final ThreadPoolExecutor sharedWorkers = RemoteOSGiServiceImpl.MAX_SHARED_WORKER_THREADS > 0
+			? createSharedWorkers() : null;
+
+	/**
+	 * the messages of this endpoint that have to be handled in the order in
+	 * which they were received, only used with the shared worker threads.
+	 */
+	private final ConcurrentLinkedQueue<Runnable> orderedWork = new ConcurrentLinkedQueue<Runnable>();
+
+	/**
+	 * whether a shared worker thread is handling the ordered messages.
+	 */
+	private final AtomicBoolean orderedWorkScheduled = new AtomicBoolean();
+
+	/**
+	 * handles the ordered messages of this endpoint one after the other.
+	 */
+	private final Runnable orderedWorker = new Runnable() {
+		public void run() {
+			do {
+				Runnable r;
+				while ((r = orderedWork.poll()) != null) {
+					runWork(r);
+				}
+				orderedWorkScheduled.set(false);
+				// a message may have been added after the last poll
+			} while (!orderedWork.isEmpty()
+					&& orderedWorkScheduled.compareAndSet(false, true));
+		}
+	};
+
 	/**
 	 * used by the multiplexer and serves as a marker whether or not the channel
 	 * may dispose itself when the connection went down.
@@ -262,7 +303,9 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 	 * initialize the thread pool
 	 */
 	private void initThreadPool() {
-		// TODO: tradeoff, could as well be central for all endpoints...
+		if (sharedWorkers != null) {
+			return;
+		}
 		final ThreadGroup threadPool = new ThreadGroup("WorkerThreads"
 				+ toString());
 		for (int i = 0; i < RemoteOSGiServiceImpl.MAX_THREADS_PER_ENDPOINT; i++) {
@@ -330,9 +373,81 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 					}
 				}
 			};
-			synchronized (workQueue) {
-				workQueue.add(r);
-				workQueue.notify();
+			if (sharedWorkers == null) {
+				synchronized (workQueue) {
+					workQueue.add(r);
+					workQueue.notify();
+				}
+			} else if (isOrdered(msg)) {
+				orderedWork.add(r);
+				if (orderedWorkScheduled.compareAndSet(false, true)) {
+					sharedWorkers.execute(orderedWorker);
+				}
+			} else {
+				sharedWorkers.execute(new Runnable() {
+					public void run() {
+						runWork(r);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * create the worker threads shared by all endpoints. The queue is lock
+	 * free and the threads terminate when they have been idle for a minute.
+	 * 
+	 * @return the executor.
+	 */
+	private static ThreadPoolExecutor createSharedWorkers() {
+		final int threads = RemoteOSGiServiceImpl.MAX_SHARED_WORKER_THREADS;
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads,
+				threads, 60, TimeUnit.SECONDS, new LinkedTransferQueue<Runnable>(),
+				new ThreadFactory() {
+					private int count = 0;
+
+					public synchronized Thread newThread(final Runnable r) {
+						final Thread t = new Thread(r,
+								"r-OSGi SharedWorkerThread" + count++); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * does the message have to be handled after the messages that were
+	 * received before? Lease updates and events are applied in order, all
+	 * requests are answered concurrently.
+	 * 
+	 * @param msg
+	 *            the message.
+	 * @return true if the message is ordered.
+	 */
+	private static boolean isOrdered(final RemoteOSGiMessage msg) {
+		final short funcID = msg.getFuncID();
+		return funcID == RemoteOSGiMessage.LEASE_UPDATE
+				|| funcID == RemoteOSGiMessage.REMOTE_EVENT;
+	}
+
+	/**
+	 * run a task on a shared worker thread. Unlike the threads of an endpoint,
+	 * a shared thread must survive a failing task.
+	 * 
+	 * @param r
+	 *            the task.
+	 */
+	void runWork(final Runnable r) {
+		try {
+			r.run();
+		} catch (final Throwable t) {
+			if (RemoteOSGiServiceImpl.log != null) {
+				RemoteOSGiServiceImpl.log.log(LogService.LOG_ERROR,
+						"Exception while handling message", t); //$NON-NLS-1$
+			} else {
+				t.printStackTrace();
 			}
 		}
 	}
@@ -827,11 +942,57 @@ public final class ChannelEndpointImpl implements ChannelEndpoint {
 		// declarations for the bundle.
 		final DeliverServiceMessage deliv = (DeliverServiceMessage) sendAndWait(req);
 
-		// generate a proxy bundle for the service
-		final InputStream in = new ProxyGenerator().generateProxyBundle(ref
+		// generate a proxy bundle for the service, unless one has already
+		// been generated from the same service URI and delivered classes
+		final BundleCache cache = RemoteOSGiServiceImpl.bundleCache;
+		final String key = cache == null ? null : proxyBundleKey(cache, ref
 				.getURI(), deliv);
+		byte[] bytes = key == null ? null : cache.get(key);
+		if (bytes == null) {
+			bytes = new ProxyGenerator().generateProxyBundle(ref.getURI(),
+					deliv);
+			if (key != null) {
+				cache.put(key, bytes);
+			}
+		}
 
-		installResolveAndStartBundle(ref, in, true);
+		installResolveAndStartBundle(ref, new ByteArrayInputStream(bytes), true);
+	}
+
+	/**
+	 * get the cache key of a proxy bundle. The proxy depends on the service URI
+	 * and on all parts of the DeliverServiceMessage, and on the version of
+	 * R-OSGi, which includes the proxy generator.
+	 * 
+	 * @param cache
+	 *            the cache.
+	 * @param uri
+	 *            the service URI.
+	 * @param deliv
+	 *            the DeliverServiceMessage.
+	 * @return the key.
+	 */
+	private static String proxyBundleKey(final BundleCache cache,
+			final URI uri, final DeliverServiceMessage deliv) {
+		final Map injections = deliv.getInjections();
+		final String[] names = (String[]) injections.keySet().toArray(
+				new String[injections.size()]);
+		Arrays.sort(names);
+		final Object[] parts = new Object[9 + names.length * 2];
+		parts[0] = "proxy"; //$NON-NLS-1$
+		parts[1] = uri.toString();
+		parts[2] = deliv.getInterfaceNames();
+		parts[3] = deliv.getInterfaceClass();
+		parts[4] = deliv.getSmartProxyName();
+		parts[5] = deliv.getProxyClass();
+		parts[6] = deliv.getImports();
+		parts[7] = deliv.getExports();
+		parts[8] = deliv.getOptionalImports();
+		for (int i = 0; i < names.length; i++) {
+			parts[9 + i * 2] = names[i];
+			parts[10 + i * 2] = injections.get(names[i]);
+		}
+		return cache.key(parts);
 	}
 
 	private void installResolveAndStartBundle(final RemoteServiceReference ref,
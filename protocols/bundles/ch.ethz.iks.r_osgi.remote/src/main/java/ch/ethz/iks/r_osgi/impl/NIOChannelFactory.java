@@ -0,0 +1,826 @@
+/* Copyright (c) 2026 Composent, Inc. and others.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    - Redistributions of source code must retain the above copyright notice,
+ *      this list of conditions and the following disclaimer.
+ *    - Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    - Neither the name of ETH Zurich nor the names of its contributors may be
+ *      used to endorse or promote products derived from this software without
+ *      specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.osgi.service.log.LogService;
+
+import ch.ethz.iks.r_osgi.Remoting;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.channels.NetworkChannelFactory;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+
+/**
+ * channel factory for TCP transport that serves all sockets from a single
+ * selector thread instead of a receiver thread per socket. The messages on the
+ * wire are the same as those of the {@link TCPChannelFactory}, so peers using
+ * either factory can talk to each other. Registered instead of the
+ * {@link TCPChannelFactory} if the <code>ch.ethz.iks.r_osgi.nioChannel</code>
+ * property is set to "true".
+ * 
+ * <p>
+ * The messages are not framed, so a message can only be decoded by reading it
+ * from an object stream. The selector thread collects the received bytes and
+ * starts a decoder thread once a message begins to arrive. The decoder returns
+ * to the pool as soon as no further message has been received, so an idle
+ * connection does not hold a thread.
+ * </p>
+ */
+final class NIOChannelFactory implements NetworkChannelFactory, Runnable {
+
+	/**
+	 * the maximum number of bytes that are buffered for sending or decoding
+	 * before the sender is blocked or the socket is no longer read.
+	 */
+	private static final int MAX_BUFFERED = 1024 * 1024;
+
+	/**
+	 * the threads that decode the received messages.
+	 */
+	private static final ExecutorService decoders = Executors
+			.newCachedThreadPool(new ThreadFactory() {
+				private int count = 0;
+
+				public synchronized Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r,
+							"NIOChannel:DecoderThread" + count++); //$NON-NLS-1$
+					t.setDaemon(true);
+					return t;
+				}
+			});
+
+	Remoting remoting;
+
+	protected int listeningPort;
+
+	private ServerSocketChannel server;
+
+	Selector selector;
+
+	/**
+	 * the tasks to run on the selector thread.
+	 */
+	private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+	/**
+	 * the buffer that sockets are read into, only used by the selector thread.
+	 */
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+
+	private volatile boolean closed;
+
+	/**
+	 * get a new connection.
+	 * 
+	 * @param endpoint
+	 *            the channel endpoint.
+	 * @param endpointURI
+	 *            the URI of the remote host.
+	 * @return the transport channel.
+	 * @throws IOException
+	 *             in case of IO errors.
+	 */
+	public NetworkChannel getConnection(final ChannelEndpoint endpoint,
+			final URI endpointURI) throws IOException {
+		int port = endpointURI.getPort();
+		if (port == -1) {
+			port = 9278;
+		}
+		final SocketChannel socket = SocketChannel
+				.open(new InetSocketAddress(endpointURI.getHost(), port));
+		try {
+			final NIOChannel channel = new NIOChannel(socket, endpointURI);
+			channel.bind(endpoint);
+			return channel;
+		} catch (final IOException ioe) {
+			socket.close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * Activate the factory. Is called by R-OSGi when the factory is discovered.
+	 * 
+	 * @see ch.ethz.iks.r_osgi.channels.NetworkChannelFactory#activate(ch.ethz.iks.r_osgi.Remoting)
+	 */
+	public void activate(final Remoting r) throws IOException {
+		remoting = r;
+		int e = 0;
+		while (true) {
+			listeningPort = RemoteOSGiServiceImpl.R_OSGI_PORT + e;
+			server = ServerSocketChannel.open();
+			try {
+				server.socket().bind(new InetSocketAddress(listeningPort));
+			} catch (final BindException b) {
+				server.close();
+				e++;
+				continue;
+			}
+			if (e != 0) {
+				System.err
+						.println("WARNING: Port " //$NON-NLS-1$
+								+ RemoteOSGiServiceImpl.R_OSGI_PORT
+								+ " already in use. This instance of R-OSGi is running on port " //$NON-NLS-1$
+								+ listeningPort);
+			}
+			RemoteOSGiServiceImpl.R_OSGI_PORT = listeningPort;
+			break;
+		}
+		server.configureBlocking(false);
+		selector = Selector.open();
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		final Thread thread = new Thread(this, "NIOChannel:SelectorThread"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Deactivate the factory.
+	 * 
+	 * @see ch.ethz.iks.r_osgi.channels.NetworkChannelFactory#deactivate(ch.ethz.iks.r_osgi.Remoting)
+	 */
+	public void deactivate(final Remoting r) throws IOException {
+		closed = true;
+		if (selector != null) {
+			selector.wakeup();
+		}
+		remoting = null;
+	}
+
+	/**
+	 * get the listening port.
+	 * 
+	 * @see ch.ethz.iks.r_osgi.channels.NetworkChannelFactory#getListeningPort(java.lang.String)
+	 */
+	public int getListeningPort(final String protocol) {
+		return listeningPort;
+	}
+
+	/**
+	 * run a task on the selector thread.
+	 * 
+	 * @param task
+	 *            the task.
+	 */
+	void execute(final Runnable task) {
+		tasks.add(task);
+		selector.wakeup();
+	}
+
+	/**
+	 * the selector loop.
+	 * 
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		try {
+			while (!closed) {
+				Runnable task;
+				while ((task = tasks.poll()) != null) {
+					try {
+						task.run();
+					} catch (final RuntimeException re) {
+						// a failing task must not stop the shared selector
+						log("NIOChannel selector task failed", re); //$NON-NLS-1$
+					}
+				}
+				selector.select();
+				for (final Iterator<SelectionKey> i = selector.selectedKeys()
+						.iterator(); i.hasNext();) {
+					final SelectionKey key = i.next();
+					i.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					final NIOChannel channel = (NIOChannel) key.attachment();
+					try {
+						if (key.isReadable()) {
+							channel.read();
+						}
+						if (key.isValid() && key.isWritable()) {
+							channel.write();
+						}
+					} catch (final IOException ioe) {
+						channel.failed();
+					} catch (final RuntimeException re) {
+						// close only this channel, the others are still served
+						log("NIOChannel " + channel + " failed", re); //$NON-NLS-1$ //$NON-NLS-2$
+						channel.failed();
+					}
+				}
+			}
+		} catch (final IOException ioe) {
+			log("NIOChannel selector failed", ioe); //$NON-NLS-1$
+		} finally {
+			final SelectionKey[] keys = selector.keys().toArray(
+					new SelectionKey[0]);
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i].attachment() != null) {
+					((NIOChannel) keys[i].attachment()).failed();
+				}
+			}
+			try {
+				server.close();
+				selector.close();
+			} catch (final IOException ioe) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * log an error if a log service is available.
+	 * 
+	 * @param message
+	 *            the message.
+	 * @param t
+	 *            the cause.
+	 */
+	static void log(final String message, final Throwable t) {
+		if (RemoteOSGiServiceImpl.log != null) {
+			RemoteOSGiServiceImpl.log.log(LogService.LOG_ERROR, message, t);
+		}
+	}
+
+	/**
+	 * accept incoming connections. The channel endpoints are built on a
+	 * decoder thread since resolving the remote host name may block.
+	 * 
+	 * @throws IOException
+	 *             if the server socket fails.
+	 */
+	private void accept() throws IOException {
+		SocketChannel socket;
+		while ((socket = server.accept()) != null) {
+			final SocketChannel s = socket;
+			decoders.execute(new Runnable() {
+				public void run() {
+					try {
+						final Remoting r = remoting;
+						if (r != null) {
+							r.createEndpoint(new NIOChannel(s, null));
+							return;
+						}
+					} catch (final IOException ioe) {
+						ioe.printStackTrace();
+					}
+					try {
+						s.close();
+					} catch (final IOException ioe) {
+						// ignore
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * the inner class representing a channel with TCP transport that is served
+	 * by the selector thread.
+	 */
+	private final class NIOChannel implements NetworkChannel, Runnable {
+
+		/**
+		 * the socket.
+		 */
+		final SocketChannel socket;
+
+		/**
+		 * the remote endpoint address.
+		 */
+		private final URI remoteEndpointAddress;
+
+		/**
+		 * the local endpoint address.
+		 */
+		private final URI localEndpointAddress;
+
+		/**
+		 * the channel endpoint.
+		 */
+		ChannelEndpoint endpoint;
+
+		/**
+		 * the selection key, guarded by <code>outgoing</code>.
+		 */
+		private SelectionKey key;
+
+		/**
+		 * the output stream.
+		 */
+		private final ObjectOutputStream output;
+
+		/**
+		 * the input stream, created by the first decoder.
+		 */
+		private ObjectInputStream input;
+
+		/**
+		 * the received bytes.
+		 */
+		final ReceiveBuffer incoming = new ReceiveBuffer();
+
+		/**
+		 * the bytes waiting to be sent.
+		 */
+		private final LinkedList<ByteBuffer> outgoing = new LinkedList<ByteBuffer>();
+
+		/**
+		 * the number of bytes in <code>outgoing</code>.
+		 */
+		private int pending;
+
+		/**
+		 * connected ?
+		 */
+		volatile boolean connected = true;
+
+		/**
+		 * create a new NIOChannel.
+		 * 
+		 * @param socket
+		 *            the connected socket.
+		 * @param endpointAddress
+		 *            the remote peer's URI or <code>null</code> for an
+		 *            incoming connection.
+		 * @throws IOException
+		 *             in case of IO errors.
+		 */
+		NIOChannel(final SocketChannel socket, final URI endpointAddress)
+				throws IOException {
+			this.socket = socket;
+			remoteEndpointAddress = endpointAddress != null ? endpointAddress
+					: URI.create(getProtocol() + "://" //$NON-NLS-1$
+							+ socket.socket().getInetAddress().getHostName()
+							+ ":" + socket.socket().getPort()); //$NON-NLS-1$
+			localEndpointAddress = URI.create(getProtocol() + "://" //$NON-NLS-1$
+					+ socket.socket().getLocalAddress().getHostName() + ":" //$NON-NLS-1$
+					+ socket.socket().getLocalPort());
+			socket.socket().setKeepAlive(true);
+			socket.socket().setTcpNoDelay(true);
+			socket.configureBlocking(false);
+			output = TCPChannelFactory.createOutputStream(new SendBuffer());
+			output.flush();
+		}
+
+		/**
+		 * bind the channel to a channel endpoint and start reading.
+		 * 
+		 * @param e
+		 *            the channel endpoint.
+		 * 
+		 * @see ch.ethz.iks.r_osgi.channels.NetworkChannel#bind(ch.ethz.iks.r_osgi.channels.ChannelEndpoint)
+		 */
+		public void bind(final ChannelEndpoint e) {
+			endpoint = e;
+			execute(new Runnable() {
+				public void run() {
+					synchronized (outgoing) {
+						if (!connected) {
+							return;
+						}
+						try {
+							key = socket.register(selector,
+									outgoing.isEmpty() ? SelectionKey.OP_READ
+											: SelectionKey.OP_READ
+													| SelectionKey.OP_WRITE,
+									NIOChannel.this);
+						} catch (final IOException ioe) {
+							failed();
+						}
+					}
+				}
+			});
+		}
+
+		/**
+		 * get the String representation of the channel.
+		 * 
+		 * @return the ID. *
+		 * @see java.lang.Object#toString()
+		 */
+		public String toString() {
+			return "NIOChannel (" + getRemoteAddress() + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		/**
+		 * close the channel.
+		 * 
+		 * @throws IOException
+		 */
+		public void close() throws IOException {
+			synchronized (outgoing) {
+				connected = false;
+				outgoing.notifyAll();
+			}
+			try {
+				socket.close();
+			} finally {
+				if (incoming.end()) {
+					decoders.execute(this);
+				}
+			}
+		}
+
+		/**
+		 * close the channel after the socket failed.
+		 */
+		void failed() {
+			try {
+				close();
+			} catch (final IOException ioe) {
+				// ignore
+			}
+		}
+
+		/**
+		 * get the protocol that is implemented by the channel.
+		 * 
+		 * @return the protocol.
+		 * @see ch.ethz.iks.r_osgi.channels.NetworkChannel#getProtocol()
+		 */
+		public String getProtocol() {
+			return TCPChannelFactory.PROTOCOL;
+		}
+
+		/**
+		 * get the remote address.
+		 * 
+		 * @see ch.ethz.iks.r_osgi.channels.NetworkChannel#getRemoteAddress()
+		 */
+		public URI getRemoteAddress() {
+			return remoteEndpointAddress;
+		}
+
+		/**
+		 * get the local address.
+		 * 
+		 * @see ch.ethz.iks.r_osgi.channels.NetworkChannel#getLocalAddress()
+		 */
+		public URI getLocalAddress() {
+			return localEndpointAddress;
+		}
+
+		/**
+		 * send a message through the channel. The message is written to the
+		 * socket right away if nothing else is waiting to be sent, and handed
+		 * to the selector thread otherwise.
+		 * 
+		 * @param message
+		 *            the message.
+		 * @throws IOException
+		 *             in case of IO errors.
+		 */
+		public void sendMessage(final RemoteOSGiMessage message)
+				throws IOException {
+			if (RemoteOSGiServiceImpl.MSG_DEBUG) {
+				RemoteOSGiServiceImpl.log.log(LogService.LOG_DEBUG,
+						"{NIO Channel} sending " + message); //$NON-NLS-1$
+			}
+			message.send(output);
+		}
+
+		/**
+		 * queue bytes for sending, waiting while too many bytes are queued.
+		 * 
+		 * @param buffer
+		 *            the bytes.
+		 * @throws IOException
+		 *             if the channel is closed.
+		 */
+		void enqueue(final ByteBuffer buffer) throws IOException {
+			synchronized (outgoing) {
+				try {
+					while (connected && pending > MAX_BUFFERED) {
+						outgoing.wait();
+					}
+				} catch (final InterruptedException ie) {
+					throw new InterruptedIOException();
+				}
+				if (!connected) {
+					throw new IOException("Channel is closed"); //$NON-NLS-1$
+				}
+				if (outgoing.isEmpty() && key != null) {
+					socket.write(buffer);
+					if (!buffer.hasRemaining()) {
+						return;
+					}
+				}
+				outgoing.add(buffer);
+				pending += buffer.remaining();
+				if (outgoing.size() == 1 && key != null) {
+					setInterest(SelectionKey.OP_WRITE, true);
+				}
+			}
+		}
+
+		/**
+		 * change the operations that the selector waits for.
+		 * 
+		 * @param op
+		 *            the operation.
+		 * @param enabled
+		 *            whether to wait for the operation.
+		 */
+		void setInterest(final int op, final boolean enabled) {
+			synchronized (outgoing) {
+				if (key == null || !key.isValid()) {
+					return;
+				}
+				final int ops = key.interestOps();
+				key.interestOps(enabled ? ops | op : ops & ~op);
+			}
+			selector.wakeup();
+		}
+
+		/**
+		 * write queued bytes to the socket. Called by the selector thread.
+		 * 
+		 * @throws IOException
+		 *             in case of IO errors.
+		 */
+		void write() throws IOException {
+			synchronized (outgoing) {
+				while (!outgoing.isEmpty()) {
+					final ByteBuffer buffer = outgoing.getFirst();
+					pending -= socket.write(buffer);
+					if (buffer.hasRemaining()) {
+						break;
+					}
+					outgoing.removeFirst();
+				}
+				if (outgoing.isEmpty()) {
+					key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+				}
+				outgoing.notifyAll();
+			}
+		}
+
+		/**
+		 * read from the socket and start a decoder if a message begins.
+		 * Called by the selector thread.
+		 * 
+		 * @throws IOException
+		 *             in case of IO errors.
+		 */
+		void read() throws IOException {
+			readBuffer.clear();
+			final int read = socket.read(readBuffer);
+			if (read == -1) {
+				failed();
+				return;
+			} else if (read == 0) {
+				return;
+			}
+			readBuffer.flip();
+			final ByteBuffer chunk = ByteBuffer.allocate(read);
+			chunk.put(readBuffer).flip();
+			if (incoming.add(chunk)) {
+				decoders.execute(this);
+			}
+		}
+
+		/**
+		 * decode received messages until no further message has begun to
+		 * arrive. Runs on a decoder thread.
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			try {
+				if (input == null) {
+					input = TCPChannelFactory.createInputStream(incoming);
+				}
+			} catch (final IOException ioe) {
+				disconnected();
+				return;
+			}
+			while (!incoming.finishDecoding()) {
+				try {
+					final RemoteOSGiMessage msg = RemoteOSGiMessage
+							.parse(input);
+					if (RemoteOSGiServiceImpl.MSG_DEBUG) {
+						RemoteOSGiServiceImpl.log.log(LogService.LOG_DEBUG,
+								"{NIO Channel} received " + msg); //$NON-NLS-1$
+					}
+					endpoint.receivedMessage(msg);
+				} catch (final IOException ioe) {
+					disconnected();
+					return;
+				} catch (final Throwable t) {
+					t.printStackTrace();
+				}
+			}
+		}
+
+		/**
+		 * close the channel and inform the endpoint once the received bytes
+		 * are exhausted.
+		 */
+		private void disconnected() {
+			failed();
+			if (endpoint != null) {
+				endpoint.receivedMessage(null);
+			}
+		}
+
+		/**
+		 * the stream that messages are serialized into. Each flush hands the
+		 * serialized bytes over for sending.
+		 */
+		private final class SendBuffer extends ByteArrayOutputStream {
+
+			SendBuffer() {
+				super(1024);
+			}
+
+			public void flush() throws IOException {
+				if (count > 0) {
+					final ByteBuffer buffer = ByteBuffer.wrap(toByteArray());
+					reset();
+					enqueue(buffer);
+				}
+			}
+		}
+
+		/**
+		 * the stream of received bytes that the decoder reads from. Reads block
+		 * until the selector thread has received more bytes.
+		 */
+		private final class ReceiveBuffer extends InputStream {
+
+			private final LinkedList<ByteBuffer> chunks = new LinkedList<ByteBuffer>();
+
+			private int available;
+
+			private boolean eof;
+
+			/**
+			 * whether the socket is not read until the decoder has caught up.
+			 */
+			private boolean suspended;
+
+			/**
+			 * whether a decoder has been started and not finished.
+			 */
+			private boolean decoding;
+
+			/**
+			 * add received bytes.
+			 * 
+			 * @param chunk
+			 *            the bytes.
+			 * @return true if a decoder has to be started.
+			 */
+			synchronized boolean add(final ByteBuffer chunk) {
+				chunks.add(chunk);
+				available += chunk.remaining();
+				notifyAll();
+				if (!suspended && available > MAX_BUFFERED) {
+					suspended = true;
+					setInterest(SelectionKey.OP_READ, false);
+				}
+				if (decoding || onlyResets()) {
+					return false;
+				}
+				decoding = true;
+				return true;
+			}
+
+			/**
+			 * mark the end of the stream.
+			 * 
+			 * @return true if a decoder has to be started to report it.
+			 */
+			synchronized boolean end() {
+				eof = true;
+				notifyAll();
+				if (decoding) {
+					return false;
+				}
+				decoding = true;
+				return true;
+			}
+
+			/**
+			 * end decoding if the next message has not begun to arrive.
+			 * 
+			 * @return true if the decoder has to stop.
+			 */
+			synchronized boolean finishDecoding() {
+				if (eof || !onlyResets()) {
+					return false;
+				}
+				decoding = false;
+				return true;
+			}
+
+			/**
+			 * the sender resets its stream after every message, so a reset
+			 * marker that follows a decoded message is not part of the next
+			 * message and must be left for the next decoder.
+			 */
+			private boolean onlyResets() {
+				for (final Iterator<ByteBuffer> i = chunks.iterator(); i
+						.hasNext();) {
+					final ByteBuffer chunk = i.next();
+					for (int j = chunk.position(); j < chunk.limit(); j++) {
+						if (chunk.get(j) != ObjectStreamConstants.TC_RESET) {
+							return false;
+						}
+					}
+				}
+				return true;
+			}
+
+			public synchronized int available() {
+				return available;
+			}
+
+			public int read() throws IOException {
+				final byte[] b = new byte[1];
+				return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+			}
+
+			public synchronized int read(final byte[] b, final int off,
+					final int len) throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				try {
+					while (chunks.isEmpty() && !eof) {
+						wait();
+					}
+				} catch (final InterruptedException ie) {
+					throw new InterruptedIOException();
+				}
+				if (chunks.isEmpty()) {
+					return -1;
+				}
+				final ByteBuffer chunk = chunks.getFirst();
+				final int read = Math.min(len, chunk.remaining());
+				chunk.get(b, off, read);
+				if (!chunk.hasRemaining()) {
+					chunks.removeFirst();
+				}
+				available -= read;
+				if (suspended && available <= MAX_BUFFERED) {
+					suspended = false;
+					setInterest(SelectionKey.OP_READ, true);
+				}
+				return read;
+			}
+		}
+	}
+
+}
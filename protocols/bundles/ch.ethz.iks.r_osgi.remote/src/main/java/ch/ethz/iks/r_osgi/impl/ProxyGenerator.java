@@ -28,10 +28,8 @@
  */
 package ch.ethz.iks.r_osgi.impl;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -192,11 +190,11 @@ class ProxyGenerator extends ClassVisitor implements Opcodes {
 	 *            ServiceURL
 	 * @param deliv
 	 *            DeliverServiceMessage
-	 * @return bundle location
+	 * @return the bytes of the proxy bundle
 	 * @throws IOException
 	 *             in case of proxy generation error
 	 */
-	protected InputStream generateProxyBundle(final URI service,
+	protected byte[] generateProxyBundle(final URI service,
 			final DeliverServiceMessage deliv) throws IOException {
 
 		uri = service.toString();
@@ -301,7 +299,7 @@ class ProxyGenerator extends ClassVisitor implements Opcodes {
 			// "Created Proxy Bundle " + file);
 		}
 
-		return new ByteArrayInputStream(bout.toByteArray());
+		return bout.toByteArray();
 	}
 
 	/**
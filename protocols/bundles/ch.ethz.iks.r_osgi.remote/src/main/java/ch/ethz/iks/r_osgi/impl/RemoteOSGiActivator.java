@@ -102,7 +102,9 @@ public final class RemoteOSGiActivator implements BundleActivator {
 			properties.put(NetworkChannelFactory.PROTOCOL_PROPERTY,
 					TCPChannelFactory.PROTOCOL);
 			context.registerService(NetworkChannelFactory.class.getName(),
-					new TCPChannelFactory(), properties);
+					"true".equals(context //$NON-NLS-1$
+							.getProperty(RemoteOSGiServiceImpl.NIO_CHANNEL)) ? (NetworkChannelFactory) new NIOChannelFactory()
+							: new TCPChannelFactory(), properties);
 			// TODO: add default transport supported intents
 		}
 	}
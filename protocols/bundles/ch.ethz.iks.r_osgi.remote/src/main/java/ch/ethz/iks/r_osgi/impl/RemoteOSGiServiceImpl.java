@@ -138,6 +138,11 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 	 */
 	static int R_OSGI_PORT = 9278;
 
+	/**
+	 * the cache for generated proxy bundles and packaged bundles.
+	 */
+	static BundleCache bundleCache;
+
 	/**
 	 * the R-OSGi port property.
 	 */
@@ -155,6 +160,30 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 	 */
 	static final String THREADS_PER_ENDPOINT = "ch.ethz.iks.r_osgi.threadsPerEndpoint"; //$NON-NLS-1$
 
+	/**
+	 * the number of worker threads shared by all endpoints. If set to a
+	 * positive number, the endpoints do not start threads of their own.
+	 */
+	static final String SHARED_WORKER_THREADS = "ch.ethz.iks.r_osgi.sharedWorkerThreads"; //$NON-NLS-1$
+
+	/**
+	 * register the selector based channel for the default protocol instead of
+	 * the tcp channel? If set to "true", one thread serves all connections.
+	 */
+	static final String NIO_CHANNEL = "ch.ethz.iks.r_osgi.nioChannel"; //$NON-NLS-1$
+
+	/**
+	 * the maximum number of bytes of generated and packaged bundles to keep in
+	 * memory.
+	 */
+	static final String BUNDLE_CACHE_MEMORY = "ch.ethz.iks.r_osgi.bundleCache.memory"; //$NON-NLS-1$
+
+	/**
+	 * the maximum number of bytes of generated and packaged bundles to store
+	 * in the bundle's data area. If set to 0, nothing is stored.
+	 */
+	static final String BUNDLE_CACHE_DISK = "ch.ethz.iks.r_osgi.bundleCache.disk"; //$NON-NLS-1$
+
 	/**
 	 * constant that holds the property string for proxy debug option.
 	 */
@@ -198,6 +227,13 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 	static final int MAX_THREADS_PER_ENDPOINT = Integer.getInteger(
 			THREADS_PER_ENDPOINT, 2).intValue();
 
+	/**
+	 * how many worker threads for all endpoints? 0 if every endpoint has its
+	 * own threads.
+	 */
+	static final int MAX_SHARED_WORKER_THREADS = Integer.getInteger(
+			SHARED_WORKER_THREADS, 0).intValue();
+
 	/**
 	 * log proxy generation debug output.
 	 */
@@ -345,6 +381,17 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 		prop = context.getProperty(R_OSGi_PORT_PROPERTY);
 		R_OSGI_PORT = prop != null ? Integer.parseInt(prop) : 9278;
 
+		// set up the bundle cache
+		prop = context.getProperty(BUNDLE_CACHE_MEMORY);
+		final long maxMemory = prop != null ? Long.parseLong(prop)
+				: 16 * 1024 * 1024;
+		prop = context.getProperty(BUNDLE_CACHE_DISK);
+		final long maxDisk = prop != null ? Long.parseLong(prop)
+				: 64 * 1024 * 1024;
+		bundleCache = new BundleCache(String.valueOf(context.getBundle()
+				.getVersion()), context.getDataFile("bundles"), //$NON-NLS-1$
+				maxMemory, maxDisk);
+
 		// initialize the transactionID with a random value
 		nextXid = (short) Math.round(Math.random() * Short.MAX_VALUE);
 
@@ -1204,13 +1251,38 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 							.getName().replace('.', '/') }) == null ? "/bin" //$NON-NLS-1$
 					: ""; //$NON-NLS-1$
 
-			return generateBundle(bundle, prefix, buffer, crc);
+			return getCachedBundle(bundle, prefix, buffer, crc);
 		} catch (Exception e) {
 			e.printStackTrace();
 			throw new IOException(e.getMessage());
 		}
 	}
 
+	/**
+	 * get a packaged bundle from the cache or package and cache it. A bundle
+	 * that is updated gets a new modification time and therefore a new key, and
+	 * so does every bundle when R-OSGi itself is updated.
+	 */
+	private static byte[] getCachedBundle(final Bundle bundle,
+			final String prefix, final byte[] buffer, final CRC32 crc)
+			throws Exception {
+		final BundleCache cache = bundleCache;
+		final String key = cache == null ? null : cache.key(new Object[] {
+				"bundle", //$NON-NLS-1$
+				bundle.getLocation(), bundle.getSymbolicName(),
+				String.valueOf(bundle.getVersion()),
+				String.valueOf(bundle.getBundleId()),
+				String.valueOf(bundle.getLastModified()), prefix });
+		byte[] bytes = key == null ? null : cache.get(key);
+		if (bytes == null) {
+			bytes = generateBundle(bundle, prefix, buffer, crc);
+			if (key != null) {
+				cache.put(key, bytes);
+			}
+		}
+		return bytes;
+	}
+
 	static byte[][] getBundlesForPackages(final String[] packages)
 			throws IOException {
 		final HashSet visitedBundles = new HashSet(packages.length);
@@ -1243,8 +1315,8 @@ final class RemoteOSGiServiceImpl implements RemoteOSGiService, Remoting {
 					final String prefix = getEntry.invoke(bundle,
 							new Object[] { packages[i].replace('.', '/') }) == null ? "/bin" //$NON-NLS-1$
 							: ""; //$NON-NLS-1$
-					bundleBytes
-							.add(generateBundle(bundle, prefix, buffer, crc));
+					bundleBytes.add(getCachedBundle(bundle, prefix, buffer,
+							crc));
 				} catch (Exception e) {
 					e.printStackTrace();
 					throw new IOException(e.getMessage());
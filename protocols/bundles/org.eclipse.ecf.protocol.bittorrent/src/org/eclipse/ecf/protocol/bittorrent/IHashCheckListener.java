@@ -25,6 +25,10 @@ public interface IHashCheckListener {
 	 * performed when files are being downloaded are notified via
 	 * {@link ITorrentProgressListener}'s
 	 * {@link ITorrentProgressListener#pieceCompleted(int)} method.
+	 * <p>
+	 * Pieces are checked by several threads at once, so this method may be
+	 * called concurrently and not in the order of the pieces' numbers.
+	 * </p>
 	 * 
 	 * @param number
 	 *            the number of the piece that has just finished its hash check
@@ -12,17 +12,17 @@
  *****************************************************************************/
 package org.eclipse.ecf.protocol.bittorrent.internal.net;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.Socket;
 import java.nio.channels.SocketChannel;
 import java.security.SecureRandom;
-import java.util.LinkedList;
 import java.util.Random;
 import java.util.Vector;
 
 /**
- * A pool of threads to be allocated when a connection needs to be made with a
- * peer.
+ * A pool of the connections that have been made with the peers of a torrent.
+ * The connections themselves are serviced by the {@link PeerSelector}.
  */
 class ConnectionPool {
 
@@ -45,8 +45,6 @@ class ConnectionPool {
 
 	private final Vector connections;
 
-	private final LinkedList targets;
-
 	/**
 	 * The manager associated with this pool.
 	 */
@@ -61,50 +59,60 @@ class ConnectionPool {
 	 */
 	private int maxConnections = 50;
 
-	/**
-	 * The number of active connections.
-	 */
-	private int size = 0;
-
 	/**
 	 * The number of unchoked peers.
 	 */
 	private int unchokedPeers = 0;
 
-	private boolean connected = false;
-
 	ConnectionPool(TorrentManager manager) {
 		this.manager = manager;
 		connections = new Vector(maxConnections);
-		targets = new LinkedList();
+	}
+
+	private PeerConnection[] getConnections() {
+		return (PeerConnection[]) connections
+				.toArray(new PeerConnection[connections.size()]);
 	}
 
 	private synchronized void unchoke() {
+		PeerConnection[] connections = getConnections();
+		int size = connections.length;
 		if (size <= MAX_UNCHOKED_PEERS || unchokedPeers < MAX_UNCHOKED_PEERS) {
 			return;
 		}
 
 		int unchoke = RANDOM.nextInt(size);
-		PeerConnection connection = (PeerConnection) connections.get(unchoke);
+		PeerConnection connection = connections[unchoke];
 		while (connection.isChoking()) {
 			unchoke = RANDOM.nextInt(size);
-			connection = (PeerConnection) connections.get(unchoke);
+			connection = connections[unchoke];
 		}
 		connection.queueUnchokeMessage();
 
 		int choke = RANDOM.nextInt(size);
-		connection = (PeerConnection) connections.get(choke);
+		connection = connections[choke];
 		while (choke != unchoke && !connection.isChoking()) {
 			choke = RANDOM.nextInt(size);
-			connection = (PeerConnection) connections.get(choke);
+			connection = connections[choke];
 		}
 		connection.queueChokeMessage();
 	}
 
+	/**
+	 * Starts the thread that rotates optimistic unchokes if it is not already
+	 * running.
+	 */
+	private void startUnchoking() {
+		if (unchokingThread == null) {
+			unchokingThread = new OptimisticUnchokingThread();
+			unchokingThread.start();
+		}
+	}
+
 	/**
 	 * Creates a connection to the specified ip at the given port. If the
-	 * current number of active threads is equal to the maximum number of
-	 * allowed connections, <code>false</code> will be returned.
+	 * current number of connections is equal to the maximum number of allowed
+	 * connections, no connection will be made.
 	 * 
 	 * @param ip
 	 *            the IP of the peer
@@ -114,89 +122,64 @@ class ConnectionPool {
 	 *             If the <code>ISO-8859-1</code> encoding is not supported
 	 */
 	void connectTo(String ip, int port) throws UnsupportedEncodingException {
-		if (unchokingThread == null) {
-			unchokingThread = new OptimisticUnchokingThread();
-			unchokingThread.start();
-		} else if (size == maxConnections) {
-			return;
-		}
-		connected = true;
-
+		PeerConnection connection;
 		synchronized (this) {
-			for (int i = 0; i < connections.size(); i++) {
-				PeerConnection connection = (PeerConnection) connections.get(i);
-				if (connection.isInitialized()
-						&& connection.isConnectedTo(ip, port)) {
-					return;
-				}
+			if (connections.size() >= maxConnections) {
+				return;
 			}
-
-			targets.add(new ConnectionInfo(ip, port));
 			for (int i = 0; i < connections.size(); i++) {
-				if (!((PeerConnection) connections.get(i)).isInitialized()) {
-					notify();
+				if (((PeerConnection) connections.get(i)).isConnectedTo(ip,
+						port)) {
 					return;
 				}
 			}
-			PeerConnection connection = new PeerConnection(this, manager);
+			connection = new PeerConnection(this, manager);
 			connections.add(connection);
-			connection.start();
+			startUnchoking();
 		}
+		connection.connect(ip, port);
 	}
 
 	void connectTo(SocketChannel channel) throws UnsupportedEncodingException {
-		if (unchokingThread == null) {
-			unchokingThread = new OptimisticUnchokingThread();
-			unchokingThread.start();
-		} else if (size == maxConnections) {
-			return;
-		}
-		connected = true;
-
 		Socket socket = channel.socket();
-		String ip = socket.getLocalAddress().getHostAddress();
-		int port = socket.getLocalPort();
+		String ip = socket.getInetAddress().getHostAddress();
+		int port = socket.getPort();
+		PeerConnection connection = null;
 		synchronized (this) {
-			for (int i = 0; i < connections.size(); i++) {
-				PeerConnection connection = (PeerConnection) connections.get(i);
-				if (connection.isConnectedTo(ip, port)) {
-					return;
+			if (connections.size() < maxConnections) {
+				connection = new PeerConnection(this, manager);
+				for (int i = 0; i < connections.size(); i++) {
+					if (((PeerConnection) connections.get(i)).isConnectedTo(ip,
+							port)) {
+						connection = null;
+						break;
+					}
 				}
 			}
+			if (connection != null) {
+				connections.add(connection);
+				startUnchoking();
+			}
+		}
 
-			targets.add(new ConnectionInfo(channel));
-			for (int i = 0; i < connections.size(); i++) {
-				if (!((PeerConnection) connections.get(i)).isInitialized()) {
-					notify();
-					return;
-				}
+		if (connection == null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// ignored
 			}
-			PeerConnection connection = new PeerConnection(this, manager);
-			connections.add(connection);
-			connection.start();
+		} else {
+			connection.accept(channel);
 		}
 	}
 
 	/**
 	 * Closes all of the channels that are currently active.
 	 */
-	synchronized void close() {
-		connected = false;
-		for (int i = 0; i < connections.size(); i++) {
-			((PeerConnection) connections.get(i)).close();
-		}
-		targets.clear();
-		notifyAll();
-	}
-
-	synchronized boolean isConnected() {
-		return connected;
-	}
-
-	ConnectionInfo dequeue() {
-		synchronized (targets) {
-			return targets.isEmpty() ? null : (ConnectionInfo) targets
-					.removeFirst();
+	void close() {
+		PeerConnection[] connections = getConnections();
+		for (int i = 0; i < connections.length; i++) {
+			connections[i].close();
 		}
 	}
 
@@ -206,10 +189,10 @@ class ConnectionPool {
 	 * necessary to be connected to seeds since no pieces will be requested.
 	 */
 	void disconnectSeeds() {
-		for (int i = 0; i < connections.size(); i++) {
-			PeerConnection connection = (PeerConnection) connections.get(i);
-			if (connection.isInitialized() && connection.isSeed()) {
-				connection.close();
+		PeerConnection[] connections = getConnections();
+		for (int i = 0; i < connections.length; i++) {
+			if (connections[i].isSeed()) {
+				connections[i].close();
 			}
 		}
 	}
@@ -219,7 +202,7 @@ class ConnectionPool {
 	 * now been choked. This allows for another peer to be unchoked permanently
 	 * during the next rotation.
 	 */
-	void unchokedPeerCleared() {
+	synchronized void unchokedPeerCleared() {
 		unchokedPeers--;
 	}
 
@@ -232,23 +215,11 @@ class ConnectionPool {
 	synchronized void setMaxConnections(int maxConnections) {
 		if (this.maxConnections < maxConnections) {
 			connections.ensureCapacity(maxConnections);
-		} else if (this.maxConnections > maxConnections) {
-			// push back all active connections
-			for (int i = 0; i < maxConnections; i++) {
-				if (!((PeerConnection) connections.get(i)).isInitialized()) {
-					for (int j = connections.size(); j > i; j--) {
-						PeerConnection conn = (PeerConnection) connections
-								.get(j);
-						if (conn.isInitialized()) {
-							connections.remove(i);
-							connections.add(i, connections.remove(j - 1));
-						}
-					}
-				}
-			}
+		} else {
 			// close all extraneous connections
-			for (int i = maxConnections; i < this.maxConnections; i++) {
-				((PeerConnection) connections.get(i)).close();
+			PeerConnection[] connections = getConnections();
+			for (int i = maxConnections; i < connections.length; i++) {
+				connections[i].close();
 			}
 		}
 		this.maxConnections = maxConnections;
@@ -262,49 +233,42 @@ class ConnectionPool {
 		return true;
 	}
 
-	void connectionCreated() {
-		size++;
-	}
-
 	/**
-	 * Indicates to the pool that a connection has ended. This means that one of
-	 * the {@link PeerConnection}s are no longer running.
+	 * Indicates to the pool that a connection has ended and that it should no
+	 * longer be managed.
+	 * 
+	 * @param connection
+	 *            the connection that has been closed
 	 */
-	void connectionClosed() {
-		size--;
-		if (size == 0 && unchokingThread != null) {
+	synchronized void connectionClosed(PeerConnection connection) {
+		connections.remove(connection);
+		if (connections.isEmpty() && unchokingThread != null) {
 			unchokingThread.interrupt();
 			unchokingThread = null;
 		}
 	}
 
-	void connectionDestroyed(PeerConnection connection) {
-		connections.remove(connection);
-	}
-
 	/**
 	 * Retrieves the current number of active connections.
 	 * 
 	 * @return the number of active connections of this pool
 	 */
 	int getConnected() {
-		return size;
+		return connections.size();
 	}
 
 	/**
-	 * Instructs all running threads to send a have message of the specified
-	 * piece to the connected peer.
+	 * Instructs all connections to send a have message of the specified piece
+	 * to the connected peer.
 	 * 
 	 * @param piece
 	 *            the number of the piece that the have message should
 	 *            correspond to
 	 */
 	void queueHaveMessage(int piece) {
-		for (int i = 0; i < connections.size(); i++) {
-			PeerConnection connection = (PeerConnection) connections.get(i);
-			if (connection.isInitialized()) {
-				connection.queueHaveMessage(piece);
-			}
+		PeerConnection[] connections = getConnections();
+		for (int i = 0; i < connections.length; i++) {
+			connections[i].queueHaveMessage(piece);
 		}
 	}
 
@@ -327,12 +291,9 @@ class ConnectionPool {
 					} catch (InterruptedException e) {
 						return;
 					}
-					for (int j = 0; j < connections.size(); j++) {
-						PeerConnection conn = (PeerConnection) connections
-								.get(j);
-						if (conn.isInitialized()) {
-							conn.queueSpeeds();
-						}
+					PeerConnection[] connections = getConnections();
+					for (int j = 0; j < connections.length; j++) {
+						connections[j].queueSpeeds();
 					}
 				}
 				unchoke();
@@ -16,10 +16,12 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
 
 import org.eclipse.ecf.protocol.bittorrent.TorrentConfiguration;
 import org.eclipse.ecf.protocol.bittorrent.TorrentFile;
@@ -28,10 +30,12 @@ import org.eclipse.ecf.protocol.bittorrent.internal.encode.Encode;
 import org.eclipse.ecf.protocol.bittorrent.internal.torrent.Piece;
 
 /**
- * An extension of the <code>Thread</code> class to manage a connection with a
- * peer.
+ * Manages a connection with a peer. The connection's socket is non-blocking
+ * and is serviced by the shared {@link PeerSelector}, so all methods that
+ * touch the socket or the buffers run on the selector's thread. Requested
+ * blocks are sent straight from the torrent's files to the socket.
  */
-class PeerConnection extends Thread {
+class PeerConnection {
 
 	private static final byte[] CHOKE = { 0x00, 0x00, 0x00, 0x01, 0x00 };
 
@@ -56,20 +60,41 @@ class PeerConnection extends Thread {
 			116, 111, 99, 111, 108, 0, 0, 0, 0, 0, 0, 0, 0 });
 
 	/**
-	 * The amount of space allocated for the <code>ByteBuffer</code>s. The
-	 * value is 1024.
+	 * The length of a handshake message. The value is 68.
 	 */
-	private static final int BUFFER_MAXIMUM = 1024;
+	private static final int HANDSHAKE_LENGTH = 68;
 
 	/**
-	 * The <code>ByteBuffer</code> that is used to read data from the peer.
+	 * The largest block that a peer may request. The value is 131072.
+	 */
+	private static final int MAX_REQUEST_LENGTH = 131072;
+
+	/**
+	 * The initial size of the <code>ByteBuffer</code> that data is read into,
+	 * enough to hold a piece message of a regular sized block. The buffer
+	 * grows if a longer message is received.
+	 */
+	private static final int BUFFER_SIZE = 16384 + 13;
+
+	/**
+	 * The number of block requests that are kept outstanding with a peer that
+	 * is not choking this client.
+	 */
+	private static final int MAX_OUTSTANDING_REQUESTS = 5;
+
+	/**
+	 * The number of milliseconds to wait for a requested block before the
+	 * requests are considered to have been dropped by the peer.
 	 */
-	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_MAXIMUM);
+	private static final long REQUEST_TIMEOUT = 60000;
 
 	/**
-	 * The <code>ByteBuffer</code> that is for sending data to the peer.
+	 * The number of requests from the peer that may be queued up for
+	 * uploading, any further requests are ignored.
 	 */
-	private final ByteBuffer sendBuffer = ByteBuffer.allocate(BUFFER_MAXIMUM);
+	private static final int MAX_QUEUED_UPLOADS = 256;
+
+	private final PeerSelector selector = PeerSelector.getDefault();
 
 	private final ConnectionPool pool;
 
@@ -81,20 +106,27 @@ class PeerConnection extends Thread {
 
 	private final byte[] handshake;
 
-	private final byte[] have = { 0x00, 0x00, 0x00, 0x05, 0x04, 0x00, 0x00,
-			0x00, 0x00 };
+	private final boolean[] haveMessages;
 
-	private final byte[] request = { 0x00, 0x00, 0x00, 0x0d, 0x06, 0x00, 0x00,
-			0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x20, 0x00 };
+	/**
+	 * The longest message that the peer is allowed to send.
+	 */
+	private final int maxMessageLength;
 
-	private final byte[] blockInfo = { 0x00, 0x00, 0x00, 0x09, 0x07, 0x00,
-			0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00 };
+	/**
+	 * The messages that are waiting to be written to the peer. This contains
+	 * <code>ByteBuffer</code>s and {@link Upload}s.
+	 */
+	private final LinkedList queue = new LinkedList();
 
-	private final boolean[] haveMessages;
+	/**
+	 * The <code>ByteBuffer</code> that is used to read data from the peer.
+	 */
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
 
 	private SocketChannel channel;
 
-	private InetSocketAddress address;
+	private SelectionKey key;
 
 	/**
 	 * An array of <code>boolean</code>s that keeps track of what pieces this
@@ -106,7 +138,7 @@ class PeerConnection extends Thread {
 	 * The name and version of the BitTorrent client that this peer is currently
 	 * using or <code>"Unknown"</code> if it is not known.
 	 */
-	private String clientName;
+	private String clientName = "Unknown"; //$NON-NLS-1$
 
 	/**
 	 * The peer's IP address.
@@ -127,6 +159,12 @@ class PeerConnection extends Thread {
 
 	private long lastUploaded = 0;
 
+	/**
+	 * The time at which a block was last requested from or received from the
+	 * peer.
+	 */
+	private long lastBlock = 0;
+
 	/**
 	 * The port that this peer is listening on.
 	 */
@@ -138,6 +176,17 @@ class PeerConnection extends Thread {
 	 */
 	private int queuePosition = 0;
 
+	/**
+	 * The number of blocks that have been requested from the peer and have not
+	 * been received yet.
+	 */
+	private int outstandingRequests = 0;
+
+	/**
+	 * The number of {@link Upload}s within {@link #queue}.
+	 */
+	private int queuedUploads = 0;
+
 	/**
 	 * Whether the client is currently choking this peer. This value is
 	 * <code>true</code> in the beginning.
@@ -167,7 +216,24 @@ class PeerConnection extends Thread {
 	 */
 	private boolean peerIsSeed = false;
 
-	private boolean initialized = true;
+	/**
+	 * Whether the peer's handshake is still to be read.
+	 */
+	private boolean handshaking = false;
+
+	/**
+	 * Whether reading has been suspended because the download limit has been
+	 * reached.
+	 */
+	private boolean readSuspended = false;
+
+	/**
+	 * Whether writing has been suspended because the upload limit has been
+	 * reached.
+	 */
+	private boolean writeSuspended = false;
+
+	private boolean closed = false;
 
 	/**
 	 * Indicates whether a choke message should be sent to the peer.
@@ -194,406 +260,318 @@ class PeerConnection extends Thread {
 		haveMessages = new boolean[peerPieces.length];
 		Arrays.fill(peerPieces, false);
 		Arrays.fill(haveMessages, false);
+		maxMessageLength = Math.max(MAX_REQUEST_LENGTH + 9, manager
+				.getBitfield().length + 1);
 	}
 
-	void setAddress(String ip, int port) {
-		address = new InetSocketAddress(ip, port);
+	/**
+	 * Opens an outgoing connection to the peer and exchanges handshakes.
+	 *
+	 * @param ip
+	 *            the IP of the peer
+	 * @param port
+	 *            the port that the peer is listening on
+	 */
+	void connect(String ip, int port) {
 		this.ip = ip;
 		this.port = port;
+		execute(new Runnable() {
+			public void run() {
+				try {
+					open();
+				} catch (IOException e) {
+					TorrentConfiguration.debug("Unable to connect to " + PeerConnection.this.ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
+							+ PeerConnection.this.port + " - " + e.getMessage()); //$NON-NLS-1$
+					closeChannel();
+				}
+			}
+		});
 	}
 
-	void setChannel(SocketChannel channel) {
-		this.channel = channel;
+	/**
+	 * Takes over an incoming connection of which the peer's handshake has
+	 * already been read.
+	 *
+	 * @param channel
+	 *            the peer's channel
+	 */
+	void accept(final SocketChannel channel) {
 		Socket socket = channel.socket();
-		this.ip = socket.getLocalAddress().getHostAddress();
-		this.port = socket.getLocalPort();
+		this.ip = socket.getInetAddress().getHostAddress();
+		this.port = socket.getPort();
+		this.channel = channel;
+		execute(new Runnable() {
+			public void run() {
+				try {
+					key = selector.register(channel, SelectionKey.OP_READ,
+							PeerConnection.this);
+					TorrentConfiguration
+							.debug("Established incoming connection from " + ip //$NON-NLS-1$
+									+ ":" + port); //$NON-NLS-1$
+					sendHandshake();
+					sendBitfield();
+					flush();
+				} catch (IOException e) {
+					failed(e);
+				}
+			}
+		});
 	}
 
-	/**
-	 * Connect to the peer and exchange handshakes as necessary. A new
-	 * connection may be created depending on whether an incoming or outgoing
-	 * connection is being established.
-	 */
-	private void connect() {
+	private void execute(Runnable task) {
 		try {
-			if (channel == null) {
-				call();
-			} else {
-				answer();
-			}
+			selector.execute(task);
 		} catch (IOException e) {
-			String message = e.getMessage();
-			TorrentConfiguration.debug("The connection with " + ip + ":" + port //$NON-NLS-1$ //$NON-NLS-2$
-					+ " has been closed" //$NON-NLS-1$
-					+ (message == null ? "." : ": " + message)); //$NON-NLS-1$ //$NON-NLS-2$
-		} catch (RuntimeException e) {
-			close();
-			throw e;
+			failed(e);
 		}
-		close();
 	}
 
-	private void call() throws IOException {
-		try {
-			channel = SocketChannel.open(address);
-			address = null;
-		} catch (SocketException e) {
-			TorrentConfiguration.debug("Unable to connect to " + ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
-					+ port + " - " + e.getMessage()); //$NON-NLS-1$
+	private void open() throws IOException {
+		if (closed) {
 			return;
 		}
+		channel = SocketChannel.open();
+		key = selector.register(channel, 0, this);
+		handshaking = true;
+		if (channel.connect(new InetSocketAddress(ip, port))) {
+			connected();
+		} else {
+			key.interestOps(SelectionKey.OP_CONNECT);
+		}
+	}
+
+	private void connected() throws IOException {
 		TorrentConfiguration.debug("Established outgoing connection with " + ip //$NON-NLS-1$
 				+ ":" + port); //$NON-NLS-1$
-
+		key.interestOps(SelectionKey.OP_READ);
 		sendHandshake();
-		int read = 0;
-		int ret = 0;
-		// a return handshake is 68 bytes long, read until at least that many
-		// bytes has been retrieved
-		while (read < 68) {
-			if (channel == null) {
-				return;
-			}
-			ret = channel.read(buffer);
-			if (ret == -1) {
-				TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
+		flush();
+	}
+
+	/**
+	 * Called by the selector when the channel is ready for an operation.
+	 *
+	 * @param key
+	 *            the selected key
+	 * @throws IOException
+	 *             If an I/O error occurs while communicating with the peer
+	 */
+	void handle(SelectionKey key) throws IOException {
+		if (key.isConnectable()) {
+			if (!channel.finishConnect()) {
 				return;
 			}
-			read += ret;
+			connected();
 		}
-		TorrentConfiguration.debug("Received [BT_HANDSHAKE] message from " + ip //$NON-NLS-1$
-				+ ":" + port); //$NON-NLS-1$
-		byte[] client = new byte[20];
-		System.arraycopy(buffer.array(), 48, client, 0, 20);
-		processClientName(new String(client));
-
-		// check to see if data besides the return handshake was sent
-		if (read != 68) {
-			// keep reading until four additional bytes are read
-			while (read < 72) {
-				if (channel == null) {
-					return;
-				}
-				ret = channel.read(buffer);
-				if (ret == -1) {
-					TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
-					return;
-				}
-				read += ret;
-			}
-			if (buffer.get(71) != 0) {
-				while (read < 73) {
-					if (channel == null) {
-						return;
-					}
-					ret = channel.read(buffer);
-					if (ret == -1) {
-						TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
-						return;
-					}
-					read += ret;
-				}
-				// check to see if part of what was read is a bitfield
-				if (buffer.get(72) == 5) {
-					int length = 68 + 4 + buffer.get(71);
-					// keep reading until the entire bitfield has been read in
-					while (read < length) {
-						if (channel == null) {
-							return;
-						}
-						ret = channel.read(buffer);
-						if (ret == -1) {
-							TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
-							return;
-						}
-						read += ret;
-					}
-					buffer.flip();
-					byte[] array = new byte[read];
-					buffer.get(array, 0, read);
-					processBitfield(array, 73, 72 + array[71]);
-					if (read == length) {
-						sendBitfield();
-					}
-				} else if (buffer.get(71) == 1) {
-					byte[] bytes = null;
-					buffer.get(bytes, 0, read);
-					byte[] array = new byte[5];
-					System.arraycopy(bytes, 68, array, 0, 5);
-					if (!processMessage(array)) {
-						return;
-					}
-				}
-			} else if (buffer.get(78) == 0 && buffer.get(79) == 0
-					&& buffer.get(80) == 0) {
-				TorrentConfiguration
-						.debug("Received [BT_KEEPALIVE] message from " + ip //$NON-NLS-1$
-								+ ":" + port); //$NON-NLS-1$
-			} else {
-				TorrentConfiguration
-						.debug("Received an unidentifiable message from " + ip //$NON-NLS-1$
-								+ ":" + port); //$NON-NLS-1$
-				return;
+		if (key.isReadable()) {
+			read();
+		}
+		if (!closed) {
+			flush();
+		}
+	}
+
+	/**
+	 * Called by the selector every {@link PeerSelector#TICK} milliseconds to
+	 * resume suspended reads and writes, send queued messages, and request
+	 * blocks from the peer.
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs while communicating with the peer
+	 */
+	void tick() throws IOException {
+		if (closed || !channel.isConnected()) {
+			return;
+		}
+		if (readSuspended && manager.getDownloadRequestSpeed() != 0) {
+			readSuspended = false;
+			key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+		}
+		if (writeSuspended && manager.getUploadRequestSpeed() != 0) {
+			writeSuspended = false;
+		}
+		if (!handshaking) {
+			sendQueuedMessages();
+			if (outstandingRequests != 0
+					&& System.currentTimeMillis() - lastBlock > REQUEST_TIMEOUT) {
+				outstandingRequests = 0;
 			}
-		} else {
-			sendBitfield();
+			requestBlocks();
 		}
-		buffer.clear();
-		// enter the main loop
-		query();
+		flush();
 	}
 
-	private void answer() throws IOException {
-		TorrentConfiguration.debug("Established incoming connection from " + ip //$NON-NLS-1$
-				+ ":" + port); //$NON-NLS-1$
-		sendHandshake();
-		sendBitfield();
-		query();
+	/**
+	 * Called by the selector when the connection has failed.
+	 *
+	 * @param e
+	 *            the cause of the failure
+	 */
+	void failed(Exception e) {
+		String message = e.getMessage();
+		TorrentConfiguration.debug("The connection with " + ip + ":" + port //$NON-NLS-1$ //$NON-NLS-2$
+				+ " has been closed" //$NON-NLS-1$
+				+ (message == null ? "." : ": " + message)); //$NON-NLS-1$ //$NON-NLS-2$
+		closeChannel();
 	}
 
-	private void query() throws IOException {
-		TorrentConfiguration.debug("Entering the main loop with " + ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
-				+ port);
-		byte[] array = null;
-		int read = 0;
-		int ret = 0;
-		while (channel != null && channel.isConnected()) {
-			buffer.clear();
-			sendQueuedMessages();
-			if (read != 0) {
-				byte[] bufferArray = buffer.array();
-				byte[] bytes = new byte[bufferArray.length];
-				System.arraycopy(bufferArray, read, bytes, 0,
-						bufferArray.length - read);
-				buffer.put(bytes);
-				buffer.position(read);
-			}
-			int request = sendRequest(manager.request(peerPieces));
-			int length = request == -1 ? 4 : request;
-			resetBuffer();
-			while (read < 4) {
-				if (channel == null) {
-					return;
-				}
-				ret = channel.read(buffer);
-				if (ret == -1) {
-					TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
-					return;
+	private void read() throws IOException {
+		long maximum = manager.getDownloadRequestSpeed();
+		if (maximum == 0) {
+			// stop reading until the limit is raised again
+			readSuspended = true;
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+			return;
+		} else if (maximum != -1 && maximum < buffer.remaining()) {
+			buffer.limit(buffer.position() + (int) maximum);
+		}
+		int read = channel.read(buffer);
+		buffer.limit(buffer.capacity());
+		if (read == -1) {
+			TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
+			closeChannel();
+			return;
+		} else if (read == 0) {
+			return;
+		}
+		manager.updateDownloadRequestSpeed(read);
+
+		buffer.flip();
+		int required = processMessages();
+		buffer.compact();
+		if (required > buffer.capacity()) {
+			ByteBuffer larger = ByteBuffer.allocate(required);
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+		if (!closed && !handshaking) {
+			requestBlocks();
+		}
+	}
+
+	/**
+	 * Processes all the complete messages within {@link #buffer}.
+	 *
+	 * @return the number of bytes needed by the incomplete message at the end
+	 *         of the buffer
+	 * @throws IOException
+	 *             If the peer has violated the protocol or an I/O error occurs
+	 *             while processing a message
+	 */
+	private int processMessages() throws IOException {
+		while (!closed) {
+			int start = buffer.position();
+			int available = buffer.remaining();
+			if (handshaking) {
+				if (available < HANDSHAKE_LENGTH) {
+					return HANDSHAKE_LENGTH;
 				}
-				manager.updateDownloadRequestSpeed(ret);
-				limitBuffer(manager.getDownloadRequestSpeed());
-				read += ret;
+				processHandshake();
+				continue;
 			}
-			buffer.limit(BUFFER_MAXIMUM);
-			buffer.rewind();
 
-			if (array == null) {
-				array = new byte[read];
-				buffer.get(array, 0, read);
-			} else {
-				byte[] bytes = new byte[array.length + read];
-				System.arraycopy(array, 0, bytes, 0, array.length);
-				buffer.get(bytes, array.length, read);
-				array = bytes;
+			if (available < 4) {
+				return 4;
+			}
+			int length = buffer.getInt(start);
+			if (length < 0 || length > maxMessageLength) {
+				throw new IOException("A message length of " + length //$NON-NLS-1$
+						+ " has been encountered"); //$NON-NLS-1$
+			} else if (available < length + 4) {
+				return length + 4;
 			}
 
-			if (array[0] == 0 && array[1] == 0 && array[2] == 0
-					&& array[3] == 0) {
+			if (length == 0) {
 				TorrentConfiguration.debug("Received [BT_KEEPALIVE] from " + ip //$NON-NLS-1$
 						+ ":" + port); //$NON-NLS-1$
-				array = truncate(array, 4);
-				read -= 4;
+			} else {
+				processMessage(start + 4, length);
 			}
+			buffer.position(start + 4 + length);
+		}
+		return 0;
+	}
 
-			while (array != null && array.length > 4) {
-				if (0 <= array[4] && array[4] <= 3) {
-					if (!processMessage(array)) {
-						return;
-					}
-					array = truncate(array, 5);
-					read -= 5;
-				} else if (array[3] == 5 && array[4] == 4) {
-					if (array.length < 9) {
-						buffer.clear();
-						while (read < 9) {
-							if (channel == null) {
-								return;
-							}
-							ret = channel.read(buffer);
-							if (ret == -1) {
-								TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
-										+ port);
-								return;
-							}
-							read += ret;
-						}
-						byte[] bytes = new byte[read];
-						System.arraycopy(array, 0, bytes, 0, array.length);
-						buffer.flip();
-						buffer.get(bytes, array.length, read - array.length);
-						array = bytes;
-					}
-					processHaveMessage(array);
-					array = truncate(array, 9);
-					read -= 9;
-				} else if (array[4] == 5) {
-					length = 4 + array[3];
-					while (read < length) {
-						if (channel == null) {
-							return;
-						}
-						ret = channel.read(buffer);
-						if (ret == -1) {
-							TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
-							return;
-						}
-						read += ret;
-					}
-
-					if (array.length < read) {
-						byte[] bytes = new byte[read];
-						System.arraycopy(array, 0, bytes, 0, array.length);
-						buffer.flip();
-						buffer.get(bytes, array.length, read - array.length);
-						array = bytes;
-					}
-
-					processBitfield(array, 5, length);
-					array = truncate(array, length);
-					read -= length;
-				} else if (array[3] == 13 && array[4] == 6) {
-					if (array.length < 17) {
-						buffer.clear();
-						while (read < 17) {
-							if (channel == null) {
-								return;
-							}
-							ret = channel.read(buffer);
-							if (ret == -1) {
-								TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
-										+ port);
-								return;
-							}
-							read += ret;
-						}
-						byte[] bytes = new byte[read];
-						System.arraycopy(array, 0, bytes, 0, array.length);
-						buffer.flip();
-						buffer.get(bytes, array.length, read - array.length);
-						array = bytes;
-					}
-					if (!processRequest(array)) {
-						// an improper request was sent
-						close();
-						return;
-					}
-					array = truncate(array, 17);
-					read -= 17;
-				} else if (array[4] == 7) {
-					byte[] bufferArray = buffer.array();
-					length = Decode.decodeFourByteNumber(array, 0) + 4;
-					int offset = array.length;
-					if (offset < length) {
-						byte[] bytes = new byte[length];
-						System.arraycopy(array, 0, bytes, 0, offset);
-						array = bytes;
-					}
-
-					resetBuffer();
-					buffer.clear();
-					int start = read;
-					while (read < length) {
-						if (channel == null) {
-							return;
-						}
-						ret = channel.read(buffer);
-						if (ret == -1) {
-							TorrentConfiguration.debug("End of stream has been reached with " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
-							return;
-						}
-
-						// expand the array's length if necessary
-						if (offset + ret > array.length) {
-							byte[] bytes = new byte[offset + ret];
-							System.arraycopy(array, 0, bytes, 0, array.length);
-							array = bytes;
-						}
-
-						System.arraycopy(bufferArray, 0, array, offset, ret);
-						manager.updateDownloadRequestSpeed(ret);
-						buffer.rewind();
-						limitBuffer(manager.getDownloadRequestSpeed());
-						offset += ret;
-						read += ret;
-					}
-					buffer.limit(BUFFER_MAXIMUM);
-
-					if (array.length < read) {
-						byte[] bytes = new byte[read];
-						System.arraycopy(array, 0, bytes, 0, array.length);
-						buffer.position(start);
-						buffer.get(bytes, array.length, read - array.length);
-						array = bytes;
-					}
-
-					processPiece(array);
-					array = truncate(array, length);
-					read -= length;
-				} else if (array[4] == 8) {
-					// TODO: implement the processing of BT_CANCEL messages
-					array = truncate(array, 17);
-					read -= 17;
-				} else if (array[4] == 9) {
-					// TODO: implement the processing of BT_PORT messages
-					array = truncate(array, 9);
-					read -= 9;
-				} else {
-					TorrentConfiguration.debug("An ID of " + array[4] //$NON-NLS-1$
-							+ " has been encountered. Closing connection with " //$NON-NLS-1$
-							+ ip + ":" + port); //$NON-NLS-1$
-					return;
+	private void processHandshake() throws IOException {
+		byte[] array = new byte[HANDSHAKE_LENGTH];
+		buffer.get(array);
+		// the protocol string and the info hash must match the one that was
+		// sent, the eight reserved bytes are ignored
+		for (int i = 0; i < HANDSHAKE_LENGTH - 20; i++) {
+			if (i < 20 || i >= 28) {
+				if (array[i] != handshake[i]) {
+					throw new IOException("An invalid handshake has been received"); //$NON-NLS-1$
 				}
 			}
 		}
+		TorrentConfiguration.debug("Received [BT_HANDSHAKE] message from " + ip //$NON-NLS-1$
+				+ ":" + port); //$NON-NLS-1$
+		processClientName(new String(array, 48, 20, "ISO-8859-1")); //$NON-NLS-1$
+		handshaking = false;
+		sendBitfield();
 	}
 
-	private byte[] truncate(byte[] array, int length) {
-		if (array.length == length) {
-			return null;
-		} else {
-			byte[] bytes = new byte[array.length - length];
-			System.arraycopy(array, length, bytes, 0, bytes.length);
-			return bytes;
+	private void processMessage(int offset, int length) throws IOException {
+		byte id = buffer.get(offset);
+		switch (id) {
+		case 0:
+		case 1:
+		case 2:
+		case 3:
+			processMessage(id);
+			break;
+		case 4:
+			checkLength(id, length, 5);
+			processHaveMessage(buffer.getInt(offset + 1));
+			break;
+		case 5:
+			if (length - 1 < (peerPieces.length + 7) / 8) {
+				throw new IOException("The bitfield is too short"); //$NON-NLS-1$
+			}
+			processBitfield(offset + 1, offset + length);
+			break;
+		case 6:
+			checkLength(id, length, 13);
+			processRequest(buffer.getInt(offset + 1), buffer
+					.getInt(offset + 5), buffer.getInt(offset + 9));
+			break;
+		case 7:
+			if (length < 9) {
+				throw new IOException("A piece message of " + length //$NON-NLS-1$
+						+ " bytes has been encountered"); //$NON-NLS-1$
+			}
+			processPiece(buffer.getInt(offset + 1), buffer.getInt(offset + 5),
+					offset + 9, length - 9);
+			break;
+		case 8:
+			checkLength(id, length, 13);
+			processCancel(buffer.getInt(offset + 1),
+					buffer.getInt(offset + 5), buffer.getInt(offset + 9));
+			break;
+		case 9:
+			// TODO: implement the processing of BT_PORT messages
+			break;
+		default:
+			TorrentConfiguration.debug("Ignoring a message with an ID of " + id //$NON-NLS-1$
+					+ " from " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
+			break;
 		}
 	}
 
-	private void resetBuffer() {
-		long maximum = manager.getDownloadRequestSpeed();
-		if (maximum == -1) {
-			return;
+	private void checkLength(byte id, int length, int expected)
+			throws IOException {
+		if (length != expected) {
+			throw new IOException("A message with an ID of " + id //$NON-NLS-1$
+					+ " and a length of " + length //$NON-NLS-1$
+					+ " has been encountered"); //$NON-NLS-1$
 		}
-		buffer.limit(0);
-		limitBuffer(maximum);
 	}
 
-	private void limitBuffer(long maximum) {
-		if (maximum != 0) {
-			int currentLimit = buffer.limit();
-			if (maximum + currentLimit > BUFFER_MAXIMUM) {
-				buffer.limit(BUFFER_MAXIMUM);
-			} else {
-				buffer.limit(currentLimit + (int) maximum);
-			}
-		} else {
-			try {
-				buffer.limit(0);
-				// sleep for a short while here since if it's zero, chances are
-				// that the next rotation will return a zero also, causing an
-				// unnecessarily long loop
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				// ignored
-			}
+	private void checkPiece(int piece) throws IOException {
+		if (piece < 0 || piece >= peerPieces.length) {
+			throw new IOException("The piece number " + piece //$NON-NLS-1$
+					+ " does not exist"); //$NON-NLS-1$
 		}
 	}
 
@@ -691,12 +669,14 @@ class PeerConnection extends Thread {
 		}
 	}
 
-	private boolean processMessage(byte[] array) throws IOException {
-		switch (array[4]) {
+	private void processMessage(byte id) {
+		switch (id) {
 		case 0:
 			TorrentConfiguration.debug("Received [BT_CHOKE] message from " + ip //$NON-NLS-1$
 					+ ":" + port); //$NON-NLS-1$
 			peerIsChoking = true;
+			// the peer discards all pending requests when choking
+			outstandingRequests = 0;
 			break;
 		case 1:
 			TorrentConfiguration.debug("Received [BT_UNCHOKE] message from " //$NON-NLS-1$
@@ -727,19 +707,16 @@ class PeerConnection extends Thread {
 			}
 			sendChoke();
 			break;
-		default:
-			return false;
 		}
-		return true;
 	}
 
-	private void processBitfield(byte[] array, int offset, int end) {
+	private void processBitfield(int offset, int end) {
 		boolean[] hasPiece = new boolean[(end - offset) * 8];
 		int count = 0;
 		// iterate over the retrieved bytes and keep track of the pieces that
 		// this peer has
 		for (int i = offset; i < end; i++) {
-			int bit = Decode.decodeSignedByte(array[i]);
+			int bit = Decode.decodeSignedByte(buffer.get(i));
 			hasPiece[count++] = (bit & 1) != 0;
 			hasPiece[count++] = (bit & 2) != 0;
 			hasPiece[count++] = (bit & 4) != 0;
@@ -749,28 +726,28 @@ class PeerConnection extends Thread {
 			hasPiece[count++] = (bit & 64) != 0;
 			hasPiece[count++] = (bit & 128) != 0;
 		}
+		// the availability of pieces reported by an earlier bitfield or have
+		// messages are replaced
+		manager.removePieceAvailability(peerPieces);
 		System.arraycopy(hasPiece, 0, peerPieces, 0, peerPieces.length);
 		TorrentConfiguration.debug("Received [BT_BITFIELD] message from " + ip //$NON-NLS-1$
 				+ ":" + port); //$NON-NLS-1$
 		manager.addPieceAvailability(peerPieces);
-
-		for (int i = 0; i < peerPieces.length; i++) {
-			if (!peerPieces[i]) {
-				return;
-			}
-		}
-		peerIsSeed = true;
+		checkSeed();
 	}
 
-	private void processHaveMessage(byte[] array) {
-		int piece = Decode.decodeFourByteNumber(array, 5);
+	private void processHaveMessage(int piece) throws IOException {
+		checkPiece(piece);
 		if (!peerPieces[piece]) {
 			peerPieces[piece] = true;
 			manager.updatePieceAvailability(piece);
 		}
 		TorrentConfiguration.debug("Received [BT_HAVE piece #" + piece //$NON-NLS-1$
 				+ "] message from " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
+		checkSeed();
+	}
 
+	private void checkSeed() {
 		for (int i = 0; i < peerPieces.length; i++) {
 			if (!peerPieces[i]) {
 				return;
@@ -779,110 +756,110 @@ class PeerConnection extends Thread {
 		peerIsSeed = true;
 	}
 
-	private void processPiece(byte[] array) throws IOException {
-		int piece = Decode.decodeFourByteNumber(array, 5);
-		int index = Decode.decodeFourByteNumber(array, 9);
-		int length = Decode.decodeFourByteNumber(array, 0) - 9;
-
-		manager.write(piece, index, array, 13, length);
+	private void processPiece(int piece, int index, int offset, int length)
+			throws IOException {
+		checkPiece(piece);
+		manager.write(piece, index, buffer.array(), buffer.arrayOffset()
+				+ offset, length);
 		downloaded += length;
+		lastBlock = System.currentTimeMillis();
+		if (outstandingRequests != 0) {
+			outstandingRequests--;
+		}
 		TorrentConfiguration.debug("Received [BT_PIECE data for #" + piece //$NON-NLS-1$
 				+ ": " + index + "->" + (length + index - 1) //$NON-NLS-1$ //$NON-NLS-2$
 				+ "] message from " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
-	private boolean processRequest(byte[] array) throws IOException {
-		int piece = Decode.decodeFourByteNumber(array, 5);
-		int index = Decode.decodeFourByteNumber(array, 9);
-		int length = Decode.decodeFourByteNumber(array, 13);
+	private void processRequest(int piece, int index, int length)
+			throws IOException {
 		if (isChoking) {
 			TorrentConfiguration.debug("Ignoring [BT_REQUEST piece #" + piece //$NON-NLS-1$
 					+ ": " + index + "->" + (index + length - 1) //$NON-NLS-1$ //$NON-NLS-2$
 					+ "] message from " + ip + ":" + port //$NON-NLS-1$ //$NON-NLS-2$
 					+ " as this peer is currently choked"); //$NON-NLS-1$
-			return true;
+			return;
 		}
 		TorrentConfiguration.debug("Received [BT_REQUEST piece #" + piece //$NON-NLS-1$
 				+ ": " + index + "->" + (index + length - 1) //$NON-NLS-1$ //$NON-NLS-2$
 				+ "] message from " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
 
-		if (length > 131072) {
-			TorrentConfiguration.debug("The requesting of " + length //$NON-NLS-1$
-					+ " bytes violates the standard maximum amount of 131072, the connection to " + ip + ":" + port //$NON-NLS-1$ //$NON-NLS-2$
-					+ " will be closed."); //$NON-NLS-1$
-			return false;
+		if (length > MAX_REQUEST_LENGTH) {
+			throw new IOException("The requesting of " + length //$NON-NLS-1$
+					+ " bytes violates the standard maximum amount of " //$NON-NLS-1$
+					+ MAX_REQUEST_LENGTH);
+		} else if (!manager.isRequestable(piece, index, length)) {
+			throw new IOException("The requested block of piece #" + piece //$NON-NLS-1$
+					+ " is not available"); //$NON-NLS-1$
+		} else if (queuedUploads == MAX_QUEUED_UPLOADS) {
+			TorrentConfiguration.debug("Ignoring [BT_REQUEST piece #" + piece //$NON-NLS-1$
+					+ "] message from " + ip + ":" + port //$NON-NLS-1$ //$NON-NLS-2$
+					+ " as too many requests are queued"); //$NON-NLS-1$
+			return;
 		}
+		queue.add(new Upload(piece, index, length));
+		queuedUploads++;
+	}
 
-		byte[] block = manager.getPieceData(piece, index, length);
-		if (block == null) {
-			return false;
+	private void processCancel(int piece, int index, int length) {
+		TorrentConfiguration.debug("Received [BT_CANCEL piece #" + piece //$NON-NLS-1$
+				+ ": " + index + "->" + (index + length - 1) //$NON-NLS-1$ //$NON-NLS-2$
+				+ "] message from " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
+		for (Iterator it = queue.iterator(); it.hasNext();) {
+			Object next = it.next();
+			if (next instanceof Upload) {
+				Upload upload = (Upload) next;
+				if (upload.piece == piece && upload.index == index
+						&& upload.length == length && !upload.isStarted()) {
+					it.remove();
+					queuedUploads--;
+					return;
+				}
+			}
 		}
+	}
 
-		Encode.putIntegerAsFourBytes(blockInfo, length + 9, 0);
-		Encode.putIntegerAsFourBytes(blockInfo, piece, 5);
-		Encode.putIntegerAsFourBytes(blockInfo, index, 9);
-		sendBuffer.put(blockInfo);
-
-		int blockLength = block.length;
-		int offset = 0;
-		int remaining = sendBuffer.remaining();
-		long write = manager.getUploadRequestSpeed();
-		if (write != 0) {
-			if (write == -1) {
-				// since no limit has been set, simply set the amount to write
-				// as the length of the block
-				write = blockLength;
-			} else {
-				write = write < blockLength ? write : blockLength;
-			}
-			write = remaining < write ? remaining : write;
+	/**
+	 * Requests blocks from the peer until {@link #MAX_OUTSTANDING_REQUESTS}
+	 * are outstanding, or informs the peer of whether this client is
+	 * interested in its pieces.
+	 */
+	private void requestBlocks() {
+		Piece piece = manager.request(peerPieces);
+		if (piece == null) {
+			sendNotInterested();
+			return;
 		}
-		while (offset < blockLength) {
-			if (write == 0) {
-				try {
-					Thread.sleep(500);
-				} catch (InterruptedException e) {
-					// ignored
-				}
-			} else {
-				sendBuffer.put(block, offset, (int) write);
-				sendBuffer.flip();
-				channel.write(sendBuffer);
-				sendBuffer.clear();
-				offset += write;
-				manager.updateUploadRequestSpeed((int) write);
-				uploaded += write;
-				manager.addToUploaded(write);
-			}
-			write = manager.getUploadRequestSpeed();
-			if (write != 0) {
-				remaining = blockLength - offset;
-				if (write == -1) {
-					write = remaining;
-				} else {
-					write = write < remaining ? write : remaining;
+		sendInterested();
+		if (peerIsChoking) {
+			return;
+		}
+
+		for (int i = 0; piece != null
+				&& outstandingRequests < MAX_OUTSTANDING_REQUESTS
+				&& i < MAX_OUTSTANDING_REQUESTS * 2; i++) {
+			int[] information = piece.getRequestInformation();
+			if (information != null) {
+				sendRequest(information);
+				if (outstandingRequests++ == 0) {
+					lastBlock = System.currentTimeMillis();
 				}
-				remaining = sendBuffer.remaining();
-				write = remaining < write ? remaining : write;
 			}
+			piece = manager.request(peerPieces);
 		}
+	}
 
-		TorrentConfiguration.debug("Sent [BT_PIECE data for #" + piece + ": " //$NON-NLS-1$ //$NON-NLS-2$
-				+ index + "->" + (length + index - 1) + "] message to " + ip //$NON-NLS-1$ //$NON-NLS-2$
-				+ ":" + port); //$NON-NLS-1$
-		return true;
+	private void queue(byte[] message) {
+		queue.add(ByteBuffer.wrap(message));
 	}
 
-	private void sendHandshake() throws IOException {
-		sendBuffer.put(handshake);
-		sendBuffer.flip();
-		channel.write(sendBuffer);
-		sendBuffer.clear();
+	private void sendHandshake() {
+		queue((byte[]) handshake.clone());
 		TorrentConfiguration.debug("Sent [BT_HANDSHAKE] message to " + ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
 				+ port);
 	}
 
-	private void sendBitfield() throws IOException {
+	private void sendBitfield() {
 		byte[] bitfield = manager.getBitfield();
 		boolean hasPiece = false;
 		for (int i = 0; i < bitfield.length; i++) {
@@ -897,63 +874,37 @@ class PeerConnection extends Thread {
 			return;
 		}
 
-		byte[] header = { 0x00, 0x00, 0x00, 0x00, 0x05 };
-		Encode.putIntegerAsFourBytes(header, bitfield.length + 1, 0);
-		sendBuffer.put(header);
-		sendBuffer.put(manager.getBitfield());
-		sendBuffer.flip();
-		channel.write(sendBuffer);
-		sendBuffer.clear();
+		byte[] message = new byte[bitfield.length + 5];
+		Encode.putIntegerAsFourBytes(message, bitfield.length + 1, 0);
+		message[4] = 5;
+		System.arraycopy(bitfield, 0, message, 5, bitfield.length);
+		queue(message);
 		TorrentConfiguration.debug("Sent [BT_BITFIELD] message to " + ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
 				+ port);
 	}
 
-	private int sendRequest(Piece piece) throws IOException {
-		if (piece == null) {
-			sendNotInterested();
-			return -1;
-		} else if (peerIsChoking) {
-			sendInterested();
-			return -1;
-		}
-
-		int[] information = piece.getRequestInformation();
-		while (information == null) {
-			piece = manager.request(peerPieces);
-			if (piece == null) {
-				sendNotInterested();
-				return -1;
-			}
-			information = piece.getRequestInformation();
-		}
-
+	private void sendRequest(int[] information) {
+		byte[] request = { 0x00, 0x00, 0x00, 0x0d, 0x06, 0x00, 0x00, 0x00,
+				0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00 };
 		Encode.placeRequestInformation(request, information);
-		sendBuffer.put(request);
-		sendBuffer.flip();
-		channel.write(sendBuffer);
-		sendBuffer.clear();
+		queue(request);
 		TorrentConfiguration.debug("Sent [BT_REQUEST piece #" + information[0] //$NON-NLS-1$
 				+ ": " + information[1] + "->" //$NON-NLS-1$ //$NON-NLS-2$
 				+ (information[1] + information[2] - 1) + "] message to " + ip //$NON-NLS-1$
 				+ ":" + port); //$NON-NLS-1$
-
-		return information[2] + 13;
 	}
 
 	/**
-	 * Sends the queued up messages to the connected peer to inform.
-	 * 
-	 * @throws IOException
-	 *             If an I/O error occurs while sending the messages to the peer
+	 * Queues up the messages that other threads have asked to be sent to the
+	 * connected peer.
 	 */
-	private synchronized void sendQueuedMessages() throws IOException {
+	private synchronized void sendQueuedMessages() {
 		for (int i = 0; i < haveMessages.length; i++) {
 			if (haveMessages[i]) {
+				byte[] have = { 0x00, 0x00, 0x00, 0x05, 0x04, 0x00, 0x00,
+						0x00, 0x00 };
 				Encode.putIntegerAsFourBytes(have, i, 5);
-				sendBuffer.put(have);
-				sendBuffer.flip();
-				channel.write(sendBuffer);
-				sendBuffer.clear();
+				queue(have);
 				TorrentConfiguration.debug("Sent [BT_HAVE PIECE #" + i //$NON-NLS-1$
 						+ "] message to " + ip + ":" + port); //$NON-NLS-1$ //$NON-NLS-2$
 				haveMessages[i] = false;
@@ -972,16 +923,10 @@ class PeerConnection extends Thread {
 	/**
 	 * Sends a message to the peer that this client is interested in something
 	 * that the peer has to offer.
-	 * 
-	 * @throws IOException
-	 *             If an I/O error occurs while sending the message
 	 */
-	private void sendInterested() throws IOException {
+	private void sendInterested() {
 		if (!isInterested) {
-			sendBuffer.put(INTERESTED);
-			sendBuffer.flip();
-			channel.write(sendBuffer);
-			sendBuffer.clear();
+			queue(INTERESTED);
 			isInterested = true;
 			TorrentConfiguration.debug("Sent [BT_INTERESTED] message to " + ip //$NON-NLS-1$
 					+ ":" + port); //$NON-NLS-1$
@@ -991,16 +936,10 @@ class PeerConnection extends Thread {
 	/**
 	 * Sends a message to the peer that this client is not interested in
 	 * anything that the peer currently has to offer.
-	 * 
-	 * @throws IOException
-	 *             If an I/O error occurs while sending the message
 	 */
-	private void sendNotInterested() throws IOException {
+	private void sendNotInterested() {
 		if (isInterested) {
-			sendBuffer.put(NOT_INTERESTED);
-			sendBuffer.flip();
-			channel.write(sendBuffer);
-			sendBuffer.clear();
+			queue(NOT_INTERESTED);
 			isInterested = false;
 			TorrentConfiguration.debug("Sent [BT_NOT_INTERESTED] message to " //$NON-NLS-1$
 					+ ip + ":" + port); //$NON-NLS-1$
@@ -1009,17 +948,19 @@ class PeerConnection extends Thread {
 
 	/**
 	 * Sends a choke message to the peer which indicates to them that any piece
-	 * requests will be ignored and discarded.
-	 * 
-	 * @throws IOException
-	 *             If an I/O error occurs while writing the message to the peer
+	 * requests will be ignored and discarded. Requested blocks that have not
+	 * started to be sent are discarded.
 	 */
-	private void sendChoke() throws IOException {
+	private void sendChoke() {
 		if (!isChoking) {
-			sendBuffer.put(CHOKE);
-			sendBuffer.flip();
-			channel.write(sendBuffer);
-			sendBuffer.clear();
+			for (Iterator it = queue.iterator(); it.hasNext();) {
+				Object next = it.next();
+				if (next instanceof Upload && !((Upload) next).isStarted()) {
+					it.remove();
+					queuedUploads--;
+				}
+			}
+			queue(CHOKE);
 			isChoking = true;
 			TorrentConfiguration.debug("Sent [BT_CHOKE] message to " + ip + ":" //$NON-NLS-1$ //$NON-NLS-2$
 					+ port);
@@ -1029,16 +970,10 @@ class PeerConnection extends Thread {
 	/**
 	 * Sends an unchoke message to the peer to inform them that piece requests
 	 * will now be honoured.
-	 * 
-	 * @throws IOException
-	 *             If an I/O error occurs whilst writing the message to the peer
 	 */
-	private void sendUnchoke() throws IOException {
+	private void sendUnchoke() {
 		if (isChoking) {
-			sendBuffer.put(UNCHOKE);
-			sendBuffer.flip();
-			channel.write(sendBuffer);
-			sendBuffer.clear();
+			queue(UNCHOKE);
 			isChoking = false;
 			TorrentConfiguration.debug("Sent [BT_UNCHOKE] message to " + ip //$NON-NLS-1$
 					+ ":" + port); //$NON-NLS-1$
@@ -1046,36 +981,103 @@ class PeerConnection extends Thread {
 	}
 
 	/**
-	 * Resets instance values so that a new connection that is bridged by this
-	 * thread will not have remnants of information from the last connection.
+	 * Writes as much of {@link #queue} to the peer as the socket accepts
+	 * without blocking, and waits for the socket to become writable if
+	 * anything remains.
+	 *
+	 * @throws IOException
+	 *             If an I/O error occurs while writing to the peer
 	 */
-	private void reset() {
-		queuePosition = 0;
-		downloaded = 0;
-		uploaded = 0;
-		Arrays.fill(downloads, 0);
-		Arrays.fill(uploads, 0);
-
-		isInterested = false;
-		isChoking = true;
-		peerIsInterested = false;
-		peerIsChoking = true;
-		peerIsSeed = false;
-		Arrays.fill(peerPieces, false);
-
-		sendChoke = false;
-		sendUnchoke = false;
-		Arrays.fill(haveMessages, false);
+	private void flush() throws IOException {
+		if (closed || !channel.isConnected()) {
+			return;
+		}
+		while (!queue.isEmpty()) {
+			Object next = queue.getFirst();
+			if (next instanceof ByteBuffer) {
+				ByteBuffer message = (ByteBuffer) next;
+				channel.write(message);
+				if (message.hasRemaining()) {
+					break;
+				}
+			} else {
+				if (!upload((Upload) next)) {
+					break;
+				}
+				queuedUploads--;
+			}
+			queue.removeFirst();
+		}
+		int ops = key.interestOps();
+		if (queue.isEmpty() || writeSuspended) {
+			ops &= ~SelectionKey.OP_WRITE;
+		} else {
+			ops |= SelectionKey.OP_WRITE;
+		}
+		key.interestOps(ops);
+	}
 
-		clientName = "Unknown"; //$NON-NLS-1$
+	/**
+	 * Sends a requested block to the peer, transferring the data directly from
+	 * the files.
+	 *
+	 * @return <code>true</code> if the entire block has been sent,
+	 *         <code>false</code> otherwise
+	 */
+	private boolean upload(Upload upload) throws IOException {
+		if (upload.header.hasRemaining()) {
+			channel.write(upload.header);
+			if (upload.header.hasRemaining()) {
+				return false;
+			}
+		}
+		while (upload.sent < upload.length) {
+			long count = upload.length - upload.sent;
+			long maximum = manager.getUploadRequestSpeed();
+			if (maximum == 0) {
+				// stop writing until the limit is raised again
+				writeSuspended = true;
+				return false;
+			} else if (maximum != -1 && maximum < count) {
+				count = maximum;
+			}
+			long written = manager.transferPieceData(upload.piece, upload.index
+					+ upload.sent, count, channel);
+			if (written > 0) {
+				upload.sent += written;
+				uploaded += written;
+				manager.updateUploadRequestSpeed((int) written);
+				manager.addToUploaded(written);
+			}
+			if (written < count) {
+				return false;
+			}
+		}
+		TorrentConfiguration.debug("Sent [BT_PIECE data for #" + upload.piece //$NON-NLS-1$
+				+ ": " + upload.index + "->" //$NON-NLS-1$ //$NON-NLS-2$
+				+ (upload.length + upload.index - 1) + "] message to " + ip //$NON-NLS-1$
+				+ ":" + port); //$NON-NLS-1$
+		return true;
 	}
 
-	private void cleanup() {
-		pool.connectionClosed();
+	/**
+	 * Closes the channel and informs the pool. This must be called on the
+	 * selector's thread.
+	 */
+	private void closeChannel() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (channel != null) {
+			selector.close(channel);
+		}
+		queue.clear();
+		manager.removePieceAvailability(peerPieces);
 		if (!isChoking) {
 			pool.unchokedPeerCleared();
 		}
-		initialized = false;
+		pool.connectionClosed(this);
 	}
 
 	/**
@@ -1083,15 +1085,19 @@ class PeerConnection extends Thread {
 	 * thrown will closing the connection with the peer will be ignored.
 	 */
 	void close() {
-		if (channel != null) {
-			reset();
+		if (selector.inSelectorThread()) {
+			closeChannel();
+		} else {
 			try {
-				channel.close();
+				selector.execute(new Runnable() {
+					public void run() {
+						closeChannel();
+					}
+				});
 			} catch (IOException e) {
-				// ignored
+				// the selector is not running so nothing has been registered
+				closeChannel();
 			}
-			channel = null;
-			manager.removePieceAvailability(peerPieces);
 		}
 	}
 
@@ -1108,7 +1114,7 @@ class PeerConnection extends Thread {
 	 * identify whether this connection should be cut after a download has
 	 * completed since there is no need for a seed to be connected to another
 	 * seed.
-	 * 
+	 *
 	 * @return <code>true</code> if the connected peer is a seed,
 	 *         <code>false</code> otherwise
 	 */
@@ -1119,14 +1125,15 @@ class PeerConnection extends Thread {
 	/**
 	 * Queues up the specified piece as needing a corresponding HAVE message to
 	 * be sent to the connected peer.
-	 * 
+	 *
 	 * @param number
 	 *            the number of the piece that has just been completed
 	 * @throws IllegalArgumentException
 	 *             If a negative piece number or a piece number that is over the
 	 *             number of available pieces has been set
 	 */
-	void queueHaveMessage(int number) throws IllegalArgumentException {
+	synchronized void queueHaveMessage(int number)
+			throws IllegalArgumentException {
 		if (number < 0) {
 			throw new IllegalArgumentException("The piece number cannot be negative"); //$NON-NLS-1$
 		} else if (number >= peerPieces.length) {
@@ -1135,11 +1142,11 @@ class PeerConnection extends Thread {
 		haveMessages[number] = true;
 	}
 
-	void queueChokeMessage() {
+	synchronized void queueChokeMessage() {
 		sendUnchoke = true;
 	}
 
-	void queueUnchokeMessage() {
+	synchronized void queueUnchokeMessage() {
 		sendChoke = true;
 	}
 
@@ -1182,55 +1189,35 @@ class PeerConnection extends Thread {
 		return clientName;
 	}
 
-	boolean isInitialized() {
-		return initialized;
-	}
+	/**
+	 * A block that the peer has requested. The message's header is sent from
+	 * a buffer and the block's data is transferred from the files.
+	 */
+	private static class Upload {
 
-	protected void finalize() {
-		close();
-	}
+		private final ByteBuffer header = ByteBuffer.allocate(13);
 
-	public void run() {
-		ConnectionInfo info = pool.dequeue();
-		if (info == null) {
-			pool.connectionDestroyed(this);
-			return;
-		}
+		private final int piece;
 
-		while (true) {
-			try {
-				initialized = true;
-				if (info.isChannel()) {
-					setChannel(info.getChannel());
-				} else {
-					setAddress(info.getIP(), info.getPort());
-				}
-				pool.connectionCreated();
-				connect();
-				cleanup();
+		private final int index;
 
-				if (!pool.isConnected()) {
-					return;
-				}
+		private final int length;
 
-				try {
-					synchronized (pool) {
-						pool.wait();
-					}
-				} catch (InterruptedException e) {
-					pool.connectionDestroyed(this);
-					return;
-				}
-				info = pool.dequeue();
-				if (info == null) {
-					pool.connectionDestroyed(this);
-					return;
-				}
-			} catch (RuntimeException e) {
-				cleanup();
-				pool.connectionDestroyed(this);
-				throw e;
-			}
+		private long sent = 0;
+
+		private Upload(int piece, int index, int length) {
+			this.piece = piece;
+			this.index = index;
+			this.length = length;
+			header.putInt(length + 9);
+			header.put((byte) 7);
+			header.putInt(piece);
+			header.putInt(index);
+			header.flip();
+		}
+
+		private boolean isStarted() {
+			return header.position() != 0;
 		}
 	}
 
@@ -0,0 +1,235 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.protocol.bittorrent.internal.net;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.eclipse.ecf.protocol.bittorrent.TorrentConfiguration;
+
+/**
+ * The <code>PeerSelector</code> services the sockets of every
+ * {@link PeerConnection} of every torrent from a single thread. Besides
+ * dispatching ready keys, it calls {@link PeerConnection#tick()} on all
+ * connections every {@link #TICK} milliseconds so that queued messages are
+ * sent and bandwidth limits are lifted without any connection having to
+ * sleep. The thread is started when the first task is submitted and exits
+ * once no sockets remain registered.
+ */
+final class PeerSelector implements Runnable {
+
+	/**
+	 * The number of milliseconds between two calls to
+	 * {@link PeerConnection#tick()}.
+	 */
+	static final long TICK = 100;
+
+	private static PeerSelector peerSelector;
+
+	static synchronized PeerSelector getDefault() {
+		if (peerSelector == null) {
+			peerSelector = new PeerSelector();
+		}
+		return peerSelector;
+	}
+
+	private final LinkedList tasks = new LinkedList();
+
+	private Selector selector;
+
+	private Thread thread;
+
+	/**
+	 * Whether channels have been closed since the last selection, only
+	 * accessed by the selector's thread.
+	 */
+	private boolean cancelled = false;
+
+	private PeerSelector() {
+		// singleton
+	}
+
+	/**
+	 * Runs the task on the selector's thread.
+	 *
+	 * @param task
+	 *            the task to run
+	 * @throws IOException
+	 *             If the selector could not be opened
+	 */
+	void execute(Runnable task) throws IOException {
+		Selector s;
+		synchronized (this) {
+			if (thread == null) {
+				selector = Selector.open();
+				tasks.add(task);
+				thread = new Thread(this, "Peer Selector Thread"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.start();
+				return;
+			}
+			tasks.add(task);
+			s = selector;
+		}
+		s.wakeup();
+	}
+
+	boolean inSelectorThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Registers the channel in non-blocking mode. This must be called on the
+	 * selector's thread.
+	 */
+	SelectionKey register(SelectableChannel channel, int ops,
+			PeerConnection connection) throws IOException {
+		channel.configureBlocking(false);
+		return channel.register(selector, ops, connection);
+	}
+
+	/**
+	 * Closes the channel. This must be called on the selector's thread.
+	 */
+	void close(SelectableChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// ignored
+		}
+		cancelled = true;
+	}
+
+	private void runTasks() {
+		while (true) {
+			Runnable task;
+			synchronized (this) {
+				if (tasks.isEmpty()) {
+					return;
+				}
+				task = (Runnable) tasks.removeFirst();
+			}
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				// a failing task must not stop the other connections
+				TorrentConfiguration.debug("A peer selector task failed: " + e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private void closeSelector() {
+		if (selector == null) {
+			return;
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+			// ignored
+		}
+		selector = null;
+		thread = null;
+	}
+
+	private void tick() {
+		Object[] keys = selector.keys().toArray();
+		for (int i = 0; i < keys.length; i++) {
+			SelectionKey key = (SelectionKey) keys[i];
+			if (key.isValid()) {
+				PeerConnection connection = (PeerConnection) key.attachment();
+				try {
+					connection.tick();
+				} catch (IOException e) {
+					connection.failed(e);
+				} catch (RuntimeException e) {
+					connection.failed(e);
+				}
+			}
+		}
+	}
+
+	public void run() {
+		try {
+			select();
+		} finally {
+			// let the next call to execute(Runnable) start a new thread even
+			// if this one died unexpectedly
+			synchronized (this) {
+				if (thread == Thread.currentThread()) {
+					closeSelector();
+				}
+			}
+		}
+	}
+
+	private void select() {
+		long nextTick = System.currentTimeMillis() + TICK;
+		while (true) {
+			try {
+				runTasks();
+				if (cancelled) {
+					// flush the cancelled keys so that an empty key set is
+					// really empty
+					cancelled = false;
+					selector.selectNow();
+				}
+				if (selector.selectedKeys().isEmpty()) {
+					synchronized (this) {
+						if (tasks.isEmpty() && selector.keys().isEmpty()) {
+							closeSelector();
+							return;
+						}
+					}
+					long timeout = nextTick - System.currentTimeMillis();
+					if (timeout > 0) {
+						selector.select(timeout);
+					}
+				}
+			} catch (IOException e) {
+				// the selector itself failed, nothing more can be done
+				synchronized (this) {
+					closeSelector();
+				}
+				return;
+			}
+
+			for (Iterator it = selector.selectedKeys().iterator(); it
+					.hasNext();) {
+				SelectionKey key = (SelectionKey) it.next();
+				it.remove();
+				PeerConnection connection = (PeerConnection) key.attachment();
+				try {
+					if (key.isValid()) {
+						connection.handle(key);
+					}
+				} catch (IOException e) {
+					connection.failed(e);
+				} catch (RuntimeException e) {
+					TorrentConfiguration.debug("Handling a peer connection failed: " + e); //$NON-NLS-1$
+					connection.failed(e);
+				}
+			}
+
+			long now = System.currentTimeMillis();
+			if (now >= nextTick) {
+				tick();
+				nextTick = now + TICK;
+			}
+		}
+	}
+
+}
@@ -27,6 +27,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -60,10 +61,31 @@ public class TorrentManager {
 
 	private static final String UP_SPEED_KEY = "up.speed"; //$NON-NLS-1$
 
-	private static MessageDigest shaDigest;
+	/**
+	 * The number of threads that verify pieces during a hash check. This can
+	 * be set with the
+	 * <code>org.eclipse.ecf.protocol.bittorrent.hashCheckThreads</code>
+	 * system property and defaults to the number of available processors.
+	 */
+	private static final int HASH_CHECK_THREADS = Math.max(1, Integer
+			.getInteger("org.eclipse.ecf.protocol.bittorrent.hashCheckThreads", //$NON-NLS-1$
+					Runtime.getRuntime().availableProcessors()).intValue());
+
+	/**
+	 * The number of consecutive pieces that a hash check thread claims at a
+	 * time so that each thread reads through the files sequentially and
+	 * benefits from the operating system's read-ahead.
+	 */
+	private static final int HASH_CHECK_RUN = 16;
 
 	private static File statePath;
 
+	/**
+	 * The digest used to check pieces that have been downloaded. The hash
+	 * check threads each use their own.
+	 */
+	private final MessageDigest shaDigest = createDigest();
+
 	private final ConnectionPool connectionPool;
 
 	/**
@@ -97,6 +119,14 @@ public class TorrentManager {
 	 */
 	private final File torrentState;
 
+	/**
+	 * The file in which the pieces that have passed a hash check are stored
+	 * along with the length and modification time of each of the files. A
+	 * hash check that is restarted skips these pieces if none of the files
+	 * have changed since.
+	 */
+	private final File verifiedState;
+
 	private final Vector pieces;
 
 	/**
@@ -269,9 +299,9 @@ public class TorrentManager {
 
 	private boolean isHashChecking = false;
 
-	static {
+	private static MessageDigest createDigest() {
 		try {
-			shaDigest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
 		} catch (NoSuchAlgorithmException e) {
 			throw new RuntimeException(e);
 		}
@@ -321,6 +351,7 @@ public class TorrentManager {
 		infoHash = torrent.getInfoHash();
 		hexHash = torrent.getHexHash();
 		torrentState = new File(statePath, hexHash);
+		verifiedState = new File(statePath, hexHash + ".verified"); //$NON-NLS-1$
 		total = torrent.getTotalLength();
 		torrent.save(new File(statePath, hexHash + ".torrent")); //$NON-NLS-1$
 
@@ -394,25 +425,25 @@ public class TorrentManager {
 						input = reader.readLine();
 					}
 					if (count != states.length) {
-						startHashCheck();
+						startHashCheck(true);
 					} else {
 						setPieces(states);
 					}
 				} else {
-					startHashCheck();
+					startHashCheck(true);
 				}
 			} catch (IOException e) {
-				startHashCheck();
+				startHashCheck(true);
 			}
 		} else {
-			startHashCheck();
+			startHashCheck(true);
 		}
 	}
 
 	public boolean performHashCheck() {
 		switch (state) {
 		case ITorrentStateListener.STOPPED:
-			startHashCheck();
+			startHashCheck(false);
 			return true;
 		case ITorrentStateListener.HASH_CHECKING:
 			return true;
@@ -421,9 +452,18 @@ public class TorrentManager {
 		}
 	}
 
-	private void startHashCheck() {
+	/**
+	 * Starts a hash check of all the pieces.
+	 * 
+	 * @param resume
+	 *            <code>true</code> if pieces that have been recorded in
+	 *            {@link #verifiedState} as having passed a previous hash check
+	 *            should not be checked again, <code>false</code> to check
+	 *            every piece
+	 */
+	private void startHashCheck(boolean resume) {
 		if (hashCheckThread == null || !hashCheckThread.isAlive()) {
-			hashCheckThread = new HashCheckThread();
+			hashCheckThread = new HashCheckThread(resume);
 			hashCheckThread.start();
 			isHashChecking = true;
 			fireStateChangedEvent(ITorrentStateListener.HASH_CHECKING);
@@ -578,7 +618,7 @@ public class TorrentManager {
 			isWaitingToStart = true;
 			return;
 		} else if (!torrentState.exists()) {
-			startHashCheck();
+			startHashCheck(true);
 			isWaitingToStart = true;
 			return;
 		} else if (running) {
@@ -623,6 +663,7 @@ public class TorrentManager {
 		queryTracker("stopped"); //$NON-NLS-1$
 		fireStateChangedEvent(ITorrentStateListener.STOPPED);
 		store();
+		saveVerifiedState();
 	}
 
 	/**
@@ -657,6 +698,14 @@ public class TorrentManager {
 
 	public boolean delete() {
 		remove();
+		// close the files and drop their mappings before deleting them
+		for (int i = 0; i < files.length; i++) {
+			try {
+				files[i].close();
+			} catch (IOException e) {
+				// ignored
+			}
+		}
 		return targetFile.delete();
 	}
 
@@ -773,18 +822,67 @@ public class TorrentManager {
 		return bytes;
 	}
 
-	byte[] getPieceData(int number, int offset, int length)
-			throws IllegalArgumentException, IOException {
-		byte[] piece = getPiece(number);
-		if (piece == null) {
-			return null;
-		}
-		if (offset + length > piece.length) {
-			throw new IllegalArgumentException("The block of data that is being requested goes beyond the range of the requested piece"); //$NON-NLS-1$
+	/**
+	 * Checks whether a block that a peer has requested can be served.
+	 * 
+	 * @param number
+	 *            the number of the requested piece
+	 * @param offset
+	 *            the position within the piece that the block starts at
+	 * @param length
+	 *            the length of the block
+	 * @return <code>true</code> if the piece has been completed and the block
+	 *         lies within it, <code>false</code> otherwise
+	 */
+	boolean isRequestable(int number, int offset, int length) {
+		return 0 <= number && number < hasPiece.length && hasPiece[number]
+				&& offset >= 0 && length > 0
+				&& (long) offset + length <= ((Piece) pieces.get(number))
+						.getLength();
+	}
+
+	/**
+	 * Transfers part of a block of a completed piece from the local files
+	 * directly to a peer's channel.
+	 * 
+	 * @param number
+	 *            the number of the piece
+	 * @param offset
+	 *            the position within the piece that the transfer starts at
+	 * @param length
+	 *            the maximum number of bytes to transfer
+	 * @param target
+	 *            the channel to transfer the data to
+	 * @return the number of bytes that were transferred, this may be less than
+	 *         <code>length</code> if <code>target</code> is non-blocking
+	 * @throws IOException
+	 *             If an I/O error occurs while reading from the files or
+	 *             writing to the channel
+	 */
+	long transferPieceData(int number, long offset, long length,
+			WritableByteChannel target) throws IOException {
+		long transferred = 0;
+		long start = 0;
+		// a piece's data is the concatenation of the parts held by each file
+		for (int i = 0; i < files.length && length > 0; i++) {
+			long dataLength = files[i].getDataLength(number);
+			if (dataLength == -1) {
+				continue;
+			}
+			if (offset < start + dataLength) {
+				long count = Math.min(length, start + dataLength - offset);
+				long written = files[i].transferTo(number, offset - start,
+						count, target);
+				transferred += written;
+				offset += written;
+				length -= written;
+				if (written < count) {
+					break;
+				}
+			}
+			start += dataLength;
 		}
-		byte[] block = new byte[length];
-		System.arraycopy(piece, offset, block, 0, length);
-		return block;
+		return transferred;
 	}
 
 	/**
@@ -821,6 +919,124 @@ public class TorrentManager {
 		writer.flush();
 	}
 
+	/**
+	 * Records the pieces that have been verified along with the length and
+	 * modification time of each file.
+	 * 
+	 * @throws IOException
+	 *             If an I/O error occurs while writing the file
+	 */
+	private void saveVerifiedState() throws IOException {
+		char[] verified = new char[hasPiece.length];
+		synchronized (this) {
+			for (int i = 0; i < verified.length; i++) {
+				verified[i] = hasPiece[i] ? '1' : '0';
+			}
+		}
+		BufferedWriter writer = new BufferedWriter(new FileWriter(
+				verifiedState, false));
+		try {
+			for (int i = 0; i < files.length; i++) {
+				writer.write(files[i].length() + " " //$NON-NLS-1$
+						+ files[i].lastModified());
+				writer.newLine();
+			}
+			writer.write(verified);
+			writer.newLine();
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Reads the pieces that have been recorded as verified by
+	 * {@link #saveVerifiedState()}.
+	 * 
+	 * @return an array that indicates which pieces have already passed a hash
+	 *         check, or <code>null</code> if nothing has been recorded or if
+	 *         any of the files have changed since
+	 */
+	private boolean[] loadVerifiedState() {
+		if (!verifiedState.exists()) {
+			return null;
+		}
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(
+					verifiedState));
+			try {
+				for (int i = 0; i < files.length; i++) {
+					String input = reader.readLine();
+					if (!(files[i].length() + " " + files[i].lastModified()) //$NON-NLS-1$
+							.equals(input)) {
+						return null;
+					}
+				}
+				String input = reader.readLine();
+				if (input == null || input.length() != hasPiece.length) {
+					return null;
+				}
+				boolean[] verified = new boolean[input.length()];
+				for (int i = 0; i < verified.length; i++) {
+					verified[i] = input.charAt(i) == '1';
+				}
+				return verified;
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the data of a piece from the local files into the provided buffer
+	 * without moving the files' positions.
+	 * 
+	 * @param number
+	 *            the piece's number
+	 * @param buffer
+	 *            the buffer to read into, it must have room for the entire
+	 *            piece
+	 * @throws IOException
+	 *             If an I/O error occurs while reading from the files
+	 */
+	private void readPiece(int number, ByteBuffer buffer) throws IOException {
+		for (int i = 0; i < files.length; i++) {
+			if (files[i].containsPiece(number)) {
+				files[i].read(number, buffer);
+			}
+		}
+	}
+
+	/**
+	 * Updates the state of a piece after it has been hash checked.
+	 * 
+	 * @param number
+	 *            the piece's number
+	 * @param passed
+	 *            <code>true</code> if the piece's data matched its hash
+	 */
+	private void hashChecked(int number, boolean passed) {
+		synchronized (this) {
+			Piece piece = (Piece) pieces.get(number);
+			if (piece.isComplete()) {
+				completedPieces--;
+				hasPiece[number] = false;
+			}
+			remaining += piece.getWritten();
+			if (passed) {
+				piece.setAsCompleted();
+				hasPiece[number] = true;
+				completedPieces++;
+				remaining -= piece.getLength();
+			} else {
+				piece.reset();
+			}
+			incompletePieces.remove(piece);
+		}
+		fireHashCheckedEvent(number);
+	}
+
 	/**
 	 * Writes the data that has been received from a peer onto the local files.
 	 * 
@@ -878,8 +1094,19 @@ public class TorrentManager {
 			isCompleted = true;
 			fireStateChangedEvent(ITorrentStateListener.FINISHED);
 			connectionPool.disconnectSeeds();
-			// let the tracker know that the download has completed
-			queryTracker("completed"); //$NON-NLS-1$
+			// let the tracker know that the download has completed, this is
+			// done on a separate thread so that the peer selector's thread
+			// that wrote the piece is not held up by the tracker
+			new Thread("Tracker Thread - " + torrent.getName()) { //$NON-NLS-1$
+				public void run() {
+					try {
+						queryTracker("completed"); //$NON-NLS-1$
+					} catch (IOException e) {
+						TorrentConfiguration.debug("The tracker could not be informed of the completed download - " //$NON-NLS-1$
+								+ e.getMessage());
+					}
+				}
+			}.start();
 		} else {
 			TorrentConfiguration.debug("Piece " + number //$NON-NLS-1$
 					+ " has failed the hash check"); //$NON-NLS-1$
@@ -966,8 +1193,8 @@ public class TorrentManager {
 	}
 
 	private Piece getRarePiece(boolean[] peerPieces) {
-		int min = pieceAvailability[0];
-		for (int i = 1; i < peerPieces.length; i++) {
+		int min = Integer.MAX_VALUE;
+		for (int i = 0; i < peerPieces.length; i++) {
 			if (!hasPiece[i] && peerPieces[i] && min > pieceAvailability[i]) {
 				min = pieceAvailability[i];
 			}
@@ -986,8 +1213,8 @@ public class TorrentManager {
 	}
 
 	private Piece getRarePiece(boolean[] compare, boolean[] peerPieces) {
-		int min = pieceAvailability[0];
-		for (int i = 1; i < peerPieces.length; i++) {
+		int min = Integer.MAX_VALUE;
+		for (int i = 0; i < peerPieces.length; i++) {
 			if (!hasPiece[i] && compare[i] && peerPieces[i]
 					&& min > pieceAvailability[i]) {
 				min = pieceAvailability[i];
@@ -1504,10 +1731,36 @@ public class TorrentManager {
 		isCompleted = true;
 	}
 
+	/**
+	 * Checks the hashes of all pieces. The pieces are split into runs of
+	 * {@link #HASH_CHECK_RUN} consecutive pieces which are claimed by
+	 * {@link #HASH_CHECK_THREADS} {@link HashCheckWorker}s, each with its own
+	 * digest and buffer, so {@link IHashCheckListener}s are notified of pieces
+	 * out of order. The pieces that have passed are recorded every second so
+	 * that an interrupted hash check resumes where it left off.
+	 */
 	private class HashCheckThread extends Thread {
 
-		private HashCheckThread() {
+		private final boolean resume;
+
+		/**
+		 * The pieces that do not need to be checked again, or
+		 * <code>null</code> if all pieces are to be checked.
+		 */
+		private boolean[] verified;
+
+		/**
+		 * The first piece of the next run that has not been claimed.
+		 */
+		private int next = 0;
+
+		private boolean cancelled = false;
+
+		private IOException failure;
+
+		private HashCheckThread(boolean resume) {
 			super("Hash Check Thread - " + torrent.getName()); //$NON-NLS-1$
+			this.resume = resume;
 		}
 
 		private void cleanup() {
@@ -1515,92 +1768,135 @@ public class TorrentManager {
 			fireStateChangedEvent(ITorrentStateListener.STOPPED);
 		}
 
+		/**
+		 * Claims the next run of pieces.
+		 * 
+		 * @return the first piece of the run, or <code>-1</code> if all
+		 *         pieces have been claimed or the hash check has been
+		 *         cancelled
+		 */
+		private synchronized int claim() {
+			if (cancelled || next >= hasPiece.length) {
+				return -1;
+			}
+			int start = next;
+			next += HASH_CHECK_RUN;
+			return start;
+		}
+
+		private synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		private synchronized void cancel() {
+			cancelled = true;
+		}
+
+		private synchronized void failed(IOException e) {
+			if (failure == null) {
+				failure = e;
+			}
+			cancelled = true;
+		}
+
+		private boolean isVerified(int number) {
+			return verified != null && verified[number];
+		}
+
 		public void run() {
-			try {
-				int read = 0;
-				int count = 0;
-				ByteBuffer buffer = ByteBuffer.allocate(pieceLength);
-				for (int i = 0; i < files.length; i++) {
-					FileChannel channel = files[i].getChannel();
-					while ((read += channel.read(buffer)) == pieceLength) {
-						if (isInterrupted()) {
-							cleanup();
-							return;
-						}
-						Piece piece = (Piece) pieces.get(count);
-						if (piece.isComplete()) {
-							completedPieces--;
-							hasPiece[i] = false;
-						}
-						remaining += piece.getWritten();
-						buffer.rewind();
-						if (torrent.getPieces()[count]
-								.equals(new String(shaDigest.digest(buffer
-										.array()), "ISO-8859-1"))) { //$NON-NLS-1$
-							piece.setAsCompleted();
-							hasPiece[count] = true;
-							completedPieces++;
-							remaining -= piece.getLength();
-						} else {
-							piece.reset();
-						}
-						incompletePieces.remove(piece);
-						fireHashCheckedEvent(count);
-						count++;
-						read = 0;
-					}
-				}
+			if (resume) {
+				verified = loadVerifiedState();
+			}
+			int count = Math.min(HASH_CHECK_THREADS, (hasPiece.length
+					+ HASH_CHECK_RUN - 1)
+					/ HASH_CHECK_RUN);
+			HashCheckWorker[] workers = new HashCheckWorker[count];
+			for (int i = 0; i < count; i++) {
+				workers[i] = new HashCheckWorker(this, i);
+				workers[i].start();
+			}
 
-				if (read > 0) {
-					if (isInterrupted()) {
-						cleanup();
-						return;
-					}
-					Piece piece = (Piece) pieces.get(count);
-					if (piece.isComplete()) {
-						completedPieces--;
-						hasPiece[count] = false;
+			boolean interrupted = false;
+			for (int i = 0; i < count; i++) {
+				while (workers[i].isAlive()) {
+					try {
+						workers[i].join(1000);
+					} catch (InterruptedException e) {
+						// the workers are not interrupted as that would close
+						// the files' channels
+						interrupted = true;
+						cancel();
 					}
-					remaining += piece.getWritten();
-					buffer.rewind();
-					shaDigest.update(buffer.array(), 0, read);
-					if (torrent.getPieces()[count].equals(new String(shaDigest
-							.digest(), "ISO-8859-1"))) { //$NON-NLS-1$
-						hasPiece[count] = true;
-						piece.setAsCompleted();
-						completedPieces++;
-						remaining -= piece.getLength();
-					} else {
-						piece.reset();
+					if (!interrupted && workers[i].isAlive()) {
+						try {
+							saveVerifiedState();
+						} catch (IOException e) {
+							// ignored, the next save may succeed
+						}
 					}
-					incompletePieces.remove(piece);
-					fireHashCheckedEvent(count);
 				}
+			}
 
-				updateBitfield();
-				saveState();
-				if (isInterrupted()) {
+			try {
+				saveVerifiedState();
+				if (failure != null) {
+					cleanup();
+					throw new RuntimeException(failure);
+				} else if (interrupted || isInterrupted()) {
 					cleanup();
 					return;
 				}
-				isHashChecking = false;
-				if (isWaitingToStart) {
-					try {
-						TorrentManager.this.start();
-					} catch (IOException e) {
-						throw new RuntimeException(e);
-					}
-				}
-			} catch (ClosedByInterruptException e) {
+				updateBitfield();
+				saveState();
+			} catch (IOException e) {
 				cleanup();
+				throw new RuntimeException(e);
+			}
+
+			isHashChecking = false;
+			if (isWaitingToStart) {
 				try {
-					saveState();
-				} catch (IOException ex) {
-					throw new RuntimeException(ex);
+					TorrentManager.this.start();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+	}
+
+	private class HashCheckWorker extends Thread {
+
+		private final HashCheckThread hashCheck;
+
+		private HashCheckWorker(HashCheckThread hashCheck, int number) {
+			super(hashCheck.getName() + " #" + number); //$NON-NLS-1$
+			this.hashCheck = hashCheck;
+		}
+
+		public void run() {
+			MessageDigest digest = createDigest();
+			ByteBuffer buffer = ByteBuffer.allocate(pieceLength);
+			String[] hashes = torrent.getPieces();
+			try {
+				for (int start = hashCheck.claim(); start != -1; start = hashCheck
+						.claim()) {
+					int end = Math.min(start + HASH_CHECK_RUN, hasPiece.length);
+					for (int i = start; i < end; i++) {
+						if (hashCheck.isCancelled()) {
+							return;
+						} else if (hashCheck.isVerified(i)) {
+							hashChecked(i, true);
+							continue;
+						}
+						buffer.clear();
+						readPiece(i, buffer);
+						digest.update(buffer.array(), 0, buffer.position());
+						hashChecked(i, hashes[i].equals(new String(digest
+								.digest(), "ISO-8859-1"))); //$NON-NLS-1$
+					}
 				}
 			} catch (IOException e) {
-				cleanup();
-				throw new RuntimeException(e);
+				hashCheck.failed(e);
 			}
 		}
 	}
@@ -15,19 +15,44 @@ package org.eclipse.ecf.protocol.bittorrent.internal.torrent;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A <code>DataFile</code> is a representation of a file that will be
  * downloaded by a torrent.
+ * <p>
+ * If the <code>org.eclipse.ecf.protocol.bittorrent.mappedStorage</code>
+ * system property is set to <code>true</code>, blocks are read and written
+ * through memory mappings of the file instead of seeking on it.
+ * </p>
  */
 public class DataFile {
 
+	/**
+	 * Whether files should be accessed through memory mappings.
+	 */
+	private static final boolean MAPPED = Boolean
+			.getBoolean("org.eclipse.ecf.protocol.bittorrent.mappedStorage"); //$NON-NLS-1$
+
+	/**
+	 * The largest region of a file that is mapped at once. A single mapping
+	 * cannot exceed 2GB so larger files are mapped in several regions.
+	 */
+	private static final long REGION_SIZE = 1 << 30;
+
 	/**
 	 * One of the files being downloaded by the torrent.
 	 */
 	private RandomAccessFile file;
 
+	/**
+	 * The location of {@link #file}.
+	 */
+	private final File path;
+
 	/**
 	 * An array of integers that indicates the pieces of a torrent file that
 	 * this file represents.
@@ -35,9 +60,16 @@ public class DataFile {
 	private int[] pieces;
 
 	/**
-	 * The number of bytes that occupy a given piece
+	 * The position within this file at which each of the pieces in
+	 * {@link #pieces} starts.
 	 */
-	private int[] pieceLengths;
+	private long[] pieceLengths;
+
+	/**
+	 * The mapped regions of this file, or <code>null</code> if the file is
+	 * not being accessed through memory mappings or has been closed.
+	 */
+	private volatile MappedByteBuffer[] regions;
 
 	/**
 	 * The size of the file.
@@ -58,6 +90,29 @@ public class DataFile {
 	 *             file and specifying its length
 	 */
 	public DataFile(File aFile, long length) throws IOException {
+		this(aFile, length, MAPPED);
+	}
+
+	/**
+	 * Constructs a <code>DataFile</code> to handle the reading and writing of
+	 * pieces and blocks.
+	 * 
+	 * @param aFile
+	 *            the file to wrap around
+	 * @param length
+	 *            the length that the file should be, as specified by the
+	 *            metainfo stored within a <i>.torrent</i> file
+	 * @param mapped
+	 *            <code>true</code> if blocks should be read and written
+	 *            through memory mappings of the file, regardless of the
+	 *            <code>org.eclipse.ecf.protocol.bittorrent.mappedStorage</code>
+	 *            system property
+	 * @throws IOException
+	 *             If an I/O error occurs while creating the wrapper around the
+	 *             file and specifying its length
+	 */
+	public DataFile(File aFile, long length, boolean mapped) throws IOException {
+		path = aFile;
 		file = new RandomAccessFile(aFile, "rw"); //$NON-NLS-1$
 		if (aFile.length() > length) {
 			aFile.delete();
@@ -67,6 +122,43 @@ public class DataFile {
 			file.write(0);
 		}
 		this.length = length;
+		if (mapped && length > 0) {
+			map();
+		}
+	}
+
+	private void map() throws IOException {
+		FileChannel channel = file.getChannel();
+		MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((length + REGION_SIZE - 1) / REGION_SIZE)];
+		for (int i = 0; i < mapped.length; i++) {
+			long position = i * REGION_SIZE;
+			mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, position,
+					Math.min(REGION_SIZE, length - position));
+		}
+		regions = mapped;
+	}
+
+	/**
+	 * Closes this file. Any data written through the memory mappings is
+	 * forced out to the file and the mappings are dropped, after which the
+	 * virtual machine releases them once no reader still holds on to a
+	 * region. Reading from or writing to this file afterwards fails with an
+	 * <code>IOException</code>.
+	 * 
+	 * @throws IOException
+	 *             If an I/O error occurs while closing the file
+	 */
+	public void close() throws IOException {
+		MappedByteBuffer[] mapped = regions;
+		regions = null;
+		if (mapped != null) {
+			for (int i = 0; i < mapped.length; i++) {
+				mapped[i].force();
+			}
+		}
+		synchronized (file) {
+			file.close();
+		}
 	}
 
 	/**
@@ -93,7 +185,7 @@ public class DataFile {
 
 		this.pieces = pieces;
 		int numPieces = pieces.length;
-		pieceLengths = new int[numPieces];
+		pieceLengths = new long[numPieces];
 		pieceLengths[0] = 0;
 		// if there is only one piece, the length has been set and there is no
 		// need to set anymore additional values
@@ -143,29 +235,69 @@ public class DataFile {
 			throw new IllegalArgumentException();
 		}
 
-		int seek = pieceLengths[index] + offset;
+		long seek = pieceLengths[index] + offset;
 		if (seek >= this.length) {
 			throw new IllegalArgumentException("The seeking position cannot be greater than this file's length"); //$NON-NLS-1$
 		}
 
-		synchronized (file) {
-			// move to the specified position and write to the file
-			file.seek(seek);
-			// check to see if there's more data to available to write than how
-			// large this file actually holds
-			if (seek + data[1] > this.length) {
-				// since there is an excessive amount of data, just take the
-				// difference
-				int write = (int) (this.length - seek);
-				file.write(block, data[0], write);
-				data[0] += write;
-				data[1] -= write;
-				data[2] = write;
-				return data;
-			} else {
-				file.write(block, data[0], data[1]);
-				return null;
+		// check to see if there's more data to available to write than how
+		// large this file actually holds
+		if (seek + data[1] > this.length) {
+			// since there is an excessive amount of data, just take the
+			// difference
+			int write = (int) (this.length - seek);
+			write(seek, block, data[0], write);
+			data[0] += write;
+			data[1] -= write;
+			data[2] = write;
+			return data;
+		} else {
+			write(seek, block, data[0], data[1]);
+			return null;
+		}
+	}
+
+	private void write(long position, byte[] block, int offset, int length)
+			throws IOException {
+		MappedByteBuffer[] regions = this.regions;
+		if (regions == null) {
+			synchronized (file) {
+				file.seek(position);
+				file.write(block, offset, length);
 			}
+			return;
+		}
+		while (length > 0) {
+			ByteBuffer region = regions[(int) (position / REGION_SIZE)]
+					.duplicate();
+			region.position((int) (position % REGION_SIZE));
+			int amount = Math.min(length, region.remaining());
+			region.put(block, offset, amount);
+			position += amount;
+			offset += amount;
+			length -= amount;
+		}
+	}
+
+	private void read(long position, byte[] data, int offset, int length)
+			throws IOException {
+		MappedByteBuffer[] regions = this.regions;
+		if (regions == null) {
+			synchronized (file) {
+				file.seek(position);
+				file.readFully(data, offset, length);
+			}
+			return;
+		}
+		while (length > 0) {
+			ByteBuffer region = regions[(int) (position / REGION_SIZE)]
+					.duplicate();
+			region.position((int) (position % REGION_SIZE));
+			int amount = Math.min(length, region.remaining());
+			region.get(data, offset, amount);
+			position += amount;
+			offset += amount;
+			length -= amount;
 		}
 	}
 
@@ -189,24 +321,130 @@ public class DataFile {
 		if (index == -1) {
 			return null;
 		}
+		// create a new byte array to store the data so that it can be returned
+		byte[] data = new byte[(int) getIndexLength(index)];
+		read(pieceLengths[index], data, 0, data.length);
+		return data;
+	}
+
+	/**
+	 * Reads the data that a particular piece represents within this file into
+	 * the provided buffer. Unlike {@link #getData(int)}, this does not move the
+	 * file's position, so several threads may read from the file at once.
+	 * 
+	 * @param piece
+	 *            the number of the interested piece
+	 * @param buffer
+	 *            the buffer to read into, it must have room for
+	 *            {@link #getDataLength(int)} bytes
+	 * @throws IllegalArgumentException
+	 *             If <code>piece</code> is not a part of this file
+	 * @throws IOException
+	 *             If an I/O error occurs while reading from this file
+	 */
+	public void read(int piece, ByteBuffer buffer)
+			throws IllegalArgumentException, IOException {
+		int index = indexOf(piece);
+		if (index == -1) {
+			throw new IllegalArgumentException();
+		}
+		long position = pieceLengths[index];
+		long end = position + getIndexLength(index);
+		MappedByteBuffer[] regions = this.regions;
+		if (regions != null) {
+			while (position < end) {
+				ByteBuffer region = regions[(int) (position / REGION_SIZE)]
+						.duplicate();
+				region.position((int) (position % REGION_SIZE));
+				if (region.remaining() > end - position) {
+					region.limit(region.position() + (int) (end - position));
+				}
+				position += region.remaining();
+				buffer.put(region);
+			}
+			return;
+		}
+		FileChannel channel = file.getChannel();
+		int limit = buffer.limit();
+		buffer.limit(buffer.position() + (int) (end - position));
+		try {
+			while (position < end) {
+				int read = channel.read(buffer, position);
+				if (read == -1) {
+					throw new IOException("The end of " + path //$NON-NLS-1$
+							+ " has been reached"); //$NON-NLS-1$
+				}
+				position += read;
+			}
+		} finally {
+			buffer.limit(limit);
+		}
+	}
+
+	/**
+	 * Retrieves the number of bytes of a particular piece that this file holds.
+	 * 
+	 * @param piece
+	 *            the number of the interested piece
+	 * @return the length of the piece's data within this file, or
+	 *         <code>-1</code> if this file does not contain the specified
+	 *         piece
+	 */
+	public long getDataLength(int piece) {
+		int index = indexOf(piece);
+		return index == -1 ? -1 : getIndexLength(index);
+	}
 
-		int dataLength = -1;
+	private long getIndexLength(int index) {
 		// if this is the last piece, retrieve the length by decrementing the
 		// length of this file and the starting length of the last piece
 		if (pieceLengths.length - 1 == index) {
-			dataLength = (int) (length - pieceLengths[index]);
-		} else {
-			// get the length by decrementing the length of the piece after it
-			// with the current piece
-			dataLength = pieceLengths[index + 1] - pieceLengths[index];
+			return length - pieceLengths[index];
 		}
-		// create a new byte array to store the data so that it can be returned
-		byte[] data = new byte[dataLength];
-		synchronized (file) {
-			file.seek(pieceLengths[index]);
-			file.read(data, 0, dataLength);
+		// get the length by decrementing the length of the piece after it
+		// with the current piece
+		return pieceLengths[index + 1] - pieceLengths[index];
+	}
+
+	/**
+	 * Transfers the data of a particular piece that this file holds directly
+	 * to the provided channel, without copying it through a buffer.
+	 * 
+	 * @param piece
+	 *            the number of the interested piece
+	 * @param offset
+	 *            the offset within the part of the piece that this file holds
+	 * @param count
+	 *            the maximum number of bytes to transfer
+	 * @param target
+	 *            the channel to transfer the data to
+	 * @return the number of bytes that were transferred, this may be less than
+	 *         <code>count</code> if <code>target</code> is non-blocking
+	 * @throws IllegalArgumentException
+	 *             If <code>piece</code> is not a part of this file
+	 * @throws IOException
+	 *             If an I/O error occurs while reading from this file or
+	 *             writing to the channel
+	 */
+	public long transferTo(int piece, long offset, long count,
+			WritableByteChannel target) throws IllegalArgumentException,
+			IOException {
+		int index = indexOf(piece);
+		if (index == -1) {
+			throw new IllegalArgumentException();
 		}
-		return data;
+		return file.getChannel().transferTo(pieceLengths[index] + offset,
+				count, target);
+	}
+
+	/**
+	 * Retrieves the time at which this file was last modified.
+	 * 
+	 * @return the time that this file was last modified as returned by
+	 *         {@link File#lastModified()}
+	 */
+	public long lastModified() {
+		return path.lastModified();
 	}
 
 	/**
@@ -12,20 +12,14 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.datashare.nio;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
 import java.net.SocketAddress;
-import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -49,6 +43,11 @@ import org.eclipse.ecf.datashare.events.IChannelMessageEvent;
  * An abstract implementation of <code>IChannel</code> that uses Java 1.4 NIO
  * APIs for sending and retrieving data.
  * <p>
+ * All channels share one selector-driven thread for accepting connections and
+ * for reading and writing messages. Channel listeners are notified of incoming
+ * messages on that thread and should hand off any lengthy processing.
+ * </p>
+ * <p>
  * This channel will inherently spawn multiple socket connections as messages
  * are sent to different remote clients via {@link #sendMessage(ID, byte[])}.
  * Please note that the current implementation does not handle repeated
@@ -93,6 +92,16 @@ public abstract class NIOChannel implements IChannel {
 	 */
 	private final ID id;
 
+	/**
+	 * The reactor driving this channel's sockets.
+	 */
+	private final NIOReactor reactor;
+
+	/**
+	 * Accepts connections on the server socket and reports its failures.
+	 */
+	private final AcceptHandler acceptHandler = new AcceptHandler();
+
 	/**
 	 * The server socket for listening to incoming connections. This channel is
 	 * non-blocking.
@@ -109,17 +118,17 @@ public abstract class NIOChannel implements IChannel {
 
 	/**
 	 * A map of <code>ID</code>s to their corresponding
-	 * <code>SocketChannel</code>s.
+	 * <code>NIOConnection</code>s. Also guards {@link #messages}.
 	 */
 	private Map connectedSockets;
 
 	/**
-	 * A list of sockets that is waiting to handshake with remote peers.
+	 * A list of connections that are waiting to handshake with remote peers.
 	 */
 	private List pendingSockets;
 
 	/**
-	 * A queue of messages that needs to be sent to remote clients.
+	 * A queue of messages waiting for a connection to their remote clients.
 	 */
 	private LinkedList messages;
 
@@ -129,10 +138,32 @@ public abstract class NIOChannel implements IChannel {
 	private IChannelListener listener;
 
 	/**
-	 * The thread responsible for processing incoming messages and sending
-	 * messages to remote peers.
+	 * Receives messages for connections that have completed the handshake.
 	 */
-	private Thread processingThread;
+	private final NIOConnection.Receiver messageReceiver = new NIOConnection.Receiver() {
+		public void received(NIOConnection connection, Object message) {
+			if (message instanceof byte[]) {
+				IChannelListener listener = getListener();
+				if (listener != null) {
+					fireChannelEvent(listener, createMessageEvent(connection
+							.getPeerID(), (byte[]) message));
+				}
+			}
+		}
+
+		public void closed(NIOConnection connection, IOException e) {
+			if (e != null) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"An IO error occurred", e)); //$NON-NLS-1$
+			}
+			synchronized (connectedSockets) {
+				ID peerId = connection.getPeerID();
+				if (connectedSockets.get(peerId) == connection) {
+					connectedSockets.remove(peerId);
+				}
+			}
+		}
+	};
 
 	/**
 	 * Instantiates a new channel for sending and receiving messages in a
@@ -165,6 +196,7 @@ public abstract class NIOChannel implements IChannel {
 		this.containerId = containerId;
 		this.id = id;
 		this.listener = listener;
+		this.reactor = NIOReactor.getDefault();
 
 		try {
 			// open a server socket
@@ -190,10 +222,24 @@ public abstract class NIOChannel implements IChannel {
 		pendingSockets = new ArrayList();
 		messages = new LinkedList();
 
-		processingThread = new Thread(new ProcessingRunnable(), getClass()
-				.getName()
-				+ "Thread-" + id.toString()); //$NON-NLS-1$
-		processingThread.start();
+		final ServerSocketChannel server = serverSocketChannel;
+		try {
+			reactor.execute(new Runnable() {
+				public void run() {
+					try {
+						reactor.register(server, SelectionKey.OP_ACCEPT,
+								acceptHandler);
+					} catch (IOException e) {
+						log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+								"Could not accept connections", e)); //$NON-NLS-1$
+					}
+				}
+			}, acceptHandler);
+		} catch (IOException e) {
+			Util.closeChannel(server);
+			throw new ECFException(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Could not open selector", e)); //$NON-NLS-1$
+		}
 	}
 
 	/**
@@ -279,211 +325,6 @@ public abstract class NIOChannel implements IChannel {
 		return 0;
 	}
 
-	/**
-	 * Sends any pending messages we may have queued up.
-	 */
-	private void sendPendingMessages() {
-		Collection deadSockets = null;
-		Collection processedMessages = null;
-
-		for (Iterator it = messages.iterator(); it.hasNext();) {
-			ChannelMessage message = (ChannelMessage) it.next();
-			ID id = message.getId();
-			SocketChannel channel = (SocketChannel) connectedSockets.get(id);
-			// check if we have a socket for the target of this message
-			if (channel != null) {
-				byte[] data = message.getData();
-
-				try {
-					// flush the data directly with regular IO, this method
-					// saves us the extra work of having to constantly flip and
-					// clear a ByteBuffer and in a way ensures the message is
-					// sent in one piece instead of chunks
-					channel.configureBlocking(true);
-					channel.socket().getOutputStream().write(data);
-					channel.socket().getOutputStream().flush();
-					// turn off blocking
-					channel.configureBlocking(false);
-				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Error occurred while sending message", e)); //$NON-NLS-1$
-					if (deadSockets == null) {
-						deadSockets = new HashSet();
-					}
-					deadSockets.add(id);
-				}
-
-				if (processedMessages == null) {
-					processedMessages = new LinkedList();
-				}
-				// store the processed message
-				processedMessages.add(message);
-			}
-		}
-
-		// remove all messages that have been processed
-		if (processedMessages != null) {
-			messages.removeAll(processedMessages);
-		}
-
-		if (deadSockets != null) {
-			for (Iterator it = deadSockets.iterator(); it.hasNext();) {
-				ID id = (ID) it.next();
-				SocketChannel channel = (SocketChannel) connectedSockets
-						.remove(id);
-				Util.closeChannel(channel);
-			}
-		}
-	}
-
-	/**
-	 * Reads in any incoming messages from remote clients.
-	 * 
-	 * @param buffer
-	 *            the buffer to use for reading the socket
-	 * @throws IOException
-	 *             if an error occurs while reading from the socket
-	 */
-	private void processIncomingMessages(ByteBuffer buffer) throws IOException {
-		Collection deadSockets = null;
-
-		for (Iterator it = connectedSockets.entrySet().iterator(); it.hasNext();) {
-			Map.Entry entry = (Map.Entry) it.next();
-			SocketChannel socketChannel = (SocketChannel) entry.getValue();
-
-			try {
-				if (!processIncomingMessages(socketChannel, buffer)) {
-					if (deadSockets == null) {
-						deadSockets = new HashSet();
-					}
-					deadSockets.add(entry.getKey());
-				}
-			} catch (IOException e) {
-				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-						"Error occurred while sending message", e)); //$NON-NLS-1$
-				if (deadSockets == null) {
-					deadSockets = new HashSet();
-				}
-				deadSockets.add(entry.getKey());
-			}
-		}
-
-		if (deadSockets != null) {
-			for (Iterator it = deadSockets.iterator(); it.hasNext();) {
-				ID id = (ID) it.next();
-				SocketChannel channel = (SocketChannel) connectedSockets
-						.remove(id);
-				Util.closeChannel(channel);
-			}
-		}
-	}
-
-	/**
-	 * Processes any incoming messages from the specified channel by reading it
-	 * into the specified buffer and returns whether the channel has reached
-	 * end-of-stream.
-	 * 
-	 * @param socketChannel
-	 *            the channel to read messages from
-	 * @param buffer
-	 *            the buffer to use to read the messages into
-	 * @return <code>true</code> if the channel is still active,
-	 *         <code>false</code> has reached end-of-stream
-	 * @throws IOException
-	 *             if an error occurred while trying to read from the channel
-	 */
-	private boolean processIncomingMessages(SocketChannel socketChannel,
-			ByteBuffer buffer) throws IOException {
-		ChannelData channelData = Util.read(socketChannel, buffer);
-		byte[] message = channelData.getData();
-
-		if (message != null) {
-			processIncomingMessage(socketChannel, message);
-		}
-		return channelData.isOpen();
-	}
-
-	/**
-	 * Processes the message that has been received from the specified channel.
-	 * 
-	 * @param socketChannel
-	 *            the channel that the message was from
-	 * @param message
-	 *            the message that was received
-	 */
-	void processIncomingMessage(SocketChannel socketChannel, byte[] message) {
-		// we read something, need to notify
-		IChannelListener listener = getListener();
-		if (listener != null) {
-			// we have a listener, convert our data and then notify
-			byte[][] messages = convert(message);
-			if (messages != null) {
-				fireMessageEvents(listener, socketChannel, messages);
-			}
-		}
-	}
-
-	/**
-	 * Converts the data that has been read from the socket into separate byte[]
-	 * instances.
-	 * 
-	 * @param message
-	 *            the data read from the socket
-	 * @return a byte[][] containing the individual messages
-	 */
-	private byte[][] convert(byte[] message) {
-		try {
-			// back the read in data with a ByteArrayInputStream
-			ByteArrayInputStream bais = new ByteArrayInputStream(message);
-			// instantiate an ObjectInputStream and read the individual
-			// byte[]
-			byte[] bytes = (byte[]) new ObjectInputStream(bais).readObject();
-
-			if (bais.available() == 0) {
-				return new byte[][] { bytes };
-			}
-
-			Collection c = new ArrayList();
-			c.add(bytes);
-
-			while (bais.available() != 0) {
-				// instantiate an ObjectInputStream and read the individual
-				// byte[]
-				bytes = (byte[]) new ObjectInputStream(bais).readObject();
-				// store it
-				c.add(bytes);
-			}
-
-			// return all the individual byte[]s
-			return (byte[][]) c.toArray(new byte[c.size()][]);
-		} catch (IOException e) {
-			return null;
-		} catch (ClassNotFoundException e) {
-			return null;
-		}
-	}
-
-	/**
-	 * Fires message events to the specified listener for each of the message
-	 * that was received.
-	 * 
-	 * @param listener
-	 *            the listener to notify
-	 * @param socketChannel
-	 *            the socket that the message was read from
-	 * @param messages
-	 *            the messages that have been received
-	 */
-	private void fireMessageEvents(IChannelListener listener,
-			SocketChannel socketChannel, byte[][] messages) {
-		for (int i = 0; i < messages.length; i++) {
-			IChannelEvent event = createMessageEvent(socketChannel, messages[i]);
-			if (event != null) {
-				fireChannelEvent(listener, event);
-			}
-		}
-	}
-
 	/**
 	 * Notifies the specified listener of the given channel event. The code is
 	 * run within a SafeRunner to ensure that the program flow is not affected
@@ -512,157 +353,115 @@ public abstract class NIOChannel implements IChannel {
 
 	/**
 	 * Creates and returns a message event corresponding to the specified
-	 * channel and the data that was read.
+	 * remote peer and the data that was read.
 	 * 
-	 * @param channel
-	 *            the socket channel that the message was from
+	 * @param fromId
+	 *            the id of the remote peer that the message was from
 	 * @param data
 	 *            the message from the remote peer
-	 * @return a message event describing the received message, may be
-	 *         <code>null</code> if the channel could not be identified
+	 * @return a message event describing the received message
 	 */
-	private IChannelEvent createMessageEvent(SocketChannel channel,
-			final byte[] data) {
-		// search for the id of the corresponding channel
-		for (Iterator it = connectedSockets.entrySet().iterator(); it.hasNext();) {
-			Map.Entry entry = (Map.Entry) it.next();
-			if (channel == entry.getValue()) {
-				final ID fromId = (ID) entry.getKey();
-
-				return new IChannelMessageEvent() {
-					public byte[] getData() {
-						return data;
-					}
+	private IChannelEvent createMessageEvent(final ID fromId, final byte[] data) {
+		return new IChannelMessageEvent() {
+			public byte[] getData() {
+				return data;
+			}
 
-					public ID getFromContainerID() {
-						return fromId;
-					}
+			public ID getFromContainerID() {
+				return fromId;
+			}
 
-					public ID getChannelID() {
-						return id;
-					}
+			public ID getChannelID() {
+				return id;
+			}
 
-					public String toString() {
-						StringBuffer buffer = new StringBuffer();
-						buffer.append("IChannelMessageEvent["); //$NON-NLS-1$
-						buffer.append("container=").append(fromId); //$NON-NLS-1$
-						buffer.append(",channel=").append(id); //$NON-NLS-1$
-						buffer.append(",data=").append(data).append(']'); //$NON-NLS-1$
-						return buffer.toString();
-					}
-				};
+			public String toString() {
+				StringBuffer buffer = new StringBuffer();
+				buffer.append("IChannelMessageEvent["); //$NON-NLS-1$
+				buffer.append("container=").append(fromId); //$NON-NLS-1$
+				buffer.append(",channel=").append(id); //$NON-NLS-1$
+				buffer.append(",data=").append(data).append(']'); //$NON-NLS-1$
+				return buffer.toString();
 			}
-		}
-		return null;
+		};
 	}
 
 	/**
-	 * Stores the specified ID with its corresponding socket into this channel.
-	 * The socket will now be actively used for reading and sending messages.
+	 * Stores the specified ID with its corresponding connection into this
+	 * channel. The connection will now be actively used for reading and
+	 * sending messages, and any messages queued for the ID are sent.
 	 * 
 	 * @param id
 	 *            the target that the socket is connected with
-	 * @param socketChannel
-	 *            the socket channel to be stored
+	 * @param connection
+	 *            the connection to be stored
 	 */
-	void put(ID id, SocketChannel socketChannel) {
-		connectedSockets.put(id, socketChannel);
+	void put(ID id, NIOConnection connection) {
+		connection.setPeerID(id);
+		connection.setReceiver(messageReceiver);
+		synchronized (connectedSockets) {
+			connectedSockets.put(id, connection);
+			for (Iterator it = messages.iterator(); it.hasNext();) {
+				ChannelMessage message = (ChannelMessage) it.next();
+				if (id.equals(message.getId())) {
+					connection.send(message.getData());
+					it.remove();
+				}
+			}
+		}
 	}
 
 	/**
-	 * Accept the socket as a potential client and attempt to handshake with it.
-	 * 
-	 * @param socketChannel
-	 *            the socket to establish a connection with
-	 * @throws ClassNotFoundException
-	 *             if the class of an object being deserialized could not be
-	 *             found
-	 * @throws IOException
-	 *             if a networking error occurs with the socket while
-	 *             reading/sending messages
+	 * Performs the handshake for a connection accepted from a remote peer: the
+	 * peer sends its id, and is sent this channel's id and the container id in
+	 * response.
 	 */
-	// private boolean accept2(SocketChannel socketChannel, ByteBuffer buffer)
-	// throws ClassNotFoundException, IOException {
-	// int read = socketChannel.read(buffer);
-	// buffer.flip();
-	// byte[] bytes = new byte[read];
-	// buffer.get(bytes);
-	// buffer.clear();
-	//
-	// ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
-	// bytes));
-	// Object object = ois.readObject();
-	//
-	// if (object instanceof ID) {
-	// bytes = serialize(id);
-	// socketChannel.socket().getOutputStream().write(bytes);
-	//
-	// bytes = serialize(containerId);
-	// socketChannel.socket().getOutputStream().write(bytes);
-	// socketChannel.socket().getOutputStream().flush();
-	//
-	// socketChannel.configureBlocking(false);
-	// put((ID) object, socketChannel);
-	// }
-	// return true;
-	// }
+	private final class HandshakeReceiver implements NIOConnection.Receiver {
 
-	/**
-	 * Performs a handshake with a remote peer via the provided socket channel
-	 * and returns whether <code>true</code> if no further attempts are
-	 * required. Note that <code>true</code> does not indicate that the
-	 * handshake has been successful.
-	 * <p>
-	 * For example, if the remote peer has closed this channel then
-	 * <code>true</code> would be returned as no further attempts should be
-	 * attempted.
-	 * </p>
-	 * 
-	 * @param socketChannel
-	 *            the channel to use to handshake with the remote peer
-	 * @param buffer
-	 *            the buffer to use for reading and writing data from the
-	 *            channel
-	 * @return <code>true</code> if no further handshake attempts are required,
-	 *         <code>false</code> otherwise
-	 * @throws ClassNotFoundException
-	 *             if deserialization failed during the handshake
-	 * @throws IOException
-	 *             if an IO error occurred while performing the handshake
-	 */
-	private boolean handshake(SocketChannel socketChannel, ByteBuffer buffer)
-			throws ClassNotFoundException, IOException {
-		ChannelData data = Util.read(socketChannel, buffer);
-		if (!data.isOpen()) {
-			// this channel is dead, close it
-			Util.closeChannel(socketChannel);
-			return true;
+		public void received(NIOConnection connection, Object message)
+				throws IOException {
+			synchronized (pendingSockets) {
+				pendingSockets.remove(connection);
+			}
+			if (message instanceof ID) {
+				connection.send(Util.serialize(id));
+				connection.send(Util.serialize(containerId));
+				put((ID) message, connection);
+			} else {
+				connection.close();
+			}
 		}
 
-		byte[] bytes = data.getData();
-		if (bytes == null) {
-			return false;
+		public void closed(NIOConnection connection, IOException e) {
+			synchronized (pendingSockets) {
+				pendingSockets.remove(connection);
+			}
+			if (e != null) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"An IO error occurred", e)); //$NON-NLS-1$
+			}
 		}
+	}
 
-		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
-				bytes));
-		Object object = ois.readObject();
-
-		if (object instanceof ID) {
-			socketChannel.configureBlocking(true);
-			byte[] one = Util.serialize(id);
-			byte[] two = Util.serialize(containerId);
-			bytes = new byte[one.length + two.length];
-			System.arraycopy(one, 0, bytes, 0, one.length);
-			System.arraycopy(two, 0, bytes, one.length, two.length);
+	private final class AcceptHandler implements NIOReactor.Handler {
 
-			socketChannel.socket().getOutputStream().write(bytes);
-			socketChannel.socket().getOutputStream().flush();
+		public void handle(SelectionKey key) throws IOException {
+			SocketChannel socketChannel;
+			while ((socketChannel = ((ServerSocketChannel) key.channel())
+					.accept()) != null) {
+				NIOConnection connection = new NIOConnection(reactor,
+						socketChannel, new HandshakeReceiver());
+				synchronized (pendingSockets) {
+					pendingSockets.add(connection);
+				}
+				connection.register();
+			}
+		}
 
-			socketChannel.configureBlocking(false);
-			put((ID) object, socketChannel);
+		public void failed(IOException e) {
+			log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"Server socket failed", e)); //$NON-NLS-1$
 		}
-		return true;
 	}
 
 	/**
@@ -724,16 +523,22 @@ public abstract class NIOChannel implements IChannel {
 		Assert.isNotNull(receiver, "A receiver must be specified"); //$NON-NLS-1$
 		Assert.isNotNull(message, "Message cannot be null"); //$NON-NLS-1$
 
-		// check if we already have a socket for this receiver
-		if (!connectedSockets.containsKey(receiver)) {
+		byte[] data = NIOConnection.encode(message);
+		NIOConnection connection;
+		synchronized (connectedSockets) {
+			connection = (NIOConnection) connectedSockets.get(receiver);
+			if (connection == null) {
+				// enqueue the message until the connection is established
+				messages.add(new ChannelMessage(receiver, data));
+			}
+		}
+
+		if (connection == null) {
 			// send a request to the receiver for establishing a socket
 			// connection
 			sendRequest(receiver);
-		}
-
-		synchronized (messages) {
-			// enqueue the message for processing
-			messages.add(new ChannelMessage(receiver, message));
+		} else {
+			connection.send(data);
 		}
 	}
 
@@ -743,28 +548,29 @@ public abstract class NIOChannel implements IChannel {
 	 * method returns.
 	 */
 	public void dispose() {
-		processingThread.interrupt();
+		// turn off the server to prevent and deny incoming connections
+		if (serverSocketChannel != null) {
+			reactor.closeLater(serverSocketChannel, acceptHandler);
+			serverSocketChannel = null;
+		}
 
-		try {
-			// turn off the server to prevent and deny incoming connections
-			if (serverSocketChannel != null) {
-				serverSocketChannel.close();
-				serverSocketChannel = null;
+		synchronized (pendingSockets) {
+			for (Iterator it = pendingSockets.iterator(); it.hasNext();) {
+				((NIOConnection) it.next()).close();
 			}
-		} catch (IOException e) {
-			// ignored
-			serverSocketChannel = null;
+			pendingSockets.clear();
 		}
 
 		synchronized (connectedSockets) {
 			// close all connections
 			for (Iterator it = connectedSockets.values().iterator(); it
 					.hasNext();) {
-				SocketChannel socket = (SocketChannel) it.next();
-				Util.closeChannel(socket);
+				NIOConnection connection = (NIOConnection) it.next();
+				connection.close();
 			}
 
 			connectedSockets.clear();
+			messages.clear();
 		}
 
 		datashareContainer.fireChannelContainerDeactivatedEvent(id);
@@ -791,79 +597,14 @@ public abstract class NIOChannel implements IChannel {
 		return id;
 	}
 
-	private final class ProcessingRunnable implements Runnable {
-
-		public void run() {
-			ByteBuffer buffer = ByteBuffer.allocate(1024);
-			while (true) {
-				try {
-					Thread.sleep(50);
-
-					if (Thread.currentThread().isInterrupted()) {
-						return;
-					}
-
-					// perform handshaking for any pending sockets
-					for (int i = 0; i < pendingSockets.size(); i++) {
-						SocketChannel channel = (SocketChannel) pendingSockets
-								.get(i);
-						if (handshake(channel, buffer)) {
-							// remove if handled
-							pendingSockets.remove(i);
-							i--;
-						}
-					}
-
-					processIncomingMessages(buffer);
-
-					// check if we have pending messages to send
-					synchronized (messages) {
-						if (!messages.isEmpty()) {
-							sendPendingMessages();
-						}
-					}
-
-					SocketChannel socketChannel = serverSocketChannel.accept();
-					if (socketChannel != null) {
-						socketChannel.configureBlocking(false);
-						pendingSockets.add(socketChannel);
-					}
-				} catch (InterruptedException e) {
-					Thread.interrupted();
-					return;
-				} catch (ClassNotFoundException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Could not deserialize", e)); //$NON-NLS-1$
-				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"An IO error occurred", e)); //$NON-NLS-1$
-				} catch (RuntimeException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"A runtime error occurred", e)); //$NON-NLS-1$
-				}
-			}
-		}
-	}
-
 	private final class ChannelMessage {
 
 		private ID fromId;
 		private byte[] data;
 
-		ChannelMessage(ID fromId, byte[] data) throws ECFException {
+		ChannelMessage(ID fromId, byte[] data) {
 			this.fromId = fromId;
-			this.data = convert(data);
-		}
-
-		private byte[] convert(byte[] data) throws ECFException {
-			try {
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				ObjectOutputStream oos = new ObjectOutputStream(baos);
-				oos.writeObject(data);
-				return baos.toByteArray();
-			} catch (IOException e) {
-				throw new ECFException(e);
-			}
+			this.data = data;
 		}
 
 		public ID getId() {
@@ -0,0 +1,384 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+
+import org.eclipse.ecf.core.identity.ID;
+
+/**
+ * A socket driven by the {@link NIOReactor}. Outgoing data is queued and
+ * written as the socket accepts it, incoming data is accumulated until whole
+ * serialized objects are available.
+ * <p>
+ * The wire format is unchanged: each message is a separately serialized
+ * object, with channel messages being serialized <code>byte[]</code>s. Those
+ * are framed from their serialization header so a message split across reads
+ * is kept until the rest arrives instead of failing to deserialize, and is
+ * copied out without going through an <code>ObjectInputStream</code>.
+ * </p>
+ */
+final class NIOConnection implements NIOReactor.Handler {
+
+	interface Receiver {
+		/**
+		 * Called on the reactor thread for each message read from the
+		 * connection.
+		 * 
+		 * @param connection
+		 *            the connection the message was read from
+		 * @param message
+		 *            a <code>byte[]</code> for serialized byte arrays,
+		 *            otherwise the deserialized object
+		 * @throws IOException
+		 *             to close the connection
+		 */
+		void received(NIOConnection connection, Object message)
+				throws IOException;
+
+		/**
+		 * Called on the reactor thread when the connection is closed by the
+		 * remote peer or because of an error.
+		 * 
+		 * @param connection
+		 *            the closed connection
+		 * @param e
+		 *            the error, or <code>null</code> if closed by the peer
+		 */
+		void closed(NIOConnection connection, IOException e);
+	}
+
+	/**
+	 * Maximum size of a single message, larger messages close the connection.
+	 */
+	private static final int MAX_MESSAGE_SIZE = Integer.parseInt(System
+			.getProperty(
+					"org.eclipse.ecf.provider.datashare.nio.maxMessageSize", //$NON-NLS-1$
+					"67108864")); //$NON-NLS-1$
+
+	/**
+	 * Java serialization of a byte[] up to its length: stream header,
+	 * TC_ARRAY, class descriptor for "[B" and TC_NULL super class. Bytes 10 to
+	 * 17 are the array class's serialVersionUID.
+	 */
+	private static final byte[] BYTES_HEADER = { (byte) 0xac, (byte) 0xed,
+			0x00, 0x05, 0x75, 0x72, 0x00, 0x02, 0x5b, 0x42, (byte) 0xac,
+			(byte) 0xf3, 0x17, (byte) 0xf8, 0x06, 0x08, 0x54, (byte) 0xe0,
+			0x02, 0x00, 0x00, 0x78, 0x70 };
+
+	private static final int BYTES_PREFIX_LENGTH = BYTES_HEADER.length + 4;
+
+	private final NIOReactor reactor;
+
+	private final SocketChannel socket;
+
+	private Receiver receiver;
+
+	private SelectionKey key;
+
+	private ID peerId;
+
+	/**
+	 * Buffers waiting to be written, guarded by itself.
+	 */
+	private final LinkedList writeQueue = new LinkedList();
+
+	/**
+	 * Whether a flush has been scheduled or OP_WRITE is set, guarded by the
+	 * write queue.
+	 */
+	private boolean flushPending;
+
+	private byte[] in = new byte[1024];
+
+	private int inCount;
+
+	private volatile boolean closed;
+
+	private final Runnable flushTask = new Runnable() {
+		public void run() {
+			try {
+				flush();
+			} catch (IOException e) {
+				close(e);
+			}
+		}
+	};
+
+	NIOConnection(NIOReactor reactor, SocketChannel socket, Receiver receiver) {
+		this.reactor = reactor;
+		this.socket = socket;
+		this.receiver = receiver;
+	}
+
+	static byte[] encode(byte[] data) {
+		byte[] frame = new byte[BYTES_PREFIX_LENGTH + data.length];
+		System.arraycopy(BYTES_HEADER, 0, frame, 0, BYTES_HEADER.length);
+		int length = data.length;
+		frame[BYTES_HEADER.length] = (byte) (length >>> 24);
+		frame[BYTES_HEADER.length + 1] = (byte) (length >>> 16);
+		frame[BYTES_HEADER.length + 2] = (byte) (length >>> 8);
+		frame[BYTES_HEADER.length + 3] = (byte) length;
+		System.arraycopy(data, 0, frame, BYTES_PREFIX_LENGTH, length);
+		return frame;
+	}
+
+	/**
+	 * Returns the total length of the serialized byte[] at offset, 0 if more
+	 * data is needed to tell, or -1 if it is some other serialized object.
+	 */
+	private static int getFrameLength(byte[] buffer, int offset, int available) {
+		int header = Math.min(available, BYTES_HEADER.length);
+		for (int i = 0; i < header; i++) {
+			// don't insist on a particular serialVersionUID
+			if ((i < 10 || i > 17) && buffer[offset + i] != BYTES_HEADER[i]) {
+				return -1;
+			}
+		}
+		if (available < BYTES_PREFIX_LENGTH) {
+			return 0;
+		}
+		int i = offset + BYTES_HEADER.length;
+		int length = ((buffer[i] & 0xff) << 24) | ((buffer[i + 1] & 0xff) << 16)
+				| ((buffer[i + 2] & 0xff) << 8) | (buffer[i + 3] & 0xff);
+		if (length < 0 || length > MAX_MESSAGE_SIZE - BYTES_PREFIX_LENGTH) {
+			return Integer.MAX_VALUE;
+		}
+		return BYTES_PREFIX_LENGTH + length;
+	}
+
+	/**
+	 * Registers this connection with the reactor for connecting (if the
+	 * socket is still connecting) or reading.
+	 */
+	void register() throws IOException {
+		reactor.execute(new Runnable() {
+			public void run() {
+				try {
+					int ops = socket.isConnectionPending() ? SelectionKey.OP_CONNECT
+							: SelectionKey.OP_READ;
+					key = reactor.register(socket, ops, NIOConnection.this);
+					if (ops == SelectionKey.OP_READ) {
+						flush();
+					}
+				} catch (IOException e) {
+					close(e);
+				}
+			}
+		}, this);
+	}
+
+	void setReceiver(Receiver receiver) {
+		this.receiver = receiver;
+	}
+
+	ID getPeerID() {
+		return peerId;
+	}
+
+	void setPeerID(ID peerId) {
+		this.peerId = peerId;
+	}
+
+	/**
+	 * Queues the data to be written. May be called from any thread.
+	 * 
+	 * @param data
+	 *            the bytes to send, must not be modified afterwards
+	 */
+	void send(byte[] data) {
+		synchronized (writeQueue) {
+			writeQueue.add(ByteBuffer.wrap(data));
+			if (flushPending) {
+				return;
+			}
+			flushPending = true;
+		}
+		if (reactor.inReactorThread()) {
+			flushTask.run();
+		} else {
+			try {
+				reactor.execute(flushTask, this);
+			} catch (IOException e) {
+				Util.closeChannel(socket);
+			}
+		}
+	}
+
+	/**
+	 * Writes as much queued data as the socket will take, registering for
+	 * OP_WRITE if some remains. Runs on the reactor thread.
+	 */
+	private void flush() throws IOException {
+		if (key == null || !key.isValid()) {
+			// not registered yet or already closed, register() will flush
+			return;
+		}
+		if (!socket.isConnected()) {
+			return;
+		}
+		synchronized (writeQueue) {
+			if (!writeQueue.isEmpty()) {
+				ByteBuffer[] buffers = (ByteBuffer[]) writeQueue
+						.toArray(new ByteBuffer[writeQueue.size()]);
+				socket.write(buffers);
+				while (!writeQueue.isEmpty()
+						&& !((ByteBuffer) writeQueue.getFirst()).hasRemaining()) {
+					writeQueue.removeFirst();
+				}
+			}
+			if (writeQueue.isEmpty()) {
+				flushPending = false;
+				key.interestOps(SelectionKey.OP_READ);
+			} else {
+				flushPending = true;
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		}
+	}
+
+	public void handle(SelectionKey key) throws IOException {
+		if (key.isConnectable()) {
+			if (socket.finishConnect()) {
+				key.interestOps(SelectionKey.OP_READ);
+				flush();
+			}
+			return;
+		}
+		if (key.isReadable()) {
+			read();
+		}
+		if (!closed && key.isValid() && key.isWritable()) {
+			flush();
+		}
+	}
+
+	public void failed(IOException e) {
+		closed = true;
+		// already closed if the key failed, but not if a task did
+		reactor.close(socket);
+		receiver.closed(this, e);
+	}
+
+	private void read() throws IOException {
+		ByteBuffer buffer = reactor.readBuffer;
+		while (true) {
+			buffer.clear();
+			int read = socket.read(buffer);
+			if (read == -1) {
+				close(null);
+				return;
+			}
+			if (read == 0) {
+				break;
+			}
+			buffer.flip();
+			ensureCapacity(inCount + read);
+			buffer.get(in, inCount, read);
+			inCount += read;
+			if (read < buffer.capacity()) {
+				break;
+			}
+		}
+		decode();
+	}
+
+	private void ensureCapacity(int capacity) throws IOException {
+		if (capacity > MAX_MESSAGE_SIZE) {
+			throw new IOException("Message exceeds maximum size of " //$NON-NLS-1$
+					+ MAX_MESSAGE_SIZE);
+		}
+		if (capacity > in.length) {
+			byte[] bigger = new byte[Math.max(capacity, Math.min(
+					in.length * 2, MAX_MESSAGE_SIZE))];
+			System.arraycopy(in, 0, bigger, 0, inCount);
+			in = bigger;
+		}
+	}
+
+	/**
+	 * Hands every complete message in the input buffer to the receiver and
+	 * keeps any partial message for the next read.
+	 */
+	private void decode() throws IOException {
+		int position = 0;
+		while (position < inCount && !closed) {
+			int available = inCount - position;
+			int length = getFrameLength(in, position, available);
+			if (length == 0) {
+				break;
+			} else if (length > 0) {
+				if (length > available) {
+					// make room for the whole message once
+					compact(position);
+					position = 0;
+					ensureCapacity(length);
+					break;
+				}
+				byte[] data = new byte[length - BYTES_PREFIX_LENGTH];
+				System.arraycopy(in, position + BYTES_PREFIX_LENGTH, data, 0,
+						data.length);
+				position += length;
+				receiver.received(this, data);
+			} else {
+				ByteArrayInputStream bais = new ByteArrayInputStream(in,
+						position, available);
+				Object object;
+				try {
+					object = new ObjectInputStream(bais).readObject();
+				} catch (EOFException e) {
+					// incomplete, wait for more
+					break;
+				} catch (ClassNotFoundException e) {
+					IOException ioe = new IOException("Could not deserialize"); //$NON-NLS-1$
+					ioe.initCause(e);
+					throw ioe;
+				}
+				position = inCount - bais.available();
+				receiver.received(this, object);
+			}
+		}
+		compact(position);
+	}
+
+	private void compact(int position) {
+		if (position > 0) {
+			System.arraycopy(in, position, in, 0, inCount - position);
+			inCount -= position;
+		}
+	}
+
+	private void close(IOException e) {
+		if (closed) {
+			return;
+		}
+		failed(e);
+	}
+
+	/**
+	 * Closes the connection without notifying the receiver. May be called from
+	 * any thread.
+	 */
+	void close() {
+		closed = true;
+		reactor.closeLater(socket, this);
+	}
+
+}
@@ -12,16 +12,12 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.datashare.nio;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.net.SocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -87,18 +83,7 @@ import org.eclipse.ecf.datashare.events.IChannelContainerEvent;
 public abstract class NIODatashareContainer implements IChannelContainerAdapter {
 
 	/**
-	 * A thread for establishing a connection to remote clients.
-	 */
-	private Thread connectionThread;
-
-	/**
-	 * A list of IP addresses that should be connected to.
-	 */
-	private LinkedList pendingConnections;
-
-	/**
-	 * A list of socket channels that needs to be processed for handshaking with
-	 * the remote peer.
+	 * A list of connections that are handshaking with the remote peer.
 	 */
 	private List pendingSockets;
 
@@ -148,7 +133,6 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 		});
 
 		channels = new HashMap();
-		pendingConnections = new LinkedList();
 		pendingSockets = new ArrayList();
 		listenerList = new ListenerList();
 	}
@@ -281,19 +265,10 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	}
 
 	private void disconnect() {
-		if (connectionThread != null) {
-			connectionThread.interrupt();
-			connectionThread = null;
-		}
-		
-		synchronized (pendingConnections) {
-			pendingConnections.clear();
-		}
-		
 		synchronized (pendingSockets) {
 			for (int i = 0; i < pendingSockets.size(); i++) {
-				SocketChannel channel = (SocketChannel) pendingSockets.get(i);
-				Util.closeChannel(channel);
+				NIOConnection connection = (NIOConnection) pendingSockets.get(i);
+				connection.close();
 			}
 			
 			pendingSockets.clear();
@@ -321,41 +296,9 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	}
 
 	/**
-	 * Attempts to connect to a remote address that has been enqueued to this
-	 * channel container for processing via the {@link #enqueue(SocketAddress)}
-	 * method.
-	 * 
-	 * @param buffer
-	 *            the buffer to use for reading and writing data
-	 * @throws IOException
-	 *             if an IO error occurs while attempting to contact the peer
-	 */
-	private void connect(ByteBuffer buffer) throws IOException {
-		while (!pendingConnections.isEmpty()) {
-			// retrieve an IP address to connect to
-			SocketAddress remote = (SocketAddress) pendingConnections
-					.removeFirst();
-
-			// open a socket channel to the remote address
-			SocketChannel socketChannel = SocketChannel.open(remote);
-
-			byte[] bytes = Util.serialize(container.getConnectedID());
-			if (bytes == null) {
-				// serialization failed, close the socket
-				Util.closeChannel(socketChannel);
-				return;
-			}
-
-			socketChannel.configureBlocking(false);
-			Util.write(socketChannel, buffer, bytes);
-
-			pendingSockets.add(socketChannel);
-		}
-	}
-
-	/**
-	 * Enqueues the specified address to be connected to. This should be invoked
-	 * after a request has been received from a remote user.
+	 * Starts connecting to the specified address. This should be invoked
+	 * after a request has been received from a remote user. The connection
+	 * and handshake complete asynchronously.
 	 * 
 	 * @param address
 	 *            the address to connect to, cannot be <code>null</code>
@@ -364,111 +307,76 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 	public void enqueue(SocketAddress address) {
 		Assert.isNotNull(address, "Socket address cannot be null"); //$NON-NLS-1$
 
-		if (connectionThread == null) {
-			connectionThread = new Thread(new ConnectionRunnable(), getClass()
-					.getName()
-					+ "Thread-" + container.getID().toString()); //$NON-NLS-1$
-			connectionThread.start();
+		SocketChannel socketChannel = null;
+		try {
+			// open a socket channel to the remote address
+			socketChannel = SocketChannel.open();
+			socketChannel.configureBlocking(false);
+			socketChannel.connect(address);
+
+			NIOConnection connection = new NIOConnection(NIOReactor
+					.getDefault(), socketChannel, new HandshakeReceiver());
+			// sent once connected
+			connection.send(Util.serialize(container.getConnectedID()));
+			synchronized (pendingSockets) {
+				pendingSockets.add(connection);
+			}
+			connection.register();
+		} catch (IOException e) {
+			if (socketChannel != null) {
+				Util.closeChannel(socketChannel);
+			}
+			log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+					"An IO error occurred", e)); //$NON-NLS-1$
 		}
-
-		pendingConnections.add(address);
 	}
 
 	/**
-	 * Performs a handshake operation with the remote peer.
-	 * 
-	 * @param socketChannel
-	 *            the socket channel to handshake with
-	 * @param data
-	 *            the data sent from the channel thus far
-	 * @throws ClassNotFoundException
-	 *             if a deserialization error occurs
-	 * @throws IOException
-	 *             if an IO error occurs while reading or writing data
+	 * Performs the handshake for a connection made to a remote channel: the
+	 * remote channel responds with its channel id and the id of the remote
+	 * peer, after which the connection is handed to the channel.
 	 */
-	private void handshake(SocketChannel socketChannel, ChannelData data)
-			throws ClassNotFoundException, IOException {
-		// retrieve the data that was sent
-		byte[] message = data.getData();
+	private class HandshakeReceiver implements NIOConnection.Receiver {
 
-		// read in the response
-		ByteArrayInputStream bais = new ByteArrayInputStream(message);
-		ObjectInputStream ois = new ObjectInputStream(bais);
+		private ID channelId;
 
-		// first response should be the channel id
-		ID channelId = (ID) ois.readObject();
+		public void received(NIOConnection connection, Object message)
+				throws IOException {
+			if (!(message instanceof ID)) {
+				throw new IOException("Unexpected handshake message: " //$NON-NLS-1$
+						+ message);
+			}
+			if (channelId == null) {
+				// first response should be the channel id
+				channelId = (ID) message;
+				return;
+			}
 
-		synchronized (channels) {
-			// retrieve the channel that corresponds to that id
-			IChannel channel = getChannel(channelId);
-			if (channel == null) {
-				// can't find a channel that corresponds to the id, close the
-				// socket
-				Util.closeChannel(socketChannel);
-			} else {
-				// open another ObjectInputStream because each object is
-				// serialized separately
-				ois = new ObjectInputStream(bais);
-
-				// next id is the id of the remote user
-				ID peerId = (ID) ois.readObject();
-
-				// store the peer id and the corresponding socket in the
-				// retrieved NIO channel
-				NIOChannel datashare = (NIOChannel) channel;
-				datashare.put(peerId, socketChannel);
-
-				// check if we have any bytes left to read
-				int available = bais.available();
-				if (available != 0) {
-					// if there are extra bytes that means this is data that
-					// the sender has sent to us, we must process these messages
-					byte[] received = new byte[available];
-					// copy the remaining information
-					System.arraycopy(message, message.length - available,
-							received, 0, available);
-					// process the received data
-					datashare.processIncomingMessage(socketChannel, received);
+			synchronized (pendingSockets) {
+				pendingSockets.remove(connection);
+			}
+			synchronized (channels) {
+				// retrieve the channel that corresponds to that id
+				NIOChannel channel = (NIOChannel) getChannel(channelId);
+				if (channel == null) {
+					// can't find a channel that corresponds to the id, close
+					// the socket
+					connection.close();
+				} else {
+					// next id is the id of the remote user, store it and the
+					// corresponding connection in the retrieved NIO channel
+					channel.put((ID) message, connection);
 				}
 			}
 		}
-	}
 
-	/**
-	 * Processes any pending sockets that are currently queued up in this
-	 * channel container and is waiting to initiate the handshake process with
-	 * the remote peer.
-	 * 
-	 * @param buffer
-	 *            the buffer to use for reading and writing data
-	 * @throws ClassNotFoundException
-	 *             if a serialization or deserialization operation encountered
-	 *             errors
-	 * @throws IOException
-	 *             if an IO error occurs while reading or writing data
-	 */
-	private void processPendingSockets(ByteBuffer buffer)
-			throws ClassNotFoundException, IOException {
-		for (int i = 0; i < pendingSockets.size(); i++) {
-			SocketChannel socketChannel = (SocketChannel) pendingSockets.get(i);
-
-			buffer.clear();
-			// read in the response
-			ChannelData data = Util.read(socketChannel, buffer);
-			if (!data.isOpen()) {
-				// the channel isn't open, we should close it on our end also
-				Util.closeChannel(socketChannel);
-				// remove this channel
-				pendingSockets.remove(i);
-				i--;
-			} else if (data.getData() != null) {
-				try {
-					handshake(socketChannel, data);
-				} finally {
-					// this socket has been processed, remove it
-					pendingSockets.remove(i);
-					i--;
-				}
+		public void closed(NIOConnection connection, IOException e) {
+			synchronized (pendingSockets) {
+				pendingSockets.remove(connection);
+			}
+			if (e != null) {
+				log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
+						"An IO error occurred", e)); //$NON-NLS-1$
 			}
 		}
 	}
@@ -575,42 +483,4 @@ public abstract class NIODatashareContainer implements IChannelContainerAdapter
 		return buffer.toString();
 	}
 
-	private class ConnectionRunnable implements Runnable {
-
-		public void run() {
-			ByteBuffer buffer = ByteBuffer.allocate(1024);
-			while (true) {
-				try {
-					buffer.clear();
-
-					if (Thread.currentThread().isInterrupted()) {
-						return;
-					}
-
-					synchronized (pendingConnections) {
-						if (!pendingConnections.isEmpty()) {
-							connect(buffer);
-						}	
-					}
-
-					processPendingSockets(buffer);
-
-					Thread.sleep(50);
-				} catch (InterruptedException e) {
-					Thread.interrupted();
-					return;
-				} catch (ClassNotFoundException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"Could not deserialize", e)); //$NON-NLS-1$
-				} catch (IOException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"An IO error occurred", e)); //$NON-NLS-1$
-				} catch (RuntimeException e) {
-					log(new Status(IStatus.ERROR, Util.PLUGIN_ID,
-							"A runtime error occurred", e)); //$NON-NLS-1$
-				}
-			}
-		}
-	}
-
 }
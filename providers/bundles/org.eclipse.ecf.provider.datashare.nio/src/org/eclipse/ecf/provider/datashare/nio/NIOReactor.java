@@ -0,0 +1,260 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.datashare.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * A selector-driven event loop shared by all NIO channels and channel
+ * containers. A single thread services every registered socket, so an idle
+ * channel costs no thread and incoming data is handled as soon as it arrives.
+ * The thread is started when the first task is submitted and exits once no
+ * sockets remain registered.
+ * <p>
+ * All handler callbacks and submitted tasks run on the reactor thread and
+ * must not block.
+ * </p>
+ */
+final class NIOReactor implements Runnable {
+
+	interface Handler {
+		/**
+		 * Called on the reactor thread when the handler's key is ready.
+		 * 
+		 * @param key
+		 *            the selected key
+		 * @throws IOException
+		 *             if the channel failed, it will be closed by the reactor
+		 */
+		void handle(SelectionKey key) throws IOException;
+
+		/**
+		 * Called on the reactor thread after the channel has been closed
+		 * because {@link #handle(SelectionKey)} failed, or when a task run for
+		 * this handler failed.
+		 * 
+		 * @param e
+		 *            the failure
+		 */
+		void failed(IOException e);
+	}
+
+	/**
+	 * Size of the direct buffer that all sockets are read into.
+	 */
+	private static final int READ_BUFFER_SIZE = 65536;
+
+	private static NIOReactor reactor;
+
+	static synchronized NIOReactor getDefault() {
+		if (reactor == null) {
+			reactor = new NIOReactor();
+		}
+		return reactor;
+	}
+
+	/**
+	 * Shared by all sockets, only to be used on the reactor thread.
+	 */
+	final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+	private final LinkedList tasks = new LinkedList();
+
+	private Selector selector;
+
+	private Thread thread;
+
+	/**
+	 * Whether keys have been cancelled since the last select, only accessed on
+	 * the reactor thread.
+	 */
+	private boolean cancelled;
+
+	private NIOReactor() {
+		// singleton
+	}
+
+	/**
+	 * A submitted task and the handler its failure is reported to.
+	 */
+	private static final class Task {
+		final Runnable runnable;
+		final Handler handler;
+
+		Task(Runnable runnable, Handler handler) {
+			this.runnable = runnable;
+			this.handler = handler;
+		}
+	}
+
+	/**
+	 * Runs the task on the reactor thread.
+	 * 
+	 * @param task
+	 *            the task to run
+	 * @param handler
+	 *            the handler that is told if the task fails
+	 * @throws IOException
+	 *             if the reactor's selector could not be opened
+	 */
+	void execute(Runnable task, Handler handler) throws IOException {
+		Task t = new Task(task, handler);
+		Selector s;
+		synchronized (this) {
+			if (thread == null) {
+				selector = Selector.open();
+				tasks.add(t);
+				thread = new Thread(this, "ECF Datashare NIO Reactor"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				thread.start();
+				return;
+			}
+			tasks.add(t);
+			s = selector;
+		}
+		s.wakeup();
+	}
+
+	boolean inReactorThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Registers the channel with the reactor's selector. Must be called on the
+	 * reactor thread.
+	 */
+	SelectionKey register(SelectableChannel channel, int ops, Handler handler)
+			throws IOException {
+		channel.configureBlocking(false);
+		return channel.register(selector, ops, handler);
+	}
+
+	/**
+	 * Closes the channel and cancels its key. Must be called on the reactor
+	 * thread.
+	 */
+	void close(SelectableChannel channel) {
+		Util.closeChannel(channel);
+		cancelled = true;
+	}
+
+	/**
+	 * Closes the channel on the reactor thread.
+	 */
+	void closeLater(final SelectableChannel channel, Handler handler) {
+		try {
+			execute(new Runnable() {
+				public void run() {
+					close(channel);
+				}
+			}, handler);
+		} catch (IOException e) {
+			// no reactor, nothing registered
+			Util.closeChannel(channel);
+		}
+	}
+
+	private void runTasks() {
+		while (true) {
+			Task task;
+			synchronized (this) {
+				if (tasks.isEmpty()) {
+					return;
+				}
+				task = (Task) tasks.removeFirst();
+			}
+			try {
+				task.runnable.run();
+			} catch (RuntimeException e) {
+				// a failed task must not stop the reactor for every other
+				// channel, its handler reports it like a failed key
+				IOException ioe = new IOException(e.getMessage());
+				ioe.initCause(e);
+				task.handler.failed(ioe);
+			}
+		}
+	}
+
+	public void run() {
+		try {
+			loop();
+		} finally {
+			// if the loop died unexpectedly, let the next execute() start a new thread
+			synchronized (this) {
+				if (thread == Thread.currentThread()) {
+					Util.closeSelector(selector);
+					selector = null;
+					thread = null;
+				}
+			}
+		}
+	}
+
+	private void loop() {
+		while (true) {
+			try {
+				runTasks();
+				if (cancelled) {
+					// flush cancelled keys so an empty key set really is empty
+					cancelled = false;
+					selector.selectNow();
+				}
+				if (selector.selectedKeys().isEmpty()) {
+					synchronized (this) {
+						if (tasks.isEmpty() && selector.keys().isEmpty()) {
+							Util.closeSelector(selector);
+							selector = null;
+							thread = null;
+							return;
+						}
+					}
+					selector.select();
+				}
+			} catch (IOException e) {
+				// the selector itself failed, nothing more can be done
+				synchronized (this) {
+					Util.closeSelector(selector);
+					selector = null;
+					thread = null;
+				}
+				return;
+			}
+
+			for (Iterator it = selector.selectedKeys().iterator(); it.hasNext();) {
+				SelectionKey key = (SelectionKey) it.next();
+				it.remove();
+				Handler handler = (Handler) key.attachment();
+				try {
+					if (key.isValid()) {
+						handler.handle(key);
+					}
+				} catch (IOException e) {
+					close(key.channel());
+					handler.failed(e);
+				} catch (RuntimeException e) {
+					close(key.channel());
+					IOException ioe = new IOException(e.getMessage());
+					ioe.initCause(e);
+					handler.failed(ioe);
+				}
+			}
+		}
+	}
+
+}
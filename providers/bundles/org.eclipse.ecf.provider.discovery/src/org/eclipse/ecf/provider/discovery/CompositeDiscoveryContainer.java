@@ -14,6 +14,7 @@ package org.eclipse.ecf.provider.discovery;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.IContainer;
@@ -38,6 +39,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		 * @see org.eclipse.ecf.discovery.IServiceListener#serviceDiscovered(org.eclipse.ecf.discovery.IServiceEvent)
 		 */
 		public void serviceDiscovered(final IServiceEvent event) {
+			updateLookups(event, true);
 			final Collection col = getListeners(event.getServiceInfo().getServiceID().getServiceTypeID());
 			if (!col.isEmpty()) {
 				for (final Iterator itr = col.iterator(); itr.hasNext();) {
@@ -58,6 +60,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		 * @see org.eclipse.ecf.discovery.IServiceListener#serviceUndiscovered(org.eclipse.ecf.discovery.IServiceEvent)
 		 */
 		public void serviceUndiscovered(final IServiceEvent event) {
+			updateLookups(event, false);
 			final Collection col = getListeners(event.getServiceInfo().getServiceID().getServiceTypeID());
 			if (!col.isEmpty()) {
 				for (final Iterator itr = col.iterator(); itr.hasNext();) {
@@ -119,6 +122,48 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 
 	protected static final String METHODS_TRACING = Activator.PLUGIN_ID + "/debug/methods/tracing"; //$NON-NLS-1$
 
+	/**
+	 * Time in ms to wait for the underlying locators to answer a lookup. All
+	 * locators are asked at once, those that have not answered in time are left
+	 * out of the result.
+	 */
+	private static final long LOCATOR_TIMEOUT = Long.getLong("org.eclipse.ecf.provider.discovery.locatorTimeout", 30000).longValue(); //$NON-NLS-1$
+
+	/**
+	 * Time in ms for which the merged result of a complete lookup is answered
+	 * from memory. Services discovered and undiscovered by the underlying
+	 * locators in the meantime are merged into it. 0 (the default) disables
+	 * the cache. Read when the container is created.
+	 */
+	private final long cacheTimeout = Long.getLong("org.eclipse.ecf.provider.discovery.cacheTimeout", 0).longValue(); //$NON-NLS-1$
+
+	private static final Object ALL_SERVICES = new Object();
+
+	private interface LocatorQuery {
+		Object[] query(IDiscoveryLocator idca);
+	}
+
+	private static class CachedLookup {
+		// IServiceID -> IServiceInfo
+		final Map services = new HashMap();
+		// 0 until all locators have answered
+		long expires;
+	}
+
+	/**
+	 * Lookups answered from memory, ALL_SERVICES or IServiceTypeID ->
+	 * CachedLookup. Also guards the result maps of running lookups.
+	 */
+	private final Map lookups = new HashMap();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "CompositeDiscoveryContainer lookup"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	protected final CompositeContainerServiceListener ccsl = new CompositeContainerServiceListener();
 	protected final CompositeContainerServiceTypeListener ccstl = new CompositeContainerServiceTypeListener();
 
@@ -267,6 +312,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 			containers.clear();
 		}
 		targetID = null;
+		executor.shutdown();
 		super.dispose();
 	}
 
@@ -290,17 +336,153 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 */
 	public IServiceInfo getServiceInfo(final IServiceID aService) {
 		Assert.isNotNull(aService);
+		final Object[] locators;
 		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-				final IServiceID isi = getServiceIDForDiscoveryContainer(aService, idca);
-				final IServiceInfo service = idca.getServiceInfo(isi);
+			locators = containers.toArray();
+		}
+		if (locators.length == 1) {
+			return getServiceInfo(aService, (IDiscoveryLocator) locators[0]);
+		}
+		// ask all locators at once and answer with the first that knows the
+		// service, the others are cancelled
+		final CompletionService completion = new ExecutorCompletionService(executor);
+		final List futures = new ArrayList(locators.length);
+		try {
+			for (int i = 0; i < locators.length; i++) {
+				final IDiscoveryLocator idca = (IDiscoveryLocator) locators[i];
+				futures.add(completion.submit(new Callable() {
+					public Object call() {
+						return getServiceInfo(aService, idca);
+					}
+				}));
+			}
+			final long deadline = System.currentTimeMillis() + LOCATOR_TIMEOUT;
+			for (int i = 0; i < locators.length; i++) {
+				final Future answered = completion.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+				if (answered == null) {
+					// the remaining locators have not answered in time
+					return null;
+				}
+				final IServiceInfo service = (IServiceInfo) answered.get();
 				if (service != null) {
 					return service;
 				}
 			}
+			return null;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (final ExecutionException e) {
+			// getServiceInfo(IServiceID, IDiscoveryLocator) does not throw
+			return null;
+		} finally {
+			for (final Iterator itr = futures.iterator(); itr.hasNext();) {
+				((Future) itr.next()).cancel(true);
+			}
+		}
+	}
+
+	private IServiceInfo getServiceInfo(final IServiceID aService, final IDiscoveryLocator idca) {
+		try {
+			return idca.getServiceInfo(getServiceIDForDiscoveryContainer(aService, idca));
+		} catch (final RuntimeException e) {
+			Trace.catching(Activator.PLUGIN_ID, METHODS_CATCHING, this.getClass(), "getServiceInfo", e); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	/**
+	 * Runs the query against all locators concurrently and adds the results to
+	 * the given map, keyed by service ID for services. Results of locators that
+	 * answer after the timeout are still added to the map.
+	 * 
+	 * @return <code>true</code> if all locators answered in time
+	 */
+	private boolean fanOut(final LocatorQuery query, final Map results) {
+		final Object[] locators;
+		synchronized (containers) {
+			locators = containers.toArray();
+		}
+		final CountDownLatch answered = new CountDownLatch(locators.length);
+		for (int i = 0; i < locators.length; i++) {
+			final IDiscoveryLocator idca = (IDiscoveryLocator) locators[i];
+			final Runnable task = new Runnable() {
+				public void run() {
+					try {
+						final Object[] answer = query.query(idca);
+						synchronized (lookups) {
+							for (int j = 0; j < answer.length; j++) {
+								final Object key = (answer[j] instanceof IServiceInfo) ? ((IServiceInfo) answer[j]).getServiceID() : answer[j];
+								results.put(key, answer[j]);
+							}
+						}
+					} catch (final RuntimeException e) {
+						Trace.catching(Activator.PLUGIN_ID, METHODS_CATCHING, this.getClass(), "fanOut", e); //$NON-NLS-1$
+					} finally {
+						answered.countDown();
+					}
+				}
+			};
+			if (locators.length == 1) {
+				task.run();
+			} else {
+				executor.execute(task);
+			}
+		}
+		try {
+			return answered.await(LOCATOR_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Answers the lookup from memory if a complete lookup with the same key
+	 * has been done within {@link #cacheTimeout}, or fans it out otherwise.
+	 */
+	private Collection lookup(final Object key, final LocatorQuery query) {
+		final CachedLookup cached = new CachedLookup();
+		synchronized (lookups) {
+			final CachedLookup previous = (CachedLookup) lookups.get(key);
+			if (previous != null && previous.expires > System.currentTimeMillis()) {
+				return new ArrayList(previous.services.values());
+			}
+			if (cacheTimeout > 0) {
+				lookups.put(key, cached);
+			}
+		}
+		final boolean complete = fanOut(query, cached.services);
+		synchronized (lookups) {
+			if (complete) {
+				cached.expires = System.currentTimeMillis() + cacheTimeout;
+			}
+			return new ArrayList(cached.services.values());
+		}
+	}
+
+	private void updateLookups(final IServiceEvent event, final boolean discovered) {
+		final IServiceInfo info = event.getServiceInfo();
+		final IServiceID id = info.getServiceID();
+		synchronized (lookups) {
+			for (final Iterator itr = lookups.entrySet().iterator(); itr.hasNext();) {
+				final Map.Entry entry = (Map.Entry) itr.next();
+				final CachedLookup cached = (CachedLookup) entry.getValue();
+				if (!discovered) {
+					cached.services.remove(id);
+				} else if (entry.getKey() == ALL_SERVICES) {
+					cached.services.put(id, new CompositeServiceInfoWrapper(info, event.getLocalContainerID()));
+				} else if (((IServiceTypeID) entry.getKey()).getName().equals(id.getServiceTypeID().getName())) {
+					cached.services.put(id, info);
+				}
+			}
+		}
+	}
+
+	private void clearLookups() {
+		synchronized (lookups) {
+			lookups.clear();
 		}
-		return null;
 	}
 
 	private IServiceInfo getServiceInfoForDiscoveryContainer(final IServiceInfo aSi, final IDiscoveryLocator idca) {
@@ -314,20 +496,18 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 * @see org.eclipse.ecf.discovery.IDiscoveryContainerAdapter#getServices()
 	 */
 	public IServiceInfo[] getServices() {
-		final Set set = new HashSet();
-		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
+		final Collection services = lookup(ALL_SERVICES, new LocatorQuery() {
+			public Object[] query(IDiscoveryLocator idca) {
 				final ID containerId = ((IContainer) idca).getID();
 				final IServiceInfo[] services = idca.getServices();
 				for (int i = 0; i < services.length; i++) {
 					IServiceInfo iServiceInfo = services[i];
 					services[i] = new CompositeServiceInfoWrapper(iServiceInfo, containerId);
 				}
-				set.addAll(Arrays.asList(services));
+				return services;
 			}
-		}
-		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
+		});
+		return (IServiceInfo[]) services.toArray(new IServiceInfo[services.size()]);
 	}
 
 	/* (non-Javadoc)
@@ -335,16 +515,13 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 */
 	public IServiceInfo[] getServices(final IServiceTypeID type) {
 		Assert.isNotNull(type);
-		final Set set = new HashSet();
-		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
+		final Collection services = lookup(type, new LocatorQuery() {
+			public Object[] query(IDiscoveryLocator idca) {
 				final IServiceTypeID isti = getServiceTypeIDForDiscoveryContainer(type, idca);
-				final IServiceInfo[] services = idca.getServices(isti);
-				set.addAll(Arrays.asList(services));
+				return idca.getServices(isti);
 			}
-		}
-		return (IServiceInfo[]) set.toArray(new IServiceInfo[set.size()]);
+		});
+		return (IServiceInfo[]) services.toArray(new IServiceInfo[services.size()]);
 	}
 
 	private IServiceTypeID getServiceTypeIDForDiscoveryContainer(final IServiceTypeID type, final IDiscoveryLocator dca) {
@@ -359,15 +536,15 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 * @see org.eclipse.ecf.discovery.IDiscoveryContainerAdapter#getServiceTypes()
 	 */
 	public IServiceTypeID[] getServiceTypes() {
-		final Set set = new HashSet();
-		synchronized (containers) {
-			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
-				final IDiscoveryLocator idca = (IDiscoveryLocator) itr.next();
-				final IServiceTypeID[] services = idca.getServiceTypes();
-				set.addAll(Arrays.asList(services));
+		final Map types = new HashMap();
+		fanOut(new LocatorQuery() {
+			public Object[] query(IDiscoveryLocator idca) {
+				return idca.getServiceTypes();
 			}
+		}, types);
+		synchronized (lookups) {
+			return (IServiceTypeID[]) types.values().toArray(new IServiceTypeID[types.size()]);
 		}
-		return (IServiceTypeID[]) set.toArray(new IServiceTypeID[set.size()]);
 	}
 
 	/* (non-Javadoc)
@@ -375,6 +552,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 */
 	public void registerService(final IServiceInfo serviceInfo) {
 		Assert.isNotNull(serviceInfo);
+		clearLookups();
 		synchronized (registeredServices) {
 			Assert.isTrue(registeredServices.add(serviceInfo));
 		}
@@ -394,6 +572,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 */
 	public void unregisterService(final IServiceInfo serviceInfo) {
 		Assert.isNotNull(serviceInfo);
+		clearLookups();
 		synchronized (registeredServices) {
 			// no assert as unregisterService might be called with an non-existing ISI
 			registeredServices.remove(serviceInfo);
@@ -429,6 +608,7 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 	 * @see org.eclipse.ecf.discovery.AbstractDiscoveryContainerAdapter#purgeCache()
 	 */
 	public IServiceInfo[] purgeCache() {
+		clearLookups();
 		final Set set = new HashSet();
 		synchronized (containers) {
 			for (final Iterator itr = containers.iterator(); itr.hasNext();) {
@@ -476,7 +656,10 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		synchronized (containers) {
 			Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), "addContainer(Object)", "addContainer " //$NON-NLS-1$ //$NON-NLS-2$
 					+ object.toString());
-			return containers.add(object);
+			final boolean added = containers.add(object);
+			// the new container's services are not part of any cached lookup
+			clearLookups();
+			return added;
 		}
 	}
 
@@ -492,7 +675,9 @@ public class CompositeDiscoveryContainer extends AbstractDiscoveryContainerAdapt
 		synchronized (containers) {
 			Trace.trace(Activator.PLUGIN_ID, METHODS_TRACING, this.getClass(), "removeContainer(Object)", "removeContainer " //$NON-NLS-1$ //$NON-NLS-2$
 					+ object.toString());
-			return containers.remove(object);
+			final boolean removed = containers.remove(object);
+			clearLookups();
+			return removed;
 		}
 	}
 
@@ -15,10 +15,20 @@ package org.eclipse.ecf.provider.dnssd;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.core.ContainerConnectException;
@@ -31,14 +41,20 @@ import org.eclipse.ecf.core.identity.Namespace;
 import org.eclipse.ecf.core.security.IConnectContext;
 import org.eclipse.ecf.discovery.DiscoveryContainerConfig;
 import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.discovery.ServiceContainerEvent;
 import org.eclipse.ecf.discovery.ServiceInfo;
 import org.eclipse.ecf.discovery.ServiceProperties;
 import org.eclipse.ecf.discovery.identity.IServiceID;
 import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.xbill.DNS.CNAMERecord;
+import org.xbill.DNS.DClass;
 import org.xbill.DNS.Lookup;
+import org.xbill.DNS.Message;
 import org.xbill.DNS.Name;
 import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Rcode;
 import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
 import org.xbill.DNS.ResolverConfig;
 import org.xbill.DNS.SRVRecord;
 import org.xbill.DNS.SimpleResolver;
@@ -54,6 +70,26 @@ public class DnsSdDiscoveryLocator extends DnsSdDiscoveryContainerAdapter {
 	private static final String DNS_SD_PATH = "path"; //$NON-NLS-1$
 	private static final String DNS_SD_PTCL = "dns-sd.ptcl"; //$NON-NLS-1$
 
+	/**
+	 * The maximum number of SRV and TXT queries sent but not yet answered
+	 * while resolving the instances of a service type
+	 */
+	private static final int MAX_IN_FLIGHT = Integer.getInteger("org.eclipse.ecf.provider.dnssd.maxInFlight", 32).intValue(); //$NON-NLS-1$
+	/**
+	 * The time in ms to wait for all instances of a service type to be
+	 * resolved
+	 */
+	private static final long LOOKUP_TIMEOUT = Long.getLong("org.eclipse.ecf.provider.dnssd.lookupTimeout", 30000).longValue(); //$NON-NLS-1$
+
+	/**
+	 * The answers of the SRV and TXT queries, holding at most
+	 * org.eclipse.ecf.provider.dnssd.cacheSize entries
+	 */
+	private final DnsSdRecordCache cache = new DnsSdRecordCache(Integer.getInteger("org.eclipse.ecf.provider.dnssd.cacheSize", 1024).intValue()); //$NON-NLS-1$
+	private Resolver cacheResolver;
+	// service type -> (IServiceID -> IServiceInfo) of the services last found
+	private final Map discovered = new HashMap();
+
 	public DnsSdDiscoveryLocator() {
 		super(DnsSdNamespace.NAME, new DiscoveryContainerConfig(IDFactory
 				.getDefault().createStringID(
@@ -128,48 +164,288 @@ public class DnsSdDiscoveryLocator extends DnsSdDiscoveryContainerAdapter {
 	public IServiceInfo[] getServices(IServiceTypeID aServiceTypeId) {
 		Assert.isNotNull(aServiceTypeId);
 		DnsSdServiceTypeID serviceTypeId = (DnsSdServiceTypeID) aServiceTypeId;
-		Collection srvRecords = getSRVRecords(serviceTypeId.getInternalQueries());
-		List serviceInfos = getServiceInfos(srvRecords);
+		ServiceLookup lookup = new ServiceLookup(getResolver(), serviceTypeId);
+		lookup.run(serviceTypeId.getInternalQueries());
+		Collection serviceInfos = lookup.infos.values();
+		updateDiscovered(serviceTypeId, lookup.infos, lookup.complete);
 		return (IServiceInfo[]) serviceInfos.toArray(new IServiceInfo[serviceInfos.size()]);
 	}
-	
-	private List getServiceInfos(Collection srvQueryResult) {
-		List infos = new ArrayList();
-		for (Iterator iterator = srvQueryResult.iterator(); iterator.hasNext();) {
-			SRVRecord srvRecord = (SRVRecord) iterator.next();
-			long ttl = srvRecord.getTTL();
-			int priority = srvRecord.getPriority();
-			int weight = srvRecord.getWeight();
-			int port = srvRecord.getPort();
-			Name target = srvRecord.getTarget();
-			String host = target.toString();
-			host = host.substring(0, host.length() - 1);
-			
-			IServiceTypeID aServiceTypeID = new DnsSdServiceTypeID(getConnectNamespace(), srvRecord.getName());
-			
-			// query for txt records (attributes)
-			Properties props = new Properties();
-			Lookup txtQuery = new Lookup(srvRecord.getName(), Type.TXT);
-			txtQuery.setResolver(resolver);
-			Record[] txtQueryResults = txtQuery.run();
-			int length = txtQueryResults == null ? 0 : txtQueryResults.length;
-			for (int l = 0; l < length; l++) {
-				TXTRecord txtResult = (TXTRecord) txtQueryResults[l];
-				List strings = txtResult.getStrings();
-				for (Iterator itr = strings.iterator(); itr.hasNext();) {
-					String str = (String) itr.next();
-					String[] split = str.split("="); //$NON-NLS-1$
-					props.put(split[0], split[1]);
+
+	private synchronized Resolver getResolver() {
+		// cached answers are only valid for the resolver that gave them
+		if (resolver != cacheResolver) {
+			cache.clear();
+			cacheResolver = resolver;
+		}
+		return resolver;
+	}
+
+	/**
+	 * Fires service undiscovered events for the services of the given type
+	 * that the last complete lookup did not find anymore. Partial lookups only
+	 * add to the known services.
+	 */
+	private void updateDiscovered(IServiceTypeID aServiceTypeId, Map infos, boolean complete) {
+		final Map found = new HashMap();
+		for (Iterator itr = infos.values().iterator(); itr.hasNext();) {
+			final IServiceInfo info = (IServiceInfo) itr.next();
+			found.put(info.getServiceID(), info);
+		}
+		final List gone = new ArrayList();
+		synchronized (discovered) {
+			final Map previous = (Map) discovered.put(aServiceTypeId, found);
+			if (previous != null) {
+				for (Iterator itr = previous.entrySet().iterator(); itr.hasNext();) {
+					final Map.Entry entry = (Map.Entry) itr.next();
+					if (!found.containsKey(entry.getKey())) {
+						if (complete) {
+							gone.add(entry.getValue());
+						} else {
+							found.put(entry.getKey(), entry.getValue());
+						}
+					}
+				}
+			}
+		}
+		for (Iterator itr = gone.iterator(); itr.hasNext();) {
+			fireServiceUndiscovered(new ServiceContainerEvent((IServiceInfo) itr.next(), getID()));
+		}
+	}
+
+	private void discovered(IServiceTypeID aServiceTypeId, IServiceInfo info) {
+		synchronized (discovered) {
+			final Map known = (Map) discovered.get(aServiceTypeId);
+			if (known != null && known.containsKey(info.getServiceID())) {
+				return;
+			}
+		}
+		fireServiceDiscovered(new ServiceContainerEvent(info, getID()));
+	}
+
+	private IServiceInfo createServiceInfo(SRVRecord srvRecord, Record[] txtRecords) {
+		long ttl = srvRecord.getTTL();
+		int priority = srvRecord.getPriority();
+		int weight = srvRecord.getWeight();
+		int port = srvRecord.getPort();
+		Name target = srvRecord.getTarget();
+		String host = target.toString();
+		host = host.substring(0, host.length() - 1);
+
+		IServiceTypeID aServiceTypeID = new DnsSdServiceTypeID(getConnectNamespace(), srvRecord.getName());
+
+		// txt records (attributes)
+		Properties props = new Properties();
+		for (int l = 0; l < txtRecords.length; l++) {
+			TXTRecord txtResult = (TXTRecord) txtRecords[l];
+			List strings = txtResult.getStrings();
+			for (Iterator itr = strings.iterator(); itr.hasNext();) {
+				String str = (String) itr.next();
+				String[] split = str.split("="); //$NON-NLS-1$
+				props.put(split[0], split[1]);
+			}
+		}
+		String path = props.getProperty(DNS_SD_PATH);
+		String proto = props.getProperty(DNS_SD_PTCL) == null ? aServiceTypeID.getProtocols()[0] : props.getProperty(DNS_SD_PTCL);
+
+		URI uri = URI.create(proto + "://" + host + ":" + port + (path == null ? "" : path)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return new ServiceInfo(uri, host, aServiceTypeID, priority, weight, new ServiceProperties(props), ttl);
+	}
+
+	/**
+	 * Resolves the service instances found by the PTR queries of a service
+	 * type. The SRV and TXT queries of all instances are sent without waiting
+	 * for each other, at most {@link #MAX_IN_FLIGHT} at a time, and each
+	 * service is reported to the listeners as soon as both of its answers are
+	 * in. The answers are handled on the thread calling {@link #run(Lookup[])}.
+	 * An answer that only gives an alias (CNAME) of the instance name is
+	 * followed with a query for the name it points to, as {@link Lookup} does.
+	 */
+	private class ServiceLookup {
+
+		private final Resolver res;
+		private final LinkedList pending = new LinkedList();
+		private final BlockingQueue answers = new LinkedBlockingQueue();
+		private final IServiceTypeID serviceTypeId;
+		private int inFlight;
+
+		/**
+		 * The services found so far, ordered like the SRV records
+		 */
+		final SortedMap infos = new TreeMap();
+		/**
+		 * Whether all queries have been answered
+		 */
+		boolean complete = true;
+
+		ServiceLookup(Resolver res, IServiceTypeID serviceTypeId) {
+			this.res = res;
+			this.serviceTypeId = serviceTypeId;
+		}
+
+		void run(Lookup[] queries) {
+			final Map instances = new LinkedHashMap();
+			for (int i = 0; i < queries.length; i++) {
+				final Lookup query = queries[i];
+				query.setResolver(res);
+				final Record[] queryResult = query.run();
+				if (query.getResult() == Lookup.TRY_AGAIN || query.getResult() == Lookup.UNRECOVERABLE) {
+					complete = false;
 				}
+				final int length = queryResult == null ? 0 : queryResult.length;
+				for (int j = 0; j < length; j++) {
+					final Record record = queryResult[j];
+					if (record instanceof PTRRecord) {
+						getInstance(instances, ((PTRRecord) record).getTarget());
+					} else if (record instanceof SRVRecord) {
+						final Instance instance = getInstance(instances, record.getName());
+						if (instance.srv == null) {
+							instance.srv = new ArrayList();
+						}
+						instance.srv.add(record);
+					}
+				}
+			}
+			for (Iterator itr = instances.values().iterator(); itr.hasNext();) {
+				final Instance instance = (Instance) itr.next();
+				if (instance.srv == null) {
+					pending.add(new Question(instance, Type.SRV));
+				}
+				pending.add(new Question(instance, Type.TXT));
+			}
+
+			final long deadline = System.currentTimeMillis() + LOOKUP_TIMEOUT;
+			while (true) {
+				while (inFlight < MAX_IN_FLIGHT && !pending.isEmpty()) {
+					send((Question) pending.removeFirst());
+				}
+				if (inFlight == 0) {
+					return;
+				}
+				final Answer answer;
+				try {
+					answer = (Answer) answers.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					complete = false;
+					return;
+				}
+				if (answer == null) {
+					// late answers are dropped with this lookup
+					complete = false;
+					return;
+				}
+				inFlight--;
+				received(answer);
+			}
+		}
+
+		private Instance getInstance(Map instances, Name name) {
+			Instance instance = (Instance) instances.get(name);
+			if (instance == null) {
+				instance = new Instance();
+				instances.put(name, instance);
+			}
+			instance.name = name;
+			return instance;
+		}
+
+		private void send(final Question question) {
+			final Record[] cached = cache.get(question.name, question.type);
+			if (cached != null) {
+				answered(question, cached);
+				return;
+			}
+			inFlight++;
+			final Message query = Message.newQuery(Record.newRecord(question.name, question.type, DClass.IN));
+			res.sendAsync(query).whenComplete((response, error) -> answers.add(new Answer(question, response, error)));
+		}
+
+		private void received(Answer answer) {
+			final Question question = answer.question;
+			if (answer.error != null || answer.response == null) {
+				complete = false;
+				answered(question, new Record[0]);
+				return;
+			}
+			final int rcode = answer.response.getRcode();
+			if (rcode != Rcode.NOERROR && rcode != Rcode.NXDOMAIN) {
+				complete = false;
+			}
+			final Record[] records = cache.add(question.name, question.type, answer.response);
+			if (records.length == 0) {
+				final CNAMERecord alias = DnsSdRecordCache.getAlias(question.name, answer.response);
+				if (alias != null) {
+					if (question.aliases < DnsSdRecordCache.MAX_ALIASES) {
+						pending.add(new Question(question.instance, question.type, alias.getTarget(), question.aliases + 1));
+						return;
+					}
+					complete = false;
+				}
+			}
+			answered(question, records);
+		}
+
+		private void answered(Question question, Record[] records) {
+			final Instance instance = question.instance;
+			if (question.type == Type.SRV) {
+				instance.srv = Arrays.asList(records);
+			} else {
+				instance.txt = records;
 			}
-			String path = props.getProperty(DNS_SD_PATH);
-			String proto = props.getProperty(DNS_SD_PTCL) == null ? aServiceTypeID.getProtocols()[0] : props.getProperty(DNS_SD_PTCL);
-			
-			URI uri = URI.create(proto + "://" + host + ":" + port + (path == null ? "" : path)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-			IServiceInfo info =new ServiceInfo(uri, host, aServiceTypeID, priority, weight, new ServiceProperties(props), ttl);
-			infos.add(info);
+			if (instance.srv == null || instance.txt == null) {
+				return;
+			}
+			for (Iterator itr = instance.srv.iterator(); itr.hasNext();) {
+				final SRVRecord srvRecord = (SRVRecord) itr.next();
+				if (!infos.containsKey(srvRecord)) {
+					final IServiceInfo info = createServiceInfo(srvRecord, instance.txt);
+					infos.put(srvRecord, info);
+					discovered(serviceTypeId, info);
+				}
+			}
+		}
+	}
+
+	private static class Instance {
+		Name name;
+		List srv;
+		Record[] txt;
+	}
+
+	private static class Question {
+		final Instance instance;
+		final int type;
+		/**
+		 * The name queried, the instance name or an alias target
+		 */
+		final Name name;
+		/**
+		 * The number of aliases followed to get to the name
+		 */
+		final int aliases;
+
+		Question(Instance instance, int type) {
+			this(instance, type, instance.name, 0);
+		}
+
+		Question(Instance instance, int type, Name name, int aliases) {
+			this.instance = instance;
+			this.type = type;
+			this.name = name;
+			this.aliases = aliases;
+		}
+	}
+
+	private static class Answer {
+		final Question question;
+		final Message response;
+		final Throwable error;
+
+		Answer(Question question, Message response, Throwable error) {
+			this.question = question;
+			this.response = response;
+			this.error = error;
 		}
-		return infos;
 	}
 
 	/*
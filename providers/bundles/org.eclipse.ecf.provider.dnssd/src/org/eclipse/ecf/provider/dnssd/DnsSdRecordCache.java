@@ -0,0 +1,179 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.dnssd;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.xbill.DNS.CNAMERecord;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.Section;
+
+/**
+ * Caches the answers of direct queries by name and type for as long as the
+ * smallest TTL of the answer allows. Negative answers (NXDOMAIN and no data)
+ * are cached for the negative TTL of the SOA record in the authority section,
+ * or not at all if the server did not send one. An answer that only says the
+ * name is an alias (CNAME) is cached as such, and the records are then looked
+ * up under the name it points to. The least recently used entry is dropped
+ * once more than the maximum number of entries are cached.
+ */
+final class DnsSdRecordCache {
+
+	/**
+	 * The maximum number of aliases followed for one name, as in {@link org.xbill.DNS.Lookup}
+	 */
+	static final int MAX_ALIASES = 16;
+
+	private static final Record[] EMPTY = new Record[0];
+
+	private static final class Key {
+		final Name name;
+		final int type;
+
+		Key(Name name, int type) {
+			this.name = name;
+			this.type = type;
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return type == other.type && name.equals(other.name);
+		}
+
+		public int hashCode() {
+			return name.hashCode() * 31 + type;
+		}
+	}
+
+	private static final class Entry {
+		final Record[] records;
+		final Name alias;
+		final long expires;
+
+		Entry(Record[] records, Name alias, long expires) {
+			this.records = records;
+			this.alias = alias;
+			this.expires = expires;
+		}
+	}
+
+	private final Map entries;
+
+	DnsSdRecordCache(final int maxEntries) {
+		entries = new LinkedHashMap(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @return the cached records of the given type, an empty array for a
+	 *         cached negative answer or <code>null</code> if nothing (valid) is
+	 *         cached for the name or the name it is an alias of
+	 */
+	synchronized Record[] get(Name name, int type) {
+		Name current = name;
+		for (int i = 0; i <= MAX_ALIASES; i++) {
+			final Key key = new Key(current, type);
+			final Entry entry = (Entry) entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (entry.expires <= System.currentTimeMillis()) {
+				entries.remove(key);
+				return null;
+			}
+			if (entry.alias == null) {
+				return entry.records;
+			}
+			current = entry.alias;
+		}
+		return null;
+	}
+
+	/**
+	 * Extracts the answer records of the given type from the response and
+	 * caches them unless the response is an error other than NXDOMAIN.
+	 * 
+	 * @return the records of the given type in the answer section
+	 */
+	Record[] add(Name name, int type, Message response) {
+		final List answers = new ArrayList();
+		long ttl = Long.MAX_VALUE;
+		for (Iterator itr = response.getSection(Section.ANSWER).iterator(); itr.hasNext();) {
+			final Record record = (Record) itr.next();
+			if (record.getType() == type) {
+				answers.add(record);
+				ttl = Math.min(ttl, record.getTTL());
+			}
+		}
+		final int rcode = response.getRcode();
+		if (rcode != Rcode.NOERROR && rcode != Rcode.NXDOMAIN) {
+			return (Record[]) answers.toArray(EMPTY);
+		}
+		CNAMERecord alias = null;
+		if (answers.isEmpty()) {
+			alias = getAlias(name, response);
+			if (alias != null) {
+				ttl = alias.getTTL();
+			} else {
+				ttl = 0;
+				for (Iterator itr = response.getSection(Section.AUTHORITY).iterator(); itr.hasNext();) {
+					final Record record = (Record) itr.next();
+					if (record instanceof SOARecord) {
+						ttl = Math.min(record.getTTL(), ((SOARecord) record).getMinimum());
+					}
+				}
+			}
+		}
+		final Record[] records = (Record[]) answers.toArray(EMPTY);
+		if (ttl > 0) {
+			synchronized (this) {
+				entries.put(new Key(name, type), new Entry(records, alias == null ? null : alias.getTarget(), System.currentTimeMillis() + ttl * 1000L));
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * @return the CNAME record in the answer section that makes the given name
+	 *         an alias, or <code>null</code> if there is none
+	 */
+	static CNAMERecord getAlias(Name name, Message response) {
+		for (Iterator itr = response.getSection(Section.ANSWER).iterator(); itr.hasNext();) {
+			final Record record = (Record) itr.next();
+			if (record instanceof CNAMERecord && record.getName().equals(name)) {
+				return (CNAMERecord) record;
+			}
+		}
+		return null;
+	}
+
+	synchronized void clear() {
+		entries.clear();
+	}
+}
@@ -331,6 +331,10 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 	}
 
 	private void setRequestHeaderValuesFromOptions() {
+		setRequestHeaderValuesFromOptions(getMethod);
+	}
+
+	private void setRequestHeaderValuesFromOptions(HttpGet method) {
 		Map<?, ?> localOptions = getOptions();
 		if (localOptions != null) {
 			Object o = localOptions.get(IRetrieveFileTransferOptions.REQUEST_HEADERS);
@@ -339,7 +343,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 				for (Object n : requestHeaders.keySet()) {
 					Object v = requestHeaders.get(n);
 					if (n != null && n instanceof String && v != null && v instanceof String) {
-						getMethod.addHeader((String) n, (String) v);
+						method.addHeader((String) n, (String) v);
 					}
 				}
 			}
@@ -764,7 +768,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 	 */
 	@Override
 	protected boolean doPause() {
-		if (isPaused() || !isConnected() || isDone())
+		if (isPaused() || !(isConnected() || isSegmented()) || isDone())
 			return false;
 		this.paused = true;
 		return this.paused;
@@ -779,9 +783,47 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 	protected boolean doResume() {
 		if (!isPaused() || isConnected())
 			return false;
+		if (isSegmented())
+			return resumeSegments();
 		return openStreamsForResume();
 	}
 
+	@Override
+	protected boolean supportsSegments() {
+		return true;
+	}
+
+	@Override
+	protected InputStream openSegmentStream(long start, long end) throws IOException {
+		final String urlString = getRemoteFileURL().toString();
+		final HttpGet segmentMethod = new HttpGet(urlString);
+		RequestConfig.Builder rcfgBuilder = RequestConfig.copy(getRequestConfigBuilder().build());
+		// Ranges address the unencoded file
+		rcfgBuilder.setContentCompressionEnabled(false);
+		segmentMethod.setConfig(rcfgBuilder.build());
+		setRequestHeaderValuesFromOptions(segmentMethod);
+		segmentMethod.setHeader(HttpHeaders.RANGE, "bytes=" + start + "-" + end); //$NON-NLS-1$ //$NON-NLS-2$
+		// Contexts are not shared between concurrent requests
+		HttpClientContext segmentContext = Activator.getDefault().getHttpClientFactory().newClientContext();
+		segmentContext.setCredentialsProvider(httpContext.getCredentialsProvider());
+		Trace.trace(Activator.PLUGIN_ID, "retrieve segment=" + urlString + " range=" + start + "-" + end); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		final CloseableHttpResponse segmentResponse = httpClient.execute(segmentMethod, segmentContext);
+		Header contentRange = segmentResponse.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+		if (segmentResponse.getCode() != HttpStatus.SC_PARTIAL_CONTENT || segmentResponse.getEntity() == null || contentRange == null || !contentRange.getValue().startsWith("bytes " + start + "-")) { //$NON-NLS-1$ //$NON-NLS-2$
+			segmentMethod.abort();
+			segmentResponse.close();
+			throw new IOException(NLS.bind("Range {0}-{1} not retrieved, response code {2}", new Object[] {Long.valueOf(start), Long.valueOf(end), Integer.valueOf(segmentResponse.getCode())})); //$NON-NLS-1$
+		}
+		return new FilterInputStream(segmentResponse.getEntity().getContent()) {
+			@Override
+			public void close() throws IOException {
+				// Abort rather than read the rest of the range
+				segmentMethod.abort();
+				segmentResponse.close();
+			}
+		};
+	}
+
 	protected void setResumeRequestHeaderValues() throws IOException, InvalidFileRangeSpecificationException {
 		if (this.bytesReceived <= 0 || this.fileLength <= this.bytesReceived)
 			throw new IOException(Messages.HttpClientRetrieveFileTransfer_RESUME_START_ERROR);
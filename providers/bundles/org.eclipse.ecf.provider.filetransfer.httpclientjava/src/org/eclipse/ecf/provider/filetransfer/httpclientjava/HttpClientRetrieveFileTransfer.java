@@ -21,9 +21,11 @@ package org.eclipse.ecf.provider.filetransfer.httpclientjava;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.Authenticator;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
@@ -204,6 +206,16 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 			httpResponse.cancel(true);
 		}
 
+		// The first segment stops before the end of the initial response,
+		// closing its body cancels the rest
+		if (isSegmented() && remoteFileContents != null) {
+			try {
+				remoteFileContents.close();
+			} catch (final IOException e) {
+				Activator.getDefault().log(new Status(IStatus.WARNING, Activator.PLUGIN_ID, IStatus.WARNING, String.format("hardClose remoteFileContents.close() exception. url=%s", remoteFileURL), e)); //$NON-NLS-1$
+			}
+		}
+
 		// Close output stream...if we're supposed to
 		try {
 			if (localFileContents != null && closeOutputStream)
@@ -772,7 +784,7 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 	 */
 	@Override
 	protected boolean doPause() {
-		if (isPaused() || !isConnected() || isDone())
+		if (isPaused() || !(isConnected() || isSegmented()) || isDone())
 			return false;
 		this.paused = true;
 		return this.paused;
@@ -787,9 +799,52 @@ public class HttpClientRetrieveFileTransfer extends AbstractRetrieveFileTransfer
 	protected boolean doResume() {
 		if (!isPaused() || isConnected())
 			return false;
+		if (isSegmented())
+			return resumeSegments();
 		return openStreamsForResume();
 	}
 
+	@Override
+	protected boolean supportsSegments() {
+		return true;
+	}
+
+	@Override
+	protected InputStream openSegmentStream(long start, long end) throws IOException {
+		final String urlString = getRemoteFileURL().toString();
+		// A new builder, requestConfigBuilder is not shared between concurrent requests
+		HttpRequest.Builder builder = Activator.getDefault().getHttpClientFactory().newRequestConfig(httpContext, getOptions());
+		try {
+			builder.uri(new URI(urlString));
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+		builder.GET();
+		setRequestHeaderValuesFromOptions(builder);
+		if (username != null) {
+			byte[] credentials = Base64.getEncoder().encode((username + ":" + password).getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+			builder.header("Authorization", "Basic " + new String(credentials, StandardCharsets.UTF_8)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		// Ranges address the unencoded file
+		setContentCompressionEnabled(builder, false);
+		builder.setHeader(RANGE, "bytes=" + start + "-" + end); //$NON-NLS-1$ //$NON-NLS-2$
+		Trace.trace(Activator.PLUGIN_ID, "retrieve segment=" + urlString + " range=" + start + "-" + end); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		HttpResponse<InputStream> response;
+		try {
+			response = httpClient.send(builder.build(), BodyHandlers.ofInputStream());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		String contentRange = response.headers().firstValue("Content-Range").orElse(null); //$NON-NLS-1$
+		if (response.statusCode() != HttpURLConnection.HTTP_PARTIAL || contentRange == null || !contentRange.startsWith("bytes " + start + "-")) { //$NON-NLS-1$ //$NON-NLS-2$
+			response.body().close();
+			throw new IOException(NLS.bind("Range {0}-{1} not retrieved, response code {2}", new Object[] {Long.valueOf(start), Long.valueOf(end), Integer.valueOf(response.statusCode())})); //$NON-NLS-1$
+		}
+		// Closing the body before its end cancels the rest of the range
+		return response.body();
+	}
+
 	protected void setResumeRequestHeaderValues(Builder builder)
 			throws IOException, InvalidFileRangeSpecificationException {
 		if (this.bytesReceived <= 0 || this.fileLength <= this.bytesReceived)
@@ -62,6 +62,7 @@ import org.eclipse.ecf.provider.filetransfer.identity.FileTransferNamespace;
 import org.eclipse.ecf.provider.filetransfer.util.PollingInputStream;
 import org.eclipse.ecf.provider.filetransfer.util.ProxySetupHelper;
 import org.eclipse.ecf.provider.filetransfer.util.TimeoutInputStream;
+import org.eclipse.ecf.provider.filetransfer.util.WatchdogInputStream;
 import org.eclipse.osgi.util.NLS;
 
 public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTransfer, IRetrieveFileTransfer, IFileTransferPausable {
@@ -76,6 +77,13 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 
 	protected static final int CLOSE_TIMEOUT = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.filetransfer.retrieve.closeTimeout", "1000")); //$NON-NLS-1$ //$NON-NLS-2$;
 
+	/**
+	 * If true, remote streams are wrapped in a {@link TimeoutInputStream}, with
+	 * a reader thread per transfer, rather than in a {@link WatchdogInputStream}.
+	 * @since 3.4
+	 */
+	protected static final boolean TIMEOUT_READER_THREAD = Boolean.getBoolean("org.eclipse.ecf.provider.filetransfer.retrieve.timeoutReaderThread"); //$NON-NLS-1$
+
 	private static final String readTimeoutMessage = "Timeout while reading input stream.\n" + //$NON-NLS-1$
 			"The following system properties can be used to adjust the readTimeout, retryAttempts, and closeTimeout\n" + //$NON-NLS-1$
 			"\torg.eclipse.ecf.provider.filetransfer.retrieve.readTimeout=<default:1000>\n" + //$NON-NLS-1$
@@ -134,11 +142,15 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 	 */
 	protected Map responseHeaders;
 
+	private SegmentedRetrieve segmentedRetrieve;
+
 	public AbstractRetrieveFileTransfer() {
 		//
 	}
 
 	protected InputStream wrapTransferReadInputStream(InputStream inputStream, IProgressMonitor monitor) {
+		if (inputStream instanceof WatchdogInputStream)
+			((WatchdogInputStream) inputStream).setCancelMonitor(monitor);
 		return new PollingInputStream(inputStream, getRetryAttempts(), monitor, readTimeoutMessage, closeTimeoutMessage);
 	}
 
@@ -161,6 +173,8 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 
 	private IFileTransferRunnable fileTransferRunnable = new IFileTransferRunnable() {
 		public IStatus performFileTransfer(IProgressMonitor monitor) {
+			if (segmentedRetrieve != null)
+				return segmentedRetrieve.performFileTransfer(monitor);
 			transferStartTime = System.currentTimeMillis();
 			final byte[] buf = new byte[buff_length];
 			final long totalWork = ((fileLength == -1) ? 100 : fileLength);
@@ -263,7 +277,15 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 	}
 
 	protected void setInputStream(InputStream ins) {
-		remoteFileContents = new TimeoutInputStream(ins, TIMEOUT_INPUTSTREAM_BUFFER_SIZE, getSocketReadTimeout(), getSocketCloseTimeout());
+		if (TIMEOUT_READER_THREAD) {
+			remoteFileContents = new TimeoutInputStream(ins, TIMEOUT_INPUTSTREAM_BUFFER_SIZE, getSocketReadTimeout(), getSocketCloseTimeout());
+			return;
+		}
+		// Reads are retried every readTimeout up to retryAttempts times, so a read
+		// is only given up on once it has blocked for all of them
+		int retryAttempts = getRetryAttempts();
+		long stallTimeout = (retryAttempts == 0) ? 0 : (long) getSocketReadTimeout() * retryAttempts;
+		remoteFileContents = new WatchdogInputStream(ins, stallTimeout, getSocketCloseTimeout());
 	}
 
 	protected void setOutputStream(OutputStream outs) {
@@ -633,6 +655,70 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 		return doResume();
 	}
 
+	/**
+	 * Whether this transfer can retrieve a file in segments with
+	 * {@link #openSegmentStream(long, long)}. If so, and the
+	 * <code>org.eclipse.ecf.provider.filetransfer.retrieve.segments</code>
+	 * option or system property is greater than one, a whole file whose
+	 * response accepts byte ranges and that is received into a local file is
+	 * retrieved with that many concurrent range requests, each at least
+	 * <code>org.eclipse.ecf.provider.filetransfer.retrieve.minSegmentSize</code>
+	 * bytes (default 1MB) long. This implementation returns
+	 * <code>false</code>.
+	 * 
+	 * @return true if {@link #openSegmentStream(long, long)} is implemented
+	 * @since 3.4
+	 */
+	protected boolean supportsSegments() {
+		return false;
+	}
+
+	/**
+	 * Opens a stream on a byte range of the remote file. Called concurrently
+	 * from segment worker threads. Closing the returned stream before the end
+	 * of the range must abort the request rather than read the remaining
+	 * data.
+	 * 
+	 * @param start
+	 *            the position of the first byte
+	 * @param end
+	 *            the position of the last byte, inclusive
+	 * @return stream on exactly the given range
+	 * @throws IOException
+	 *             if the range could not be retrieved, or the response is not
+	 *             a partial response for the range
+	 * @since 3.4
+	 */
+	protected InputStream openSegmentStream(long start, long end) throws IOException {
+		throw new IOException("Segments not supported"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return true if the current transfer is retrieved in segments
+	 * @since 3.4
+	 */
+	protected boolean isSegmented() {
+		return segmentedRetrieve != null;
+	}
+
+	/**
+	 * Resumes a paused segmented transfer by firing the resumed event. Each
+	 * segment reopens its range from where it stopped once the listener
+	 * receives into the local file again. Subclasses call this from
+	 * {@link #doResume()} instead of reopening the remote stream if
+	 * {@link #isSegmented()}.
+	 * 
+	 * @return true if resumed, false if the transfer is not segmented
+	 * @since 3.4
+	 */
+	protected boolean resumeSegments() {
+		if (segmentedRetrieve == null)
+			return false;
+		this.paused = false;
+		fireReceiveResumedEvent();
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -711,7 +797,11 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 			 * org.eclipse.ecf.filetransfer.FileTransferJob)
 			 */
 			public IIncomingFileTransfer receive(File localFileToSave, FileTransferJob fileTransferJob) throws IOException {
-				setOutputStream(new BufferedOutputStream(new FileOutputStream(localFileToSave)));
+				segmentedRetrieve = SegmentedRetrieve.create(AbstractRetrieveFileTransfer.this);
+				if (segmentedRetrieve != null)
+					segmentedRetrieve.open(localFileToSave, false);
+				else
+					setOutputStream(new BufferedOutputStream(new FileOutputStream(localFileToSave)));
 				setupAndScheduleJob(fileTransferJob);
 				return AbstractRetrieveFileTransfer.this;
 			}
@@ -783,7 +873,11 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 			}
 
 			public IIncomingFileTransfer receive(File localFileToSave, FileTransferJob fileTransferJob, boolean append) throws IOException {
-				setOutputStream(new BufferedOutputStream(new FileOutputStream(localFileToSave.getName(), append)));
+				// segments write at their own positions whatever append is
+				if (segmentedRetrieve != null)
+					segmentedRetrieve.open(localFileToSave, true);
+				else
+					setOutputStream(new BufferedOutputStream(new FileOutputStream(localFileToSave.getName(), append)));
 				setupAndScheduleJob(fileTransferJob);
 				return AbstractRetrieveFileTransfer.this;
 			}
@@ -800,9 +894,12 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 
 			/**
 			 * @throws IOException
-			 *             not actually thrown by this implementation.
+			 *             if the transfer is segmented, segments can only
+			 *             be resumed into a file.
 			 */
 			public IIncomingFileTransfer receive(OutputStream streamToStore, FileTransferJob fileTransferJob) throws IOException {
+				if (segmentedRetrieve != null)
+					throw new IOException("Segmented transfer can only be resumed into a file"); //$NON-NLS-1$
 				setOutputStream(streamToStore);
 				setCloseOutputStream(false);
 				setupAndScheduleJob(fileTransferJob);
@@ -874,6 +971,7 @@ public abstract class AbstractRetrieveFileTransfer implements IIncomingFileTrans
 		this.options = ops;
 		this.paused = false;
 		this.rangeSpecification = rangeSpec;
+		this.segmentedRetrieve = null;
 
 		try {
 			this.remoteFileURL = rFileID.getURL();
@@ -0,0 +1,70 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.filetransfer.retrieve;
+
+import java.io.InputStream;
+import java.util.Map;
+import org.eclipse.ecf.core.util.Proxy;
+import org.eclipse.ecf.filetransfer.IncomingFileTransferException;
+
+/**
+ * Retrieve file transfer that delivers a body from the {@link RetrieveFileCache}
+ * instead of the network. The listener sees the same start, data and done
+ * events as for a remote retrieve.
+ */
+class CachedRetrieveFileTransfer extends AbstractRetrieveFileTransfer {
+
+	private final InputStream body;
+
+	private final long length;
+
+	private final long lastModified;
+
+	private final Map<String, String> headers;
+
+	CachedRetrieveFileTransfer(InputStream body, long length, long lastModified, Map<String, String> headers) {
+		this.body = body;
+		this.length = length;
+		this.lastModified = lastModified;
+		this.headers = headers;
+	}
+
+	protected void openStreams() throws IncomingFileTransferException {
+		setFileLength(length);
+		setLastModifiedTime(lastModified);
+		responseHeaders = headers;
+		setInputStream(body);
+		fireReceiveStartEvent();
+	}
+
+	protected void setInputStream(InputStream ins) {
+		// a local file does not stall
+		remoteFileContents = ins;
+	}
+
+	protected void setupProxies() {
+		// no connection is made
+	}
+
+	protected void setupProxy(Proxy p) {
+		// no connection is made
+	}
+
+	protected boolean doPause() {
+		return false;
+	}
+
+	protected boolean doResume() {
+		return false;
+	}
+}
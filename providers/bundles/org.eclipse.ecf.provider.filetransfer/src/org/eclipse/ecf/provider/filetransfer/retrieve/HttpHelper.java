@@ -13,6 +13,8 @@
 
 package org.eclipse.ecf.provider.filetransfer.retrieve;
 
+import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 /**
@@ -38,4 +40,31 @@ public class HttpHelper {
 		}
 		return null;
 	}
+
+	/**
+	 * Looks up a response header by name, ignoring case. Providers key the
+	 * response headers map by name in the case sent or in lower case, with
+	 * String or List values.
+	 * 
+	 * @param responseHeaders
+	 *            the response headers, may be <code>null</code>
+	 * @param name
+	 *            the header name
+	 * @return the first value of the header, or <code>null</code> if not
+	 *         present
+	 * @since 3.4
+	 */
+	public static String getResponseHeader(Map<?, ?> responseHeaders, String name) {
+		if (responseHeaders == null)
+			return null;
+		for (Map.Entry<?, ?> entry : responseHeaders.entrySet()) {
+			if (entry.getKey() instanceof String && name.equalsIgnoreCase((String) entry.getKey())) {
+				Object value = entry.getValue();
+				if (value instanceof List)
+					return ((List<?>) value).isEmpty() ? null : String.valueOf(((List<?>) value).get(0));
+				return (value == null) ? null : value.toString();
+			}
+		}
+		return null;
+	}
 }
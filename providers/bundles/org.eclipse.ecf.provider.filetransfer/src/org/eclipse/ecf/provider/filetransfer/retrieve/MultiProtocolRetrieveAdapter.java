@@ -104,6 +104,13 @@ public class MultiProtocolRetrieveAdapter implements IRetrieveFileTransfer {
 		// Set Proxy
 		fileTransfer.setProxy(proxy);
 
+		// send request through the local cache if one is configured
+		RetrieveFileCache cache = RetrieveFileCache.getDefault();
+		if (cache != null && cache.isCacheable(remoteFileID, options, connectContext)) {
+			cache.sendRetrieveRequest(fileTransfer, remoteFileID, transferListener, options);
+			return;
+		}
+
 		// send request using given file transfer protocol
 		fileTransfer.sendRetrieveRequest(remoteFileID, transferListener, options);
 
@@ -144,6 +151,13 @@ public class MultiProtocolRetrieveAdapter implements IRetrieveFileTransfer {
 		// Set Proxy
 		fileTransfer.setProxy(proxy);
 
+		// send whole file requests through the local cache if one is configured
+		RetrieveFileCache cache = RetrieveFileCache.getDefault();
+		if (rangeSpecification == null && cache != null && cache.isCacheable(remoteFileID, options, connectContext)) {
+			cache.sendRetrieveRequest(fileTransfer, remoteFileID, transferListener, options);
+			return;
+		}
+
 		// send request using given file transfer protocol
 		fileTransfer.sendRetrieveRequest(remoteFileID, rangeSpecification, transferListener, options);
 
@@ -0,0 +1,780 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.filetransfer.retrieve;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.ecf.core.security.IConnectContext;
+import org.eclipse.ecf.filetransfer.FileTransferJob;
+import org.eclipse.ecf.filetransfer.IFileTransferListener;
+import org.eclipse.ecf.filetransfer.IIncomingFileTransfer;
+import org.eclipse.ecf.filetransfer.IRetrieveFileTransferContainerAdapter;
+import org.eclipse.ecf.filetransfer.IRetrieveFileTransferOptions;
+import org.eclipse.ecf.filetransfer.IncomingFileTransferException;
+import org.eclipse.ecf.filetransfer.events.IFileTransferEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveDoneEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceivePausedEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveStartEvent;
+import org.eclipse.ecf.filetransfer.identity.IFileID;
+import org.eclipse.ecf.internal.provider.filetransfer.Activator;
+
+/**
+ * Local cache of retrieved http and https files, used by
+ * {@link MultiProtocolRetrieveAdapter} for whole file retrieves when the
+ * {@link #CACHE_DIR_PROP} system property names a directory.
+ * <p>
+ * Bodies are stored once per content under their SHA-256 digest, and each URL
+ * refers to its body together with the ETag, Last-Modified and Cache-Control
+ * max-age of the response. An entry is fresh while its age, computed from the
+ * Age and Date headers as in RFC 7234 section 4.2.3, is less than its
+ * max-age, and is then delivered from disk without a request. A stale one is
+ * revalidated with If-None-Match/If-Modified-Since, and a 304 response is
+ * answered from disk. An entry is only used for requests that have the same
+ * values of the request headers named by the Vary header of its response.
+ * Responses with <code>Cache-Control: no-store</code> or
+ * <code>Vary: *</code>, or that can be neither kept fresh nor revalidated, are
+ * not stored. Requests with credentials, i.e. with a connect context, user
+ * info in the URL, or an Authorization or Cookie header, do not use the cache
+ * at all. When the bodies exceed {@link #CACHE_MAX_SIZE_PROP} bytes the least
+ * recently used are removed.
+ * <p>
+ * Either way the listener sees the usual start, data and done events and
+ * receives into its own File or OutputStream. A retrieve can bypass the cache
+ * by setting the {@link #CACHE_OPTION} option to <code>false</code>.
+ *
+ * @since 3.4
+ */
+public class RetrieveFileCache {
+
+	public static final String CACHE_DIR_PROP = "org.eclipse.ecf.provider.filetransfer.retrieve.cacheDir"; //$NON-NLS-1$
+
+	public static final String CACHE_MAX_SIZE_PROP = "org.eclipse.ecf.provider.filetransfer.retrieve.cacheMaxSize"; //$NON-NLS-1$
+
+	public static final String CACHE_OPTION = "org.eclipse.ecf.provider.filetransfer.retrieve.cache"; //$NON-NLS-1$
+
+	public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+	private static final int HTTP_NOT_MODIFIED = 304;
+
+	private static final String ETAG = "ETag"; //$NON-NLS-1$
+	private static final String LAST_MODIFIED = "Last-Modified"; //$NON-NLS-1$
+	private static final String CACHE_CONTROL = "Cache-Control"; //$NON-NLS-1$
+	private static final String AGE = "Age"; //$NON-NLS-1$
+	private static final String DATE = "Date"; //$NON-NLS-1$
+	private static final String VARY = "Vary"; //$NON-NLS-1$
+
+	private static final String[] CREDENTIAL_HEADERS = {"Authorization", "Proxy-Authorization", "Cookie"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static RetrieveFileCache defaultCache;
+	private static boolean defaultCacheCreated;
+
+	private final File bodies;
+	private final File entries;
+	private final long maxSize;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong bytesSaved = new AtomicLong();
+
+	/**
+	 * @return the cache configured by {@link #CACHE_DIR_PROP}, or
+	 *         <code>null</code> if none is configured
+	 */
+	public static synchronized RetrieveFileCache getDefault() {
+		if (!defaultCacheCreated) {
+			defaultCacheCreated = true;
+			String dir = System.getProperty(CACHE_DIR_PROP);
+			if (dir != null && dir.length() > 0)
+				defaultCache = new RetrieveFileCache(new File(dir), Long.getLong(CACHE_MAX_SIZE_PROP, DEFAULT_MAX_SIZE).longValue());
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * @param directory
+	 *            the directory to keep the cache in, created if necessary
+	 * @param maxSize
+	 *            the number of bytes of bodies to keep
+	 */
+	public RetrieveFileCache(File directory, long maxSize) {
+		this.bodies = new File(directory, "bodies"); //$NON-NLS-1$
+		this.entries = new File(directory, "entries"); //$NON-NLS-1$
+		this.maxSize = maxSize;
+		bodies.mkdirs();
+		entries.mkdirs();
+	}
+
+	/**
+	 * @return the number of retrieves delivered from the cache
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of retrieves that received a body from the network
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of body bytes delivered from the cache
+	 */
+	public long getBytesSaved() {
+		return bytesSaved.get();
+	}
+
+	/**
+	 * @param remoteFileID
+	 *            the file to retrieve
+	 * @param options
+	 *            the retrieve options, may be <code>null</code>
+	 * @param connectContext
+	 *            the connect context for authentication, may be
+	 *            <code>null</code>
+	 * @return true if a whole file retrieve of remoteFileID can go through the
+	 *         cache, false also if the request has credentials
+	 */
+	public boolean isCacheable(IFileID remoteFileID, Map options, IConnectContext connectContext) {
+		if (options != null && "false".equals(String.valueOf(options.get(CACHE_OPTION)))) //$NON-NLS-1$
+			return false;
+		// responses to authenticated requests may differ per user
+		if (connectContext != null)
+			return false;
+		for (String name : CREDENTIAL_HEADERS)
+			if (getRequestHeader(options, name) != null)
+				return false;
+		try {
+			URL url = remoteFileID.getURL();
+			if (url.getUserInfo() != null)
+				return false;
+			String protocol = url.getProtocol();
+			return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the value of the request header in the
+	 *         {@link IRetrieveFileTransferOptions#REQUEST_HEADERS} option, or
+	 *         <code>null</code>
+	 */
+	static String getRequestHeader(Map options, String name) {
+		Object o = (options == null) ? null : options.get(IRetrieveFileTransferOptions.REQUEST_HEADERS);
+		if (!(o instanceof Map))
+			return null;
+		for (Object e : ((Map) o).entrySet()) {
+			Map.Entry header = (Map.Entry) e;
+			if (name.equalsIgnoreCase(String.valueOf(header.getKey())))
+				return (header.getValue() == null) ? null : String.valueOf(header.getValue());
+		}
+		return null;
+	}
+
+	/**
+	 * Retrieves the whole file, from the cache if possible, otherwise through
+	 * fileTransfer, storing the body received.
+	 *
+	 * @param fileTransfer
+	 *            the transfer to use for network retrieves
+	 * @param remoteFileID
+	 *            the file to retrieve
+	 * @param transferListener
+	 *            the listener for the retrieve
+	 * @param options
+	 *            the retrieve options, may be <code>null</code>
+	 * @throws IncomingFileTransferException
+	 *             if thrown by fileTransfer
+	 */
+	public void sendRetrieveRequest(IRetrieveFileTransferContainerAdapter fileTransfer, IFileID remoteFileID, IFileTransferListener transferListener, Map options) throws IncomingFileTransferException {
+		String url;
+		try {
+			url = remoteFileID.getURL().toExternalForm();
+		} catch (MalformedURLException e) {
+			throw new IncomingFileTransferException(e);
+		}
+		Entry entry = lookup(url);
+		// a response that varies with request headers this request has other values of
+		if (entry != null && !entry.matches(options))
+			entry = null;
+		if (entry != null && entry.isFresh() && deliver(entry, remoteFileID, transferListener, options))
+			return;
+		Map requestOptions = options;
+		if (entry != null) {
+			if (entry.etag != null || entry.lastModified != null)
+				requestOptions = addConditionalHeaders(options, entry);
+			else
+				entry = null;
+		}
+		CachingListener listener = new CachingListener(fileTransfer, url, entry, remoteFileID, transferListener, options);
+		try {
+			fileTransfer.sendRetrieveRequest(remoteFileID, listener, requestOptions);
+		} catch (IncomingFileTransferException e) {
+			if (!listener.notModified(e))
+				throw e;
+		}
+	}
+
+	/**
+	 * Removes all entries and bodies.
+	 */
+	public synchronized void clear() {
+		delete(entries.listFiles());
+		delete(bodies.listFiles());
+	}
+
+	private static void delete(File[] files) {
+		if (files != null)
+			for (File f : files)
+				f.delete();
+	}
+
+	private static Map addConditionalHeaders(Map options, Entry entry) {
+		Map result = (options == null) ? new HashMap() : new HashMap(options);
+		Object o = result.get(IRetrieveFileTransferOptions.REQUEST_HEADERS);
+		Map headers = (o instanceof Map) ? new HashMap((Map) o) : new HashMap();
+		if (entry.etag != null)
+			headers.put("If-None-Match", entry.etag); //$NON-NLS-1$
+		if (entry.lastModified != null)
+			headers.put("If-Modified-Since", entry.lastModified); //$NON-NLS-1$
+		result.put(IRetrieveFileTransferOptions.REQUEST_HEADERS, headers);
+		return result;
+	}
+
+	/**
+	 * Delivers the entry's body to the listener.
+	 *
+	 * @return false if the body is no longer in the cache
+	 */
+	boolean deliver(Entry entry, IFileID remoteFileID, IFileTransferListener transferListener, Map options) throws IncomingFileTransferException {
+		File body = new File(bodies, entry.body);
+		InputStream in;
+		try {
+			in = new FileInputStream(body);
+		} catch (IOException e) {
+			return false;
+		}
+		body.setLastModified(System.currentTimeMillis());
+		hits.incrementAndGet();
+		bytesSaved.addAndGet(entry.size);
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("Content-Length", Long.toString(entry.size)); //$NON-NLS-1$
+		if (entry.etag != null)
+			headers.put(ETAG, entry.etag);
+		if (entry.lastModified != null)
+			headers.put(LAST_MODIFIED, entry.lastModified);
+		new CachedRetrieveFileTransfer(in, entry.size, entry.lastModifiedTime, headers).sendRetrieveRequest(remoteFileID, null, transferListener, options);
+		return true;
+	}
+
+	private File entryFile(String url) {
+		return new File(entries, toHex(digest().digest(url.getBytes(java.nio.charset.StandardCharsets.UTF_8))));
+	}
+
+	synchronized Entry lookup(String url) {
+		File f = entryFile(url);
+		if (!f.exists())
+			return null;
+		Properties p = new Properties();
+		try (InputStream in = new FileInputStream(f)) {
+			p.load(in);
+		} catch (IOException e) {
+			f.delete();
+			return null;
+		}
+		Entry entry = Entry.load(p);
+		if (entry == null || !url.equals(entry.url) || !new File(bodies, entry.body).exists()) {
+			f.delete();
+			return null;
+		}
+		return entry;
+	}
+
+	synchronized void save(Entry entry) {
+		File f = entryFile(entry.url);
+		File tmp = new File(entries, f.getName() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (OutputStream out = new FileOutputStream(tmp)) {
+				entry.toProperties().store(out, null);
+			}
+			Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			tmp.delete();
+			log("Could not save cache entry for " + entry.url, e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Moves a received body into the store under its digest and removes least
+	 * recently used bodies beyond the maximum size.
+	 */
+	synchronized void store(File tmp, byte[] digest, Entry entry) throws IOException {
+		entry.body = toHex(digest);
+		File body = new File(bodies, entry.body);
+		if (body.exists())
+			tmp.delete();
+		else
+			Files.move(tmp.toPath(), body.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		body.setLastModified(System.currentTimeMillis());
+		save(entry);
+		evict();
+	}
+
+	private void evict() {
+		File[] files = bodies.listFiles((dir, name) -> !name.endsWith(".tmp")); //$NON-NLS-1$
+		if (files == null)
+			return;
+		long total = 0;
+		for (File f : files)
+			total += f.length();
+		if (total <= maxSize)
+			return;
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (int i = 0; i < files.length && total > maxSize; i++) {
+			total -= files[i].length();
+			files[i].delete();
+		}
+	}
+
+	File createTempBody() throws IOException {
+		return File.createTempFile("body", ".tmp", bodies); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			// required of every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		return sb.toString();
+	}
+
+	static void log(String message, Throwable t) {
+		Activator a = Activator.getDefault();
+		if (a != null)
+			a.log(new Status(IStatus.WARNING, Activator.PLUGIN_ID, IStatus.WARNING, message, t));
+	}
+
+	static final class Entry {
+		String url;
+		String body;
+		long size;
+		String etag;
+		String lastModified;
+		long lastModifiedTime;
+		// the response time
+		long storedAt;
+		// ms, the corrected initial age of RFC 7234 section 4.2.3
+		long initialAge;
+		// seconds, -1 if the response must always be revalidated
+		long maxAge = -1;
+		// the Vary header of the response, and the values of the request
+		// headers it names, keyed by lower case name
+		String vary;
+		final Map<String, String> varyValues = new HashMap<String, String>();
+
+		long getAge(long now) {
+			return initialAge + Math.max(0, now - storedAt);
+		}
+
+		boolean isFresh() {
+			return maxAge >= 0 && getAge(System.currentTimeMillis()) < maxAge * 1000;
+		}
+
+		/**
+		 * @return true if the request headers named by Vary have the same values
+		 *         in options as in the request the entry was stored for
+		 */
+		boolean matches(Map options) {
+			if (vary == null)
+				return true;
+			StringTokenizer names = new StringTokenizer(vary, ","); //$NON-NLS-1$
+			while (names.hasMoreTokens()) {
+				String name = names.nextToken().trim().toLowerCase();
+				String value = getRequestHeader(options, name);
+				if (value == null ? varyValues.get(name) != null : !value.equals(varyValues.get(name)))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Updates the validators, freshness and age from response headers.
+		 *
+		 * @param headers
+		 *            the response headers
+		 * @param requestTime
+		 *            the time the request was sent
+		 * @param options
+		 *            the options of the request, with its request headers
+		 * @return false if the response must not be stored
+		 */
+		boolean update(Map<?, ?> headers, long requestTime, Map options) {
+			storedAt = System.currentTimeMillis();
+			// RFC 7234 section 4.2.3
+			long apparentAge = 0;
+			long date = parseDate(HttpHelper.getResponseHeader(headers, DATE));
+			if (date > 0)
+				apparentAge = Math.max(0, storedAt - date);
+			long ageValue = 0;
+			String value = HttpHelper.getResponseHeader(headers, AGE);
+			if (value != null) {
+				try {
+					ageValue = Math.max(0, Long.parseLong(value.trim())) * 1000;
+				} catch (NumberFormatException e) {
+					// ignored, as required
+				}
+			}
+			initialAge = Math.max(apparentAge, ageValue + Math.max(0, storedAt - requestTime));
+			value = HttpHelper.getResponseHeader(headers, VARY);
+			if (value != null) {
+				if (value.trim().equals("*")) //$NON-NLS-1$
+					return false;
+				vary = value;
+				varyValues.clear();
+				StringTokenizer names = new StringTokenizer(value, ","); //$NON-NLS-1$
+				while (names.hasMoreTokens()) {
+					String name = names.nextToken().trim().toLowerCase();
+					String requestValue = getRequestHeader(options, name);
+					if (requestValue != null)
+						varyValues.put(name, requestValue);
+				}
+			}
+			value = HttpHelper.getResponseHeader(headers, ETAG);
+			if (value != null)
+				etag = value;
+			value = HttpHelper.getResponseHeader(headers, LAST_MODIFIED);
+			if (value != null)
+				lastModified = value;
+			value = HttpHelper.getResponseHeader(headers, CACHE_CONTROL);
+			if (value != null) {
+				maxAge = -1;
+				StringTokenizer tokens = new StringTokenizer(value, ","); //$NON-NLS-1$
+				while (tokens.hasMoreTokens()) {
+					String directive = tokens.nextToken().trim().toLowerCase();
+					if (directive.equals("no-store")) //$NON-NLS-1$
+						return false;
+					if (directive.equals("no-cache")) { //$NON-NLS-1$
+						maxAge = -1;
+						break;
+					}
+					if (directive.startsWith("max-age=")) { //$NON-NLS-1$
+						try {
+							maxAge = Long.parseLong(directive.substring(8).trim());
+						} catch (NumberFormatException e) {
+							maxAge = -1;
+						}
+					}
+				}
+			}
+			return etag != null || lastModified != null || maxAge > 0;
+		}
+
+		Properties toProperties() {
+			Properties p = new Properties();
+			p.setProperty("url", url); //$NON-NLS-1$
+			p.setProperty("body", body); //$NON-NLS-1$
+			p.setProperty("size", Long.toString(size)); //$NON-NLS-1$
+			if (etag != null)
+				p.setProperty("etag", etag); //$NON-NLS-1$
+			if (lastModified != null)
+				p.setProperty("lastModified", lastModified); //$NON-NLS-1$
+			p.setProperty("lastModifiedTime", Long.toString(lastModifiedTime)); //$NON-NLS-1$
+			p.setProperty("storedAt", Long.toString(storedAt)); //$NON-NLS-1$
+			p.setProperty("initialAge", Long.toString(initialAge)); //$NON-NLS-1$
+			p.setProperty("maxAge", Long.toString(maxAge)); //$NON-NLS-1$
+			if (vary != null) {
+				p.setProperty("vary", vary); //$NON-NLS-1$
+				for (Map.Entry<String, String> v : varyValues.entrySet())
+					p.setProperty("vary." + v.getKey(), v.getValue()); //$NON-NLS-1$
+			}
+			return p;
+		}
+
+		static Entry load(Properties p) {
+			Entry e = new Entry();
+			e.url = p.getProperty("url"); //$NON-NLS-1$
+			e.body = p.getProperty("body"); //$NON-NLS-1$
+			if (e.url == null || e.body == null)
+				return null;
+			try {
+				e.size = Long.parseLong(p.getProperty("size", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+				e.lastModifiedTime = Long.parseLong(p.getProperty("lastModifiedTime", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+				e.storedAt = Long.parseLong(p.getProperty("storedAt", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+				e.initialAge = Long.parseLong(p.getProperty("initialAge", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+				e.maxAge = Long.parseLong(p.getProperty("maxAge", "-1")); //$NON-NLS-1$ //$NON-NLS-2$
+			} catch (NumberFormatException ex) {
+				return null;
+			}
+			e.etag = p.getProperty("etag"); //$NON-NLS-1$
+			e.lastModified = p.getProperty("lastModified"); //$NON-NLS-1$
+			e.vary = p.getProperty("vary"); //$NON-NLS-1$
+			for (String name : p.stringPropertyNames())
+				if (name.startsWith("vary.")) //$NON-NLS-1$
+					e.varyValues.put(name.substring(5), p.getProperty(name));
+			return e;
+		}
+
+		/**
+		 * @return the time of an HTTP-date, or 0 if value is <code>null</code>
+		 *         or not an HTTP-date
+		 */
+		static long parseDate(String value) {
+			if (value == null)
+				return 0;
+			try {
+				return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+			} catch (DateTimeParseException e) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Passes events on to the listener, storing the body received on success
+	 * and answering a 304 response to a conditional request from the cache.
+	 */
+	private class CachingListener implements IFileTransferListener {
+
+		private final IRetrieveFileTransferContainerAdapter fileTransfer;
+		private final String url;
+		private final Entry stale;
+		private final IFileID remoteFileID;
+		private final IFileTransferListener delegate;
+		private final Map options;
+		private final long requestTime = System.currentTimeMillis();
+
+		private Entry received;
+		// the listener's file, copied into the cache when done
+		private File file;
+		// the copy of the listener's stream
+		private File tmp;
+		private DigestOutputStream tmpOut;
+
+		CachingListener(IRetrieveFileTransferContainerAdapter fileTransfer, String url, Entry stale, IFileID remoteFileID, IFileTransferListener delegate, Map options) {
+			this.fileTransfer = fileTransfer;
+			this.url = url;
+			this.stale = stale;
+			this.remoteFileID = remoteFileID;
+			this.delegate = delegate;
+			this.options = options;
+		}
+
+		public void handleTransferEvent(IFileTransferEvent event) {
+			if (event instanceof IIncomingFileTransferReceiveStartEvent) {
+				IIncomingFileTransferReceiveStartEvent start = (IIncomingFileTransferReceiveStartEvent) event;
+				misses.incrementAndGet();
+				Entry entry = new Entry();
+				entry.url = url;
+				if (entry.update(start.getResponseHeaders(), requestTime, options)) {
+					received = entry;
+					event = new CachingStartEvent(start);
+				}
+			} else if (event instanceof IIncomingFileTransferReceivePausedEvent) {
+				// a resumed stream is not received from the start
+				discardCopy();
+			} else if (event instanceof IIncomingFileTransferReceiveDoneEvent) {
+				IIncomingFileTransferReceiveDoneEvent done = (IIncomingFileTransferReceiveDoneEvent) event;
+				if (done.getException() == null)
+					store(done.getSource());
+				else {
+					discardCopy();
+					if (received == null && notModified(done.getException()))
+						return;
+				}
+			}
+			delegate.handleTransferEvent(event);
+		}
+
+		/**
+		 * Answers a 304 response from the cache.
+		 *
+		 * @return true if answered, false if e is not a 304 response to a
+		 *         conditional request
+		 */
+		boolean notModified(Exception e) {
+			if (stale == null || !(e instanceof IncomingFileTransferException) || ((IncomingFileTransferException) e).getErrorCode() != HTTP_NOT_MODIFIED)
+				return false;
+			try {
+				if (stale.update(((IncomingFileTransferException) e).getResponseHeaders(), requestTime, options))
+					save(stale);
+				if (deliver(stale, remoteFileID, delegate, options))
+					return true;
+				// evicted since the request, retrieve it again
+				fileTransfer.sendRetrieveRequest(remoteFileID, new CachingListener(fileTransfer, url, null, remoteFileID, delegate, options), options);
+				return true;
+			} catch (IncomingFileTransferException ex) {
+				log("Could not retrieve " + url, ex); //$NON-NLS-1$
+				return false;
+			}
+		}
+
+		private void store(IIncomingFileTransfer source) {
+			if (received == null)
+				return;
+			try {
+				byte[] digest;
+				if (file != null) {
+					MessageDigest md = digest();
+					tmp = createTempBody();
+					try (InputStream in = new FileInputStream(file); OutputStream out = new DigestOutputStream(new FileOutputStream(tmp), md)) {
+						in.transferTo(out);
+					}
+					digest = md.digest();
+				} else if (tmpOut != null) {
+					tmpOut.close();
+					digest = tmpOut.getMessageDigest().digest();
+				} else
+					return;
+				received.size = tmp.length();
+				if (source.getRemoteLastModified() != null)
+					received.lastModifiedTime = source.getRemoteLastModified().getTime();
+				RetrieveFileCache.this.store(tmp, digest, received);
+			} catch (IOException e) {
+				log("Could not store " + url + " in cache", e); //$NON-NLS-1$ //$NON-NLS-2$
+			} finally {
+				if (tmp != null)
+					tmp.delete();
+				tmp = null;
+				tmpOut = null;
+			}
+		}
+
+		private void discardCopy() {
+			received = null;
+			if (tmpOut != null) {
+				try {
+					tmpOut.close();
+				} catch (IOException e) {
+					// deleted anyway
+				}
+				tmpOut = null;
+			}
+			if (tmp != null)
+				tmp.delete();
+			tmp = null;
+		}
+
+		/**
+		 * Writes everything written to the listener's stream to a copy too. A
+		 * failing copy is dropped without failing the transfer.
+		 */
+		OutputStream copying(OutputStream streamToStore) throws IOException {
+			tmp = createTempBody();
+			tmpOut = new DigestOutputStream(new FileOutputStream(tmp), digest());
+			return new FilterOutputStream(streamToStore) {
+				public void write(int b) throws IOException {
+					out.write(b);
+					if (tmpOut != null) {
+						try {
+							tmpOut.write(b);
+						} catch (IOException e) {
+							discardCopy();
+						}
+					}
+				}
+
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					if (tmpOut != null) {
+						try {
+							tmpOut.write(b, off, len);
+						} catch (IOException e) {
+							discardCopy();
+						}
+					}
+				}
+			};
+		}
+
+		private class CachingStartEvent implements IIncomingFileTransferReceiveStartEvent {
+
+			private final IIncomingFileTransferReceiveStartEvent start;
+
+			CachingStartEvent(IIncomingFileTransferReceiveStartEvent start) {
+				this.start = start;
+			}
+
+			public IIncomingFileTransfer getSource() {
+				return start.getSource();
+			}
+
+			public IFileID getFileID() {
+				return start.getFileID();
+			}
+
+			public IIncomingFileTransfer receive(File localFileToSave) throws IOException {
+				file = localFileToSave;
+				return start.receive(localFileToSave);
+			}
+
+			public IIncomingFileTransfer receive(File localFileToSave, FileTransferJob fileTransferJob) throws IOException {
+				file = localFileToSave;
+				return start.receive(localFileToSave, fileTransferJob);
+			}
+
+			public IIncomingFileTransfer receive(OutputStream streamToStore) throws IOException {
+				return start.receive(copying(streamToStore));
+			}
+
+			public IIncomingFileTransfer receive(OutputStream streamToStore, FileTransferJob fileTransferJob) throws IOException {
+				return start.receive(copying(streamToStore), fileTransferJob);
+			}
+
+			public void cancel() {
+				start.cancel();
+			}
+
+			public Map getResponseHeaders() {
+				return start.getResponseHeaders();
+			}
+
+			public String toString() {
+				return start.toString();
+			}
+		}
+	}
+}
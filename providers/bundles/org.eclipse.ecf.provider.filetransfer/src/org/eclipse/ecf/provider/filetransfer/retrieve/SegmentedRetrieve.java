@@ -0,0 +1,338 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.filetransfer.retrieve;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.ecf.filetransfer.UserCancelledException;
+import org.eclipse.ecf.internal.provider.filetransfer.Activator;
+import org.eclipse.ecf.internal.provider.filetransfer.Messages;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Retrieves a file over several concurrent range requests, each written to
+ * its own region of the local file. The first segment is read from the
+ * response that started the transfer, the others from streams opened with
+ * {@link AbstractRetrieveFileTransfer#openSegmentStream(long, long)}. A
+ * segment that fails is reopened from where it stopped, and a paused transfer
+ * resumes every segment from its own position.
+ * <p>
+ * Progress is summed and reported from the transfer job's thread, so the
+ * listener sees the usual data events, one at most every
+ * {@link #PROGRESS_INTERVAL} ms.
+ */
+class SegmentedRetrieve {
+
+	static final String SEGMENTS_OPTION = "org.eclipse.ecf.provider.filetransfer.retrieve.segments"; //$NON-NLS-1$
+
+	static final String MIN_SEGMENT_SIZE_OPTION = "org.eclipse.ecf.provider.filetransfer.retrieve.minSegmentSize"; //$NON-NLS-1$
+
+	private static final int SEGMENTS = Integer.getInteger(SEGMENTS_OPTION, 1).intValue();
+
+	private static final long MIN_SEGMENT_SIZE = Long.getLong(MIN_SEGMENT_SIZE_OPTION, 1024 * 1024).longValue();
+
+	// consecutive failed attempts after which a segment fails the transfer
+	private static final int SEGMENT_ATTEMPTS = 3;
+
+	private static final long PROGRESS_INTERVAL = 250;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "Segmented retrieve"); //$NON-NLS-1$
+		t.setDaemon(true);
+		return t;
+	});
+
+	private static final class Segment {
+		final long start;
+		// inclusive
+		final long end;
+		// next byte to receive, only written by the segment's worker
+		volatile long position;
+		// stream being read, guarded by the segment
+		InputStream in;
+
+		Segment(long start, long end) {
+			this.start = start;
+			this.end = end;
+			this.position = start;
+		}
+
+		boolean isComplete() {
+			return position > end;
+		}
+	}
+
+	private final AbstractRetrieveFileTransfer transfer;
+
+	private final Segment[] segments;
+
+	private FileChannel channel;
+
+	// whether the first segment may still read the initial response
+	private boolean initial = true;
+
+	private volatile boolean stopped;
+
+	private volatile Exception failure;
+
+	private SegmentedRetrieve(AbstractRetrieveFileTransfer transfer, int count) {
+		this.transfer = transfer;
+		this.segments = new Segment[count];
+		long size = transfer.fileLength / count;
+		for (int i = 0; i < count; i++) {
+			long start = i * size;
+			long end = (i == count - 1) ? transfer.fileLength - 1 : start + size - 1;
+			segments[i] = new Segment(start, end);
+		}
+	}
+
+	/**
+	 * @return a segmented retrieve for the transfer, or <code>null</code> if
+	 *         segments are not enabled or the response does not allow them
+	 */
+	static SegmentedRetrieve create(AbstractRetrieveFileTransfer transfer) {
+		Map<?, ?> options = transfer.getOptions();
+		int count = (int) getOption(options, SEGMENTS_OPTION, SEGMENTS);
+		long minSize = Math.max(getOption(options, MIN_SEGMENT_SIZE_OPTION, MIN_SEGMENT_SIZE), 1);
+		if (count < 2 || !transfer.supportsSegments() || transfer.getFileRangeSpecification() != null)
+			return null;
+		if (transfer.fileLength < 2 * minSize)
+			return null;
+		String acceptRanges = HttpHelper.getResponseHeader(transfer.responseHeaders, "Accept-Ranges"); //$NON-NLS-1$
+		if (acceptRanges == null || !acceptRanges.toLowerCase().contains("bytes")) //$NON-NLS-1$
+			return null;
+		// ranges of an encoded body do not address the file
+		String contentEncoding = HttpHelper.getResponseHeader(transfer.responseHeaders, "Content-Encoding"); //$NON-NLS-1$
+		if (contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity")) //$NON-NLS-1$
+			return null;
+		return new SegmentedRetrieve(transfer, (int) Math.min(count, transfer.fileLength / minSize));
+	}
+
+	private static long getOption(Map<?, ?> options, String key, long defaultValue) {
+		Object o = (options == null) ? null : options.get(key);
+		if (o instanceof Number)
+			return ((Number) o).longValue();
+		if (o instanceof String)
+			return Long.parseLong((String) o);
+		return defaultValue;
+	}
+
+	/**
+	 * Opens the local file for the segments to write to.
+	 *
+	 * @param file
+	 *            the local file
+	 * @param resume
+	 *            <code>true</code> to keep the data already received,
+	 *            <code>false</code> to truncate the file
+	 */
+	void open(File file, boolean resume) throws IOException {
+		if (resume)
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		else
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	IStatus performFileTransfer(IProgressMonitor monitor) {
+		transfer.transferStartTime = System.currentTimeMillis();
+		final long totalWork = transfer.fileLength;
+		double factor = (totalWork > Integer.MAX_VALUE) ? (((double) Integer.MAX_VALUE) / ((double) totalWork)) : 1.0;
+		int work = (totalWork > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) totalWork;
+		monitor.beginTask(transfer.getRemoteFileURL().toString() + Messages.AbstractRetrieveFileTransfer_Progress_Data, work);
+		long reported = transfer.bytesReceived;
+		monitor.worked((int) Math.round(factor * reported));
+		stopped = false;
+		failure = null;
+		try {
+			if (channel == null)
+				throw new IOException("output file cannot be null"); //$NON-NLS-1$
+			final CountDownLatch finished = new CountDownLatch(segments.length);
+			for (int i = 0; i < segments.length; i++) {
+				final Segment segment = segments[i];
+				final InputStream in = (i == 0 && initial) ? transfer.remoteFileContents : null;
+				executor.execute(() -> {
+					try {
+						receive(segment, in);
+					} catch (final RuntimeException e) {
+						failure = e;
+					} finally {
+						finished.countDown();
+					}
+				});
+			}
+			initial = false;
+			while (!finished.await(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS)) {
+				reported = reportProgress(reported, factor, monitor);
+				if (monitor.isCanceled())
+					throw new UserCancelledException(Messages.AbstractRetrieveFileTransfer_Exception_User_Cancelled);
+				if (failure != null || transfer.isDone() || transfer.isPaused())
+					break;
+			}
+			stop();
+			finished.await();
+			reportProgress(reported, factor, monitor);
+			if (failure != null)
+				throw failure;
+			if (!transfer.isPaused() && !transfer.isDone()) {
+				if (!isComplete())
+					throw new IOException("Segments incomplete"); //$NON-NLS-1$
+				transfer.setDone(true);
+			}
+		} catch (final Exception e) {
+			if (!transfer.isDone())
+				transfer.setDoneException(e);
+		} finally {
+			stop();
+			try {
+				if (channel != null)
+					channel.close();
+			} catch (final IOException e) {
+				Activator.getDefault().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, IStatus.ERROR, String.format("close url=%s", transfer.remoteFileURL), e)); //$NON-NLS-1$
+			}
+			channel = null;
+			monitor.done();
+			try {
+				if (transfer.isPaused())
+					transfer.fireTransferReceivePausedEvent();
+				else
+					transfer.fireTransferReceiveDoneEvent();
+			} catch (Exception e) {
+				// simply log
+				Activator a = Activator.getDefault();
+				if (a != null)
+					a.log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, IStatus.ERROR, Messages.AbstractRetrieveFileTransfer_EXCEPTION_IN_FINALLY, e));
+			}
+		}
+		return transfer.getFinalStatus(transfer.exception);
+	}
+
+	private boolean isComplete() {
+		for (Segment segment : segments)
+			if (!segment.isComplete())
+				return false;
+		return true;
+	}
+
+	private long reportProgress(long reported, double factor, IProgressMonitor monitor) {
+		long received = 0;
+		for (Segment segment : segments)
+			received += segment.position - segment.start;
+		if (received <= reported)
+			return reported;
+		synchronized (transfer) {
+			transfer.bytesReceived = received;
+			transfer.downloadRateBytesPerSecond = (received / ((System.currentTimeMillis() + 1 - transfer.transferStartTime) / 1000.0));
+			monitor.setTaskName(transfer.createJobName() + Messages.AbstractRetrieveFileTransfer_Progress_Data + NLS.bind(Messages.AbstractRetrieveFileTransfer_InfoTransferRate, AbstractRetrieveFileTransfer.toHumanReadableBytes(transfer.downloadRateBytesPerSecond)));
+			monitor.worked((int) Math.round(factor * (received - reported)));
+			transfer.fireTransferReceiveDataEvent();
+		}
+		return received;
+	}
+
+	/**
+	 * Stops the workers, closing their streams to unblock reads. The initial
+	 * response is released by {@link AbstractRetrieveFileTransfer#hardClose()}
+	 * rather than closed, which could read the rest of the file.
+	 */
+	private void stop() {
+		if (stopped)
+			return;
+		stopped = true;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				if (segment.in != null)
+					closeQuietly(segment.in);
+			}
+		}
+		transfer.hardClose();
+	}
+
+	/**
+	 * Runs on a worker thread until the segment is complete, the transfer is
+	 * stopped, or the segment has failed {@link #SEGMENT_ATTEMPTS} times in a
+	 * row.
+	 */
+	private void receive(Segment segment, InputStream initialStream) {
+		final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+		InputStream in = initialStream;
+		int attempts = 0;
+		try {
+			while (!segment.isComplete()) {
+				if (stopped || transfer.isDone())
+					return;
+				try {
+					if (in == null) {
+						in = transfer.openSegmentStream(segment.position, segment.end);
+						synchronized (segment) {
+							segment.in = in;
+						}
+						if (stopped)
+							return;
+					}
+					int n = in.read(buf.array(), 0, (int) Math.min(BUFFER_SIZE, segment.end - segment.position + 1));
+					if (n == -1)
+						throw new EOFException(NLS.bind("Segment ended at {0}", Long.valueOf(segment.position))); //$NON-NLS-1$
+					buf.position(0).limit(n);
+					long position = segment.position;
+					while (buf.hasRemaining())
+						position += channel.write(buf, position);
+					segment.position = position;
+					attempts = 0;
+				} catch (final IOException e) {
+					if (stopped || transfer.isDone())
+						return;
+					// the initial response is released by hardClose
+					if (in != initialStream)
+						closeQuietly(in);
+					synchronized (segment) {
+						segment.in = null;
+					}
+					in = null;
+					if (++attempts >= SEGMENT_ATTEMPTS) {
+						failure = e;
+						return;
+					}
+				}
+			}
+		} finally {
+			synchronized (segment) {
+				segment.in = null;
+			}
+			if (in != null && in != initialStream)
+				closeQuietly(in);
+		}
+	}
+
+	private static void closeQuietly(InputStream in) {
+		try {
+			in.close();
+		} catch (final IOException e) {
+			// the segment is reopened or the transfer ends anyway
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *   Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.filetransfer.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Wraps an input stream to abort reads that block for too long, without a
+ * thread per stream. Reads run on the caller's thread. A single watchdog
+ * thread, shared by all instances, checks once a second for reads that have
+ * blocked longer than the stall timeout, or whose progress monitor has been
+ * cancelled, and closes the underlying stream to unblock them.
+ * <p>
+ * The aborted read and all later reads and skips throw an
+ * InterruptedIOException, so a {@link PollingInputStream} on top gives up at
+ * once. Unlike {@link TimeoutInputStream}, a read is not resumable after it
+ * has been aborted. InterruptedIOExceptions thrown by the underlying stream
+ * itself, such as socket read timeouts, are passed on and the read may be
+ * retried.
+ *
+ * @since 3.4
+ */
+public class WatchdogInputStream extends FilterInputStream {
+
+	/**
+	 * Closes streams for the watchdog and for background closes, so that a
+	 * close that blocks does not hold up the watchdog or the caller.
+	 */
+	static final ExecutorService closer = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "WatchdogInputStream closer"); //$NON-NLS-1$
+		t.setDaemon(true);
+		return t;
+	});
+
+	private static final Watchdog watchdog = new Watchdog();
+
+	private final long stallTimeoutNanos;
+	private final long closeTimeout;
+	private volatile IProgressMonitor monitor;
+
+	// System.nanoTime() when the current read started, 0 if not reading
+	private volatile long readStart;
+	private volatile boolean aborted;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a watchdog wrapper for an input stream.
+	 *
+	 * @param in
+	 *            the underlying input stream
+	 * @param stallTimeout
+	 *            the number of milliseconds a single read() or skip() may
+	 *            block before the stream is aborted; 0 blocks indefinitely
+	 * @param closeTimeout
+	 *            the number of milliseconds to block for a close() before
+	 *            throwing an InterruptedIOException; 0 blocks indefinitely, -1
+	 *            closes the stream in the background
+	 */
+	public WatchdogInputStream(InputStream in, long stallTimeout, long closeTimeout) {
+		super(in);
+		this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeout);
+		this.closeTimeout = closeTimeout;
+		watchdog.add(this);
+	}
+
+	/**
+	 * Sets a progress monitor whose cancellation aborts a blocked read.
+	 *
+	 * @param monitor
+	 *            the monitor to check, or <code>null</code>
+	 */
+	public void setCancelMonitor(IProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	public int read() throws IOException {
+		begin();
+		try {
+			return in.read();
+		} catch (IOException e) {
+			throw checkAborted(e);
+		} finally {
+			readStart = 0;
+		}
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		begin();
+		try {
+			return in.read(b, off, len);
+		} catch (IOException e) {
+			throw checkAborted(e);
+		} finally {
+			readStart = 0;
+		}
+	}
+
+	public long skip(long n) throws IOException {
+		begin();
+		try {
+			return in.skip(n);
+		} catch (IOException e) {
+			throw checkAborted(e);
+		} finally {
+			readStart = 0;
+		}
+	}
+
+	public int available() throws IOException {
+		if (aborted)
+			return 0;
+		return in.available();
+	}
+
+	/**
+	 * Mark is not supported by the wrapper even if the underlying stream does,
+	 * returns false.
+	 */
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Closes the underlying stream, waiting at most closeTimeout for it.
+	 *
+	 * @throws InterruptedIOException
+	 *             if the timeout expired, the stream is then closed in the
+	 *             background
+	 * @throws IOException
+	 *             if an i/o error occurs
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed)
+				return;
+			closed = true;
+		}
+		watchdog.remove(this);
+		if (aborted)
+			// closed by the watchdog already
+			return;
+		if (closeTimeout == 0) {
+			in.close();
+			return;
+		}
+		Future<?> f = closer.submit(() -> {
+			in.close();
+			return null;
+		});
+		if (closeTimeout == -1)
+			return;
+		try {
+			f.get(closeTimeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new InterruptedIOException();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	private void begin() throws IOException {
+		if (aborted)
+			throw new InterruptedIOException();
+		long now = System.nanoTime();
+		readStart = (now == 0) ? 1 : now;
+	}
+
+	private IOException checkAborted(IOException e) {
+		if (aborted && !(e instanceof InterruptedIOException))
+			return new InterruptedIOException();
+		return e;
+	}
+
+	/**
+	 * Called by the watchdog thread.
+	 */
+	void check(long now) {
+		long start = readStart;
+		if (start == 0 || aborted)
+			return;
+		IProgressMonitor m = monitor;
+		if ((stallTimeoutNanos > 0 && now - start > stallTimeoutNanos) || (m != null && m.isCanceled())) {
+			aborted = true;
+			watchdog.remove(this);
+			closer.execute(() -> {
+				try {
+					in.close();
+				} catch (IOException e) {
+					// the read fails anyway
+				}
+			});
+		}
+	}
+
+	private static final class Watchdog implements Runnable {
+
+		private static final long TICK = 1000;
+
+		private final Set<WatchdogInputStream> streams = ConcurrentHashMap.newKeySet();
+
+		private Thread thread;
+
+		void add(WatchdogInputStream stream) {
+			streams.add(stream);
+			synchronized (this) {
+				if (thread == null) {
+					thread = new Thread(this, "WatchdogInputStream"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					thread.start();
+				}
+			}
+		}
+
+		void remove(WatchdogInputStream stream) {
+			streams.remove(stream);
+		}
+
+		public void run() {
+			while (true) {
+				try {
+					Thread.sleep(TICK);
+				} catch (InterruptedException e) {
+					// continue until no streams are left
+				}
+				long now = System.nanoTime();
+				for (WatchdogInputStream stream : streams)
+					stream.check(now);
+				synchronized (this) {
+					if (streams.isEmpty()) {
+						thread = null;
+						return;
+					}
+				}
+			}
+		}
+	}
+}
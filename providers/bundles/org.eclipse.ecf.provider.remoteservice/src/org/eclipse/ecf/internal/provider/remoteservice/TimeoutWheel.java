@@ -0,0 +1,192 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.internal.provider.remoteservice;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Hashed timer wheel for remote call timeouts.  Scheduling and cancelling are
+ * O(1), so thousands of outstanding calls cost one thread and one entry each,
+ * and cancelled entries are dropped when the wheel reaches them.  Timeouts
+ * expire on the wheel thread with tick granularity, and their tasks are handed
+ * to the executor given to the constructor, so a task that blocks does not
+ * delay other timeouts.  The wheel thread exits when no timeouts are
+ * outstanding and is restarted on the next {@link #schedule(Runnable, long)}.
+ */
+public class TimeoutWheel {
+
+	public interface Timeout {
+		/**
+		 * @return <code>true</code> if cancelled before the task ran
+		 */
+		boolean cancel();
+	}
+
+	private static final class Entry implements Timeout {
+		final Runnable task;
+		final long deadline;
+		long rounds;
+		// 0 = pending, 1 = cancelled, 2 = expired
+		final AtomicInteger state = new AtomicInteger();
+
+		Entry(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		public boolean cancel() {
+			return state.compareAndSet(0, 1);
+		}
+	}
+
+	private final String name;
+	private final Executor executor;
+	private final long tickMillis;
+	private final List<Entry>[] buckets;
+	private final int mask;
+	private final Queue<Entry> added = new ConcurrentLinkedQueue<Entry>();
+	// entries added and not yet removed from the wheel
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	private Thread worker;
+	private long startTime;
+
+	/**
+	 * @param name the name of the wheel thread
+	 * @param tickMillis the tick length in ms
+	 * @param ticksPerWheel the number of buckets, rounded up to a power of two
+	 * @param executor runs the tasks of expired timeouts.  Must not be <code>null</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimeoutWheel(String name, long tickMillis, int ticksPerWheel, Executor executor) {
+		this.name = name;
+		this.executor = executor;
+		this.tickMillis = tickMillis;
+		int size = 1;
+		while (size < ticksPerWheel)
+			size <<= 1;
+		this.buckets = new List[size];
+		for (int i = 0; i < size; i++)
+			buckets[i] = new LinkedList<Entry>();
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Run task once delayMillis have elapsed, unless cancelled first.
+	 * @param task the task to run on the executor.  Must not be <code>null</code>.
+	 * @param delayMillis the delay in ms
+	 * @return Timeout handle to cancel the task
+	 */
+	public Timeout schedule(Runnable task, long delayMillis) {
+		outstanding.incrementAndGet();
+		synchronized (this) {
+			if (worker == null) {
+				startTime = System.nanoTime() / 1000000L;
+				worker = new Thread(new Runnable() {
+					public void run() {
+						runWheel();
+					}
+				}, name);
+				worker.setDaemon(true);
+				worker.start();
+			}
+			final Entry e = new Entry(task, System.nanoTime() / 1000000L - startTime + Math.max(delayMillis, 0));
+			added.add(e);
+			return e;
+		}
+	}
+
+	void runWheel() {
+		long tick = 0;
+		while (true) {
+			// wait for the end of the current tick
+			final long tickEnd = (tick + 1) * tickMillis;
+			long now;
+			while ((now = System.nanoTime() / 1000000L - startTime) < tickEnd) {
+				try {
+					Thread.sleep(tickEnd - now);
+				} catch (InterruptedException e) {
+					// continue until no timeouts are outstanding
+				}
+			}
+			transferAdded(tick);
+			expire(buckets[(int) (tick & mask)], now);
+			tick++;
+			if (outstanding.get() == 0) {
+				synchronized (this) {
+					if (outstanding.get() == 0) {
+						worker = null;
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private void transferAdded(long tick) {
+		Entry e;
+		while ((e = added.poll()) != null) {
+			if (e.state.get() == 1) {
+				outstanding.decrementAndGet();
+				continue;
+			}
+			final long expireTick = Math.max(e.deadline / tickMillis, tick);
+			e.rounds = (expireTick - tick) / buckets.length;
+			buckets[(int) (expireTick & mask)].add(e);
+		}
+	}
+
+	private void fire(final Runnable task) {
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						task.run();
+					} catch (final Throwable t) {
+						log(t);
+					}
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			log(e);
+		}
+	}
+
+	private static void log(Throwable t) {
+		final Activator a = Activator.getDefault();
+		if (a != null)
+			a.log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Exception in timeout task", t)); //$NON-NLS-1$
+	}
+
+	private void expire(List<Entry> bucket, long now) {
+		for (final Iterator<Entry> i = bucket.iterator(); i.hasNext();) {
+			final Entry e = i.next();
+			if (e.state.get() == 1) {
+				i.remove();
+				outstanding.decrementAndGet();
+			} else if (e.rounds <= 0 && e.deadline <= now) {
+				i.remove();
+				outstanding.decrementAndGet();
+				if (e.state.compareAndSet(0, 2))
+					fire(e.task);
+			} else if (e.rounds > 0)
+				e.rounds--;
+		}
+	}
+}
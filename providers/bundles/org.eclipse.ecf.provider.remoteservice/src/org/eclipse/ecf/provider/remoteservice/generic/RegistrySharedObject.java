@@ -16,6 +16,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.*;
 import org.eclipse.ecf.core.ContainerConnectException;
 import org.eclipse.ecf.core.events.*;
@@ -29,6 +38,9 @@ import org.eclipse.ecf.core.util.*;
 import org.eclipse.ecf.core.util.reflection.ClassUtil;
 import org.eclipse.ecf.internal.provider.remoteservice.Activator;
 import org.eclipse.ecf.internal.provider.remoteservice.IRemoteServiceProviderDebugOptions;
+import org.eclipse.ecf.internal.provider.remoteservice.TimeoutWheel;
+import org.eclipse.ecf.provider.generic.IStreamableSharedObjectMessage;
+import org.eclipse.ecf.provider.generic.IStreamableSharedObjectMessageReader;
 import org.eclipse.ecf.remoteservice.*;
 import org.eclipse.ecf.remoteservice.asyncproxy.AsyncReturnUtil;
 import org.eclipse.ecf.remoteservice.events.*;
@@ -38,7 +50,7 @@ import org.eclipse.osgi.framework.eventmgr.*;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceException;
 
-public class RegistrySharedObject extends BaseSharedObject implements IRemoteServiceContainerAdapter {
+public class RegistrySharedObject extends BaseSharedObject implements IRemoteServiceContainerAdapter, IStreamableSharedObjectMessageReader {
 
 	/**
 	 * @since 3.3
@@ -81,9 +93,30 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	protected int addRegistrationRequestTimeout = ADD_REGISTRATION_REQUEST_TIMEOUT;
 	/**
 	 * List of invocation requests...instances of Request
+	 * @deprecated No longer maintained and always empty.  Outstanding requests
+	 * are kept by request id; use {@link #addRequest(Request)},
+	 * {@link #getRequest(long)} and {@link #removeRequest(Request)} instead.
 	 */
 	@SuppressWarnings("unchecked")
 	protected List requests = Collections.synchronizedList(new ArrayList());
+	/**
+	 * Outstanding invocation requests.  key:  Long (Request id), value: Request
+	 */
+	private final ConcurrentMap<Long, Request> pendingRequests = new ConcurrentHashMap<Long, Request>();
+
+	/**
+	 * Timeouts for requests with an IRemoteCallListener, shared by all instances.
+	 * Listeners are notified of timeouts on a cached pool, not the wheel thread.
+	 */
+	private static final TimeoutWheel requestTimeouts = new TimeoutWheel("RSRegistry Request Timeouts", 50, 512, new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() { //$NON-NLS-1$
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable r) {
+			final Thread t = new Thread(r, "RSRegistry Request Timeout-" + count.incrementAndGet()); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	}));
 
 	/**
 	 * Connect context to be used for connect.
@@ -130,7 +163,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	private Hashtable pendingUpdateContainers = new Hashtable();
 	private List registryUpdateRequests = new ArrayList();
 
-	// system property allowing the executorType to be configured.  Currently types are:  jobs, threads, immediate.
+	// system property allowing the executorType to be configured.  Currently types are:  jobs (default), pool, threads, immediate.
 	private static final String DEFAULT_EXECUTOR_TYPE = System.getProperty("org.eclipse.ecf.provider.remoteservice.executorType", "jobs"); //$NON-NLS-1$ //$NON-NLS-2$
 
 	private IExecutor requestExecutor;
@@ -489,9 +522,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		synchronized (addRegistrationRequests) {
 			addRegistrationRequests.clear();
 		}
-		synchronized (requests) {
-			requests.clear();
-		}
+		pendingRequests.clear();
 		synchronized (pendingUpdateContainers) {
 			pendingUpdateContainers.clear();
 		}
@@ -939,36 +970,28 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	}
 
 	protected Object callSynch(RemoteServiceRegistrationImpl registration, IRemoteCall call) throws ECFException {
-		boolean doneWaiting = false;
 		Response response = null;
+		Request request = null;
 		try {
 			// First send request
-			final Request request = sendCallRequest(registration, call);
-			long requestId = request.getRequestId();
-			// Then get the specified timeout and calculate when we should
-			// timeout in real time
-			final long timeout = call.getTimeout() + System.currentTimeMillis();
-			// Now loop until timeout time has elapsed
-			while ((timeout - System.currentTimeMillis()) > 0 && !doneWaiting) {
-				synchronized (request) {
-					if (request.isDone()) {
-						doneWaiting = true;
-						response = request.getResponse();
-						if (response == null)
-							throw new ECFException("Invalid response for requestId=" + requestId); //$NON-NLS-1$
-					} else {
-						request.wait(RESPONSE_WAIT_INTERVAL);
-					}
-				}
-			}
-			if (!doneWaiting)
-				throw new ServiceException("Request timed out after " + Long.toString(call.getTimeout()) + "ms", ServiceException.REMOTE, new TimeoutException(call.getTimeout())); //$NON-NLS-1$ //$NON-NLS-2$
+			request = sendCallRequest(registration, call);
+			// Then wait until completed by handleCallResponse or timeout
+			response = request.responseFuture.get(call.getTimeout(), TimeUnit.MILLISECONDS);
+			if (response == null)
+				throw new ECFException("Invalid response for requestId=" + request.getRequestId()); //$NON-NLS-1$
 		} catch (final IOException e) {
 			log(CALL_REQUEST_ERROR_CODE, CALL_REQUEST_ERROR_MESSAGE, e);
 			throw new ECFException("Error sending request", e); //$NON-NLS-1$
+		} catch (final java.util.concurrent.TimeoutException e) {
+			removeRequest(request);
+			throw new ServiceException("Request timed out after " + Long.toString(call.getTimeout()) + "ms", ServiceException.REMOTE, new TimeoutException(call.getTimeout())); //$NON-NLS-1$ //$NON-NLS-2$
 		} catch (final InterruptedException e) {
+			removeRequest(request);
 			log(CALL_REQUEST_TIMEOUT_ERROR_CODE, CALL_REQUEST_TIMEOUT_ERROR_MESSAGE, e);
 			throw new ECFException("Wait for response interrupted", e); //$NON-NLS-1$
+		} catch (final ExecutionException e) {
+			// responseFuture is only ever completed normally
+			throw new ECFException("Exception waiting for response", e.getCause()); //$NON-NLS-1$
 		}
 		// Success...now get values and return
 		if (response.hadException())
@@ -1082,6 +1105,8 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	private static final String CALL_REQUEST_BYTES = "handleCallRequestBytes"; //$NON-NLS-1$
 
+	private static final String CALL_REQUEST = "handleCallRequest"; //$NON-NLS-1$
+
 	private static final String CALL_REQUEST_ERROR_MESSAGE = "exception sending call request message"; //$NON-NLS-1$
 
 	private static final int CALL_REQUEST_ERROR_CODE = 203;
@@ -1106,8 +1131,6 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	private static final int REQUEST_NOT_FOUND_ERROR_CODE = 211;
 
-	private static final long RESPONSE_WAIT_INTERVAL = 500;
-
 	private static final String ADD_REGISTRATION = "handleAddRegistration"; //$NON-NLS-1$
 
 	private static final String ADD_REGISTRATIONS = "handleAddRegistrations"; //$NON-NLS-1$
@@ -1134,6 +1157,22 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	private static final String CALL_RESPONSE_BYTES = "handleCallResponseBytes"; //$NON-NLS-1$
 
+	private static final String CALL_RESPONSE = "handleCallResponse"; //$NON-NLS-1$
+
+	/**
+	 * If true, call requests and responses are written directly into the
+	 * container's message stream rather than being serialized to a byte[] first and
+	 * then serialized again as a message argument.  Default is false, since
+	 * peers that do not support streamed messages cannot read them.  Set
+	 * the system property to true only when all peers support them.
+	 * @since 4.7
+	 */
+	protected static final boolean STREAM_CALLS = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.remoteservice.streamCalls", "false")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final byte STREAMED_CALL_REQUEST = 0;
+
+	private static final byte STREAMED_CALL_RESPONSE = 1;
+
 	/**
 	 * @param receiver receiver
 	 * @param requestId requestId
@@ -1412,7 +1451,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		final Request request = createRequest(remoteRegistration, call, null);
 		addRequest(request);
 		try {
-			sendSharedObjectMsgTo(remoteRegistration.getContainerID(), SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+			sendCallRequestMsg(remoteRegistration.getContainerID(), request);
 		} catch (final IOException e) {
 			removeRequest(request);
 			throw e;
@@ -1420,6 +1459,87 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		return request;
 	}
 
+	private void sendCallRequestMsg(ID targetID, final Request request) throws IOException {
+		if (!STREAM_CALLS) {
+			sendSharedObjectMsgTo(targetID, SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+			return;
+		}
+		final ISharedObjectContext context = getContext();
+		if (context == null)
+			throw new IOException("Cannot send call request, context is null"); //$NON-NLS-1$
+		context.sendMessage(targetID, new IStreamableSharedObjectMessage() {
+			public void writeMessage(ObjectOutputStream out) throws IOException {
+				out.writeByte(STREAMED_CALL_REQUEST);
+				out.writeLong(request.getServiceId());
+				out.writeObject(request);
+			}
+		});
+	}
+
+	private void sendCallResponseMsg(ID targetID, final Response response) throws IOException {
+		if (!STREAM_CALLS) {
+			sendSharedObjectMsgTo(targetID, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(response)));
+			return;
+		}
+		final ISharedObjectContext context = getContext();
+		if (context == null)
+			throw new IOException("Cannot send call response, context is null"); //$NON-NLS-1$
+		final ID localContainerID = getLocalContainerID();
+		context.sendMessage(targetID, new IStreamableSharedObjectMessage() {
+			public void writeMessage(ObjectOutputStream out) throws IOException {
+				out.writeByte(STREAMED_CALL_RESPONSE);
+				out.writeObject(localContainerID);
+				out.writeLong(response.getRequestId());
+				out.writeObject(response);
+			}
+		});
+	}
+
+	/**
+	 * Read call requests and responses sent as streamed messages.  The
+	 * classloader for the request or response is selected the same way as for
+	 * {@link #deserializeCallRequest(byte[])} and {@link #deserializeCallResponse(byte[])}.
+	 * @since 4.7
+	 */
+	public Object readMessage(OSGIObjectInputStream in) throws IOException, ClassNotFoundException {
+		final byte type = in.readByte();
+		if (type == STREAMED_CALL_REQUEST) {
+			final long svcId = in.readLong();
+			RemoteServiceRegistrationImpl reg = null;
+			synchronized (localRegistry) {
+				reg = localRegistry.findRegistrationForServiceId(svcId);
+			}
+			if (reg == null)
+				throw new IOException("Remote service with id=" + svcId + " cannot be found in local registry"); //$NON-NLS-1$ //$NON-NLS-2$
+			in.setClassLoader(reg.getClassLoader());
+			return createStreamedMsgEvent(SharedObjectMsg.createMsg(CALL_REQUEST, in.readObject()));
+		} else if (type == STREAMED_CALL_RESPONSE) {
+			final ID targetContainerID = (ID) in.readObject();
+			final Request request = getRequest(in.readLong());
+			if (request == null) {
+				log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
+				return null;
+			}
+			setResponseClassLoader(in, targetContainerID, request);
+			return createStreamedMsgEvent(SharedObjectMsg.createMsg(CALL_RESPONSE, in.readObject()));
+		}
+		throw new IOException("Unknown streamed message type=" + type); //$NON-NLS-1$
+	}
+
+	private SharedObjectMsgEvent createStreamedMsgEvent(SharedObjectMsg msg) {
+		return new SharedObjectMsgEvent(getID(), getLocalContainerID(), msg);
+	}
+
+	private void setResponseClassLoader(OSGIObjectInputStream oins, ID targetContainerID, Request request) {
+		RemoteServiceRegistryImpl remoteRegistry = getRemoteRegistry(targetContainerID);
+		if (remoteRegistry != null) {
+			RemoteServiceRegistrationImpl reg = remoteRegistry.findRegistrationForServiceId(request.getServiceId());
+			if (reg != null) {
+				oins.setClassLoader(reg.getClassLoader());
+			}
+		}
+	}
+
 	/**
 	 * @since 4.6
 	 */
@@ -1456,25 +1576,24 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 				@Override
 				public Request run() throws Exception {
 					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(requestBytes));
-					long svcId = oins.readLong();
-					RemoteServiceRegistrationImpl reg = null;
-					// Find registration for this call request
-					synchronized (localRegistry) {
-						reg = localRegistry.findRegistrationForServiceId(svcId);
-						if (reg == null) {
-							oins.close();
-							throw new IOException("Remote service with id=" + svcId + " cannot be found in local registry"); //$NON-NLS-1$ //$NON-NLS-2$
-						}
-					}
-					// Use classloader assigned to registration to get classLoader
-					oins.setClassLoader(reg.getClassLoader());
 					try {
-						return (Request) oins.readObject();
-					} catch (Exception e) {
-						throw new IOException("Remote service request with id=" + svcId + " cannot load class: " + e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+						long svcId = oins.readLong();
+						RemoteServiceRegistrationImpl reg = null;
+						// Find registration for this call request
+						synchronized (localRegistry) {
+							reg = localRegistry.findRegistrationForServiceId(svcId);
+							if (reg == null)
+								throw new IOException("Remote service with id=" + svcId + " cannot be found in local registry"); //$NON-NLS-1$ //$NON-NLS-2$
+						}
+						// Use classloader assigned to registration to get classLoader
+						oins.setClassLoader(reg.getClassLoader());
+						try {
+							return (Request) oins.readObject();
+						} catch (Exception e) {
+							throw new IOException("Remote service request with id=" + svcId + " cannot load class: " + e.getLocalizedMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+						}
 					} finally {
 						oins.close();
-						oins.close();
 					}
 				}
 			});
@@ -1523,33 +1642,28 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 				@Override
 				public Response run() throws Exception {
 					OSGIObjectInputStream oins = new OSGIObjectInputStream(Activator.getDefault().getContext().getBundle(), new ByteArrayInputStream(responseBytes));
-
-					ID targetContainerID;
 					try {
-						targetContainerID = (ID) oins.readObject();
-					} catch (ClassNotFoundException e1) {
-						String message = "Cannot load class for deserializing call response: " + e1.getLocalizedMessage(); //$NON-NLS-1$
-						throw new IOException(message);
-					}
+						ID targetContainerID;
+						try {
+							targetContainerID = (ID) oins.readObject();
+						} catch (ClassNotFoundException e1) {
+							String message = "Cannot load class for deserializing call response: " + e1.getLocalizedMessage(); //$NON-NLS-1$
+							throw new IOException(message);
+						}
 
-					long requestId = oins.readLong();
-					final Request request = getRequest(requestId);
-					if (request == null) {
-						log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
-						return null;
-					}
+						long requestId = oins.readLong();
+						final Request request = getRequest(requestId);
+						if (request == null) {
+							log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
+							return null;
+						}
 
-					RemoteServiceRegistryImpl remoteRegistry = getRemoteRegistry(targetContainerID);
-					if (remoteRegistry != null) {
-						RemoteServiceRegistrationImpl reg = remoteRegistry.findRegistrationForServiceId(request.getServiceId());
-						if (reg != null) {
-							oins.setClassLoader(reg.getClassLoader());
+						setResponseClassLoader(oins, targetContainerID, request);
+						try {
+							return (Response) oins.readObject();
+						} catch (Exception e) {
+							throw new IOException("Remote service response had exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
 						}
-					}
-					try {
-						return (Response) oins.readObject();
-					} catch (Exception e) {
-						throw new IOException("Remote service response had exception: " + e.getLocalizedMessage()); //$NON-NLS-1$
 					} finally {
 						oins.close();
 					}
@@ -1577,7 +1691,9 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 */
 	protected IExecutor createRequestExecutor(final Request request) {
 		IExecutor executor = null;
-		if (DEFAULT_EXECUTOR_TYPE.equals("jobs")) { //$NON-NLS-1$
+		if (DEFAULT_EXECUTOR_TYPE.equals("pool")) { //$NON-NLS-1$
+			executor = new RemoteCallExecutor();
+		} else if (DEFAULT_EXECUTOR_TYPE.equals("jobs")) { //$NON-NLS-1$
 			executor = new JobsExecutor("Remote Request Handler") { //$NON-NLS-1$
 				protected String createJobName(String executorName, int jobCounter, IProgressRunnable runnable) {
 					return executorName + " - " + request.getCall().getMethod() + ":" + request.getRequestId(); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1659,7 +1775,19 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			}
 		};
 		// Now actually execute the runnable asynchronously using the executor
-		executor.execute(runnable, new NullProgressMonitor());
+		if (executor instanceof RemoteCallExecutor)
+			((RemoteCallExecutor) executor).execute(localRegistration, runnable, new Runnable() {
+				public void run() {
+					RejectedExecutionException e = new RejectedExecutionException("Remote call rejected because too many calls are pending for service=" + localRegistration.getID()); //$NON-NLS-1$
+					// Fail fast rather than let the caller wait for its timeout
+					if (respond)
+						sendErrorResponse(responseTarget, request.getRequestId(), "executeRequest", e); //$NON-NLS-1$
+					else
+						log("executeRequest", e); //$NON-NLS-1$
+				}
+			});
+		else
+			executor.execute(runnable, new NullProgressMonitor());
 	}
 
 	private void sendErrorResponse(ID responseTarget, long requestId, String message, Throwable e) {
@@ -1763,21 +1891,35 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		fireCallStartEvent(listener, request.getRequestId(), remoteRegistration.getReference(), call);
 		try {
 			addRequest(request);
-			sendSharedObjectMsgTo(remoteRegistration.getContainerID(), SharedObjectMsg.createMsg(CALL_REQUEST_BYTES, serializeCallRequest(request)));
+			scheduleRequestTimeout(request, listener, call.getTimeout());
+			sendCallRequestMsg(remoteRegistration.getContainerID(), request);
 		} catch (final IOException e) {
 			log(CALL_REQUEST_ERROR_CODE, CALL_REQUEST_ERROR_MESSAGE, e);
-			removeRequest(request);
-			fireCallCompleteEvent(listener, request.getRequestId(), null, true, e);
+			if (removeRequest(request))
+				fireCallCompleteEvent(listener, request.getRequestId(), null, true, e);
 		}
 	}
 
+	private void scheduleRequestTimeout(final Request request, final IRemoteCallListener listener, final long timeout) {
+		// No timeout for zero, as in AbstractRemoteService.callAsyncWithTimeout
+		if (timeout <= 0)
+			return;
+		request.timeout = requestTimeouts.schedule(new Runnable() {
+			public void run() {
+				// Only if the response has not arrived first
+				if (removeRequest(request))
+					fireCallCompleteEvent(listener, request.getRequestId(), null, true, new TimeoutException(timeout));
+			}
+		}, timeout);
+	}
+
 	protected void log(int code, String method, Throwable e) {
 		Activator.getDefault().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, code, method, e));
 	}
 
 	protected void sendCallResponse(ID responseTarget, Response response) {
 		try {
-			sendSharedObjectMsgTo(responseTarget, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(response)));
+			sendCallResponseMsg(responseTarget, response);
 		} catch (final IOException e) {
 			log(CALL_RESPONSE_ERROR_CODE, CALL_RESPONSE_ERROR_MESSAGE, e);
 			// Also print to standard error, just in case
@@ -1785,7 +1927,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 			// added to address bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=470245
 			if (PROPAGATE_RESPONSE_ERROR)
 				try {
-					sendSharedObjectMsgTo(responseTarget, SharedObjectMsg.createMsg(CALL_RESPONSE_BYTES, serializeCallResponse(new Response(response.getRequestId(), getSerializableException(e)))));
+					sendCallResponseMsg(responseTarget, new Response(response.getRequestId(), getSerializableException(e)));
 				} catch (final IOException e1) {
 					log(CALL_RESPONSE_ERROR_CODE, "Exception propagating response error", e1); //$NON-NLS-1$
 					e1.printStackTrace(System.err);
@@ -1795,21 +1937,15 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 
 	protected void handleCallResponse(Response response) {
 		final Request request = getRequest(response.getRequestId());
-		if (request == null) {
+		// Not found, or already timed out
+		if (request == null || !removeRequest(request)) {
 			log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
 			return;
 		}
-		removeRequest(request);
+		request.complete(response);
 		final IRemoteCallListener listener = request.getListener();
-		if (listener != null) {
+		if (listener != null)
 			fireCallCompleteEvent(listener, request.getRequestId(), response.getResponse(), response.hadException(), response.getException());
-			return;
-		}
-		synchronized (request) {
-			request.setResponse(response);
-			request.setDone(true);
-			request.notify();
-		}
 	}
 
 	/**
@@ -1826,21 +1962,15 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 		}
 
 		final Request request = getRequest(response.getRequestId());
-		if (request == null) {
+		// Not found, or already timed out
+		if (request == null || !removeRequest(request)) {
 			log(REQUEST_NOT_FOUND_ERROR_CODE, REQUEST_NOT_FOUND_ERROR_MESSAGE, new NullPointerException());
 			return;
 		}
-		removeRequest(request);
+		request.complete(response);
 		final IRemoteCallListener listener = request.getListener();
-		if (listener != null) {
+		if (listener != null)
 			fireCallCompleteEvent(listener, request.getRequestId(), response.getResponse(), response.hadException(), response.getException());
-			return;
-		}
-		synchronized (request) {
-			request.setResponse(response);
-			request.setDone(true);
-			request.notify();
-		}
 	}
 
 	protected Request sendFireRequest(RemoteServiceRegistrationImpl remoteRegistration, IRemoteCall call) throws ECFException {
@@ -2071,11 +2201,8 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @return true if added, false if not added
 	 * @since 3.2
 	 */
-	@SuppressWarnings("unchecked")
 	protected boolean addRequest(Request request) {
-		synchronized (requests) {
-			return requests.add(request);
-		}
+		return pendingRequests.putIfAbsent(Long.valueOf(request.getRequestId()), request) == null;
 	}
 
 	/**
@@ -2084,16 +2211,7 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 3.2
 	 */
 	protected Request getRequest(long requestId) {
-		synchronized (requests) {
-			for (final Iterator i = requests.iterator(); i.hasNext();) {
-				final Request req = (Request) i.next();
-				final long reqId = req.getRequestId();
-				if (reqId == requestId) {
-					return req;
-				}
-			}
-		}
-		return null;
+		return pendingRequests.get(Long.valueOf(requestId));
 	}
 
 	/**
@@ -2102,9 +2220,10 @@ public class RegistrySharedObject extends BaseSharedObject implements IRemoteSer
 	 * @since 3.2
 	 */
 	protected boolean removeRequest(Request request) {
-		synchronized (requests) {
-			return requests.remove(request);
-		}
+		final TimeoutWheel.Timeout t = request.timeout;
+		if (t != null)
+			t.cancel();
+		return pendingRequests.remove(Long.valueOf(request.getRequestId()), request);
 	}
 
 	protected void logException(int code, String message, Throwable e) {
@@ -0,0 +1,255 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.ecf.internal.provider.remoteservice.Activator;
+import org.eclipse.equinox.concurrent.future.*;
+
+/**
+ * Executor for remote call requests backed by one bounded thread pool shared by
+ * all containers (or, with
+ * org.eclipse.ecf.provider.remoteservice.pool.virtual=true on a JVM that supports
+ * them, a virtual thread per call).  Calls for a local registration are limited
+ * to {@link #MAX_CONCURRENT_PROP} running at once, with at most
+ * {@link #MAX_QUEUED_PROP} more waiting.  Calls beyond that, or beyond the
+ * pool's queue, are rejected immediately rather than queued without bound.
+ * Both limits may be set per registration with the registration properties of
+ * the same name, and default to the system properties
+ * org.eclipse.ecf.provider.remoteservice.pool.maxConcurrent (default unlimited)
+ * and org.eclipse.ecf.provider.remoteservice.pool.maxQueued (default 1000).
+ * Queue depth, wait and execution times are available from
+ * {@link RemoteServiceRegistrationImpl#getCallStatistics()}.
+ * Used for call requests when the system property
+ * org.eclipse.ecf.provider.remoteservice.executorType is set to pool.
+ * 
+ * @since 4.7
+ */
+public class RemoteCallExecutor extends AbstractExecutor {
+
+	/**
+	 * Registration property for the maximum number of concurrently executing
+	 * calls for the registration.  Value is an Integer or String. 0 means unlimited.
+	 */
+	public static final String MAX_CONCURRENT_PROP = "ecf.generic.rsvc.maxConcurrent"; //$NON-NLS-1$
+
+	/**
+	 * Registration property for the maximum number of calls waiting for the
+	 * registration's concurrency limit.  Value is an Integer or String.
+	 */
+	public static final String MAX_QUEUED_PROP = "ecf.generic.rsvc.maxQueued"; //$NON-NLS-1$
+
+	private static final int POOL_THREADS = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.remoteservice.pool.threads", String.valueOf(Math.max(4, 2 * Runtime.getRuntime().availableProcessors())))); //$NON-NLS-1$
+
+	private static final int POOL_QUEUE_SIZE = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.remoteservice.pool.queueSize", "10000")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final boolean POOL_VIRTUAL = Boolean.valueOf(System.getProperty("org.eclipse.ecf.provider.remoteservice.pool.virtual", "false")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final int DEFAULT_MAX_CONCURRENT = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.remoteservice.pool.maxConcurrent", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final int DEFAULT_MAX_QUEUED = Integer.parseInt(System.getProperty("org.eclipse.ecf.provider.remoteservice.pool.maxQueued", "1000")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static Executor pool;
+
+	private static synchronized Executor getPool() {
+		if (pool == null) {
+			if (POOL_VIRTUAL)
+				pool = createVirtualThreadExecutor();
+			if (pool == null) {
+				final AtomicInteger count = new AtomicInteger();
+				final ThreadPoolExecutor tpe = new ThreadPoolExecutor(POOL_THREADS, POOL_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(POOL_QUEUE_SIZE), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "Remote Request Handler-" + count.incrementAndGet()); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				});
+				tpe.allowCoreThreadTimeOut(true);
+				pool = tpe;
+			}
+		}
+		return pool;
+	}
+
+	private static Executor createVirtualThreadExecutor() {
+		try {
+			// Java 21+
+			Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor"); //$NON-NLS-1$
+			return (Executor) m.invoke(null);
+		} catch (Exception e) {
+			Activator.getDefault().log(new Status(IStatus.WARNING, Activator.PLUGIN_ID, "Virtual threads not available, using thread pool for remote calls", e)); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	protected AbstractFuture<?> createFuture(IProgressMonitor monitor) {
+		return new SingleOperationFuture<Object>(monitor);
+	}
+
+	/**
+	 * Execute runnable on the pool without any per-registration limit.
+	 * @throws RejectedExecutionException if the pool's queue is full
+	 */
+	@SuppressWarnings("unchecked")
+	public <ResultType> IFuture<ResultType> execute(final IProgressRunnable<? extends ResultType> runnable, IProgressMonitor monitor) {
+		Assert.isNotNull(runnable);
+		final SingleOperationFuture<ResultType> sof = (SingleOperationFuture<ResultType>) createFuture(monitor);
+		getPool().execute(new Runnable() {
+			public void run() {
+				if (!sof.isCanceled())
+					sof.runWithProgress(runnable);
+			}
+		});
+		return sof;
+	}
+
+	/**
+	 * Execute runnable for a call to the given registration, subject to the
+	 * registration's limits.
+	 * @param registration the local registration being called.  Must not be <code>null</code>.
+	 * @param runnable the call.  Must not be <code>null</code>.
+	 * @param rejected run instead of runnable if the call is rejected, either
+	 * immediately on the calling thread or later if a waiting call cannot be
+	 * handed to the pool.  Must not be <code>null</code>.
+	 */
+	public void execute(RemoteServiceRegistrationImpl registration, IProgressRunnable<?> runnable, Runnable rejected) {
+		Assert.isNotNull(runnable);
+		Assert.isNotNull(rejected);
+		getGate(registration).submit(new Call(runnable, rejected));
+	}
+
+	private Gate getGate(RemoteServiceRegistrationImpl registration) {
+		synchronized (registration) {
+			Gate gate = registration.callGate;
+			if (gate == null) {
+				gate = new Gate(getLimit(registration, MAX_CONCURRENT_PROP, DEFAULT_MAX_CONCURRENT), getLimit(registration, MAX_QUEUED_PROP, DEFAULT_MAX_QUEUED));
+				registration.callGate = gate;
+			}
+			return gate;
+		}
+	}
+
+	private static int getLimit(RemoteServiceRegistrationImpl registration, String prop, int def) {
+		Object o = registration.getProperty(prop);
+		if (o instanceof Number)
+			return ((Number) o).intValue();
+		if (o instanceof String)
+			try {
+				return Integer.parseInt((String) o);
+			} catch (NumberFormatException e) {
+				// use default
+			}
+		return def;
+	}
+
+	private static final class Call {
+		final IProgressRunnable<?> runnable;
+		final Runnable rejected;
+		final long received = System.nanoTime();
+
+		Call(IProgressRunnable<?> runnable, Runnable rejected) {
+			this.runnable = runnable;
+			this.rejected = rejected;
+		}
+	}
+
+	/**
+	 * Per-registration concurrency limit, wait queue and statistics
+	 */
+	static final class Gate {
+		private final int maxConcurrent;
+		private final int maxQueued;
+		private final ArrayDeque<Call> queue = new ArrayDeque<Call>();
+		private int active;
+		private long submitted;
+		private long rejected;
+		private long completed;
+		private long totalWaitNanos;
+		private long maxWaitNanos;
+		private long totalExecutionNanos;
+		private long maxExecutionNanos;
+
+		Gate(int maxConcurrent, int maxQueued) {
+			this.maxConcurrent = (maxConcurrent <= 0) ? Integer.MAX_VALUE : maxConcurrent;
+			this.maxQueued = Math.max(maxQueued, 0);
+		}
+
+		void submit(Call call) {
+			synchronized (this) {
+				submitted++;
+				if (active >= maxConcurrent) {
+					if (queue.size() < maxQueued) {
+						queue.add(call);
+						return;
+					}
+					rejected++;
+				} else {
+					active++;
+					call = dispatch(call) ? null : call;
+				}
+			}
+			if (call != null)
+				call.rejected.run();
+		}
+
+		private boolean dispatch(final Call call) {
+			try {
+				getPool().execute(new Runnable() {
+					public void run() {
+						runCall(call);
+					}
+				});
+				return true;
+			} catch (RejectedExecutionException e) {
+				synchronized (this) {
+					active--;
+					rejected++;
+				}
+				return false;
+			}
+		}
+
+		void runCall(Call call) {
+			final long start = System.nanoTime();
+			try {
+				call.runnable.run(new NullProgressMonitor());
+			} catch (Throwable t) {
+				Activator.getDefault().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Exception executing remote call", t)); //$NON-NLS-1$
+			}
+			final long end = System.nanoTime();
+			Call next;
+			synchronized (this) {
+				completed++;
+				final long wait = start - call.received;
+				totalWaitNanos += wait;
+				maxWaitNanos = Math.max(maxWaitNanos, wait);
+				totalExecutionNanos += end - start;
+				maxExecutionNanos = Math.max(maxExecutionNanos, end - start);
+				next = queue.poll();
+				if (next == null)
+					active--;
+			}
+			// Slot is handed directly to the next waiting call
+			if (next != null && !dispatch(next))
+				next.rejected.run();
+		}
+
+		synchronized RemoteCallStatistics getStatistics() {
+			return new RemoteCallStatistics(queue.size(), active, submitted, rejected, completed, totalWaitNanos, maxWaitNanos, totalExecutionNanos, maxExecutionNanos);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.remoteservice.generic;
+
+/**
+ * Snapshot of the remote call statistics of a local remote service
+ * registration, as kept by {@link RemoteCallExecutor}.  Times are in
+ * milliseconds.
+ * 
+ * @since 4.7
+ */
+public class RemoteCallStatistics {
+
+	private final int queueDepth;
+	private final int activeCount;
+	private final long submittedCount;
+	private final long rejectedCount;
+	private final long completedCount;
+	private final long totalWaitNanos;
+	private final long maxWaitNanos;
+	private final long totalExecutionNanos;
+	private final long maxExecutionNanos;
+
+	RemoteCallStatistics(int queueDepth, int activeCount, long submittedCount, long rejectedCount, long completedCount, long totalWaitNanos, long maxWaitNanos, long totalExecutionNanos, long maxExecutionNanos) {
+		this.queueDepth = queueDepth;
+		this.activeCount = activeCount;
+		this.submittedCount = submittedCount;
+		this.rejectedCount = rejectedCount;
+		this.completedCount = completedCount;
+		this.totalWaitNanos = totalWaitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+		this.totalExecutionNanos = totalExecutionNanos;
+		this.maxExecutionNanos = maxExecutionNanos;
+	}
+
+	/**
+	 * @return number of calls waiting for a free slot
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	/**
+	 * @return number of calls currently running or handed to the pool
+	 */
+	public int getActiveCount() {
+		return activeCount;
+	}
+
+	public long getSubmittedCount() {
+		return submittedCount;
+	}
+
+	/**
+	 * @return number of calls rejected because the queue was full
+	 */
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	public long getCompletedCount() {
+		return completedCount;
+	}
+
+	/**
+	 * @return average time between receipt of a call and the start of its execution
+	 */
+	public double getAverageWaitTime() {
+		return average(totalWaitNanos);
+	}
+
+	public double getMaxWaitTime() {
+		return maxWaitNanos / 1000000.0;
+	}
+
+	public double getAverageExecutionTime() {
+		return average(totalExecutionNanos);
+	}
+
+	public double getMaxExecutionTime() {
+		return maxExecutionNanos / 1000000.0;
+	}
+
+	private double average(long totalNanos) {
+		return (completedCount == 0) ? 0.0 : totalNanos / 1000000.0 / completedCount;
+	}
+
+	public String toString() {
+		StringBuffer buf = new StringBuffer("RemoteCallStatistics["); //$NON-NLS-1$
+		buf.append("queueDepth=").append(queueDepth); //$NON-NLS-1$
+		buf.append(";active=").append(activeCount); //$NON-NLS-1$
+		buf.append(";submitted=").append(submittedCount); //$NON-NLS-1$
+		buf.append(";rejected=").append(rejectedCount); //$NON-NLS-1$
+		buf.append(";completed=").append(completedCount); //$NON-NLS-1$
+		buf.append(";avgWait=").append(getAverageWaitTime()); //$NON-NLS-1$
+		buf.append(";maxWait=").append(getMaxWaitTime()); //$NON-NLS-1$
+		buf.append(";avgExec=").append(getAverageExecutionTime()); //$NON-NLS-1$
+		buf.append(";maxExec=").append(getMaxExecutionTime()).append("]"); //$NON-NLS-1$ //$NON-NLS-2$
+		return buf.toString();
+	}
+}
@@ -463,4 +463,20 @@ public class RemoteServiceRegistrationImpl implements IRemoteServiceRegistration
 		this.classLoader = cl;
 	}
 
+	transient RemoteCallExecutor.Gate callGate;
+
+	/**
+	 * @return RemoteCallStatistics statistics for calls to this registration
+	 * executed by {@link RemoteCallExecutor}.  Will be <code>null</code> if no
+	 * calls have been executed by a RemoteCallExecutor.
+	 * @since 4.7
+	 */
+	public RemoteCallStatistics getCallStatistics() {
+		RemoteCallExecutor.Gate gate;
+		synchronized (this) {
+			gate = callGate;
+		}
+		return (gate == null) ? null : gate.getStatistics();
+	}
+
 }
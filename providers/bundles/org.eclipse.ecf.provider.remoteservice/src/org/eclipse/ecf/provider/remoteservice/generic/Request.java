@@ -12,7 +12,9 @@
 package org.eclipse.ecf.provider.remoteservice.generic;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
 import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.internal.provider.remoteservice.TimeoutWheel;
 import org.eclipse.ecf.remoteservice.IRemoteCallListener;
 
 public class Request implements Serializable {
@@ -35,6 +37,13 @@ public class Request implements Serializable {
 
 	transient IRemoteCallListener listener = null;
 
+	/**
+	 * Completed with the response, on the requesting side only
+	 */
+	transient CompletableFuture<Response> responseFuture;
+
+	transient TimeoutWheel.Timeout timeout;
+
 	private synchronized static long getNextRequestId() {
 		long result = nextRequestId;
 		nextRequestId = (nextRequestId == Long.MAX_VALUE) ? 0L : nextRequestId + 1;
@@ -51,6 +60,7 @@ public class Request implements Serializable {
 		this.call = call;
 		this.requestId = getNextRequestId();
 		this.listener = listener;
+		this.responseFuture = new CompletableFuture<Response>();
 	}
 
 	public long getRequestId() {
@@ -89,6 +99,24 @@ public class Request implements Serializable {
 		return listener;
 	}
 
+	/**
+	 * Set the response, mark this request done and wake any waiting caller.
+	 * @param response the response
+	 * @since 4.7
+	 */
+	protected void complete(Response response) {
+		final TimeoutWheel.Timeout t = timeout;
+		if (t != null)
+			t.cancel();
+		synchronized (this) {
+			setResponse(response);
+			setDone(true);
+			notifyAll();
+		}
+		if (responseFuture != null)
+			responseFuture.complete(response);
+	}
+
 	public String toString() {
 		final StringBuffer buf = new StringBuffer("Request["); //$NON-NLS-1$
 		buf.append("requestId=").append(requestId).append(";cont=").append( //$NON-NLS-1$ //$NON-NLS-2$
@@ -32,6 +32,7 @@ import org.eclipse.ecf.discovery.identity.ServiceIDFactory;
 import org.eclipse.ecf.provider.zookeeper.core.internal.Configurator;
 import org.eclipse.ecf.provider.zookeeper.core.internal.IService;
 import org.eclipse.ecf.provider.zookeeper.node.internal.INode;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeCodec;
 import org.eclipse.ecf.provider.zookeeper.util.Geo;
 import org.eclipse.ecf.provider.zookeeper.util.Logger;
 import org.osgi.framework.Constants;
@@ -179,6 +180,20 @@ public class AdvertisedService extends ServiceInfo implements INode, IService {
 		return bytes;
 	}
 
+	/**
+	 * @return the node properties in the encoding of {@link NodeCodec}, or
+	 *         <code>null</code> if they cannot be encoded
+	 */
+	public byte[] getPropertiesAsCompactBytes() {
+		try {
+			return NodeCodec.encode(nodeProperties);
+		} catch (IOException e) {
+			Logger.log(LogService.LOG_ERROR,
+					"Error while encoding node data ", e);//$NON-NLS-1$
+			return null;
+		}
+	}
+
 	public String getPath() {
 		return getNodeId() + INode._URI_ + Geo.getHost()
 				+ INode._ZOODISCOVERYID_
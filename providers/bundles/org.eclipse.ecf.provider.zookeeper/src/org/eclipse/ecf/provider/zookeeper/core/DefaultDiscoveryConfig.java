@@ -188,6 +188,10 @@ public class DefaultDiscoveryConfig implements IDiscoveryConfig {
 		defaultConfigProperties.put("preAllocSize", 1); //$NON-NLS-1$		
 
 		defaultConfigProperties.put(ZOODISCOVERY_CONSOLELOG, System.getProperty(ZOODISCOVERY_PREFIX + ZOODISCOVERY_CONSOLELOG, null));
+
+		defaultConfigProperties.put(ZOODISCOVERY_LAYOUT, System.getProperty(
+				ZOODISCOVERY_PREFIX + ZOODISCOVERY_LAYOUT,
+				ZOODISCOVERY_LAYOUT_FLAT));
 	}
 
 	public DefaultDiscoveryConfig() {
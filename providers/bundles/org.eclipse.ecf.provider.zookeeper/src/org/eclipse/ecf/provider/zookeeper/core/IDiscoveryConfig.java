@@ -42,6 +42,27 @@ public interface IDiscoveryConfig {
 
 	String ZOODISCOVERY_CONSOLELOG = "consoleLog"; //$NON-NLS-1$
 
+	/**
+	 * How the nodes are laid out below the discovery root, either
+	 * {@link #ZOODISCOVERY_LAYOUT_FLAT} or {@link #ZOODISCOVERY_LAYOUT_TYPED}.
+	 * All ZooDiscovery instances sharing a server must use the same layout.
+	 * OPTIONAL, defaults to {@link #ZOODISCOVERY_LAYOUT_FLAT}
+	 **/
+	String ZOODISCOVERY_LAYOUT = "layout"; //$NON-NLS-1$
+
+	/**
+	 * All services are nodes directly below the root, holding their Java
+	 * serialized properties.
+	 **/
+	String ZOODISCOVERY_LAYOUT_FLAT = "flat"; //$NON-NLS-1$
+
+	/**
+	 * Services are grouped below one node per service type and hold their
+	 * properties in a compact binary encoding. Readers keep a local mirror of
+	 * the tree and only fetch the data of nodes they have not seen yet.
+	 **/
+	String ZOODISCOVERY_LAYOUT_TYPED = "typed"; //$NON-NLS-1$
+
 	/** The number of milliseconds of each tick. OPTIONAL **/
 	String ZOOKEEPER_TICKTIME = "tickTime"; //$NON-NLS-1$
 
@@ -223,6 +223,11 @@ public class Configuration extends DefaultDiscoveryConfig {
 		return this.flavor == FLAVOR.STANDALONE;
 	}
 
+	public boolean isTypedLayout() {
+		return ZOODISCOVERY_LAYOUT_TYPED.equals(getConfigProperties().get(
+				ZOODISCOVERY_LAYOUT));
+	}
+
 	public ServiceReference getReference() {
 		return this.reference;
 	}
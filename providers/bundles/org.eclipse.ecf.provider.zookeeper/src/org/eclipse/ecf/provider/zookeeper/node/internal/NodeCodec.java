@@ -0,0 +1,320 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.zookeeper.node.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.ecf.discovery.IServiceProperties;
+import org.eclipse.ecf.discovery.ServiceProperties;
+
+/**
+ * Compact, versioned encoding of the node properties of an advertised service.
+ * Strings, primitive wrappers, string arrays, byte arrays and URIs are written
+ * as tagged values, service properties as a nested list of them, and only
+ * values of any other type fall back to Java serialization. Decoding also
+ * accepts nodes written with plain Java serialization of the whole map.
+ */
+public final class NodeCodec {
+
+	private static final short MAGIC = 0x5a44; // "ZD"
+	private static final byte VERSION = 1;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte BOOLEAN = 4;
+	private static final byte DOUBLE = 5;
+	private static final byte FLOAT = 6;
+	private static final byte SHORT = 7;
+	private static final byte BYTE = 8;
+	private static final byte CHARACTER = 9;
+	private static final byte STRINGS = 10;
+	private static final byte BYTES = 11;
+	private static final byte URI_ = 12;
+	private static final byte PROPERTIES = 13;
+	// byte[] set with IServiceProperties#setPropertyBytes
+	private static final byte PROPERTY_BYTES = 14;
+	private static final byte SERIALIZED = 15;
+
+	// the fewest bytes that a map or properties entry (key length and value
+	// tag) and a string array element (null flag) take up
+	private static final int MIN_ENTRY_LENGTH = 5;
+	private static final int MIN_STRING_LENGTH = 1;
+
+	private NodeCodec() {
+		// static only
+	}
+
+	public static byte[] encode(Map<String, Object> nodeProperties)
+			throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bout);
+		out.writeShort(MAGIC);
+		out.writeByte(VERSION);
+		out.writeInt(nodeProperties.size());
+		for (Map.Entry<String, Object> entry : nodeProperties.entrySet()) {
+			writeString(out, entry.getKey());
+			writeValue(out, entry.getValue());
+		}
+		out.flush();
+		return bout.toByteArray();
+	}
+
+	/**
+	 * @param data
+	 *            the data of a node, in either encoding
+	 * @return the node properties
+	 * @throws IOException
+	 *             if the data is corrupt or of an unknown version
+	 */
+	public static Map<String, Object> decode(byte[] data) throws IOException {
+		try {
+			return decodeData(data);
+		} catch (RuntimeException e) {
+			// e.g. an invalid URI or data that is no map
+			IOException ioe = new IOException("Corrupt node data: " //$NON-NLS-1$
+					+ e.getMessage());
+			ioe.initCause(e);
+			throw ioe;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> decodeData(byte[] data)
+			throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				data));
+		if (data.length < 3 || in.readShort() != MAGIC) {
+			// written by an older version
+			try {
+				return (Map<String, Object>) deserialize(data);
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e.getMessage());
+			}
+		}
+		byte version = in.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unknown node data version " + version); //$NON-NLS-1$
+		}
+		int size = readCount(in, MIN_ENTRY_LENGTH);
+		Map<String, Object> result = new HashMap<String, Object>(size * 2);
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			result.put(key, readValue(in, in.readByte()));
+		}
+		return result;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value)
+			throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt(((Integer) value).intValue());
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong(((Long) value).longValue());
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean(((Boolean) value).booleanValue());
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble(((Double) value).doubleValue());
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat(((Float) value).floatValue());
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort(((Short) value).shortValue());
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte(((Byte) value).byteValue());
+		} else if (value instanceof Character) {
+			out.writeByte(CHARACTER);
+			out.writeChar(((Character) value).charValue());
+		} else if (value instanceof String[]) {
+			String[] strings = (String[]) value;
+			out.writeByte(STRINGS);
+			out.writeInt(strings.length);
+			for (int i = 0; i < strings.length; i++) {
+				writeNullableString(out, strings[i]);
+			}
+		} else if (value instanceof byte[]) {
+			out.writeByte(BYTES);
+			writeBytes(out, (byte[]) value);
+		} else if (value instanceof URI) {
+			out.writeByte(URI_);
+			writeString(out, value.toString());
+		} else if (value instanceof IServiceProperties) {
+			IServiceProperties properties = (IServiceProperties) value;
+			out.writeByte(PROPERTIES);
+			out.writeInt(properties.size());
+			for (Enumeration<?> e = properties.getPropertyNames(); e
+					.hasMoreElements();) {
+				String name = (String) e.nextElement();
+				writeString(out, name);
+				byte[] bytes = properties.getPropertyBytes(name);
+				if (bytes != null) {
+					out.writeByte(PROPERTY_BYTES);
+					writeBytes(out, bytes);
+				} else {
+					writeValue(out, properties.getProperty(name));
+				}
+			}
+		} else {
+			out.writeByte(SERIALIZED);
+			writeBytes(out, serialize(value));
+		}
+	}
+
+	private static Object readValue(DataInputStream in, byte tag)
+			throws IOException {
+		switch (tag) {
+		case NULL:
+			return null;
+		case STRING:
+			return readString(in);
+		case INTEGER:
+			return Integer.valueOf(in.readInt());
+		case LONG:
+			return Long.valueOf(in.readLong());
+		case BOOLEAN:
+			return Boolean.valueOf(in.readBoolean());
+		case DOUBLE:
+			return Double.valueOf(in.readDouble());
+		case FLOAT:
+			return Float.valueOf(in.readFloat());
+		case SHORT:
+			return Short.valueOf(in.readShort());
+		case BYTE:
+			return Byte.valueOf(in.readByte());
+		case CHARACTER:
+			return Character.valueOf(in.readChar());
+		case STRINGS:
+			String[] strings = new String[readCount(in, MIN_STRING_LENGTH)];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = readNullableString(in);
+			}
+			return strings;
+		case BYTES:
+			return readBytes(in);
+		case URI_:
+			return URI.create(readString(in));
+		case PROPERTIES:
+			ServiceProperties properties = new ServiceProperties();
+			int size = readCount(in, MIN_ENTRY_LENGTH);
+			for (int i = 0; i < size; i++) {
+				String name = readString(in);
+				byte valueTag = in.readByte();
+				if (valueTag == PROPERTY_BYTES) {
+					properties.setPropertyBytes(name, readBytes(in));
+				} else {
+					properties.setProperty(name, readValue(in, valueTag));
+				}
+			}
+			return properties;
+		case SERIALIZED:
+			try {
+				return deserialize(readBytes(in));
+			} catch (ClassNotFoundException e) {
+				throw new IOException(e.getMessage());
+			}
+		default:
+			throw new IOException("Unknown value tag " + tag); //$NON-NLS-1$
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s)
+			throws IOException {
+		writeBytes(out, s.getBytes("UTF-8")); //$NON-NLS-1$
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return new String(readBytes(in), "UTF-8"); //$NON-NLS-1$
+	}
+
+	private static void writeNullableString(DataOutputStream out, String s)
+			throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			writeString(out, s);
+		}
+	}
+
+	private static String readNullableString(DataInputStream in)
+			throws IOException {
+		return in.readBoolean() ? readString(in) : null;
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes)
+			throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readCount(in, 1)];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads the number of elements that follow, and checks it against the
+	 * bytes left so that corrupt data cannot force a huge allocation.
+	 * 
+	 * @param minLength
+	 *            the fewest bytes that each element takes up
+	 */
+	private static int readCount(DataInputStream in, int minLength)
+			throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > in.available() / minLength) {
+			throw new IOException("Corrupt node data"); //$NON-NLS-1$
+		}
+		return count;
+	}
+
+	private static byte[] serialize(Object value) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream oout = new ObjectOutputStream(bout);
+		oout.writeObject(value);
+		oout.close();
+		return bout.toByteArray();
+	}
+
+	private static Object deserialize(byte[] data) throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream oin = new ObjectInputStream(new ByteArrayInputStream(
+				data));
+		try {
+			return oin.readObject();
+		} finally {
+			oin.close();
+		}
+	}
+}
@@ -13,9 +13,7 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.zookeeper.node.internal;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.Map;
 
 import org.apache.zookeeper.WatchedEvent;
@@ -71,18 +69,9 @@ public class NodeReader implements Watcher,
 		if (p == null || !p.equals(getAbsolutePath()) || data == null) {
 			return;
 		}
-		ObjectInputStream objin = null;
-		ByteArrayInputStream bain = null;
 		Map<String, Object> serviceData = null;
 		try {
-			bain = new ByteArrayInputStream(data);
-			objin = new ObjectInputStream(bain);
-			try {
-				serviceData = (Map<String, Object>) objin.readObject();
-			} catch (ClassNotFoundException e) {
-				Logger.log(LogService.LOG_ERROR, "NodeReader.processResult: "
-						+ e.getMessage(), e);
-			}
+			serviceData = NodeCodec.decode(data);
 			if (serviceData == null || serviceData.isEmpty()) {
 				return;
 			}
@@ -96,21 +85,6 @@ public class NodeReader implements Watcher,
 
 		} catch (IOException e) {
 			Logger.log(LogService.LOG_DEBUG, e.getMessage(), e);
-		} finally {
-			if (objin != null) {
-				try {
-					objin.close();
-				} catch (IOException e) {
-					// ignore
-				}
-			}
-			if (bain != null) {
-				try {
-					bain.close();
-				} catch (IOException e) {
-					// ignore
-				}
-			}
 		}
 	}
 
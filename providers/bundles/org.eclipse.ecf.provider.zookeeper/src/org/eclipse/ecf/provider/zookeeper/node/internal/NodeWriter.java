@@ -13,9 +13,12 @@
  *****************************************************************************/
 package org.eclipse.ecf.provider.zookeeper.node.internal;
 
+import org.apache.zookeeper.AsyncCallback.StringCallback;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.KeeperException.Code;
 import org.apache.zookeeper.ZooDefs.Ids;
+import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.data.Stat;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.provider.zookeeper.core.AdvertisedService;
@@ -50,34 +53,48 @@ public class NodeWriter {
 		return this.ip;
 	}
 
+	/**
+	 * Creates the node without waiting for the answer of the server, so that
+	 * publishing many services costs one round trip rather than two per
+	 * service.
+	 */
 	public synchronized void publish() {
-		try {
-			String parentPath = this.getNode().getAbsolutePath();
-			Stat stat = this.writeRoot.getWriteKeeper().exists(parentPath,
-					false);
-			if (stat == null) {
-				this.writeRoot.getWriteKeeper()
-						.create(parentPath,
-								((AdvertisedService) this.getNode()
-										.getWrappedService())
-										.getPropertiesAsBytes(),
-								Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
-			}
-			Logger.log(LogService.LOG_INFO, PrettyPrinter.prompt(PrettyPrinter.PUBLISHED, this.getNode().getWrappedService()), null);
-		} catch (KeeperException e) {
-			if (e.code() == KeeperException.Code.CONNECTIONLOSS) {
-				Logger.log(LogService.LOG_ERROR, "Can't connect to server! "
-						+ e.getMessage(), e);
-			}
-		} catch (InterruptedException e) {
-			// ignore
+		AdvertisedService service = (AdvertisedService) this.getNode()
+				.getWrappedService();
+		ZooKeeper writeKeeper = this.writeRoot.getWriteKeeper();
+		byte[] data;
+		if (isTypedLayout()) {
+			data = service.getPropertiesAsCompactBytes();
+			/*
+			 * the requests of a session are processed in order, so the type
+			 * node exists when the service node is created.
+			 */
+			writeKeeper.create(getTypePath(), new byte[0],
+					Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT, null, null);
+		} else {
+			data = service.getPropertiesAsBytes();
 		}
+		writeKeeper.create(getNodePath(), data, Ids.OPEN_ACL_UNSAFE,
+				CreateMode.EPHEMERAL, new StringCallback() {
+					public void processResult(int rc, String path, Object ctx,
+							String name) {
+						if (rc == Code.OK.intValue()
+								|| rc == Code.NODEEXISTS.intValue()) {
+							Logger.log(LogService.LOG_INFO, PrettyPrinter
+									.prompt(PrettyPrinter.PUBLISHED, getNode()
+											.getWrappedService()), null);
+						} else if (rc == Code.CONNECTIONLOSS.intValue()) {
+							Logger.log(LogService.LOG_ERROR,
+									"Can't connect to server! " + path, null);
+						}
+					}
+				}, null);
 	}
 
 	public synchronized void remove() {
 		if (this.writeRoot.isConnected()) {
 			try {
-				String nodePath = this.getNode().getAbsolutePath();
+				String nodePath = getNodePath();
 				Stat stat = this.writeRoot.getWriteKeeper().exists(nodePath,
 						false);
 				if (stat == null) {
@@ -111,4 +128,20 @@ public class NodeWriter {
 		return this.node;
 	}
 
+	private boolean isTypedLayout() {
+		return this.writeRoot.getWatchManager().getConfig().isTypedLayout();
+	}
+
+	private String getTypePath() {
+		return INode.ROOT_SLASH
+				+ TypedReadRoot.getTypeNode(this.getNode().getWrappedService()
+						.getServiceID().getServiceTypeID());
+	}
+
+	private String getNodePath() {
+		if (isTypedLayout())
+			return getTypePath() + INode.SLASH + this.getNode().getPath();
+		return this.getNode().getAbsolutePath();
+	}
+
 }
\ No newline at end of file
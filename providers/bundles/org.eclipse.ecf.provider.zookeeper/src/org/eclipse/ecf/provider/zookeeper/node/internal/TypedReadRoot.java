@@ -0,0 +1,433 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.provider.zookeeper.node.internal;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.zookeeper.AsyncCallback.ChildrenCallback;
+import org.apache.zookeeper.AsyncCallback.DataCallback;
+import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher.Event.EventType;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.eclipse.ecf.provider.zookeeper.core.DiscoverdService;
+import org.eclipse.ecf.provider.zookeeper.core.ZooDiscoveryContainer;
+import org.eclipse.ecf.provider.zookeeper.core.internal.Localizer;
+import org.eclipse.ecf.provider.zookeeper.core.internal.Notification;
+import org.eclipse.ecf.provider.zookeeper.util.Geo;
+import org.eclipse.ecf.provider.zookeeper.util.Logger;
+import org.eclipse.ecf.provider.zookeeper.util.PrettyPrinter;
+import org.osgi.service.log.LogService;
+
+/**
+ * Reads the typed layout, where the nodes of the services are grouped below
+ * one node per service type. Only the children of the root and of the type
+ * nodes are watched, not every service node. The services read so far are
+ * kept in a local mirror that every new list of children is compared with, so
+ * only the data of nodes not seen before is fetched, also after the session
+ * has been re-established. Events and callbacks are handled one at a time in
+ * the order ZooKeeper delivered them, and those of a session that has been
+ * replaced are ignored.
+ */
+class TypedReadRoot {
+
+	/**
+	 * Number of times the data of a node is read before waiting for the node
+	 * to change.
+	 */
+	private static final int MAX_READ_ATTEMPTS = 3;
+
+	private final String ip;
+	private final WatchManager watchManager;
+	private Session session;
+	private final Object connectionLock = new Object();
+	/*
+	 * type node -> (service node -> discovered service, null while its data is
+	 * being read or if it could not be read or decoded)
+	 */
+	private final Map<String, Map<String, DiscoverdService>> mirror = new HashMap<String, Map<String, DiscoverdService>>();
+	// type nodes whose children are watched in the current session
+	private final Set<String> watchedTypes = new HashSet<String>();
+	// path of a service node -> its outstanding read in the current session
+	private final Map<String, Read> reads = new HashMap<String, Read>();
+	// events and callbacks not handled yet, in the order of their arrival
+	private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+	private boolean draining;
+
+	/**
+	 * One ZooKeeper session, the watcher and callback of all requests made in
+	 * it.
+	 */
+	private final class Session implements Watcher, ChildrenCallback,
+			DataCallback {
+
+		final ZooKeeper keeper;
+		boolean isConnected;
+
+		Session() throws IOException {
+			this.keeper = new ZooKeeper(ip, 3000, this);
+		}
+
+		public void process(final WatchedEvent event) {
+			execute(new Runnable() {
+				public void run() {
+					if (session == Session.this)
+						handle(event);
+				}
+			});
+		}
+
+		public void processResult(final int rc, String path,
+				final Object ctx, final List<String> children) {
+			execute(new Runnable() {
+				public void run() {
+					if (session != Session.this)
+						return;
+					if (ctx == null)
+						rootListed(rc, children);
+					else
+						typeListed(rc, (String) ctx, children);
+				}
+			});
+		}
+
+		public void processResult(final int rc, String path,
+				final Object ctx, final byte[] data, Stat stat) {
+			execute(new Runnable() {
+				public void run() {
+					if (session == Session.this)
+						dataRead(rc, (Read) ctx, data);
+				}
+			});
+		}
+	}
+
+	/**
+	 * An outstanding read of the data of a service node.
+	 */
+	private static final class Read {
+		final String type;
+		final String node;
+		final String path;
+		int attempts;
+
+		Read(String type, String node) {
+			this.type = type;
+			this.node = node;
+			this.path = INode.ROOT_SLASH + type + INode.SLASH + node;
+		}
+	}
+
+	private final Runnable drain = new Runnable() {
+		public void run() {
+			while (true) {
+				Runnable task;
+				synchronized (tasks) {
+					task = tasks.poll();
+					if (task == null) {
+						draining = false;
+						return;
+					}
+				}
+				synchronized (connectionLock) {
+					if (watchManager.isDisposed())
+						continue;
+					try {
+						task.run();
+					} catch (RuntimeException e) {
+						Logger.log(LogService.LOG_ERROR,
+								"Error while reading the services: "
+										+ e.getMessage(), e);
+					}
+				}
+			}
+		}
+	};
+
+	TypedReadRoot(String ip, WatchManager watchManager) {
+		Assert.isNotNull(ip);
+		Assert.isNotNull(watchManager);
+		this.ip = ip;
+		this.watchManager = watchManager;
+		synchronized (connectionLock) {
+			connect();
+		}
+	}
+
+	/**
+	 * @return the name of the node below the root holding the services of the
+	 *         given type
+	 */
+	static String getTypeNode(IServiceTypeID serviceTypeID) {
+		StringBuffer sb = new StringBuffer();
+		String[] services = serviceTypeID.getServices();
+		for (int i = 0; i < services.length; i++) {
+			sb.append('_').append(services[i]).append('.');
+		}
+		String[] protocols = serviceTypeID.getProtocols();
+		for (int i = 0; i < protocols.length; i++) {
+			sb.append('_').append(protocols[i]).append('.');
+		}
+		String[] scopes = serviceTypeID.getScopes();
+		for (int i = 0; i < scopes.length; i++) {
+			sb.append(scopes[i]).append('.');
+		}
+		sb.append('_').append(serviceTypeID.getNamingAuthority());
+		try {
+			// a node name must not contain slashes
+			return URLEncoder.encode(sb.toString(), "UTF-8"); //$NON-NLS-1$
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the task after all tasks executed before, on a thread of the pool.
+	 */
+	private void execute(Runnable task) {
+		synchronized (tasks) {
+			tasks.add(task);
+			if (draining)
+				return;
+			draining = true;
+		}
+		ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(drain);
+	}
+
+	@SuppressWarnings({ "incomplete-switch" })
+	private void handle(WatchedEvent event) {
+		switch (event.getState()) {
+		case Disconnected:
+			if (!session.keeper.getState().isAlive()) {
+				session.isConnected = false;
+				connect();
+			}
+			break;
+		case Expired:
+			session.isConnected = false;
+			connect();
+			break;
+		case SyncConnected:
+			if (!session.isConnected) {
+				session.isConnected = true;
+				watchManager.addZooKeeper(session.keeper);
+				// the watches and reads of a previous session are gone
+				watchedTypes.clear();
+				reads.clear();
+				for (Map<String, DiscoverdService> known : mirror.values()) {
+					known.values().removeAll(Collections.singleton(null));
+				}
+				listRoot();
+			}
+			break;
+		// ignore @deprecated cases
+		}
+		String path = event.getPath();
+		if (path == null || !session.isConnected)
+			return;
+		if (!path.equals(INode.ROOT)) {
+			String type = path.substring(INode.ROOT_SLASH.length());
+			int slash = type.indexOf(INode.SLASH);
+			if (slash != -1) {
+				// the data watch of a service node that could not be read
+				if (event.getType() == EventType.NodeDataChanged)
+					nodeChanged(type.substring(0, slash), type
+							.substring(slash + 1));
+				return;
+			}
+			if (event.getType() == EventType.NodeDeleted)
+				dropType(type);
+			else if (event.getType() == EventType.NodeCreated
+					|| event.getType() == EventType.NodeChildrenChanged)
+				listType(type);
+			return;
+		}
+		switch (event.getType()) {
+		case NodeCreated:
+		case NodeChildrenChanged:
+		case NodeDeleted:
+			listRoot();
+			break;
+		}
+	}
+
+	private void connect() {
+		if ((session != null && session.isConnected)
+				|| watchManager.isDisposed())
+			return;
+		// the mirror is kept and compared with the tree once connected again
+		if (session != null) {
+			try {
+				session.keeper.close();
+			} catch (InterruptedException e) {
+				Logger.log(LogService.LOG_ERROR,
+						"Error while closing the current ZooKeeper: "
+								+ e.getMessage(), e);
+			}
+			watchManager.removeZooKeeper(session.keeper);
+			session = null;
+		}
+		try {
+			session = new Session();
+		} catch (IOException ioe) {
+			Logger.log(LogService.LOG_ERROR,
+					"Cannot initiate a new ZooKeeper: " + ioe.getMessage(), ioe);
+		}
+	}
+
+	private void listRoot() {
+		session.keeper.getChildren(INode.ROOT, session, session, null);
+	}
+
+	private void listType(String type) {
+		session.keeper.getChildren(INode.ROOT_SLASH + type, session, session,
+				type);
+	}
+
+	private void read(Read read) {
+		reads.put(read.path, read);
+		read.attempts++;
+		session.keeper.getData(read.path, false, session, read);
+	}
+
+	private void rootListed(int rc, List<String> children) {
+		if (rc == Code.NONODE.intValue()) {
+			// nothing published yet, wait for the root to be created
+			session.keeper.exists(INode.ROOT, session, null, null);
+			children = new ArrayList<String>();
+		} else if (rc != Code.OK.intValue()) {
+			return;
+		}
+		Set<String> types = new HashSet<String>(children);
+		List<String> known = new ArrayList<String>(mirror.keySet());
+		for (String type : known) {
+			if (!types.contains(type))
+				dropType(type);
+		}
+		for (String type : types) {
+			if (watchedTypes.add(type))
+				listType(type);
+		}
+	}
+
+	private void typeListed(int rc, String type, List<String> children) {
+		if (rc == Code.NONODE.intValue()) {
+			dropType(type);
+			return;
+		} else if (rc != Code.OK.intValue()) {
+			return;
+		}
+		Map<String, DiscoverdService> known = mirror.get(type);
+		if (known == null) {
+			known = new HashMap<String, DiscoverdService>();
+			mirror.put(type, known);
+		}
+		Set<String> nodes = new HashSet<String>(children);
+		for (Iterator<Map.Entry<String, DiscoverdService>> itr = known
+				.entrySet().iterator(); itr.hasNext();) {
+			Map.Entry<String, DiscoverdService> entry = itr.next();
+			if (!nodes.contains(entry.getKey())) {
+				itr.remove();
+				reads.remove(INode.ROOT_SLASH + type + INode.SLASH
+						+ entry.getKey());
+				if (entry.getValue() != null)
+					entry.getValue().dispose();
+			}
+		}
+		for (String node : nodes) {
+			if (known.containsKey(node) || Geo.isOwnPublication(node))
+				continue;
+			known.put(node, null);
+			read(new Read(type, node));
+		}
+	}
+
+	/**
+	 * Reads a service node again that could not be read or decoded before.
+	 */
+	private void nodeChanged(String type, String node) {
+		Map<String, DiscoverdService> known = mirror.get(type);
+		Read read = new Read(type, node);
+		if (known != null && known.containsKey(node)
+				&& known.get(node) == null && !reads.containsKey(read.path))
+			read(read);
+	}
+
+	private void dataRead(int rc, Read read, byte[] data) {
+		if (reads.get(read.path) != read) {
+			// deleted, or read again meanwhile
+			return;
+		}
+		Map<String, DiscoverdService> known = mirror.get(read.type);
+		if (rc == Code.NONODE.intValue()) {
+			// deleted, the watch of the type reports it
+			reads.remove(read.path);
+			known.remove(read.node);
+			return;
+		}
+		if (rc != Code.OK.intValue() || data == null) {
+			if (read.attempts < MAX_READ_ATTEMPTS) {
+				read(read);
+				return;
+			}
+			Logger.log(LogService.LOG_WARNING, "Cannot read " + read.path
+					+ ": " + Code.get(rc), null);
+			// read once the node changes
+			reads.remove(read.path);
+			session.keeper.exists(read.path, session, null, null);
+			return;
+		}
+		reads.remove(read.path);
+		try {
+			DiscoverdService discovered = new DiscoverdService(read.node,
+					NodeCodec.decode(data));
+			known.put(read.node, discovered);
+			Logger.log(LogService.LOG_DEBUG, PrettyPrinter.prompt(
+					PrettyPrinter.REMOTE_AVAILABLE, discovered), null);
+			Localizer.getSingleton().localize(
+					new Notification(discovered, Notification.AVAILABLE));
+		} catch (IOException e) {
+			Logger.log(LogService.LOG_DEBUG, e.getMessage(), e);
+			// read once the node changes
+			session.keeper.exists(read.path, session, null, null);
+		}
+	}
+
+	private void dropType(String type) {
+		watchedTypes.remove(type);
+		Map<String, DiscoverdService> known = mirror.remove(type);
+		if (known == null)
+			return;
+		for (Map.Entry<String, DiscoverdService> entry : known.entrySet()) {
+			reads.remove(INode.ROOT_SLASH + type + INode.SLASH
+					+ entry.getKey());
+			if (entry.getValue() != null)
+				entry.getValue().dispose();
+		}
+	}
+}
@@ -129,7 +129,7 @@ public class WatchManager implements BundleStoppingListener {
 			});
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
 				public void run() {
-					new ReadRoot(getConfig().getServerIps(), WatchManager.this);
+					read(getConfig().getServerIps());
 				}
 			});
 
@@ -147,7 +147,7 @@ public class WatchManager implements BundleStoppingListener {
 			});
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
 				public void run() {
-					new ReadRoot(getConfig().getServerIps(), WatchManager.this);
+					read(getConfig().getServerIps());
 				}
 			});
 
@@ -181,7 +181,7 @@ public class WatchManager implements BundleStoppingListener {
 			ZooDiscoveryContainer.CACHED_THREAD_POOL.execute(new Runnable() {
 				public void run() {
 					for (String ip : getConfig().getServerIps().split(",")) { //$NON-NLS-1$
-						new ReadRoot(ip, WatchManager.this);
+						read(ip);
 					}
 				}
 			});
@@ -189,6 +189,13 @@ public class WatchManager implements BundleStoppingListener {
 		}
 	}
 
+	private void read(String ip) {
+		if (getConfig().isTypedLayout())
+			new TypedReadRoot(ip, this);
+		else
+			new ReadRoot(ip, this);
+	}
+
 	public void bundleStopping() {
 		this.dispose();
 	}
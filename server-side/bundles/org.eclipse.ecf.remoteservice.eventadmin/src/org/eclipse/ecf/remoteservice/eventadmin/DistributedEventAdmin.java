@@ -17,6 +17,7 @@ package org.eclipse.ecf.remoteservice.eventadmin;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.security.Permission;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,6 +25,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.ecf.core.IContainer;
@@ -73,6 +79,20 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	private final Map topic2serializationHandler = new HashMap();
 
 	private static final String SHARED_OBJECT_MESSAGE_METHOD = "__handlePostEventSharedObjectMsg";
+	private static final String SHARED_OBJECT_BATCH_MESSAGE_METHOD = "__handlePostEventsSharedObjectMsg";
+
+	// Batching of posted events, see setBatching(int, long)
+	private volatile int batchMaxEvents = Integer.getInteger(
+			DistributedEventAdmin.class.getName() + ".BatchMaxEvents", 0)
+			.intValue();
+	private volatile long batchMaxDelay = Long.getLong(
+			DistributedEventAdmin.class.getName() + ".BatchMaxDelay", 10)
+			.longValue();
+	private final Set coalescedTopics = new HashSet();
+	// target ID -> EventBatch. Also the lock for sending batches, so that
+	// batches to a target are sent in order
+	private final Map batches = new HashMap();
+	private ScheduledExecutorService batchTimer;
 
 	/**
 	 * @since 1.2
@@ -84,11 +104,22 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 */
 	protected BundleContext context;
 
+	/**
+	 * Events to a target that wait to be sent in one message.
+	 */
+	private static class EventBatch {
+		// the events and their message data, in the order posted
+		final List events = new ArrayList();
+		final List messageData = new ArrayList();
+		// topic -> index in messageData, for coalesced topics
+		final Map topicIndex = new HashMap();
+	}
+
 	/**
 	 * @noreference
 	 */
 	protected DistributedEventAdmin() {
-		// nop
+		initCoalescedTopics();
 	}
 
 	/**
@@ -116,6 +147,18 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 		}
 		// Now create eventHandler tracker
 		this.eventHandlerTracker = new EventHandlerTracker(context, log);
+		initCoalescedTopics();
+	}
+
+	private void initCoalescedTopics() {
+		final String topics = System.getProperty(DistributedEventAdmin.class
+				.getName() + ".CoalescedTopics");
+		if (topics != null) {
+			final String[] split = topics.split(",");
+			for (int i = 0; i < split.length; i++)
+				if (split[i].trim().length() > 0)
+					coalescedTopics.add(split[i].trim());
+		}
 	}
 
 	/**
@@ -197,6 +240,13 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 * registration with the OSGi service registry.
 	 */
 	public void stop() {
+		flushEvents();
+		synchronized (batches) {
+			if (batchTimer != null) {
+				batchTimer.shutdown();
+				batchTimer = null;
+			}
+		}
 		eventHandlerTracker.close();
 		if (eventManager != null) {
 			eventManager.close();
@@ -246,6 +296,8 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 * <li>Call {@link #notifyPostSendMessage(Event)}</li>
 	 * <li>Call {@link #localDispatch(Event, boolean)}</li>
 	 * </ol>
+	 * With batching enabled (see {@link #setBatching(int, long)}) the event is
+	 * sent later, together with other events to the same target.
 	 * 
 	 * @param event
 	 *            the Event to send asynchronously to matching
@@ -284,9 +336,16 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 * Subclasses may override this method to customize or replace this
 	 * sendMessage behavior.
 	 * <p>
+	 * If batching is enabled, the message data is added to the batch for the
+	 * target instead, and is sent when the batch is full or its delay has
+	 * passed.
+	 * <p>
 	 * If an exception occurs on serialization or sending, the
 	 * {@link #handleSendMessageException(String, Event, Object[], IOException)}
-	 * method will be called to handle it.
+	 * method will be called to handle it. An exception on sending a batch is
+	 * handled by
+	 * {@link #handleSendBatchException(String, Event[], Object[][], IOException)}
+	 * instead.
 	 * 
 	 * @param eventToSend
 	 *            the event to send. Will not be <code>null</code>.
@@ -298,14 +357,178 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 		try {
 			target = getTarget(eventToSend);
 			messageData = createMessageDataFromEvent(target, eventToSend);
-			sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(
-					SHARED_OBJECT_MESSAGE_METHOD, messageData));
+			if (batchMaxEvents > 0)
+				addToBatch(target, eventToSend, messageData);
+			else
+				sendSharedObjectMsgTo(target, SharedObjectMsg.createMsg(
+						SHARED_OBJECT_MESSAGE_METHOD, messageData));
 		} catch (IOException e) {
 			handleSendMessageException("send exception to target=" + target,
 					eventToSend, messageData, e);
 		}
 	}
 
+	/**
+	 * Enable or disable batching of posted events. With batching, the events
+	 * posted to a target are sent in one shared object message when
+	 * maxEvents have been posted, or at most maxDelay ms after the first of
+	 * them. This saves the per message overhead when many small events are
+	 * posted. All members of the group must support batched messages.
+	 * <p>
+	 * Batching is disabled by default, and may also be enabled with the
+	 * system properties
+	 * org.eclipse.ecf.remoteservice.eventadmin.DistributedEventAdmin.BatchMaxEvents
+	 * and .BatchMaxDelay (default 10ms).
+	 * <p>
+	 * A batch is sent after the events in it have been posted, so an
+	 * exception on sending it is not thrown to the posters, not even to the
+	 * one whose event filled the batch. It is passed to
+	 * {@link #handleSendBatchException(String, Event[], Object[][], IOException)}
+	 * with all the events of the batch, and the events are not delivered to
+	 * the target. Exceptions on serializing an event are still handled by
+	 * {@link #handleSendMessageException(String, Event, Object[], IOException)}
+	 * when the event is posted.
+	 * 
+	 * @param maxEvents
+	 *            the maximum number of events in a batch. If &lt;= 0 batching
+	 *            is disabled, and the events still waiting are sent.
+	 * @param maxDelay
+	 *            the maximum time (ms) an event waits for a batch to fill.
+	 *            If &lt;= 0 the batch is sent as soon as the flush thread gets
+	 *            to it, with the events posted in the meantime.
+	 * @since 1.4
+	 */
+	public void setBatching(int maxEvents, long maxDelay) {
+		batchMaxDelay = maxDelay;
+		batchMaxEvents = maxEvents;
+		if (maxEvents <= 0)
+			flushEvents();
+	}
+
+	/**
+	 * Events with the given topics are coalesced when batching is enabled:
+	 * when an event is posted while an earlier event with the same topic is
+	 * still waiting in the batch for its target, the earlier event is
+	 * replaced, so only the last value is sent. This is meant for topics whose
+	 * events carry a state rather than a change. The coalesced topics may also
+	 * be given as a comma separated list with the system property
+	 * org.eclipse.ecf.remoteservice.eventadmin.DistributedEventAdmin.CoalescedTopics.
+	 * 
+	 * @param topics
+	 *            the topics to coalesce
+	 * @return boolean true if the coalesced topics changed
+	 * @since 1.4
+	 */
+	public boolean addCoalescedTopics(String[] topics) {
+		synchronized (batches) {
+			return coalescedTopics.addAll(Arrays.asList(topics));
+		}
+	}
+
+	/**
+	 * @param topics
+	 *            the topics no longer to coalesce
+	 * @return boolean true if the coalesced topics changed
+	 * @since 1.4
+	 */
+	public boolean removeCoalescedTopics(String[] topics) {
+		synchronized (batches) {
+			return coalescedTopics.removeAll(Arrays.asList(topics));
+		}
+	}
+
+	/**
+	 * Send the events that are waiting in batches now.
+	 * 
+	 * @since 1.4
+	 */
+	public void flushEvents() {
+		synchronized (batches) {
+			final Object[] targets = batches.keySet().toArray();
+			for (int i = 0; i < targets.length; i++)
+				sendBatch((ID) targets[i],
+						(EventBatch) batches.get(targets[i]));
+		}
+	}
+
+	private void addToBatch(ID target, Event event, Object[] messageData) {
+		final String topic = event.getTopic();
+		synchronized (batches) {
+			EventBatch batch = (EventBatch) batches.get(target);
+			final boolean first = (batch == null);
+			if (first) {
+				batch = new EventBatch();
+				batches.put(target, batch);
+			}
+			if (coalescedTopics.contains(topic)) {
+				final Integer index = (Integer) batch.topicIndex.get(topic);
+				if (index != null) {
+					// Replace the earlier event, in its place
+					batch.events.set(index.intValue(), event);
+					batch.messageData.set(index.intValue(), messageData);
+					return;
+				}
+				batch.topicIndex.put(topic,
+						Integer.valueOf(batch.messageData.size()));
+			}
+			batch.events.add(event);
+			batch.messageData.add(messageData);
+			if (batch.messageData.size() >= batchMaxEvents)
+				sendBatch(target, batch);
+			else if (first)
+				scheduleBatch(target, batch);
+		}
+	}
+
+	// Must be called while holding the batches lock
+	private void scheduleBatch(final ID target, final EventBatch batch) {
+		if (batchTimer == null)
+			batchTimer = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							final Thread t = new Thread(r,
+									"Distributed EventAdmin Batch Sender"); //$NON-NLS-1$
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		try {
+			batchTimer.schedule(new Runnable() {
+				public void run() {
+					synchronized (batches) {
+						// Unless already sent because it was full
+						if (batches.get(target) == batch)
+							sendBatch(target, batch);
+					}
+				}
+			}, Math.max(0, batchMaxDelay), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// Stopped, sent by flushEvents
+		}
+	}
+
+	// Must be called while holding the batches lock
+	private void sendBatch(ID target, EventBatch batch) {
+		batches.remove(target);
+		try {
+			sendSharedObjectMsgTo(target, createBatchMsg(batch));
+		} catch (IOException e) {
+			handleSendBatchException("send exception to target=" + target,
+					(Event[]) batch.events.toArray(new Event[batch.events
+							.size()]), (Object[][]) batch.messageData
+							.toArray(new Object[batch.messageData.size()][]),
+					e);
+		}
+	}
+
+	private SharedObjectMsg createBatchMsg(EventBatch batch) {
+		if (batch.messageData.size() == 1)
+			return SharedObjectMsg.createMsg(SHARED_OBJECT_MESSAGE_METHOD,
+					(Object[]) batch.messageData.get(0));
+		return SharedObjectMsg.createMsg(SHARED_OBJECT_BATCH_MESSAGE_METHOD,
+				batch.messageData.toArray());
+	}
+
 /**
 	 * Create message data for deliver to a target (which could be
 	 * <code>null</code> to designate multiple target receivers), The resulting
@@ -383,6 +606,37 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 		return eventMessage.getEvent();
 	}
 
+	/**
+	 * Handle an exception on sending a batch of events, see
+	 * {@link #setBatching(int, long)}. The events have been posted before,
+	 * so there is no caller to throw to. The default is to call
+	 * {@link #handleSendMessageException(String, Event, Object[], IOException)}
+	 * for each of the events, and to ignore the {@link ServiceException} it
+	 * throws after logging.
+	 * 
+	 * @param message
+	 *            a message associated with the exception.
+	 * @param eventsToSend
+	 *            the events in the batch, in the order they were posted.
+	 * @param messageParams
+	 *            the message params of each of the events.
+	 * @param exception
+	 *            exception
+	 * @since 1.4
+	 */
+	protected void handleSendBatchException(String message,
+			Event[] eventsToSend, Object[][] messageParams,
+			IOException exception) {
+		for (int i = 0; i < eventsToSend.length; i++) {
+			try {
+				handleSendMessageException(message, eventsToSend[i],
+						messageParams[i], exception);
+			} catch (ServiceException e) {
+				// Already logged, and no poster to throw to
+			}
+		}
+	}
+
 	/**
 	 * Handle any exceptions occuring as part of Event serialization or message
 	 * send. The default is to call {@link #logError(String, Throwable)} with
@@ -595,24 +849,18 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 	 * </ol></li>
 	 * <li>
 	 * </ol>
+	 * For a batch of events, the message data of each event is handled in turn.
 	 * @since 1.1
 	 */
 	protected boolean handleSharedObjectMsg(ID fromID, SharedObjectMsg msg) {
 		String soMethod = msg.getMethod();
 		if (SHARED_OBJECT_MESSAGE_METHOD.equals(soMethod)) {
-			try {
-				Object[] messageData = msg.getParameters();
-				Event receivedEvent = createEventFromMessageData(fromID,
-						messageData);
-				if (receivedEvent != null) {
-					notifyReceivedEvent(fromID, receivedEvent);
-					localDispatch(receivedEvent, true);
-				}
-			} catch (Exception e) {
-				logError(
-						"DistributedEventAdmin handleSharedObjectMsg error receiving msg="
-								+ msg, e);
-			}
+			handleMessageData(fromID, msg.getParameters(), msg);
+			return true;
+		} else if (SHARED_OBJECT_BATCH_MESSAGE_METHOD.equals(soMethod)) {
+			Object[] batch = msg.getParameters();
+			for (int i = 0; i < batch.length; i++)
+				handleMessageData(fromID, (Object[]) batch[i], msg);
 			return true;
 		} else {
 			logError("DistributedEventAdmin received bad shared object msg="
@@ -621,6 +869,22 @@ public class DistributedEventAdmin extends BaseSharedObject implements
 		return false;
 	}
 
+	private void handleMessageData(ID fromID, Object[] messageData,
+			SharedObjectMsg msg) {
+		try {
+			Event receivedEvent = createEventFromMessageData(fromID,
+					messageData);
+			if (receivedEvent != null) {
+				notifyReceivedEvent(fromID, receivedEvent);
+				localDispatch(receivedEvent, true);
+			}
+		} catch (Exception e) {
+			logError(
+					"DistributedEventAdmin handleSharedObjectMsg error receiving msg="
+							+ msg, e);
+		}
+	}
+
 	/**
 	 * @param fromID fromID
 	 * @param receivedEvent received event
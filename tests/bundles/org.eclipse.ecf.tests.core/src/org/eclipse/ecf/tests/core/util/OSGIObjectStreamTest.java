@@ -6,8 +6,10 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.ecf.core.util.OSGIObjectInputStream;
@@ -36,6 +38,15 @@ public class OSGIObjectStreamTest extends TestCase {
 		}
 	}
 
+	public static class MyArrayDTO {
+		public int[] ints;
+		public long[] longs;
+		public double[] doubles;
+		public char[] chars;
+		public boolean[] booleans;
+		public String name;
+	}
+
 	public static class MySerializable implements Serializable {
 		private static final long serialVersionUID = 7671873163370195115L;
 		private String first;
@@ -142,9 +153,59 @@ public class OSGIObjectStreamTest extends TestCase {
 		assertEquals(s, (String) serializeDeserialize(s));
 	}
 
+	public void testPrimitiveArrays() throws Exception {
+		int[] ints = new int[5000];
+		for (int i = 0; i < ints.length; i++)
+			ints[i] = i * 31;
+		assertTrue(Arrays.equals(ints, (int[]) serializeDeserialize(ints)));
+		assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, (byte[]) serializeDeserialize(new byte[] { 1, 2, 3 })));
+		assertTrue(Arrays.equals(new float[] { 1.5f, -2f }, (float[]) serializeDeserialize(new float[] { 1.5f, -2f })));
+		assertTrue(Arrays.equals(new short[0], (short[]) serializeDeserialize(new short[0])));
+	}
+
+	public void testDTOList() throws Exception {
+		List<MyArrayDTO> dtos = new ArrayList<MyArrayDTO>();
+		for (int i = 0; i < 10; i++) {
+			MyArrayDTO dto = new MyArrayDTO();
+			dto.ints = new int[] { i, i + 1 };
+			dto.longs = new long[] { Long.MAX_VALUE - i };
+			dto.doubles = new double[] { i / 3.0 };
+			dto.chars = "chars".toCharArray();
+			dto.booleans = new boolean[] { true, false };
+			dto.name = (i % 2 == 0) ? null : "dto" + i;
+			dtos.add(dto);
+		}
+		List<?> result = (List<?>) serializeDeserialize(dtos);
+		assertEquals(dtos.size(), result.size());
+		for (int i = 0; i < dtos.size(); i++) {
+			MyArrayDTO expected = dtos.get(i);
+			MyArrayDTO actual = (MyArrayDTO) result.get(i);
+			assertTrue(Arrays.equals(expected.ints, actual.ints));
+			assertTrue(Arrays.equals(expected.longs, actual.longs));
+			assertTrue(Arrays.equals(expected.doubles, actual.doubles));
+			assertTrue(Arrays.equals(expected.chars, actual.chars));
+			assertTrue(Arrays.equals(expected.booleans, actual.booleans));
+			assertEquals(expected.name, actual.name);
+		}
+	}
+
+	public void testNonCompact() throws Exception {
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("dto", this.dto2);
+		map.put("ints", new int[] { 1, 2, 3 });
+		Map<?, ?> result = (Map<?, ?>) serializeDeserialize(map, false);
+		assertEquals(this.dto2, result.get("dto"));
+		assertTrue(Arrays.equals(new int[] { 1, 2, 3 }, (int[]) result.get("ints")));
+	}
+
 	private Object serializeDeserialize(Object o) throws IOException, ClassNotFoundException {
+		return serializeDeserialize(o, true);
+	}
+
+	private Object serializeDeserialize(Object o, boolean compact) throws IOException, ClassNotFoundException {
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		OSGIObjectOutputStream oos = new OSGIObjectOutputStream(bos);
+		oos.setCompact(compact);
 		oos.writeObject(o);
 		oos.close();
 
@@ -0,0 +1,133 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.tests.filetransfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.ecf.core.util.Proxy;
+import org.eclipse.ecf.filetransfer.IFileTransferListener;
+import org.eclipse.ecf.filetransfer.IRetrieveFileTransferOptions;
+import org.eclipse.ecf.filetransfer.IncomingFileTransferException;
+import org.eclipse.ecf.filetransfer.events.IFileTransferEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveDoneEvent;
+import org.eclipse.ecf.filetransfer.events.IIncomingFileTransferReceiveStartEvent;
+import org.eclipse.ecf.provider.filetransfer.retrieve.AbstractRetrieveFileTransfer;
+
+/**
+ * Retrieve file transfer that serves a byte array with the given response
+ * headers instead of connecting, and records the request headers of each
+ * request and the byte ranges requested for segments.
+ */
+class InMemoryRetrieveFileTransfer extends AbstractRetrieveFileTransfer {
+
+	/**
+	 * Listener that receives into a file and records the outcome.
+	 */
+	static class Receiver implements IFileTransferListener {
+		final File file;
+		final CountDownLatch done = new CountDownLatch(1);
+		volatile Map startHeaders;
+		volatile Exception exception;
+
+		Receiver(File file) {
+			this.file = file;
+		}
+
+		public void handleTransferEvent(IFileTransferEvent event) {
+			if (event instanceof IIncomingFileTransferReceiveStartEvent) {
+				final IIncomingFileTransferReceiveStartEvent start = (IIncomingFileTransferReceiveStartEvent) event;
+				startHeaders = start.getResponseHeaders();
+				try {
+					start.receive(file);
+				} catch (final IOException e) {
+					exception = e;
+					done.countDown();
+				}
+			} else if (event instanceof IIncomingFileTransferReceiveDoneEvent) {
+				exception = ((IIncomingFileTransferReceiveDoneEvent) event).getException();
+				done.countDown();
+			}
+		}
+
+		/**
+		 * @return true if done within 30 seconds
+		 */
+		boolean await() throws InterruptedException {
+			return done.await(30, TimeUnit.SECONDS);
+		}
+	}
+
+	volatile byte[] content;
+
+	final Map<String, String> headers = new HashMap<String, String>();
+
+	// answer requests with 304 Not Modified
+	volatile boolean notModified;
+
+	// the request headers of each request, empty if none
+	final List<Map> requests = Collections.synchronizedList(new ArrayList<Map>());
+
+	// "start-end" of each segment stream opened
+	final List<String> ranges = Collections.synchronizedList(new ArrayList<String>());
+
+	InMemoryRetrieveFileTransfer(byte[] content) {
+		this.content = content;
+	}
+
+	protected void openStreams() throws IncomingFileTransferException {
+		final Object requestHeaders = (options == null) ? null : options.get(IRetrieveFileTransferOptions.REQUEST_HEADERS);
+		requests.add((requestHeaders instanceof Map) ? (Map) requestHeaders : new HashMap());
+		if (notModified)
+			throw new IncomingFileTransferException("Not Modified", 304, new HashMap<String, String>(headers));
+		setFileLength(content.length);
+		responseHeaders = new HashMap<String, String>(headers);
+		setInputStream(new ByteArrayInputStream(content));
+		fireReceiveStartEvent();
+	}
+
+	protected boolean supportsSegments() {
+		return true;
+	}
+
+	protected InputStream openSegmentStream(long start, long end) throws IOException {
+		ranges.add(start + "-" + end);
+		return new ByteArrayInputStream(content, (int) start, (int) (end - start + 1));
+	}
+
+	protected void setupProxies() {
+		// no connection is made
+	}
+
+	protected void setupProxy(Proxy p) {
+		// no connection is made
+	}
+
+	protected boolean doPause() {
+		return false;
+	}
+
+	protected boolean doResume() {
+		return false;
+	}
+}
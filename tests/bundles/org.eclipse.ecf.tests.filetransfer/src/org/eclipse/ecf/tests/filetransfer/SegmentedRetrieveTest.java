@@ -0,0 +1,108 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.tests.filetransfer;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.filetransfer.identity.FileIDFactory;
+import org.eclipse.ecf.filetransfer.identity.IFileID;
+
+public class SegmentedRetrieveTest extends TestCase {
+
+	private static final String SEGMENTS = "org.eclipse.ecf.provider.filetransfer.retrieve.segments";
+	private static final String MIN_SEGMENT_SIZE = "org.eclipse.ecf.provider.filetransfer.retrieve.minSegmentSize";
+
+	private byte[] content;
+	private InMemoryRetrieveFileTransfer transfer;
+	private File file;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		content = new byte[10000];
+		for (int i = 0; i < content.length; i++)
+			content[i] = (byte) (i * 31);
+		transfer = new InMemoryRetrieveFileTransfer(content);
+		file = Files.createTempFile("ECFTest", "").toFile();
+	}
+
+	protected void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	private Map options(int segments, long minSegmentSize) {
+		final Map options = new HashMap();
+		options.put(SEGMENTS, Integer.valueOf(segments));
+		options.put(MIN_SEGMENT_SIZE, Long.valueOf(minSegmentSize));
+		return options;
+	}
+
+	private void retrieve(Map options) throws Exception {
+		final IFileID fileID = FileIDFactory.getDefault().createFileID(transfer.getRetrieveNamespace(), new URL("http://localhost/file"));
+		final InMemoryRetrieveFileTransfer.Receiver receiver = new InMemoryRetrieveFileTransfer.Receiver(file);
+		transfer.sendRetrieveRequest(fileID, receiver, options);
+		assertTrue("retrieve not done", receiver.await());
+		assertNull(receiver.exception);
+		assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+	}
+
+	private List<String> sortedRanges() {
+		final List<String> result = new ArrayList<String>(transfer.ranges);
+		Collections.sort(result);
+		return result;
+	}
+
+	public void testRangeSplit() throws Exception {
+		transfer.headers.put("Accept-Ranges", "bytes");
+		retrieve(options(4, 1000));
+		// the first segment is read from the initial response
+		assertEquals(Arrays.asList(new String[] {"2500-4999", "5000-7499", "7500-9999"}), sortedRanges());
+	}
+
+	public void testMinSegmentSizeLimitsSegments() throws Exception {
+		transfer.headers.put("Accept-Ranges", "bytes");
+		retrieve(options(4, 4000));
+		assertEquals(Arrays.asList(new String[] {"5000-9999"}), sortedRanges());
+		// too small for two segments
+		transfer.ranges.clear();
+		retrieve(options(4, 6000));
+		assertTrue(transfer.ranges.isEmpty());
+	}
+
+	public void testFallbackWithoutRangeSupport() throws Exception {
+		retrieve(options(4, 1000));
+		assertTrue(transfer.ranges.isEmpty());
+		transfer.headers.put("Accept-Ranges", "none");
+		retrieve(options(4, 1000));
+		assertTrue(transfer.ranges.isEmpty());
+	}
+
+	public void testFallbackWithContentEncoding() throws Exception {
+		// ranges would address the encoded body
+		transfer.headers.put("Accept-Ranges", "bytes");
+		transfer.headers.put("Content-Encoding", "gzip");
+		retrieve(options(4, 1000));
+		assertTrue(transfer.ranges.isEmpty());
+	}
+}
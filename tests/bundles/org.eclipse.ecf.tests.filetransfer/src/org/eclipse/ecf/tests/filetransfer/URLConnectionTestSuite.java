@@ -32,7 +32,8 @@ import org.osgi.framework.FrameworkUtil;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ FileBrowseTest.class, FileIDFactoryTest.class, FileSendTest.class, GetRemoteFileNameTest.class,
 		NamespaceTest.class, URIProtocolFactoryRetrieveTest.class, URLBrowseTest.class, URLCancelTest.class,
-		URLPartialRetrieveTest.class, URLRetrievePauseResumeTest.class, URLRetrieveTest.class })
+		URLPartialRetrieveTest.class, URLRetrievePauseResumeTest.class, URLRetrieveTest.class,
+		RetrieveFileCacheTest.class, SegmentedRetrieveTest.class, WatchdogInputStreamTest.class })
 public class URLConnectionTestSuite {
 
 	private static void displayAllProviders() {
@@ -0,0 +1,187 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.tests.filetransfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.ecf.provider.filetransfer.util.WatchdogInputStream;
+
+public class WatchdogInputStreamTest extends TestCase {
+
+	/**
+	 * Stream whose reads block until it is closed, and whose close optionally
+	 * blocks until released.
+	 */
+	static class BlockingInputStream extends InputStream {
+		final CountDownLatch closed = new CountDownLatch(1);
+		final CountDownLatch release;
+
+		BlockingInputStream(boolean blockClose) {
+			release = new CountDownLatch(blockClose ? 1 : 0);
+		}
+
+		public int read() throws IOException {
+			try {
+				closed.await();
+			} catch (final InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			throw new IOException("closed");
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			return read();
+		}
+
+		public void close() throws IOException {
+			closed.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+		}
+	}
+
+	/**
+	 * Stream that returns one byte per read after a delay.
+	 */
+	static class SlowInputStream extends InputStream {
+		private final long delay;
+		private int remaining;
+
+		SlowInputStream(long delay, int length) {
+			this.delay = delay;
+			this.remaining = length;
+		}
+
+		public int read() throws IOException {
+			if (remaining == 0)
+				return -1;
+			try {
+				Thread.sleep(delay);
+			} catch (final InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			remaining--;
+			return 1;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			final int c = read();
+			if (c == -1)
+				return -1;
+			b[off] = (byte) c;
+			return 1;
+		}
+	}
+
+	public void testStalledReadIsAborted() throws Exception {
+		final BlockingInputStream in = new BlockingInputStream(false);
+		final WatchdogInputStream stream = new WatchdogInputStream(in, 500, 0);
+		final long start = System.currentTimeMillis();
+		try {
+			stream.read();
+			fail("stalled read was not aborted");
+		} catch (final InterruptedIOException e) {
+			// expected
+		}
+		final long elapsed = System.currentTimeMillis() - start;
+		assertTrue("aborted after " + elapsed + "ms", elapsed >= 500 && elapsed < 10000);
+		assertEquals(0, in.closed.getCount());
+		// an aborted stream is not resumable
+		try {
+			stream.read(new byte[1], 0, 1);
+			fail("read after abort did not fail");
+		} catch (final InterruptedIOException e) {
+			// expected
+		}
+		assertEquals(0, stream.available());
+		stream.close();
+	}
+
+	public void testSlowStreamIsNotAborted() throws Exception {
+		// takes longer than the stall timeout in total, but no single read does
+		final WatchdogInputStream stream = new WatchdogInputStream(new SlowInputStream(200, 12), 500, 0);
+		final byte[] buf = new byte[4];
+		int total = 0;
+		int n;
+		while ((n = stream.read(buf, 0, buf.length)) != -1)
+			total += n;
+		assertEquals(12, total);
+		stream.close();
+	}
+
+	public void testCancelAbortsRead() throws Exception {
+		final BlockingInputStream in = new BlockingInputStream(false);
+		// never times out by itself
+		final WatchdogInputStream stream = new WatchdogInputStream(in, 0, 0);
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+		stream.setCancelMonitor(monitor);
+		final Thread canceller = new Thread(new Runnable() {
+			public void run() {
+				try {
+					Thread.sleep(200);
+				} catch (final InterruptedException e) {
+					// cancel now
+				}
+				monitor.setCanceled(true);
+			}
+		});
+		canceller.start();
+		try {
+			stream.read();
+			fail("cancelled read was not aborted");
+		} catch (final InterruptedIOException e) {
+			// expected
+		}
+		assertEquals(0, in.closed.getCount());
+		canceller.join();
+		stream.close();
+	}
+
+	public void testCloseTimeout() throws Exception {
+		final BlockingInputStream in = new BlockingInputStream(true);
+		final WatchdogInputStream stream = new WatchdogInputStream(in, 0, 200);
+		final long start = System.currentTimeMillis();
+		try {
+			stream.close();
+			fail("blocked close did not time out");
+		} catch (final InterruptedIOException e) {
+			// expected
+		}
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		// the close goes on in the background
+		assertTrue(in.closed.await(5, TimeUnit.SECONDS));
+		in.release.countDown();
+		// closing again does nothing
+		stream.close();
+	}
+
+	public void testBackgroundClose() throws Exception {
+		final BlockingInputStream in = new BlockingInputStream(true);
+		final WatchdogInputStream stream = new WatchdogInputStream(in, 0, -1);
+		// returns at once though the underlying close blocks
+		stream.close();
+		assertTrue(in.closed.await(5, TimeUnit.SECONDS));
+		in.release.countDown();
+	}
+}
@@ -0,0 +1,229 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.protocol.bittorrent.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.protocol.bittorrent.internal.torrent.DataFile;
+import org.eclipse.ecf.protocol.bittorrent.internal.torrent.Piece;
+import org.eclipse.ecf.protocol.bittorrent.internal.torrent.PieceState;
+
+/**
+ * Writes the pieces of a torrent with two files through {@link Piece} and
+ * reads them back, both with and without memory mapped files. The second
+ * piece lies partly in each file, and its first block crosses the boundary.
+ */
+public class DataFileTest extends TestCase {
+
+	private static final int PIECE_LENGTH = 32768;
+
+	private static final int BLOCK_LENGTH = 16384;
+
+	private static final int FIRST_LENGTH = 40000;
+
+	private static final int SECOND_LENGTH = 60000;
+
+	private static final int TOTAL = FIRST_LENGTH + SECOND_LENGTH;
+
+	private File directory;
+
+	private File first;
+
+	private File second;
+
+	private DataFile[] files;
+
+	private Piece[] pieces;
+
+	private byte[] data;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = File.createTempFile("datafile", null); //$NON-NLS-1$
+		directory.delete();
+		directory.mkdirs();
+		first = new File(directory, "first"); //$NON-NLS-1$
+		second = new File(directory, "second"); //$NON-NLS-1$
+		data = new byte[TOTAL];
+		new Random(TOTAL).nextBytes(data);
+	}
+
+	protected void tearDown() throws Exception {
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				files[i].close();
+			}
+		}
+		first.delete();
+		second.delete();
+		directory.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * Lays out the files and pieces the way the torrent manager does for a
+	 * torrent with a 40000 and a 60000 byte file and 32768 byte pieces.
+	 */
+	private void createFiles(boolean mapped) throws IOException {
+		files = new DataFile[] { new DataFile(first, FIRST_LENGTH, mapped),
+				new DataFile(second, SECOND_LENGTH, mapped) };
+		files[0].setPieces(new int[] { 0, 1 }, PIECE_LENGTH, PIECE_LENGTH);
+		// piece 2 starts 25536 bytes into the second file
+		files[1].setPieces(new int[] { 1, 2, 3 }, 2 * PIECE_LENGTH
+				- FIRST_LENGTH, PIECE_LENGTH);
+
+		PieceState[] states = PieceState.createStates(4);
+		pieces = new Piece[4];
+		for (int i = 0; i < pieces.length; i++) {
+			pieces[i] = new Piece(states[i], i);
+			pieces[i].setLength(Math.min(PIECE_LENGTH, TOTAL - i
+					* PIECE_LENGTH));
+		}
+		pieces[0].addFile(files[0], PIECE_LENGTH);
+		pieces[1].addFile(files[0], FIRST_LENGTH - PIECE_LENGTH);
+		pieces[1].addFile(files[1], 2 * PIECE_LENGTH - FIRST_LENGTH);
+		pieces[2].addFile(files[1], PIECE_LENGTH);
+		pieces[3].addFile(files[1], TOTAL - 3 * PIECE_LENGTH);
+	}
+
+	private void writePieces() throws IOException {
+		for (int i = 0; i < pieces.length; i++) {
+			int start = i * PIECE_LENGTH;
+			for (int index = 0; index < pieces[i].getLength(); index += BLOCK_LENGTH) {
+				int length = Math.min(BLOCK_LENGTH, pieces[i].getLength()
+						- index);
+				assertTrue(pieces[i].write(index, data, start + index, length));
+			}
+			assertTrue(pieces[i].isComplete());
+		}
+	}
+
+	/**
+	 * Reads a piece back from the files that hold it, one part per file.
+	 */
+	private byte[] getPiece(int piece) throws IOException {
+		byte[] read = new byte[pieces[piece].getLength()];
+		int offset = 0;
+		for (int i = 0; i < files.length; i++) {
+			byte[] part = files[i].getData(piece);
+			if (part != null) {
+				System.arraycopy(part, 0, read, offset, part.length);
+				offset += part.length;
+			}
+		}
+		assertEquals(read.length, offset);
+		return read;
+	}
+
+	/**
+	 * Reads a piece back into a buffer as a peer connection does when it
+	 * sends the piece.
+	 */
+	private byte[] readPiece(int piece) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(pieces[piece].getLength());
+		for (int i = 0; i < files.length; i++) {
+			if (files[i].containsPiece(piece)) {
+				files[i].read(piece, buffer);
+			}
+		}
+		assertFalse(buffer.hasRemaining());
+		return buffer.array();
+	}
+
+	private byte[] expected(int piece) {
+		int start = piece * PIECE_LENGTH;
+		byte[] expected = new byte[pieces[piece].getLength()];
+		System.arraycopy(data, start, expected, 0, expected.length);
+		return expected;
+	}
+
+	private static byte[] contents(File file) throws IOException {
+		byte[] contents = new byte[(int) file.length()];
+		InputStream in = new FileInputStream(file);
+		try {
+			int offset = 0;
+			while (offset < contents.length) {
+				int read = in.read(contents, offset, contents.length - offset);
+				assertTrue(read != -1);
+				offset += read;
+			}
+		} finally {
+			in.close();
+		}
+		return contents;
+	}
+
+	private void assertFiles() throws IOException {
+		byte[] expected = new byte[FIRST_LENGTH];
+		System.arraycopy(data, 0, expected, 0, FIRST_LENGTH);
+		assertTrue(Arrays.equals(expected, contents(first)));
+		expected = new byte[SECOND_LENGTH];
+		System.arraycopy(data, FIRST_LENGTH, expected, 0, SECOND_LENGTH);
+		assertTrue(Arrays.equals(expected, contents(second)));
+	}
+
+	private void assertPiecesReadBack() throws IOException {
+		assertEquals(FIRST_LENGTH - PIECE_LENGTH, files[0].getDataLength(1));
+		assertEquals(2 * PIECE_LENGTH - FIRST_LENGTH, files[1]
+				.getDataLength(1));
+		for (int i = 0; i < pieces.length; i++) {
+			assertTrue(Arrays.equals(expected(i), getPiece(i)));
+			assertTrue(Arrays.equals(expected(i), readPiece(i)));
+		}
+	}
+
+	public void testPiecesAcrossFiles() throws Exception {
+		createFiles(false);
+		writePieces();
+		assertPiecesReadBack();
+		assertFiles();
+	}
+
+	public void testMappedPiecesAcrossFiles() throws Exception {
+		createFiles(true);
+		writePieces();
+		assertPiecesReadBack();
+		// the mapped writes reach the files once they are closed
+		files[0].close();
+		files[1].close();
+		assertFiles();
+	}
+
+	public void testClosedFileCannotBeRead() throws Exception {
+		createFiles(true);
+		writePieces();
+		files[1].close();
+		try {
+			files[1].getData(2);
+			fail("read from a closed file"); //$NON-NLS-1$
+		} catch (IOException expected) {
+			// expected
+		}
+		try {
+			readPiece(2);
+			fail("read from a closed file"); //$NON-NLS-1$
+		} catch (IOException expected) {
+			// expected
+		}
+		// the other file stays usable
+		assertTrue(Arrays.equals(expected(0), getPiece(0)));
+	}
+}
@@ -0,0 +1,250 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.discovery;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.ContainerConnectException;
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDCreateException;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.core.security.IConnectContext;
+import org.eclipse.ecf.discovery.AbstractDiscoveryContainerAdapter;
+import org.eclipse.ecf.discovery.DiscoveryContainerConfig;
+import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.discovery.ServiceContainerEvent;
+import org.eclipse.ecf.discovery.ServiceInfo;
+import org.eclipse.ecf.discovery.identity.IServiceID;
+import org.eclipse.ecf.discovery.identity.IServiceTypeID;
+import org.eclipse.ecf.discovery.identity.ServiceID;
+import org.eclipse.ecf.discovery.identity.ServiceTypeID;
+import org.eclipse.ecf.provider.discovery.CompositeDiscoveryContainer;
+
+/**
+ * Tests that the composite container answers repeated lookups from memory
+ * while the cache timeout allows it, and asks the underlying locators again
+ * once the entry has expired or the set of locators or services changed.
+ */
+public class CompositeDiscoveryContainerCacheTest extends TestCase {
+
+	private static final String CACHE_TIMEOUT = "org.eclipse.ecf.provider.discovery.cacheTimeout";
+
+	private static final String TYPE = "_ecf._tcp.local._iana";
+
+	static class TestNamespace extends Namespace {
+		private static final long serialVersionUID = 1L;
+
+		static final String NAME = "ecf.namespace.tests.composite.cache";
+
+		TestNamespace() {
+			super(NAME, "Composite cache test namespace");
+		}
+
+		public ID createInstance(Object[] parameters) throws IDCreateException {
+			if (parameters != null && parameters.length == 2 && parameters[0] instanceof IServiceTypeID && parameters[1] instanceof URI)
+				return new TestServiceID(this, (IServiceTypeID) parameters[0], (URI) parameters[1]);
+			if (parameters != null && parameters.length == 1 && parameters[0] instanceof IServiceTypeID)
+				return new ServiceTypeID(this, ((IServiceTypeID) parameters[0]).getName());
+			throw new IDCreateException("wrong parameters");
+		}
+
+		public String getScheme() {
+			return "compositecachetest";
+		}
+	}
+
+	static class TestServiceID extends ServiceID {
+		private static final long serialVersionUID = 1L;
+
+		TestServiceID(Namespace namespace, IServiceTypeID type, URI uri) {
+			super(namespace, type, uri);
+		}
+	}
+
+	/**
+	 * Locator that counts how often it is asked for services.
+	 */
+	static class CountingLocator extends AbstractDiscoveryContainerAdapter {
+		final List services = new ArrayList();
+		int queries;
+		private ID connectedID;
+
+		CountingLocator(String name) {
+			super(TestNamespace.NAME, new DiscoveryContainerConfig(IDFactory.getDefault().createStringID(name)));
+		}
+
+		IServiceInfo add(String host) {
+			final IServiceInfo info = new ServiceInfo(URI.create("ecftcp://" + host + ":3282/server"), host, new ServiceTypeID(getServicesNamespace(), TYPE));
+			synchronized (services) {
+				services.add(info);
+			}
+			return info;
+		}
+
+		void discovered(IServiceInfo info) {
+			fireServiceDiscovered(new ServiceContainerEvent(info, getID()));
+		}
+
+		void undiscovered(IServiceInfo info) {
+			synchronized (services) {
+				services.remove(info);
+			}
+			fireServiceUndiscovered(new ServiceContainerEvent(info, getID()));
+		}
+
+		public String getContainerName() {
+			return "ecf.discovery.tests.counting";
+		}
+
+		public void connect(ID targetID, IConnectContext connectContext) throws ContainerConnectException {
+			connectedID = getID();
+		}
+
+		public void disconnect() {
+			connectedID = null;
+		}
+
+		public ID getConnectedID() {
+			return connectedID;
+		}
+
+		public IServiceInfo getServiceInfo(IServiceID aServiceID) {
+			return null;
+		}
+
+		public IServiceInfo[] getServices() {
+			synchronized (services) {
+				queries++;
+				return (IServiceInfo[]) services.toArray(new IServiceInfo[services.size()]);
+			}
+		}
+
+		public IServiceInfo[] getServices(IServiceTypeID aServiceTypeID) {
+			return getServices();
+		}
+
+		public IServiceTypeID[] getServiceTypes() {
+			return new IServiceTypeID[] {new ServiceTypeID(getServicesNamespace(), TYPE)};
+		}
+
+		public void registerService(IServiceInfo serviceInfo) {
+			// nothing is advertised
+		}
+
+		public void unregisterService(IServiceInfo serviceInfo) {
+			// nothing is advertised
+		}
+
+		int getQueries() {
+			synchronized (services) {
+				return queries;
+			}
+		}
+	}
+
+	private CompositeDiscoveryContainer container;
+	private CountingLocator locator;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		if (IDFactory.getDefault().getNamespaceByName(TestNamespace.NAME) == null)
+			IDFactory.getDefault().addNamespace(new TestNamespace());
+		locator = new CountingLocator("locator1");
+		locator.add("host1");
+	}
+
+	protected void tearDown() throws Exception {
+		if (container != null)
+			container.dispose();
+		System.getProperties().remove(CACHE_TIMEOUT);
+		super.tearDown();
+	}
+
+	private CompositeDiscoveryContainer createContainer(long cacheTimeout) {
+		System.setProperty(CACHE_TIMEOUT, String.valueOf(cacheTimeout));
+		container = new CompositeDiscoveryContainer(new ArrayList());
+		assertTrue(container.addContainer(locator));
+		return container;
+	}
+
+	public void testCacheDisabled() throws Exception {
+		createContainer(0);
+		assertEquals(1, container.getServices().length);
+		assertEquals(1, container.getServices().length);
+		assertEquals(2, locator.getQueries());
+	}
+
+	public void testCacheHit() throws Exception {
+		createContainer(60000);
+		assertEquals(1, container.getServices().length);
+		assertEquals(1, container.getServices().length);
+		assertEquals(1, locator.getQueries());
+		final IServiceTypeID type = new ServiceTypeID(locator.getServicesNamespace(), TYPE);
+		assertEquals(1, container.getServices(type).length);
+		assertEquals(1, container.getServices(type).length);
+		// each kind of lookup is cached on its own
+		assertEquals(2, locator.getQueries());
+	}
+
+	public void testCacheExpiry() throws Exception {
+		createContainer(200);
+		container.getServices();
+		container.getServices();
+		assertEquals(1, locator.getQueries());
+		Thread.sleep(400);
+		container.getServices();
+		assertEquals(2, locator.getQueries());
+	}
+
+	public void testDiscoveryEventsUpdateCache() throws Exception {
+		createContainer(60000);
+		assertEquals(1, container.getServices().length);
+		final IServiceInfo info = locator.add("host2");
+		locator.discovered(info);
+		assertEquals(2, container.getServices().length);
+		locator.undiscovered(info);
+		assertEquals(1, container.getServices().length);
+		// answered from memory all along
+		assertEquals(1, locator.getQueries());
+	}
+
+	public void testAddContainerInvalidatesCache() throws Exception {
+		createContainer(60000);
+		assertEquals(1, container.getServices().length);
+		final CountingLocator other = new CountingLocator("locator2");
+		other.add("host3");
+		assertTrue(container.addContainer(other));
+		// the new locator's services are found right away
+		assertEquals(2, container.getServices().length);
+		assertEquals(2, locator.getQueries());
+		assertEquals(1, other.getQueries());
+
+		assertTrue(container.removeContainer(other));
+		assertEquals(1, container.getServices().length);
+		assertEquals(3, locator.getQueries());
+		assertEquals(1, other.getQueries());
+	}
+
+	public void testRegisterServiceInvalidatesCache() throws Exception {
+		createContainer(60000);
+		container.getServices();
+		container.registerService(locator.add("host4"));
+		assertEquals(2, container.getServices().length);
+		assertEquals(2, locator.getQueries());
+	}
+}
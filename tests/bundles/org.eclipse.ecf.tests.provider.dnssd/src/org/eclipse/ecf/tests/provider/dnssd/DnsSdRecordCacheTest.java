@@ -0,0 +1,330 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.dnssd;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.discovery.IServiceInfo;
+import org.eclipse.ecf.provider.dnssd.DnsSdDiscoveryLocator;
+import org.eclipse.ecf.provider.dnssd.DnsSdNamespace;
+import org.eclipse.ecf.provider.dnssd.DnsSdServiceTypeID;
+import org.xbill.DNS.CNAMERecord;
+import org.xbill.DNS.DClass;
+import org.xbill.DNS.EDNSOption;
+import org.xbill.DNS.Flags;
+import org.xbill.DNS.Lookup;
+import org.xbill.DNS.Message;
+import org.xbill.DNS.Name;
+import org.xbill.DNS.PTRRecord;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Resolver;
+import org.xbill.DNS.SOARecord;
+import org.xbill.DNS.SRVRecord;
+import org.xbill.DNS.Section;
+import org.xbill.DNS.TSIG;
+import org.xbill.DNS.TXTRecord;
+import org.xbill.DNS.TextParseException;
+import org.xbill.DNS.Type;
+
+/**
+ * Tests the caching of the SRV and TXT answers of the locator against an
+ * in-memory zone, so no name server is needed.
+ */
+public class DnsSdRecordCacheTest extends TestCase {
+
+	private static final String CACHE_SIZE = "org.eclipse.ecf.provider.dnssd.cacheSize";
+
+	/**
+	 * Resolver that answers from the records added to it and counts the
+	 * queries per name and type. Aliases are not followed, so the client has
+	 * to query the name an alias points to itself.
+	 */
+	static class ZoneResolver implements Resolver {
+		final Map records = new HashMap();
+		final Map queries = new HashMap();
+		SOARecord soa;
+
+		void add(Record record) {
+			synchronized (records) {
+				List list = (List) records.get(record.getName());
+				if (list == null) {
+					list = new ArrayList();
+					records.put(record.getName(), list);
+				}
+				list.add(record);
+			}
+		}
+
+		int getQueries(Name name, int type) {
+			synchronized (queries) {
+				final Integer count = (Integer) queries.get(name + "/" + Type.string(type));
+				return count == null ? 0 : count.intValue();
+			}
+		}
+
+		Message answer(Message query) {
+			final Record question = query.getQuestion();
+			final Name name = question.getName();
+			final int type = question.getType();
+			synchronized (queries) {
+				queries.put(name + "/" + Type.string(type), Integer.valueOf(getQueries(name, type) + 1));
+			}
+			final Message response = new Message(query.getHeader().getID());
+			response.getHeader().setFlag(Flags.QR);
+			response.addRecord(question, Section.QUESTION);
+			final List answers = new ArrayList();
+			final List aliases = new ArrayList();
+			List known;
+			synchronized (records) {
+				known = (List) records.get(name);
+				if (known != null) {
+					for (Iterator itr = known.iterator(); itr.hasNext();) {
+						final Record record = (Record) itr.next();
+						if (record.getType() == type) {
+							answers.add(record);
+						} else if (record.getType() == Type.CNAME) {
+							aliases.add(record);
+						}
+					}
+				}
+			}
+			if (answers.isEmpty()) {
+				answers.addAll(aliases);
+			}
+			for (Iterator itr = answers.iterator(); itr.hasNext();) {
+				response.addRecord((Record) itr.next(), Section.ANSWER);
+			}
+			if (answers.isEmpty()) {
+				if (known == null) {
+					response.getHeader().setRcode(Rcode.NXDOMAIN);
+				}
+				if (soa != null) {
+					response.addRecord(soa, Section.AUTHORITY);
+				}
+			}
+			return response;
+		}
+
+		public Message send(Message query) {
+			return answer(query);
+		}
+
+		public CompletionStage<Message> sendAsync(Message query) {
+			return CompletableFuture.completedFuture(answer(query));
+		}
+
+		public CompletionStage<Message> sendAsync(Message query, Executor executor) {
+			return CompletableFuture.completedFuture(answer(query));
+		}
+
+		public void setPort(int port) {
+			// not sent anywhere
+		}
+
+		public void setTCP(boolean flag) {
+			// not sent anywhere
+		}
+
+		public void setIgnoreTruncation(boolean flag) {
+			// not sent anywhere
+		}
+
+		public void setEDNS(int version, int payloadSize, int flags, List<EDNSOption> options) {
+			// not sent anywhere
+		}
+
+		public void setTSIGKey(TSIG key) {
+			// not sent anywhere
+		}
+
+		public void setTimeout(Duration timeout) {
+			// answers right away
+		}
+	}
+
+	/**
+	 * Locator that uses the given resolver instead of a name server.
+	 */
+	static class ZoneLocator extends DnsSdDiscoveryLocator {
+		ZoneLocator(Resolver zone) {
+			resolver = zone;
+		}
+	}
+
+	private final DnsSdNamespace namespace = new DnsSdNamespace();
+	private ZoneResolver zone;
+	private ZoneLocator locator;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		if (IDFactory.getDefault().getNamespaceByName(DnsSdNamespace.NAME) == null) {
+			IDFactory.getDefault().addNamespace(namespace);
+		}
+		// the PTR queries go through Lookup, which has a cache of its own
+		Lookup.getDefaultCache(DClass.IN).clearCache();
+		zone = new ZoneResolver();
+	}
+
+	protected void tearDown() throws Exception {
+		if (locator != null) {
+			locator.dispose();
+		}
+		System.getProperties().remove(CACHE_SIZE);
+		super.tearDown();
+	}
+
+	private ZoneLocator createLocator() throws Exception {
+		locator = new ZoneLocator(zone);
+		locator.connect(type("example.org"), null);
+		return locator;
+	}
+
+	private DnsSdServiceTypeID type(String domain) {
+		return new DnsSdServiceTypeID(namespace, "_udp." + domain + "._iana");
+	}
+
+	private static Name name(String name) throws TextParseException {
+		return Name.fromString(name);
+	}
+
+	/**
+	 * @return the name of a service instance, shaped like a service type as
+	 *         the locator expects
+	 */
+	private static Name instance(String instance, String domain) throws TextParseException {
+		return name("_" + instance + "._tcp." + domain + ".");
+	}
+
+	/**
+	 * Adds a service instance with an SRV and a TXT record to the zone and
+	 * makes it browsable under the given domain.
+	 */
+	private Name addInstance(String instance, String domain, long ttl) throws TextParseException {
+		final Name name = instance(instance, domain);
+		zone.add(new PTRRecord(name("_services._dns-sd._udp." + domain + "."), DClass.IN, ttl, name));
+		zone.add(new SRVRecord(name, DClass.IN, ttl, 0, 0, 3282, name("host-" + instance + "." + domain + ".")));
+		zone.add(new TXTRecord(name, DClass.IN, ttl, "path=/" + instance));
+		return name;
+	}
+
+	private IServiceInfo[] getServices(String domain) {
+		return locator.getServices(type(domain));
+	}
+
+	public void testAnswersAreCached() throws Exception {
+		final Name a = addInstance("a", "example.org", 60);
+		final Name b = addInstance("b", "example.org", 60);
+		createLocator();
+		assertEquals(2, getServices("example.org").length);
+		assertEquals(2, getServices("example.org").length);
+		assertEquals(1, zone.getQueries(a, Type.SRV));
+		assertEquals(1, zone.getQueries(a, Type.TXT));
+		assertEquals(1, zone.getQueries(b, Type.SRV));
+		assertEquals(1, zone.getQueries(b, Type.TXT));
+	}
+
+	public void testAnswersExpireWithTheirTtl() throws Exception {
+		final Name a = addInstance("a", "example.org", 1);
+		createLocator();
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(1, zone.getQueries(a, Type.SRV));
+		Thread.sleep(1100);
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(2, zone.getQueries(a, Type.SRV));
+		assertEquals(2, zone.getQueries(a, Type.TXT));
+	}
+
+	public void testNegativeAnswersAreCachedWithSoa() throws Exception {
+		zone.soa = new SOARecord(name("example.org."), DClass.IN, 60, name("ns.example.org."), name("admin.example.org."), 1, 3600, 600, 86400, 60);
+		final Name a = instance("a", "example.org");
+		// a has an SRV record but no TXT record, b does not exist at all
+		zone.add(new PTRRecord(name("_services._dns-sd._udp.example.org."), DClass.IN, 60, a));
+		zone.add(new SRVRecord(a, DClass.IN, 60, 0, 0, 3282, name("host-a.example.org.")));
+		final Name b = instance("b", "example.org");
+		zone.add(new PTRRecord(name("_services._dns-sd._udp.example.org."), DClass.IN, 60, b));
+		createLocator();
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(1, zone.getQueries(a, Type.TXT));
+		assertEquals(1, zone.getQueries(b, Type.SRV));
+	}
+
+	public void testNegativeAnswersWithoutSoaAreNotCached() throws Exception {
+		final Name b = instance("b", "example.org");
+		zone.add(new PTRRecord(name("_services._dns-sd._udp.example.org."), DClass.IN, 60, b));
+		createLocator();
+		assertEquals(0, getServices("example.org").length);
+		assertEquals(0, getServices("example.org").length);
+		assertEquals(2, zone.getQueries(b, Type.SRV));
+	}
+
+	public void testLeastRecentlyUsedAnswersAreDropped() throws Exception {
+		// room for the SRV and TXT answer of one instance
+		System.setProperty(CACHE_SIZE, "2");
+		final Name a = addInstance("a", "example.org", 60);
+		final Name b = addInstance("b", "example.net", 60);
+		createLocator();
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(1, zone.getQueries(a, Type.SRV));
+		// the answers for b push out those for a
+		assertEquals(1, getServices("example.net").length);
+		assertEquals(1, getServices("example.net").length);
+		assertEquals(1, zone.getQueries(b, Type.SRV));
+		assertEquals(1, getServices("example.org").length);
+		assertEquals(2, zone.getQueries(a, Type.SRV));
+		assertEquals(2, zone.getQueries(a, Type.TXT));
+	}
+
+	public void testAliasesAreFollowed() throws Exception {
+		final Name alias = instance("alias", "example.org");
+		final Name a = addInstance("a", "example.net", 60);
+		zone.add(new PTRRecord(name("_services._dns-sd._udp.example.org."), DClass.IN, 60, alias));
+		zone.add(new CNAMERecord(alias, DClass.IN, 60, a));
+		createLocator();
+		IServiceInfo[] services = getServices("example.org");
+		assertEquals(1, services.length);
+		assertEquals("host-a.example.net", services[0].getLocation().getHost());
+		assertEquals("/a", services[0].getLocation().getPath());
+		// the alias is cached along with the answers for the name it points to
+		services = getServices("example.org");
+		assertEquals(1, services.length);
+		assertEquals(1, zone.getQueries(alias, Type.SRV));
+		assertEquals(1, zone.getQueries(alias, Type.TXT));
+		assertEquals(1, zone.getQueries(a, Type.SRV));
+		assertEquals(1, zone.getQueries(a, Type.TXT));
+	}
+
+	public void testAliasLoopEnds() throws Exception {
+		final Name loop1 = instance("loop1", "example.org");
+		final Name loop2 = instance("loop2", "example.org");
+		zone.add(new PTRRecord(name("_services._dns-sd._udp.example.org."), DClass.IN, 60, loop1));
+		zone.add(new CNAMERecord(loop1, DClass.IN, 60, loop2));
+		zone.add(new CNAMERecord(loop2, DClass.IN, 60, loop1));
+		createLocator();
+		assertEquals(0, getServices("example.org").length);
+	}
+}
@@ -0,0 +1,141 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.provider.zookeeper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.discovery.IServiceProperties;
+import org.eclipse.ecf.discovery.ServiceProperties;
+import org.eclipse.ecf.provider.zookeeper.node.internal.NodeCodec;
+
+public class NodeCodecTest extends TestCase {
+
+	private Map<String, Object> createNodeProperties() {
+		ServiceProperties properties = new ServiceProperties();
+		properties.setPropertyString("string", "value");
+		properties.setProperty("integer", new Integer(42));
+		properties.setPropertyBytes("bytes", new byte[] { 1, 2, 3 });
+		Map<String, Object> nodeProperties = new HashMap<String, Object>();
+		nodeProperties.put("properties", properties);
+		nodeProperties.put("location", URI.create("ecftcp://localhost:3282/server"));
+		nodeProperties.put("weight", new Integer(1));
+		nodeProperties.put("services", new String[] { "ecf", "remoteservices" });
+		nodeProperties.put("na", "iana");
+		return nodeProperties;
+	}
+
+	private void assertNodeProperties(Map<String, Object> decoded) {
+		IServiceProperties properties = (IServiceProperties) decoded.get("properties");
+		assertEquals("value", properties.getPropertyString("string"));
+		assertEquals(new Integer(42), properties.getProperty("integer"));
+		assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, properties.getPropertyBytes("bytes")));
+		assertEquals(URI.create("ecftcp://localhost:3282/server"), decoded.get("location"));
+		assertEquals(new Integer(1), decoded.get("weight"));
+		assertTrue(Arrays.equals(new String[] { "ecf", "remoteservices" }, (String[]) decoded.get("services")));
+		assertEquals("iana", decoded.get("na"));
+	}
+
+	public void testRoundTrip() throws Exception {
+		assertNodeProperties(NodeCodec.decode(NodeCodec.encode(createNodeProperties())));
+	}
+
+	public void testDecodeSerialized() throws Exception {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream oout = new ObjectOutputStream(bout);
+		oout.writeObject(createNodeProperties());
+		oout.close();
+		assertNodeProperties(NodeCodec.decode(bout.toByteArray()));
+	}
+
+	/**
+	 * @return the header of the compact encoding followed by a map with one
+	 *         entry, whose key is written and whose value starts with tag
+	 */
+	private DataOutputStream startEntry(ByteArrayOutputStream bout, int tag) throws IOException {
+		DataOutputStream out = new DataOutputStream(bout);
+		out.writeShort(0x5a44);
+		out.writeByte(1);
+		out.writeInt(1);
+		out.writeInt(3);
+		out.write("key".getBytes("UTF-8"));
+		out.writeByte(tag);
+		return out;
+	}
+
+	private void assertCorrupt(byte[] data) {
+		try {
+			NodeCodec.decode(data);
+			fail("corrupt data decoded");
+		} catch (IOException expected) {
+			// expected
+		}
+	}
+
+	public void testHugeMapSizeRejected() throws Exception {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bout);
+		out.writeShort(0x5a44);
+		out.writeByte(1);
+		out.writeInt(Integer.MAX_VALUE);
+		assertCorrupt(bout.toByteArray());
+	}
+
+	public void testHugeCountsRejected() throws Exception {
+		// string array, bytes and service properties
+		int[] tags = new int[] { 10, 11, 13 };
+		for (int i = 0; i < tags.length; i++) {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			DataOutputStream out = startEntry(bout, tags[i]);
+			out.writeInt(Integer.MAX_VALUE);
+			out.write(new byte[64]);
+			assertCorrupt(bout.toByteArray());
+		}
+	}
+
+	public void testNegativeCountsRejected() throws Exception {
+		int[] tags = new int[] { 10, 11, 13 };
+		for (int i = 0; i < tags.length; i++) {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			DataOutputStream out = startEntry(bout, tags[i]);
+			out.writeInt(-1);
+			assertCorrupt(bout.toByteArray());
+		}
+	}
+
+	public void testCountLargerThanDataRejected() throws Exception {
+		// two strings need at least two bytes, only one is left
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream out = startEntry(bout, 10);
+		out.writeInt(2);
+		out.writeBoolean(false);
+		assertCorrupt(bout.toByteArray());
+	}
+
+	public void testTruncatedDataRejected() throws Exception {
+		byte[] data = NodeCodec.encode(createNodeProperties());
+		for (int length = 3; length < data.length; length += 7) {
+			byte[] truncated = new byte[length];
+			System.arraycopy(data, 0, truncated, 0, length);
+			assertCorrupt(truncated);
+		}
+	}
+}
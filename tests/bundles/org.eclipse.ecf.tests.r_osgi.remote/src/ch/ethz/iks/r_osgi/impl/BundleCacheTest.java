@@ -0,0 +1,124 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+public class BundleCacheTest extends TestCase {
+
+	private static final String VERSION = "1.3.0"; //$NON-NLS-1$
+
+	private File directory;
+
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("bundlecache", null); //$NON-NLS-1$
+		directory.delete();
+	}
+
+	protected void tearDown() throws Exception {
+		final File[] files = directory.listFiles();
+		for (int i = 0; files != null && i < files.length; i++) {
+			files[i].delete();
+		}
+		directory.delete();
+	}
+
+	private static byte[] bytes(int length, int value) {
+		final byte[] b = new byte[length];
+		for (int i = 0; i < length; i++) {
+			b[i] = (byte) value;
+		}
+		return b;
+	}
+
+	public void testMissAndHit() {
+		final BundleCache cache = new BundleCache(VERSION, null, 1024, 0);
+		final String key = cache.key(new Object[] { "proxy", "uri" }); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull(cache.get(key));
+		final byte[] b = bytes(10, 1);
+		cache.put(key, b);
+		assertSame(b, cache.get(key));
+		assertNull(cache.get(cache.key(new Object[] { "proxy", "other" }))); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testKey() {
+		final BundleCache cache = new BundleCache(VERSION, null, 1024, 0);
+		final Object[] parts = new Object[] { "proxy", "uri", //$NON-NLS-1$ //$NON-NLS-2$
+				new String[] { "a", "b" }, bytes(3, 1), null }; //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(cache.key(parts), cache.key(parts));
+		// a different version of R-OSGi never finds the entry
+		assertFalse(cache.key(parts).equals(
+				new BundleCache("1.3.1", null, 1024, 0).key(parts))); //$NON-NLS-1$
+		// adjacent parts do not run into each other
+		assertFalse(cache.key(new Object[] { "ab", "c" }).equals( //$NON-NLS-1$ //$NON-NLS-2$
+				cache.key(new Object[] { "a", "bc" }))); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse(cache.key(new Object[] { null }).equals(
+				cache.key(new Object[] { "" }))); //$NON-NLS-1$
+	}
+
+	public void testMemoryEviction() {
+		final BundleCache cache = new BundleCache(VERSION, null, 20, 0);
+		final String a = cache.key(new Object[] { "a" }); //$NON-NLS-1$
+		final String b = cache.key(new Object[] { "b" }); //$NON-NLS-1$
+		final String c = cache.key(new Object[] { "c" }); //$NON-NLS-1$
+		cache.put(a, bytes(8, 1));
+		cache.put(b, bytes(8, 2));
+		// a becomes the most recently used
+		assertNotNull(cache.get(a));
+		cache.put(c, bytes(8, 3));
+		assertNotNull(cache.get(a));
+		assertNull(cache.get(b));
+		assertNotNull(cache.get(c));
+		// too large to be kept at all
+		final String d = cache.key(new Object[] { "d" }); //$NON-NLS-1$
+		cache.put(d, bytes(21, 4));
+		assertNull(cache.get(d));
+		assertNotNull(cache.get(a));
+	}
+
+	public void testDiskSurvivesRestart() throws IOException {
+		final BundleCache cache = new BundleCache(VERSION, directory, 1024, 1024);
+		final String key = cache.key(new Object[] { "bundle" }); //$NON-NLS-1$
+		cache.put(key, bytes(10, 5));
+		final BundleCache restarted = new BundleCache(VERSION, directory, 1024,
+				1024);
+		final byte[] b = restarted.get(key);
+		assertNotNull(b);
+		assertEquals(10, b.length);
+		assertEquals(5, b[9]);
+	}
+
+	public void testDiskEviction() {
+		// no memory level, so every get is served from disk
+		final BundleCache cache = new BundleCache(VERSION, directory, 0, 20);
+		final String a = cache.key(new Object[] { "a" }); //$NON-NLS-1$
+		final String b = cache.key(new Object[] { "b" }); //$NON-NLS-1$
+		final String c = cache.key(new Object[] { "c" }); //$NON-NLS-1$
+		cache.put(a, bytes(8, 1));
+		cache.put(b, bytes(8, 2));
+		final long now = System.currentTimeMillis();
+		new File(directory, a).setLastModified(now - 20000);
+		new File(directory, b).setLastModified(now - 10000);
+		cache.put(c, bytes(8, 3));
+		assertNull(cache.get(a));
+		assertNotNull(cache.get(b));
+		assertNotNull(cache.get(c));
+		// larger than the whole disk level
+		final String d = cache.key(new Object[] { "d" }); //$NON-NLS-1$
+		cache.put(d, bytes(21, 4));
+		assertNull(cache.get(d));
+	}
+}
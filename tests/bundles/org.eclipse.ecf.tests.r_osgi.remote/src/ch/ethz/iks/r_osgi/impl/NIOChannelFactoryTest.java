@@ -0,0 +1,207 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package ch.ethz.iks.r_osgi.impl;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Dictionary;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.osgi.framework.ServiceRegistration;
+
+import ch.ethz.iks.r_osgi.Remoting;
+import ch.ethz.iks.r_osgi.URI;
+import ch.ethz.iks.r_osgi.channels.ChannelEndpoint;
+import ch.ethz.iks.r_osgi.channels.NetworkChannel;
+import ch.ethz.iks.r_osgi.messages.RemoteOSGiMessage;
+import ch.ethz.iks.r_osgi.messages.TimeOffsetMessage;
+
+public class NIOChannelFactoryTest extends TestCase {
+
+	static {
+		// the default streams resolve classes through the started bundle
+		if (RemoteOSGiActivator.getActivator() == null) {
+			System.setProperty("ch.ethz.iks.r_osgi.remote.serialization", //$NON-NLS-1$
+					"smart"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * the marker that an endpoint has been told its channel is closed.
+	 */
+	private static final RemoteOSGiMessage CLOSED = new TimeOffsetMessage();
+
+	/**
+	 * endpoint that queues the messages it receives.
+	 */
+	static class QueueEndpoint implements ChannelEndpoint {
+		final BlockingQueue<RemoteOSGiMessage> received = new LinkedBlockingQueue<RemoteOSGiMessage>();
+
+		NetworkChannel channel;
+
+		public void receivedMessage(final RemoteOSGiMessage msg) {
+			received.add(msg == null ? CLOSED : msg);
+		}
+
+		RemoteOSGiMessage next() throws InterruptedException {
+			return received.poll(10, TimeUnit.SECONDS);
+		}
+
+		public Object invokeMethod(final String service,
+				final String methodSignature, final Object[] args) {
+			return null;
+		}
+
+		public Dictionary getProperties(final String service) {
+			return null;
+		}
+
+		public Dictionary getPresentationProperties(final String service) {
+			return null;
+		}
+
+		public void trackRegistration(final String service,
+				final ServiceRegistration reg) {
+			// not tracked
+		}
+
+		public void untrackRegistration(final String service) {
+			// not tracked
+		}
+
+		public URI getRemoteAddress() {
+			return channel.getRemoteAddress();
+		}
+
+		public void dispose() {
+			// nothing to dispose
+		}
+	}
+
+	private NIOChannelFactory factory;
+
+	/**
+	 * the server side endpoints of accepted connections.
+	 */
+	private final BlockingQueue<QueueEndpoint> accepted = new LinkedBlockingQueue<QueueEndpoint>();
+
+	protected void setUp() throws Exception {
+		final ServerSocket s = new ServerSocket(0);
+		RemoteOSGiServiceImpl.R_OSGI_PORT = s.getLocalPort();
+		s.close();
+		factory = new NIOChannelFactory();
+		factory.activate(new Remoting() {
+			public ChannelEndpoint getEndpoint(final String uri) {
+				return null;
+			}
+
+			public void createEndpoint(final NetworkChannel channel) {
+				final QueueEndpoint endpoint = new QueueEndpoint();
+				endpoint.channel = channel;
+				channel.bind(endpoint);
+				accepted.add(endpoint);
+			}
+		});
+	}
+
+	protected void tearDown() throws Exception {
+		factory.deactivate(null);
+	}
+
+	private QueueEndpoint connect() throws Exception {
+		final QueueEndpoint endpoint = new QueueEndpoint();
+		endpoint.channel = factory.getConnection(endpoint, new URI(
+				"r-osgi://localhost:" + factory.getListeningPort("r-osgi"))); //$NON-NLS-1$ //$NON-NLS-2$
+		return endpoint;
+	}
+
+	private static RemoteOSGiMessage message(final int xid, final long value) {
+		final TimeOffsetMessage msg = new TimeOffsetMessage();
+		msg.setXID(xid);
+		msg.setTimeSeries(new long[] { value });
+		return msg;
+	}
+
+	private static void assertMessage(final int xid, final long value,
+			final RemoteOSGiMessage msg) {
+		assertNotNull("no message received", msg); //$NON-NLS-1$
+		assertNotSame("channel closed", CLOSED, msg); //$NON-NLS-1$
+		assertEquals(RemoteOSGiMessage.TIME_OFFSET, msg.getFuncID());
+		assertEquals(xid, msg.getXID());
+		final long[] series = ((TimeOffsetMessage) msg).getTimeSeries();
+		assertEquals(1, series.length);
+		assertEquals(value, series[0]);
+	}
+
+	private static void assertRoundTrip(final QueueEndpoint client,
+			final QueueEndpoint server, final int count) throws Exception {
+		for (int i = 0; i < count; i++) {
+			client.channel.sendMessage(message(i, i * 7L));
+		}
+		for (int i = 0; i < count; i++) {
+			final RemoteOSGiMessage msg = server.next();
+			assertMessage(i, i * 7L, msg);
+			server.channel.sendMessage(message(msg.getXID(), -i));
+		}
+		for (int i = 0; i < count; i++) {
+			assertMessage(i, -i, client.next());
+		}
+	}
+
+	public void testRoundTrip() throws Exception {
+		final QueueEndpoint client = connect();
+		final QueueEndpoint server = accepted.poll(10, TimeUnit.SECONDS);
+		assertNotNull("connection not accepted", server); //$NON-NLS-1$
+		assertRoundTrip(client, server, 100);
+		assertTrue(client.received.isEmpty());
+		assertTrue(server.received.isEmpty());
+	}
+
+	public void testEndpointClose() throws Exception {
+		final QueueEndpoint closing = connect();
+		final QueueEndpoint closingServer = accepted.poll(10, TimeUnit.SECONDS);
+		final QueueEndpoint client = connect();
+		final QueueEndpoint server = accepted.poll(10, TimeUnit.SECONDS);
+		assertNotNull("connection not accepted", server); //$NON-NLS-1$
+		assertRoundTrip(closing, closingServer, 1);
+
+		closing.channel.close();
+		// both sides learn that the channel is closed
+		assertSame(CLOSED, closingServer.next());
+		assertSame(CLOSED, closing.next());
+		try {
+			closing.channel.sendMessage(message(1, 1));
+			fail("sent on a closed channel"); //$NON-NLS-1$
+		} catch (final IOException expected) {
+			// expected
+		}
+		// the other connection is still served
+		assertRoundTrip(client, server, 10);
+	}
+
+	public void testFailingTaskKeepsSelectorRunning() throws Exception {
+		factory.execute(new Runnable() {
+			public void run() {
+				throw new IllegalStateException("task failed"); //$NON-NLS-1$
+			}
+		});
+		final QueueEndpoint client = connect();
+		final QueueEndpoint server = accepted.poll(10, TimeUnit.SECONDS);
+		assertNotNull("connection not accepted", server); //$NON-NLS-1$
+		assertRoundTrip(client, server, 10);
+	}
+}
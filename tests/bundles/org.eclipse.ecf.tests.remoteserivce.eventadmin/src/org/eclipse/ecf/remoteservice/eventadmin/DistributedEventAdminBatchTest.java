@@ -0,0 +1,140 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.remoteservice.eventadmin;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.SharedObjectMsg;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class DistributedEventAdminBatchTest {
+
+	static class RecordingDistributedEventAdmin extends DistributedEventAdmin {
+		final List<SharedObjectMsg> sent = Collections.synchronizedList(new ArrayList<SharedObjectMsg>());
+		final List<Event> received = new ArrayList<Event>();
+		// events reported to handleSendMessageException
+		final List<Event> failed = Collections.synchronizedList(new ArrayList<Event>());
+		volatile boolean failSend;
+
+		protected void sendSharedObjectMsgTo(ID toID, SharedObjectMsg msg) throws IOException {
+			if (failSend)
+				throw new IOException("send failed");
+			sent.add(msg);
+		}
+
+		protected void handleSendMessageException(String message, Event eventToSend, Object[] messageParams, IOException exception) {
+			failed.add(eventToSend);
+			super.handleSendMessageException(message, eventToSend, messageParams, exception);
+		}
+
+		protected void notifyReceivedEvent(ID fromID, Event receivedEvent) {
+			received.add(receivedEvent);
+		}
+	}
+
+	private RecordingDistributedEventAdmin sender;
+	private RecordingDistributedEventAdmin receiver;
+	private ID senderID;
+
+	@Before
+	public void setup() throws Exception {
+		sender = new RecordingDistributedEventAdmin();
+		receiver = new RecordingDistributedEventAdmin();
+		senderID = IDFactory.getDefault().createStringID("sender");
+	}
+
+	private Event createEvent(String topic, Object value) {
+		final Map<String, Object> map = new HashMap<String, Object>();
+		map.put("value", value);
+		return new Event(topic, map);
+	}
+
+	private void deliverSent() {
+		for (SharedObjectMsg msg : sender.sent)
+			Assert.assertTrue(receiver.handleSharedObjectMsg(senderID, msg));
+	}
+
+	@Test
+	public void testBatchWhenFull() {
+		sender.setBatching(3, 60000);
+		sender.postEvent(createEvent("a", "1"));
+		sender.postEvent(createEvent("b", "2"));
+		Assert.assertEquals(0, sender.sent.size());
+		sender.postEvent(createEvent("c", "3"));
+		Assert.assertEquals(1, sender.sent.size());
+
+		deliverSent();
+		Assert.assertEquals(3, receiver.received.size());
+		Assert.assertEquals("a", receiver.received.get(0).getTopic());
+		Assert.assertEquals("b", receiver.received.get(1).getTopic());
+		Assert.assertEquals("c", receiver.received.get(2).getTopic());
+	}
+
+	@Test
+	public void testBatchAfterDelay() throws Exception {
+		sender.setBatching(100, 20);
+		sender.postEvent(createEvent("a", "1"));
+		sender.postEvent(createEvent("b", "2"));
+		for (int i = 0; i < 100 && sender.sent.isEmpty(); i++)
+			Thread.sleep(20);
+		Assert.assertEquals(1, sender.sent.size());
+		deliverSent();
+		Assert.assertEquals(2, receiver.received.size());
+	}
+
+	@Test
+	public void testCoalescedTopics() {
+		sender.setBatching(100, 60000);
+		sender.addCoalescedTopics(new String[] {"state"});
+		sender.postEvent(createEvent("state", "1"));
+		sender.postEvent(createEvent("change", "2"));
+		sender.postEvent(createEvent("state", "3"));
+		sender.flushEvents();
+		Assert.assertEquals(1, sender.sent.size());
+
+		deliverSent();
+		Assert.assertEquals(2, receiver.received.size());
+		// the last value, in the place of the first
+		Assert.assertEquals("state", receiver.received.get(0).getTopic());
+		Assert.assertEquals("3", receiver.received.get(0).getProperty("value"));
+		Assert.assertEquals("change", receiver.received.get(1).getTopic());
+	}
+
+	@Test
+	public void testFailedBatchReportsEvents() {
+		sender.failSend = true;
+		sender.setBatching(2, 60000);
+		sender.postEvent(createEvent("a", "1"));
+		// the poster of the event that fills the batch does not get the exception
+		sender.postEvent(createEvent("b", "2"));
+		Assert.assertEquals(2, sender.failed.size());
+		Assert.assertEquals("a", sender.failed.get(0).getTopic());
+		Assert.assertEquals("b", sender.failed.get(1).getTopic());
+
+		sender.postEvent(createEvent("c", "3"));
+		sender.flushEvents();
+		Assert.assertEquals(3, sender.failed.size());
+		Assert.assertEquals("c", sender.failed.get(2).getTopic());
+		Assert.assertEquals(0, sender.sent.size());
+	}
+}
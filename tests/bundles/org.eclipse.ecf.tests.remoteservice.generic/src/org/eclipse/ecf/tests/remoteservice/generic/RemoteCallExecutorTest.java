@@ -0,0 +1,81 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.generic;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteCallExecutor;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteCallStatistics;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteServiceRegistrationImpl;
+import org.eclipse.equinox.concurrent.future.IProgressRunnable;
+
+import junit.framework.TestCase;
+
+public class RemoteCallExecutorTest extends TestCase {
+
+	static class LimitedRegistration extends RemoteServiceRegistrationImpl {
+		private static final long serialVersionUID = 1L;
+
+		public Object getProperty(String key) {
+			if (RemoteCallExecutor.MAX_CONCURRENT_PROP.equals(key))
+				return Integer.valueOf(1);
+			if (RemoteCallExecutor.MAX_QUEUED_PROP.equals(key))
+				return "1";
+			return null;
+		}
+	}
+
+	public void testLimitsAndStatistics() throws Exception {
+		final RemoteCallExecutor executor = new RemoteCallExecutor();
+		final RemoteServiceRegistrationImpl reg = new LimitedRegistration();
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(2);
+		final AtomicInteger rejected = new AtomicInteger();
+		final Runnable onReject = new Runnable() {
+			public void run() {
+				rejected.incrementAndGet();
+			}
+		};
+		final IProgressRunnable call = new IProgressRunnable() {
+			public Object run(IProgressMonitor monitor) throws Exception {
+				release.await(10, TimeUnit.SECONDS);
+				done.countDown();
+				return null;
+			}
+		};
+		// first runs, second waits for it, third is rejected
+		executor.execute(reg, call, onReject);
+		executor.execute(reg, call, onReject);
+		executor.execute(reg, call, onReject);
+		assertEquals(1, rejected.get());
+		RemoteCallStatistics stats = reg.getCallStatistics();
+		assertEquals(1, stats.getActiveCount());
+		assertEquals(1, stats.getQueueDepth());
+		assertEquals(3, stats.getSubmittedCount());
+		assertEquals(1, stats.getRejectedCount());
+
+		release.countDown();
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		// statistics are updated after the call returns
+		for (int i = 0; i < 100 && reg.getCallStatistics().getActiveCount() > 0; i++)
+			Thread.sleep(20);
+		stats = reg.getCallStatistics();
+		assertEquals(0, stats.getActiveCount());
+		assertEquals(0, stats.getQueueDepth());
+		assertEquals(2, stats.getCompletedCount());
+		assertTrue(stats.getMaxWaitTime() >= stats.getAverageWaitTime());
+	}
+}
@@ -0,0 +1,252 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.generic;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectContext;
+import org.eclipse.ecf.internal.provider.remoteservice.TimeoutWheel;
+import org.eclipse.ecf.provider.remoteservice.generic.RegistrySharedObject;
+import org.eclipse.ecf.provider.remoteservice.generic.RemoteServiceRegistrationImpl;
+import org.eclipse.ecf.provider.remoteservice.generic.Request;
+import org.eclipse.ecf.provider.remoteservice.generic.Response;
+import org.eclipse.ecf.remoteservice.IRemoteCall;
+import org.eclipse.ecf.remoteservice.IRemoteCallListener;
+import org.eclipse.ecf.remoteservice.IRemoteServiceReference;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallCompleteEvent;
+import org.eclipse.ecf.remoteservice.events.IRemoteCallEvent;
+import org.eclipse.equinox.concurrent.future.TimeoutException;
+
+import junit.framework.TestCase;
+
+public class RequestTimeoutTest extends TestCase {
+
+	static class TargetRegistration extends RemoteServiceRegistrationImpl {
+		private static final long serialVersionUID = 1L;
+		private final ID containerID;
+
+		TargetRegistration(ID containerID) {
+			this.containerID = containerID;
+		}
+
+		public ID getContainerID() {
+			return containerID;
+		}
+
+		public long getServiceId() {
+			return 1L;
+		}
+
+		public IRemoteServiceReference getReference() {
+			return null;
+		}
+	}
+
+	/**
+	 * Registry whose context drops every message, so no response ever arrives
+	 */
+	static class DroppingRegistry extends RegistrySharedObject {
+
+		void init(final ID localID) throws Exception {
+			final ISharedObjectContext context = (ISharedObjectContext) proxy(ISharedObjectContext.class, localID);
+			final ISharedObjectConfig config = (ISharedObjectConfig) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {ISharedObjectConfig.class}, new InvocationHandler() {
+				public Object invoke(Object p, Method m, Object[] args) {
+					if (m.getName().equals("getContext"))
+						return context;
+					if (m.getName().equals("getHomeContainerID"))
+						return localID;
+					if (m.getName().equals("getProperties"))
+						return new HashMap();
+					return null;
+				}
+			});
+			init(config);
+		}
+
+		private Object proxy(Class clazz, final ID localID) {
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {clazz}, new InvocationHandler() {
+				public Object invoke(Object p, Method m, Object[] args) {
+					if (m.getName().equals("getLocalContainerID"))
+						return localID;
+					if (m.getReturnType() == Boolean.TYPE)
+						return Boolean.TRUE;
+					return null;
+				}
+			});
+		}
+
+		void send(RemoteServiceRegistrationImpl reg, IRemoteCall call, IRemoteCallListener listener) {
+			sendCallRequestWithListener(reg, call, listener);
+		}
+
+		Request get(long requestId) {
+			return getRequest(requestId);
+		}
+
+		boolean add(Request request) {
+			return addRequest(request);
+		}
+
+		boolean remove(Request request) {
+			return removeRequest(request);
+		}
+
+		void respond(Response response) {
+			handleCallResponse(response);
+		}
+	}
+
+	static class CompleteListener implements IRemoteCallListener {
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicReference<IRemoteCallCompleteEvent> event = new AtomicReference<IRemoteCallCompleteEvent>();
+		volatile long requestId;
+		volatile Thread thread;
+
+		public void handleEvent(IRemoteCallEvent e) {
+			if (e instanceof IRemoteCallCompleteEvent) {
+				event.set((IRemoteCallCompleteEvent) e);
+				requestId = ((IRemoteCallCompleteEvent) e).getRequestId();
+				thread = Thread.currentThread();
+				done.countDown();
+			}
+		}
+	}
+
+	private DroppingRegistry registry;
+	private TargetRegistration target;
+
+	protected void setUp() throws Exception {
+		registry = new DroppingRegistry();
+		registry.init(IDFactory.getDefault().createStringID("local"));
+		target = new TargetRegistration(IDFactory.getDefault().createStringID("remote"));
+	}
+
+	protected void tearDown() throws Exception {
+		registry.dispose(null);
+	}
+
+	private IRemoteCall call(final long timeout) {
+		return new IRemoteCall() {
+			public String getMethod() {
+				return "m";
+			}
+
+			public Object[] getParameters() {
+				return new Object[0];
+			}
+
+			public long getTimeout() {
+				return timeout;
+			}
+		};
+	}
+
+	public void testRequestTimesOut() throws Exception {
+		final CompleteListener listener = new CompleteListener();
+		registry.send(target, call(200), listener);
+		assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+		final IRemoteCallCompleteEvent e = listener.event.get();
+		assertTrue(e.hadException());
+		assertTrue(e.getException() instanceof TimeoutException);
+		// removed by request id once it timed out
+		assertNull(registry.get(listener.requestId));
+		// listener is not called on the timer thread
+		assertFalse(listener.thread.getName().equals("RSRegistry Request Timeouts"));
+		// a late response is ignored
+		registry.respond(new Response(listener.requestId, "late"));
+		assertSame(e, listener.event.get());
+	}
+
+	public void testResponseCancelsTimeout() throws Exception {
+		final CompleteListener listener = new CompleteListener();
+		registry.send(target, call(300), listener);
+		final Request request = findPending();
+		assertNotNull(request);
+		registry.respond(new Response(request.getRequestId(), "result"));
+		assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+		assertEquals("result", listener.event.get().getResponse());
+		assertNull(registry.get(request.getRequestId()));
+		// no timeout event after the response
+		Thread.sleep(600);
+		assertEquals("result", listener.event.get().getResponse());
+	}
+
+	public void testAddGetRemoveById() throws Exception {
+		final Request request = new Request(target.getContainerID(), 1L, null, null);
+		assertTrue(registry.add(request));
+		assertFalse(registry.add(request));
+		assertSame(request, registry.get(request.getRequestId()));
+		assertTrue(registry.remove(request));
+		assertNull(registry.get(request.getRequestId()));
+		assertFalse(registry.remove(request));
+	}
+
+	public void testWheelRunsTasksOnExecutor() throws Exception {
+		final AtomicReference<Thread> ran = new AtomicReference<Thread>();
+		final CountDownLatch done = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Executor executor = new Executor() {
+			public void execute(final Runnable r) {
+				final Thread t = new Thread(r, "executor");
+				t.start();
+			}
+		};
+		final TimeoutWheel wheel = new TimeoutWheel("wheel", 10, 16, executor);
+		// a blocked task does not hold up later timeouts
+		wheel.schedule(new Runnable() {
+			public void run() {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					// done
+				}
+			}
+		}, 10);
+		final TimeoutWheel.Timeout cancelled = wheel.schedule(new Runnable() {
+			public void run() {
+				fail();
+			}
+		}, 50);
+		wheel.schedule(new Runnable() {
+			public void run() {
+				ran.set(Thread.currentThread());
+				done.countDown();
+			}
+		}, 100);
+		assertTrue(cancelled.cancel());
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		release.countDown();
+		assertEquals("executor", ran.get().getName());
+	}
+
+	private Request findPending() {
+		// request ids are allocated in increasing order
+		final Request probe = new Request(target.getContainerID(), 1L, null, null);
+		for (long id = probe.getRequestId() - 1; id > probe.getRequestId() - 100; id--) {
+			final Request r = registry.get(id);
+			if (r != null)
+				return r;
+		}
+		return null;
+	}
+}
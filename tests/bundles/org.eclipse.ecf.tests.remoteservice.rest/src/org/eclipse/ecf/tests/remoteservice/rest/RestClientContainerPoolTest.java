@@ -0,0 +1,360 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.identity.Namespace;
+import org.eclipse.ecf.remoteservice.IRemoteCall;
+import org.eclipse.ecf.remoteservice.IRemoteService;
+import org.eclipse.ecf.remoteservice.IRemoteServiceRegistration;
+import org.eclipse.ecf.remoteservice.client.IRemoteCallable;
+import org.eclipse.ecf.remoteservice.client.IRemoteResponseDeserializer;
+import org.eclipse.ecf.remoteservice.rest.RestCallFactory;
+import org.eclipse.ecf.remoteservice.rest.RestCallableFactory;
+import org.eclipse.ecf.remoteservice.rest.client.RestClientContainer;
+import org.eclipse.ecf.remoteservice.rest.identity.RestID;
+import org.eclipse.ecf.remoteservice.rest.identity.RestNamespace;
+
+/**
+ * Tests that the services of a REST container share its pooled http client,
+ * and that the pool limits and keep alive of the container are applied.
+ */
+public class RestClientContainerPoolTest extends TestCase {
+
+	/**
+	 * HTTP/1.1 server that answers every request with a short body and keeps
+	 * connections open. It counts the connections it accepts and the requests
+	 * it is serving at the same time, and can hold responses back.
+	 */
+	static class CountingHttpServer implements Runnable {
+		static final String BODY = "pooled";
+
+		final ServerSocket serverSocket;
+		final List sockets = new ArrayList();
+		int connections;
+		int openConnections;
+		int requests;
+		int maxRequests;
+		CountDownLatch hold;
+
+		CountingHttpServer() throws IOException {
+			serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+			final Thread thread = new Thread(this, "CountingHttpServer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		String getUrl() {
+			return "http://127.0.0.1:" + serverSocket.getLocalPort();
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					final Socket socket = serverSocket.accept();
+					synchronized (this) {
+						connections++;
+						openConnections++;
+						sockets.add(socket);
+					}
+					final Thread thread = new Thread(new Runnable() {
+						public void run() {
+							serve(socket);
+						}
+					}, "CountingHttpServer connection");
+					thread.setDaemon(true);
+					thread.start();
+				}
+			} catch (IOException e) {
+				// closed
+			}
+		}
+
+		void serve(Socket socket) {
+			try {
+				final InputStream in = socket.getInputStream();
+				final OutputStream out = socket.getOutputStream();
+				while (readRequest(in)) {
+					CountDownLatch latch;
+					synchronized (this) {
+						requests++;
+						maxRequests = Math.max(maxRequests, requests);
+						latch = hold;
+						notifyAll();
+					}
+					if (latch != null)
+						latch.await(10, TimeUnit.SECONDS);
+					synchronized (this) {
+						requests--;
+					}
+					out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: " + BODY.length() + "\r\n\r\n" + BODY).getBytes("ISO-8859-1"));
+					out.flush();
+				}
+			} catch (IOException e) {
+				// closed
+			} catch (InterruptedException e) {
+				// stopped
+			} finally {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// ignore
+				}
+				synchronized (this) {
+					openConnections--;
+					notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Reads the request head, the test only sends GET requests without a
+		 * body.
+		 *
+		 * @return false if the client closed the connection
+		 */
+		private boolean readRequest(InputStream in) throws IOException {
+			int matched = 0;
+			int c;
+			while ((c = in.read()) != -1) {
+				if ((matched % 2 == 0 && c == '\r') || (matched % 2 == 1 && c == '\n'))
+					matched++;
+				else
+					matched = (c == '\r') ? 1 : 0;
+				if (matched == 4)
+					return true;
+			}
+			return false;
+		}
+
+		synchronized void waitForRequests(int count) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (requests < count && System.currentTimeMillis() < deadline)
+				wait(100);
+			assertEquals(count, requests);
+		}
+
+		synchronized void waitForOpenConnections(int count) throws InterruptedException {
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (openConnections != count && System.currentTimeMillis() < deadline)
+				wait(100);
+			assertEquals(count, openConnections);
+		}
+
+		synchronized int getConnections() {
+			return connections;
+		}
+
+		synchronized int getMaxRequests() {
+			return maxRequests;
+		}
+
+		synchronized void hold() {
+			hold = new CountDownLatch(1);
+		}
+
+		synchronized void release() {
+			hold.countDown();
+			hold = null;
+		}
+
+		void close() throws IOException {
+			serverSocket.close();
+			synchronized (this) {
+				for (int i = 0; i < sockets.size(); i++)
+					((Socket) sockets.get(i)).close();
+			}
+		}
+	}
+
+	/**
+	 * Container with the pool settings given to it rather than read from
+	 * system properties.
+	 */
+	static class PoolContainer extends RestClientContainer {
+		final int maxConnectionsPerRoute;
+		final int maxConnections;
+		final long keepAlive;
+
+		PoolContainer(RestID id, int maxConnectionsPerRoute, int maxConnections, long keepAlive) {
+			super(id);
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			this.maxConnections = maxConnections;
+			this.keepAlive = keepAlive;
+			setResponseDeserializer(new IRemoteResponseDeserializer() {
+				public Object deserializeResponse(String endpoint, IRemoteCall call, IRemoteCallable callable, Map responseHeaders, byte[] responseBody) {
+					return new String(responseBody);
+				}
+			});
+		}
+
+		protected int getMaxConnectionsPerRoute() {
+			return maxConnectionsPerRoute;
+		}
+
+		protected int getMaxConnections() {
+			return maxConnections;
+		}
+
+		protected long getKeepAlive() {
+			return keepAlive;
+		}
+	}
+
+	private CountingHttpServer server;
+	private PoolContainer container;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		if (IDFactory.getDefault().getNamespaceByName(RestNamespace.NAME) == null)
+			IDFactory.getDefault().addNamespace(new RestNamespace());
+		server = new CountingHttpServer();
+	}
+
+	protected void tearDown() throws Exception {
+		if (container != null)
+			container.dispose();
+		server.close();
+		super.tearDown();
+	}
+
+	private PoolContainer createContainer(int maxConnectionsPerRoute, int maxConnections, long keepAlive) {
+		final Namespace namespace = IDFactory.getDefault().getNamespaceByName(RestNamespace.NAME);
+		container = new PoolContainer(new RestID(namespace, URI.create(server.getUrl())), maxConnectionsPerRoute, maxConnections, keepAlive);
+		return container;
+	}
+
+	private IRemoteService getService(String name) {
+		final IRemoteServiceRegistration registration = container.registerCallables(new IRemoteCallable[] {RestCallableFactory.createCallable(name, "/" + name)}, null);
+		return container.getRemoteService(registration.getReference());
+	}
+
+	private static void call(IRemoteService service, String name) throws Exception {
+		assertEquals(CountingHttpServer.BODY, service.callSync(RestCallFactory.createRestCall(name)));
+	}
+
+	/**
+	 * Calls the service from the given number of threads at once.
+	 */
+	private Thread[] callConcurrently(final IRemoteService service, final String name, int count, final List errors) {
+		final Thread[] threads = new Thread[count];
+		for (int i = 0; i < count; i++) {
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						call(service, name);
+					} catch (Throwable t) {
+						synchronized (errors) {
+							errors.add(t);
+						}
+					}
+				}
+			});
+			threads[i].start();
+		}
+		return threads;
+	}
+
+	public void testServicesShareClient() throws Exception {
+		createContainer(20, 100, -1);
+		final IRemoteServiceRegistration registration = container.registerCallables(new IRemoteCallable[] {RestCallableFactory.createCallable("data", "/data")}, null);
+		final IRemoteService one = container.getRemoteService(registration.getReference());
+		final IRemoteService two = container.getRemoteService(registration.getReference());
+		assertNotSame(one, two);
+		for (int i = 0; i < 5; i++) {
+			call(one, "data");
+			call(two, "data");
+		}
+		// one connection, kept and reused by both services
+		assertEquals(1, server.getConnections());
+	}
+
+	public void testMaxConnectionsPerRoute() throws Exception {
+		createContainer(2, 100, -1);
+		final IRemoteService service = getService("data");
+		server.hold();
+		final List errors = new ArrayList();
+		final Thread[] threads = callConcurrently(service, "data", 5, errors);
+		server.waitForRequests(2);
+		// the other calls wait for a pooled connection
+		Thread.sleep(200);
+		assertEquals(2, server.getMaxRequests());
+		server.release();
+		for (int i = 0; i < threads.length; i++)
+			threads[i].join(10000);
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(2, server.getConnections());
+	}
+
+	public void testMaxConnections() throws Exception {
+		createContainer(20, 1, -1);
+		final IRemoteService service = getService("data");
+		server.hold();
+		final List errors = new ArrayList();
+		final Thread[] threads = callConcurrently(service, "data", 3, errors);
+		server.waitForRequests(1);
+		Thread.sleep(200);
+		assertEquals(1, server.getMaxRequests());
+		server.release();
+		for (int i = 0; i < threads.length; i++)
+			threads[i].join(10000);
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(1, server.getConnections());
+	}
+
+	public void testKeepAliveZeroDisablesReuse() throws Exception {
+		createContainer(20, 100, 0);
+		final IRemoteService service = getService("data");
+		for (int i = 0; i < 3; i++)
+			call(service, "data");
+		assertEquals(3, server.getConnections());
+		server.waitForOpenConnections(0);
+	}
+
+	public void testIdleConnectionsExpire() throws Exception {
+		createContainer(20, 100, 50);
+		final IRemoteService service = getService("data");
+		call(service, "data");
+		call(service, "data");
+		assertEquals(1, server.getConnections());
+		// idle for longer than the keep alive
+		Thread.sleep(200);
+		call(service, "data");
+		assertEquals(2, server.getConnections());
+	}
+
+	public void testDisposeClosesConnections() throws Exception {
+		createContainer(20, 100, -1);
+		final IRemoteService service = getService("data");
+		call(service, "data");
+		server.waitForOpenConnections(1);
+		container.dispose();
+		container = null;
+		server.waitForOpenConnections(0);
+	}
+}
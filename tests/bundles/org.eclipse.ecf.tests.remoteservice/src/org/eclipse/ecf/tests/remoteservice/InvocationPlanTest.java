@@ -0,0 +1,185 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.remoteservice;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.remoteservice.AbstractRemoteService;
+import org.eclipse.ecf.remoteservice.IRemoteCall;
+import org.eclipse.ecf.remoteservice.IRemoteCallListener;
+import org.eclipse.ecf.remoteservice.IRemoteServiceID;
+import org.eclipse.ecf.remoteservice.IRemoteServiceReference;
+import org.eclipse.ecf.remoteservice.asyncproxy.AbstractAsyncProxyRemoteCall;
+import org.eclipse.ecf.remoteservice.asyncproxy.IAsyncProxyCompletable;
+import org.eclipse.equinox.concurrent.future.IFuture;
+
+/**
+ * Tests that the dispatch decisions of a remote service proxy are made once per
+ * Method, and that calls are still dispatched as before.
+ */
+public class InvocationPlanTest extends TestCase {
+
+	public interface IEcho {
+		String echo(String s);
+
+		String upper(String s);
+	}
+
+	/**
+	 * Remote service that answers calls locally and counts how often the
+	 * dispatch hooks are called.
+	 */
+	static class CountingRemoteService extends AbstractRemoteService {
+		final List calls = new ArrayList();
+		int callMethodNameLookups;
+		int callTimeoutLookups;
+		int proxyExceptions;
+		boolean failPlanning;
+
+		protected String[] getInterfaceClassNames() {
+			return new String[] {IEcho.class.getName()};
+		}
+
+		protected IRemoteServiceID getRemoteServiceID() {
+			return null;
+		}
+
+		protected IRemoteServiceReference getRemoteServiceReference() {
+			return null;
+		}
+
+		protected String getCallMethodNameForProxyInvoke(Method method, Object[] args) {
+			callMethodNameLookups++;
+			if (failPlanning)
+				throw new IllegalStateException("planning failed");
+			return super.getCallMethodNameForProxyInvoke(method, args);
+		}
+
+		protected long getCallTimeoutForProxyInvoke(String callMethod, Method method, Object[] args) {
+			callTimeoutLookups++;
+			// there is no reference to read a default timeout from
+			return IRemoteCall.DEFAULT_TIMEOUT;
+		}
+
+		protected void handleProxyException(String message, Throwable t) {
+			// recorded instead of thrown
+			proxyExceptions++;
+		}
+
+		public Object callSync(IRemoteCall call) {
+			calls.add(call.getMethod());
+			final String s = (String) call.getParameters()[0];
+			return call.getMethod().equals("upper") ? s.toUpperCase() : s;
+		}
+
+		public IFuture callAsync(IRemoteCall call) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void callAsync(IRemoteCall call, IRemoteCallListener listener) {
+			throw new UnsupportedOperationException();
+		}
+
+		public void fireAsync(IRemoteCall call) {
+			throw new UnsupportedOperationException();
+		}
+
+		protected IFuture callAsync(AbstractAsyncProxyRemoteCall call) {
+			throw new UnsupportedOperationException();
+		}
+
+		protected Future callFutureAsync(AbstractAsyncProxyRemoteCall call) {
+			throw new UnsupportedOperationException();
+		}
+
+		protected void callCompletableAsync(AbstractAsyncProxyRemoteCall call, IAsyncProxyCompletable completable) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Remote service whose invokeObject answers a method of the service
+	 * interface locally.
+	 */
+	static class LocalEchoRemoteService extends CountingRemoteService {
+		int invokeObjectCalls;
+
+		protected Object invokeObject(Object proxy, Method method, Object[] args) throws Throwable {
+			invokeObjectCalls++;
+			if (method.getName().equals("echo"))
+				return "local:" + args[0];
+			return super.invokeObject(proxy, method, args);
+		}
+	}
+
+	private Method echo;
+	private Method upper;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		echo = IEcho.class.getMethod("echo", new Class[] {String.class});
+		upper = IEcho.class.getMethod("upper", new Class[] {String.class});
+	}
+
+	public void testPlanIsCreatedOncePerMethod() throws Throwable {
+		final CountingRemoteService service = new CountingRemoteService();
+		assertEquals("a", service.invoke(null, echo, new Object[] {"a"}));
+		assertEquals("b", service.invoke(null, echo, new Object[] {"b"}));
+		assertEquals("C", service.invoke(null, upper, new Object[] {"c"}));
+		assertEquals("D", service.invoke(null, upper, new Object[] {"d"}));
+		assertEquals(2, service.callMethodNameLookups);
+		assertEquals(2, service.callTimeoutLookups);
+		// every call still reaches the remote service, with its own arguments
+		assertEquals(4, service.calls.size());
+		assertEquals("echo", service.calls.get(0));
+		assertEquals("upper", service.calls.get(3));
+		assertEquals(0, service.proxyExceptions);
+	}
+
+	public void testObjectMethodsAreAnsweredLocally() throws Throwable {
+		final CountingRemoteService service = new CountingRemoteService();
+		final Method hashCode = Object.class.getMethod("hashCode", new Class[0]);
+		assertEquals(Integer.valueOf(service.hashCode()), service.invoke(null, hashCode, null));
+		assertEquals(Integer.valueOf(service.hashCode()), service.invoke(null, hashCode, null));
+		final Method toString = Object.class.getMethod("toString", new Class[0]);
+		assertTrue(((String) service.invoke(null, toString, null)).startsWith(IEcho.class.getName()));
+		assertEquals(0, service.calls.size());
+	}
+
+	public void testOverriddenInvokeObjectIsCalledForAllMethods() throws Throwable {
+		final LocalEchoRemoteService service = new LocalEchoRemoteService();
+		assertEquals("local:a", service.invoke(null, echo, new Object[] {"a"}));
+		assertEquals("local:b", service.invoke(null, echo, new Object[] {"b"}));
+		assertEquals("C", service.invoke(null, upper, new Object[] {"c"}));
+		assertEquals(3, service.invokeObjectCalls);
+		assertEquals(1, service.calls.size());
+	}
+
+	public void testPlanningFailureIsHandled() throws Throwable {
+		final CountingRemoteService service = new CountingRemoteService();
+		service.failPlanning = true;
+		// handleProxyException does not throw, so the call returns null
+		assertNull(service.invoke(null, echo, new Object[] {"a"}));
+		assertEquals(1, service.proxyExceptions);
+		assertEquals(0, service.calls.size());
+		// a failed plan is not cached
+		service.failPlanning = false;
+		assertEquals("b", service.invoke(null, echo, new Object[] {"b"}));
+		assertEquals(1, service.calls.size());
+	}
+}
@@ -0,0 +1,71 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.provider.comm.BoundedFIFOQueue;
+
+public class BoundedFIFOQueueTest extends TestCase {
+
+	public void testDropOldestKeepsHead() throws Exception {
+		BoundedFIFOQueue queue = new BoundedFIFOQueue(3, 0, BoundedFIFOQueue.POLICY_DROP_OLDEST, 0);
+		for (int i = 0; i < 10; i++)
+			assertTrue(queue.enqueue(Integer.valueOf(i)));
+		assertEquals(3, queue.size());
+		assertEquals(7, queue.getDropCount());
+		assertEquals(3, queue.getHighWaterMark());
+		assertEquals(Integer.valueOf(0), queue.dequeue());
+		assertEquals(Integer.valueOf(8), queue.dequeue());
+		assertEquals(Integer.valueOf(9), queue.dequeue());
+	}
+
+	public void testBlockUntilConsumed() throws Exception {
+		final BoundedFIFOQueue queue = new BoundedFIFOQueue(0, 10, BoundedFIFOQueue.POLICY_BLOCK, 100);
+		assertTrue(queue.enqueue(new byte[8]));
+		// No room and no consumer
+		assertFalse(queue.enqueue(new byte[4]));
+		assertEquals(1, queue.getRejectCount());
+		Thread consumer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					return;
+				}
+				queue.dequeue();
+			}
+		});
+		consumer.start();
+		queue.setLimits(0, 10, BoundedFIFOQueue.POLICY_BLOCK, 10000);
+		assertTrue(queue.enqueue(new byte[4]));
+		assertEquals(4, queue.getByteSize());
+		consumer.join();
+	}
+
+	public void testDisconnect() throws Exception {
+		final int[] overflows = new int[1];
+		BoundedFIFOQueue queue = new BoundedFIFOQueue(2, 0, BoundedFIFOQueue.POLICY_DISCONNECT, 0) {
+			protected void handleOverflow() {
+				overflows[0]++;
+			}
+		};
+		assertTrue(queue.enqueue("a"));
+		assertTrue(queue.enqueue("b"));
+		assertFalse(queue.enqueue("c"));
+		assertEquals(1, overflows[0]);
+		assertTrue(queue.isStopped());
+		assertTrue(queue.isEmpty());
+		assertEquals(1, queue.getRejectCount());
+	}
+}
@@ -0,0 +1,210 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.comm.AsynchEvent;
+import org.eclipse.ecf.provider.comm.ConnectionEvent;
+import org.eclipse.ecf.provider.comm.DisconnectEvent;
+import org.eclipse.ecf.provider.comm.ISynchAsynchEventHandler;
+import org.eclipse.ecf.provider.comm.SynchEvent;
+import org.eclipse.ecf.provider.comm.tcp.Client;
+
+/**
+ * Tests that the sender thread of a tcp client flushes a batch when it
+ * reaches the byte, message or latency limit, and that the send statistics
+ * count those flushes.
+ */
+public class ClientBatchTest extends TestCase {
+
+	private static final String KEEPALIVE = "org.eclipse.ecf.provider.generic.keepalive";
+
+	/**
+	 * Output stream that counts how often it is flushed.
+	 */
+	static class FlushCountingOutputStream extends ByteArrayOutputStream {
+		int flushes;
+
+		public synchronized void flush() {
+			flushes++;
+		}
+
+		synchronized int getFlushes() {
+			return flushes;
+		}
+	}
+
+	static class NullHandler implements ISynchAsynchEventHandler {
+		final ID id = IDFactory.getDefault().createGUID();
+
+		public ID getEventHandlerID() {
+			return id;
+		}
+
+		public void handleDisconnectEvent(DisconnectEvent event) {
+			// nothing to clean up
+		}
+
+		public void handleConnectEvent(ConnectionEvent event) {
+			// not connected through events
+		}
+
+		public Object handleSynchEvent(SynchEvent event) throws IOException {
+			return null;
+		}
+
+		public void handleAsynchEvent(AsynchEvent event) throws IOException {
+			// nothing is received
+		}
+	}
+
+	private ServerSocket serverSocket;
+	private Socket socket;
+	private Socket peer;
+	private PipedOutputStream input;
+	private FlushCountingOutputStream output;
+	private Client client;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		// no pings, so only the messages of the test are counted
+		System.setProperty(KEEPALIVE, "0");
+		serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+		socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+		peer = serverSocket.accept();
+	}
+
+	protected void tearDown() throws Exception {
+		if (client != null)
+			client.disconnect();
+		if (input != null)
+			input.close();
+		peer.close();
+		socket.close();
+		serverSocket.close();
+		System.getProperties().remove(KEEPALIVE);
+		super.tearDown();
+	}
+
+	/**
+	 * Creates a client that writes to memory.  Its receiver thread waits on
+	 * a pipe that nothing is written to.
+	 */
+	private Client createClient(int maxmsgs) throws IOException {
+		input = new PipedOutputStream();
+		final PipedInputStream in = new PipedInputStream(input);
+		final ObjectOutputStream header = new ObjectOutputStream(input);
+		header.flush();
+		output = new FlushCountingOutputStream();
+		client = new Client(socket, new ObjectInputStream(in), new ObjectOutputStream(output), new NullHandler(), maxmsgs);
+		return client;
+	}
+
+	private void send(int count, int size) throws IOException {
+		for (int i = 0; i < count; i++)
+			client.sendAsynch(null, new byte[size]);
+	}
+
+	private void waitForSent(int count) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 10000;
+		while (client.getSentMessageCount() < count && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(count, client.getSentMessageCount());
+	}
+
+	private void assertFlushes(long flushes, int messages, int bytes) {
+		assertEquals(flushes, client.getFlushCount());
+		assertEquals(flushes, output.getFlushes());
+		assertEquals(messages, client.getSentMessageCount());
+		assertEquals(bytes, client.getSentByteCount());
+		assertEquals((double) messages / flushes, client.getMessagesPerFlush(), 0);
+		assertEquals((double) bytes / flushes, client.getBytesPerFlush(), 0);
+	}
+
+	public void testNoFlushBeforeSend() throws Exception {
+		createClient(50);
+		assertEquals(0, client.getFlushCount());
+		assertEquals(0, client.getSentMessageCount());
+		assertEquals(0, client.getSentByteCount());
+		assertEquals(0, client.getMessagesPerFlush(), 0);
+		assertEquals(0, client.getBytesPerFlush(), 0);
+	}
+
+	public void testFlushAtMaxMessages() throws Exception {
+		createClient(5);
+		client.setBatchMaxBytes(1000000);
+		// queued before the sender starts, so every batch can be full
+		send(20, 10);
+		client.start();
+		waitForSent(20);
+		assertFlushes(4, 20, 200);
+	}
+
+	public void testFlushAtMaxBytes() throws Exception {
+		createClient(50);
+		client.setBatchMaxBytes(100);
+		send(10, 50);
+		client.start();
+		waitForSent(10);
+		assertFlushes(5, 10, 500);
+	}
+
+	public void testFlushAtMaxLatency() throws Exception {
+		createClient(50);
+		client.setBatchMaxLatency(500);
+		client.start();
+		final long start = System.currentTimeMillis();
+		send(1, 10);
+		Thread.sleep(100);
+		// the batch waits for more messages
+		assertEquals(0, client.getFlushCount());
+		send(1, 10);
+		waitForSent(2);
+		// and is flushed once the latency is up, although it is not full
+		assertTrue(System.currentTimeMillis() - start >= 400);
+		assertFlushes(1, 2, 20);
+	}
+
+	public void testFlushWhenQueueEmptyWithoutLatency() throws Exception {
+		createClient(50);
+		client.start();
+		for (int i = 1; i <= 3; i++) {
+			send(1, 10);
+			waitForSent(i);
+			assertEquals(i, client.getFlushCount());
+		}
+		assertFlushes(3, 3, 30);
+	}
+
+	public void testBatchingDisabled() throws Exception {
+		createClient(50);
+		client.setBatchMaxBytes(0);
+		send(10, 10);
+		client.start();
+		waitForSent(10);
+		assertFlushes(10, 10, 100);
+	}
+}
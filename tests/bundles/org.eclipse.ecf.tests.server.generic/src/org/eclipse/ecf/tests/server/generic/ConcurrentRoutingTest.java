@@ -0,0 +1,265 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.comm.IAsynchConnection;
+import org.eclipse.ecf.provider.comm.IConnectionListener;
+import org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage;
+import org.eclipse.ecf.provider.generic.BinaryContainerMessageCodec;
+import org.eclipse.ecf.provider.generic.ContainerMessage;
+import org.eclipse.ecf.provider.generic.SOContainer;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.ServerSOContainer;
+
+/**
+ * Routes shared object messages between members of a server container while
+ * other members join and leave, and checks that every message reaches exactly
+ * the members it was sent to.
+ */
+public class ConcurrentRoutingTest extends TestCase {
+
+	private static final int STABLE_MEMBERS = 4;
+	private static final int CHURN_MEMBERS = 4;
+	private static final int MESSAGES = 500;
+
+	static class RoutingContainer extends ServerSOContainer {
+
+		RoutingContainer(ID id) {
+			super(new SOContainerConfig(id));
+		}
+
+		void join(ID memberID, IAsynchConnection conn) {
+			synchronized (getGroupMembershipLock()) {
+				addNewRemoteMember(memberID, conn);
+			}
+		}
+
+		void leave(ID memberID, IAsynchConnection conn) {
+			synchronized (getGroupMembershipLock()) {
+				handleLeave(memberID, conn);
+			}
+		}
+
+		void route(ContainerMessage message) throws IOException {
+			handleSharedObjectMessage(message);
+		}
+	}
+
+	/**
+	 * Connection that records the shared object messages sent on it.
+	 */
+	static class RecordingConnection implements IAsynchConnection {
+		final ID id;
+		final Map properties = new HashMap();
+		final ConcurrentLinkedQueue<ContainerMessage> received = new ConcurrentLinkedQueue<ContainerMessage>();
+		final ConcurrentLinkedQueue<String> errors;
+
+		RecordingConnection(ID id, ConcurrentLinkedQueue<String> errors) {
+			this.id = id;
+			this.errors = errors;
+			properties.put(ConnectResultMessage.CODEC_PROPERTY, BinaryContainerMessageCodec.NAME);
+		}
+
+		public void sendAsynch(ID receiver, byte[] data) throws IOException {
+			final ContainerMessage message = SOContainer.deserializeContainerMessage(data);
+			if (!(message.getData() instanceof ContainerMessage.SharedObjectMessage))
+				return;
+			if (!id.equals(receiver) && receiver != null)
+				errors.add("message for " + receiver + " sent on connection of " + id);
+			received.add(message);
+		}
+
+		public Object connect(ID targetID, Object data, int timeout) {
+			return null;
+		}
+
+		public void disconnect() {
+			// nothing to close
+		}
+
+		public boolean isConnected() {
+			return true;
+		}
+
+		public ID getLocalID() {
+			return id;
+		}
+
+		public void start() {
+			// nothing to start
+		}
+
+		public void stop() {
+			// nothing to stop
+		}
+
+		public boolean isStarted() {
+			return true;
+		}
+
+		public Map getProperties() {
+			return properties;
+		}
+
+		public void addListener(IConnectionListener listener) {
+			// not notified
+		}
+
+		public void removeListener(IConnectionListener listener) {
+			// not notified
+		}
+
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+	}
+
+	private RoutingContainer container;
+	private ID sharedObjectID;
+	private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<String>();
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		container = new RoutingContainer(IDFactory.getDefault().createStringID("server"));
+		sharedObjectID = IDFactory.getDefault().createStringID("sharedobject");
+	}
+
+	protected void tearDown() throws Exception {
+		container.dispose();
+		super.tearDown();
+	}
+
+	private static String payload(ContainerMessage message) {
+		final ContainerMessage.SharedObjectMessage som = (ContainerMessage.SharedObjectMessage) message.getData();
+		return new String((byte[]) som.getData(), StandardCharsets.UTF_8);
+	}
+
+	private ContainerMessage message(ID from, ID to, String payload) {
+		return ContainerMessage.createSharedObjectMessage(from, to, 0, sharedObjectID, payload.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void testRoutingWhileMembersJoinAndLeave() throws Exception {
+		final ID[] stable = new ID[STABLE_MEMBERS];
+		final RecordingConnection[] stableConns = new RecordingConnection[STABLE_MEMBERS];
+		for (int i = 0; i < STABLE_MEMBERS; i++) {
+			stable[i] = IDFactory.getDefault().createStringID("stable" + i);
+			stableConns[i] = new RecordingConnection(stable[i], errors);
+			container.join(stable[i], stableConns[i]);
+		}
+		final ID[] churn = new ID[CHURN_MEMBERS];
+		final RecordingConnection[] churnConns = new RecordingConnection[CHURN_MEMBERS];
+		for (int i = 0; i < CHURN_MEMBERS; i++) {
+			churn[i] = IDFactory.getDefault().createStringID("churn" + i);
+			churnConns[i] = new RecordingConnection(churn[i], errors);
+		}
+
+		final AtomicBoolean sending = new AtomicBoolean(true);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<Thread>();
+		// members join and leave until all messages are sent
+		threads.add(new Thread(new Runnable() {
+			public void run() {
+				try {
+					start.await();
+					while (sending.get()) {
+						for (int i = 0; i < CHURN_MEMBERS; i++)
+							container.join(churn[i], churnConns[i]);
+						Thread.yield();
+						for (int i = 0; i < CHURN_MEMBERS; i++)
+							container.leave(churn[i], churnConns[i]);
+					}
+				} catch (final Throwable t) {
+					errors.add("churn: " + t);
+				}
+			}
+		}, "churn"));
+		// each stable member sends to the next one and to everyone
+		final CountDownLatch sent = new CountDownLatch(STABLE_MEMBERS);
+		for (int i = 0; i < STABLE_MEMBERS; i++) {
+			final int from = i;
+			threads.add(new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						final ID to = stable[(from + 1) % STABLE_MEMBERS];
+						for (int k = 0; k < MESSAGES; k++) {
+							container.route(message(stable[from], to, "direct:" + from + ":" + k));
+							container.route(message(stable[from], null, "all:" + from + ":" + k));
+						}
+					} catch (final Throwable t) {
+						errors.add("sender " + from + ": " + t);
+					} finally {
+						sent.countDown();
+					}
+				}
+			}, "sender" + i));
+		}
+		for (final Thread t : threads)
+			t.start();
+		start.countDown();
+		assertTrue(sent.await(60, TimeUnit.SECONDS));
+		sending.set(false);
+		for (final Thread t : threads)
+			t.join(10000);
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		for (int j = 0; j < STABLE_MEMBERS; j++) {
+			final Map<String, Integer> counts = new HashMap<String, Integer>();
+			for (final ContainerMessage m : stableConns[j].received) {
+				final String p = payload(m);
+				if (p.startsWith("direct:"))
+					assertEquals(stable[j], m.getToContainerID());
+				final Integer c = counts.get(p);
+				counts.put(p, Integer.valueOf(c == null ? 1 : c.intValue() + 1));
+			}
+			final int previous = (j + STABLE_MEMBERS - 1) % STABLE_MEMBERS;
+			final List<String> missing = new ArrayList<String>();
+			for (int k = 0; k < MESSAGES; k++) {
+				expectReceived(counts, "direct:" + previous + ":" + k, missing);
+				for (int i = 0; i < STABLE_MEMBERS; i++)
+					if (i != j)
+						expectReceived(counts, "all:" + i + ":" + k, missing);
+			}
+			assertEquals("missing at stable" + j + ": " + missing, Collections.EMPTY_LIST, missing);
+			// nothing else was delivered, and nothing twice
+			assertEquals(MESSAGES * STABLE_MEMBERS, counts.size());
+			for (final Integer c : counts.values())
+				assertEquals(1, c.intValue());
+		}
+		// members that come and go only ever get broadcasts
+		for (int i = 0; i < CHURN_MEMBERS; i++)
+			for (final ContainerMessage m : churnConns[i].received)
+				assertTrue(payload(m), payload(m).startsWith("all:"));
+	}
+
+	private static void expectReceived(Map<String, Integer> counts, String payload, List<String> missing) {
+		if (!counts.containsKey(payload))
+			missing.add(payload);
+	}
+}
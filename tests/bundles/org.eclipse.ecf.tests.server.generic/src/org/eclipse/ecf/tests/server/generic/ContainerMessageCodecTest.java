@@ -0,0 +1,267 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.provider.comm.IAsynchConnection;
+import org.eclipse.ecf.provider.comm.IConnectionListener;
+import org.eclipse.ecf.provider.comm.tcp.ConnectResultMessage;
+import org.eclipse.ecf.provider.generic.BinaryContainerMessageCodec;
+import org.eclipse.ecf.provider.generic.ContainerMessage;
+import org.eclipse.ecf.provider.generic.ContainerMessageCodecs;
+import org.eclipse.ecf.provider.generic.IContainerMessageCodec;
+import org.eclipse.ecf.provider.generic.SOContainer;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.ServerSOContainer;
+
+public class ContainerMessageCodecTest extends TestCase {
+
+	/**
+	 * Server that forwards a message to all members but one, which encodes
+	 * the message once and writes each member's receiver and sequence in
+	 * front of it.
+	 */
+	static class ForwardingContainer extends ServerSOContainer {
+
+		ForwardingContainer(ID id) {
+			super(new SOContainerConfig(id));
+		}
+
+		void join(ID memberID, IAsynchConnection conn) {
+			synchronized (getGroupMembershipLock()) {
+				addNewRemoteMember(memberID, conn);
+			}
+		}
+
+		void forward(ID excluding, ContainerMessage message) throws IOException {
+			forwardExcluding(message.getFromContainerID(), excluding, message);
+		}
+	}
+
+	/**
+	 * Connection that keeps the bytes sent on it.
+	 */
+	static class CapturingConnection implements IAsynchConnection {
+		final ID id;
+		final Map properties = new HashMap();
+		final List<byte[]> sent = new ArrayList<byte[]>();
+
+		CapturingConnection(ID id) {
+			this.id = id;
+			properties.put(ConnectResultMessage.CODEC_PROPERTY, BinaryContainerMessageCodec.NAME);
+		}
+
+		public void sendAsynch(ID receiver, byte[] data) throws IOException {
+			assertEquals(id, receiver);
+			sent.add(data);
+		}
+
+		public Object connect(ID targetID, Object data, int timeout) {
+			return null;
+		}
+
+		public void disconnect() {
+			// nothing to close
+		}
+
+		public boolean isConnected() {
+			return true;
+		}
+
+		public ID getLocalID() {
+			return id;
+		}
+
+		public void start() {
+			// nothing to start
+		}
+
+		public void stop() {
+			// nothing to stop
+		}
+
+		public boolean isStarted() {
+			return true;
+		}
+
+		public Map getProperties() {
+			return properties;
+		}
+
+		public void addListener(IConnectionListener listener) {
+			// not notified
+		}
+
+		public void removeListener(IConnectionListener listener) {
+			// not notified
+		}
+
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+	}
+
+	IContainerMessageCodec codec;
+	ID from;
+	ID to;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		codec = ContainerMessageCodecs.getCodec(BinaryContainerMessageCodec.NAME);
+		from = IDFactory.getDefault().createStringID("ecftcp://localhost:3282/server");
+		to = IDFactory.getDefault().createGUID();
+	}
+
+	protected void tearDown() throws Exception {
+		codec = null;
+		super.tearDown();
+	}
+
+	public void testBinaryCodecRegistered() throws Exception {
+		assertNotNull(codec);
+		assertTrue(Arrays.asList(ContainerMessageCodecs.getCodecNames()).contains(BinaryContainerMessageCodec.NAME));
+	}
+
+	public void testSharedObjectMessageRoundTrip() throws Exception {
+		final ID soID = IDFactory.getDefault().createStringID("sharedobject");
+		final byte[] data = new byte[] {1, 2, 3};
+		final byte[] bytes = codec.encode(ContainerMessage.createSharedObjectMessage(from, to, 5, soID, data));
+		assertTrue(codec.isEncoding(bytes));
+		final ContainerMessage msg = SOContainer.deserializeContainerMessage(bytes);
+		assertEquals(from, msg.getFromContainerID());
+		assertEquals(to, msg.getToContainerID());
+		assertEquals(5, msg.getSequence());
+		final ContainerMessage.SharedObjectMessage som = (ContainerMessage.SharedObjectMessage) msg.getData();
+		assertEquals(soID, som.getFromSharedObjectID());
+		assertTrue(Arrays.equals(data, (byte[]) som.getData()));
+	}
+
+	public void testViewChangeMessageRoundTrip() throws Exception {
+		final byte[] bytes = codec.encode(ContainerMessage.createViewChangeMessage(from, null, 6, new ID[] {from, to}, true, "data"));
+		final ContainerMessage msg = SOContainer.deserializeContainerMessage(bytes);
+		assertNull(msg.getToContainerID());
+		final ContainerMessage.ViewChangeMessage vcm = (ContainerMessage.ViewChangeMessage) msg.getData();
+		assertTrue(Arrays.equals(new ID[] {from, to}, vcm.getChangeIDs()));
+		assertTrue(vcm.isAdd());
+		assertEquals("data", vcm.getData());
+	}
+
+	public void testJavaSerializedMessageStillDecoded() throws Exception {
+		final byte[] bytes = SOContainer.serialize(ContainerMessage.createLeaveGroupMessage(from, to, 7, "bye"));
+		assertNull(ContainerMessageCodecs.getDecoder(bytes));
+		final ContainerMessage msg = SOContainer.deserializeContainerMessage(bytes);
+		assertEquals("bye", ((ContainerMessage.LeaveGroupMessage) msg.getData()).getData());
+	}
+
+	/**
+	 * @return a copy of the given message, addressed to the given receiver
+	 */
+	private static ContainerMessage copyTo(ContainerMessage message, ID receiver, long seq) throws Exception {
+		final ContainerMessage copy = SOContainer.deserializeContainerMessage(SOContainer.serialize(message));
+		copy.setToContainerID(receiver);
+		copy.setSequence(seq);
+		return copy;
+	}
+
+	private void assertForwardedLikeFullEncoding(ContainerMessage message) throws Exception {
+		final Serializable data = message.getData();
+		final ForwardingContainer server = new ForwardingContainer(IDFactory.getDefault().createStringID("server"));
+		try {
+			final ID excluded = IDFactory.getDefault().createGUID();
+			server.join(excluded, new CapturingConnection(excluded));
+			server.join(from, new CapturingConnection(from));
+			final CapturingConnection[] receivers = new CapturingConnection[4];
+			receivers[0] = new CapturingConnection(to);
+			for (int i = 1; i < receivers.length; i++)
+				receivers[i] = new CapturingConnection(i % 2 == 0 ? IDFactory.getDefault().createGUID() : IDFactory.getDefault().createStringID("member" + i));
+			for (int i = 0; i < receivers.length; i++)
+				server.join(receivers[i].id, receivers[i]);
+			// each copy of each message gets a sequence of its own
+			for (int k = 0; k < 3; k++)
+				server.forward(excluded, message);
+
+			for (int i = 0; i < receivers.length; i++) {
+				assertEquals(3, receivers[i].sent.size());
+				for (final byte[] bytes : receivers[i].sent) {
+					final ContainerMessage copy = codec.decode(bytes);
+					final ContainerMessage full = codec.decode(codec.encode(copyTo(message, receivers[i].id, copy.getSequence())));
+					assertEquals(from, copy.getFromContainerID());
+					assertEquals(receivers[i].id, copy.getToContainerID());
+					assertEquals(full.getFromContainerID(), copy.getFromContainerID());
+					assertEquals(full.getToContainerID(), copy.getToContainerID());
+					assertEquals(full.getSequence(), copy.getSequence());
+					assertDataEquals(full.getData(), copy.getData());
+					assertDataEquals(data, copy.getData());
+				}
+			}
+		} finally {
+			server.dispose();
+		}
+	}
+
+	private static void assertDataEquals(Serializable expected, Serializable actual) {
+		assertEquals(expected.getClass(), actual.getClass());
+		if (expected instanceof ContainerMessage.SharedObjectMessage) {
+			final ContainerMessage.SharedObjectMessage e = (ContainerMessage.SharedObjectMessage) expected;
+			final ContainerMessage.SharedObjectMessage a = (ContainerMessage.SharedObjectMessage) actual;
+			assertEquals(e.getFromSharedObjectID(), a.getFromSharedObjectID());
+			if (e.getData() instanceof byte[])
+				assertTrue(Arrays.equals((byte[]) e.getData(), (byte[]) a.getData()));
+			else if (e.getData() instanceof Object[])
+				assertTrue(Arrays.equals((Object[]) e.getData(), (Object[]) a.getData()));
+			else
+				assertEquals(e.getData(), a.getData());
+		} else if (expected instanceof ContainerMessage.ViewChangeMessage) {
+			final ContainerMessage.ViewChangeMessage e = (ContainerMessage.ViewChangeMessage) expected;
+			final ContainerMessage.ViewChangeMessage a = (ContainerMessage.ViewChangeMessage) actual;
+			assertTrue(Arrays.equals(e.getChangeIDs(), a.getChangeIDs()));
+			assertEquals(e.isAdd(), a.isAdd());
+			assertEquals(e.getData(), a.getData());
+		} else
+			assertEquals(expected, actual);
+	}
+
+	private ContainerMessage sharedObjectMessage(ID sharedObjectID, Serializable data) {
+		return ContainerMessage.createSharedObjectMessage(from, null, 0, sharedObjectID, data);
+	}
+
+	private ContainerMessage viewChangeMessage(ID[] ids, boolean add, Serializable data) {
+		return ContainerMessage.createViewChangeMessage(from, null, 0, ids, add, data);
+	}
+
+	public void testSharedEncodingDecodesLikeFullEncoding() throws Exception {
+		assertForwardedLikeFullEncoding(sharedObjectMessage(IDFactory.getDefault().createStringID("sharedobject"), new byte[] {1, 2, 3}));
+		assertForwardedLikeFullEncoding(sharedObjectMessage(IDFactory.getDefault().createStringID("sharedobject"), "data"));
+	}
+
+	public void testSharedEncodingWithDataReferringToReceiver() throws Exception {
+		// the body refers to the sender and to one of the receivers, which
+		// full encodings write as back references to the header
+		assertForwardedLikeFullEncoding(sharedObjectMessage(to, to));
+		assertForwardedLikeFullEncoding(sharedObjectMessage(from, new ID[] {from, to}));
+		final ID other = IDFactory.getDefault().createStringID("other");
+		assertForwardedLikeFullEncoding(viewChangeMessage(new ID[] {to, from, other, to}, true, "view"));
+		assertForwardedLikeFullEncoding(viewChangeMessage(new ID[] {other}, false, null));
+	}
+}
@@ -0,0 +1,270 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObject;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.SharedObjectInitException;
+import org.eclipse.ecf.core.sharedobject.util.IQueueEnqueue;
+import org.eclipse.ecf.core.util.Event;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.ServerSOContainer;
+
+/**
+ * Dispatches shared object events on a pool shared by all shared objects of a
+ * container, as org.eclipse.ecf.provider.generic.sharedObjectDispatch=pool
+ * does, and checks that each shared object still sees its events one at a
+ * time and in order.
+ */
+public class SharedObjectPoolDispatchTest extends TestCase {
+
+	private static final int OBJECTS = 8;
+	private static final int EVENTS = 500;
+	// SOMailbox.BATCH_SIZE
+	private static final int BATCH_SIZE = 32;
+
+	static class PoolContainer extends ServerSOContainer {
+		final Executor executor;
+
+		PoolContainer(ID id, Executor executor) {
+			super(new SOContainerConfig(id));
+			this.executor = executor;
+		}
+
+		protected Executor getSharedObjectExecutor() {
+			return executor;
+		}
+	}
+
+	static class TestEvent implements Event {
+		final ID target;
+		final int sequence;
+
+		TestEvent(ID target, int sequence) {
+			this.target = target;
+			this.sequence = sequence;
+		}
+	}
+
+	/**
+	 * Shared object that records the test events it receives, and whether
+	 * it was ever entered by two threads at once.
+	 */
+	static class RecordingSharedObject implements ISharedObject {
+		final ID id;
+		final List<TestEvent> order;
+		final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+		final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+		final CountDownLatch disposed = new CountDownLatch(1);
+		volatile int receivedBeforeDispose = -1;
+		IQueueEnqueue queue;
+
+		RecordingSharedObject(ID id, List<TestEvent> order) {
+			this.id = id;
+			this.order = order;
+		}
+
+		public void init(ISharedObjectConfig initData) throws SharedObjectInitException {
+			queue = initData.getContext().getQueue();
+		}
+
+		public void handleEvent(Event event) {
+			if (active.incrementAndGet() > 1)
+				overlaps.incrementAndGet();
+			try {
+				if (event instanceof TestEvent) {
+					final TestEvent te = (TestEvent) event;
+					order.add(te);
+					received.add(Integer.valueOf(te.sequence));
+					threads.add(Thread.currentThread().getName());
+					if (te.sequence % 50 == 0)
+						Thread.yield();
+				}
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+
+		public void handleEvents(Event[] events) {
+			for (int i = 0; i < events.length; i++)
+				handleEvent(events[i]);
+		}
+
+		public void dispose(ID containerID) {
+			receivedBeforeDispose = received.size();
+			threads.add(Thread.currentThread().getName());
+			disposed.countDown();
+		}
+
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+
+		void send(int count) throws Exception {
+			for (int i = 0; i < count; i++)
+				queue.enqueue(new TestEvent(id, i));
+		}
+	}
+
+	private ExecutorService pool;
+	private PoolContainer container;
+	private final List<TestEvent> order = Collections.synchronizedList(new ArrayList<TestEvent>());
+
+	protected void tearDown() throws Exception {
+		if (container != null)
+			container.dispose();
+		if (pool != null)
+			pool.shutdownNow();
+		super.tearDown();
+	}
+
+	private void createContainer(int threads) throws Exception {
+		pool = Executors.newFixedThreadPool(threads);
+		container = new PoolContainer(IDFactory.getDefault().createStringID("server"), pool);
+	}
+
+	private RecordingSharedObject add(String name) throws Exception {
+		final ID id = IDFactory.getDefault().createStringID(name);
+		final RecordingSharedObject so = new RecordingSharedObject(id, order);
+		container.getSharedObjectManager().addSharedObject(id, so, null);
+		return so;
+	}
+
+	private void waitFor(RecordingSharedObject so, int count) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 30000;
+		while (so.received.size() < count && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(count, so.received.size());
+	}
+
+	private static void assertInOrder(RecordingSharedObject so, int count) {
+		synchronized (so.received) {
+			for (int i = 0; i < count; i++)
+				assertEquals(i, so.received.get(i).intValue());
+		}
+	}
+
+	public void testPerObjectOrderWithoutConcurrentDelivery() throws Exception {
+		createContainer(4);
+		final RecordingSharedObject[] objects = new RecordingSharedObject[OBJECTS];
+		for (int i = 0; i < OBJECTS; i++)
+			objects[i] = add("so" + i);
+		// all objects are fed at the same time
+		final CountDownLatch start = new CountDownLatch(1);
+		final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+		final Thread[] senders = new Thread[OBJECTS];
+		for (int i = 0; i < OBJECTS; i++) {
+			final RecordingSharedObject so = objects[i];
+			senders[i] = new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						so.send(EVENTS);
+					} catch (final Throwable t) {
+						errors.add(t);
+					}
+				}
+			});
+			senders[i].start();
+		}
+		start.countDown();
+		for (int i = 0; i < OBJECTS; i++)
+			senders[i].join(30000);
+		assertTrue(errors.toString(), errors.isEmpty());
+		for (int i = 0; i < OBJECTS; i++) {
+			waitFor(objects[i], EVENTS);
+			assertInOrder(objects[i], EVENTS);
+			assertEquals(0, objects[i].overlaps.get());
+		}
+		// no thread per shared object, only the pool's
+		for (int i = 0; i < OBJECTS; i++)
+			synchronized (objects[i].threads) {
+				for (final String name : objects[i].threads)
+					assertTrue(name, name.startsWith("pool-"));
+			}
+	}
+
+	public void testBusyObjectYieldsAfterBatch() throws Exception {
+		createContainer(1);
+		final RecordingSharedObject busy = add("busy");
+		final RecordingSharedObject other = add("other");
+		// wait until the activation events are dispatched
+		pool.submit(new Runnable() {
+			public void run() {
+				// nothing to do
+			}
+		}).get(10, TimeUnit.SECONDS);
+		order.clear();
+		// hold the only pool thread while both mailboxes fill up
+		final CountDownLatch release = new CountDownLatch(1);
+		pool.execute(new Runnable() {
+			public void run() {
+				try {
+					release.await();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		busy.send(3 * BATCH_SIZE + 4);
+		other.send(1);
+		release.countDown();
+		waitFor(busy, 3 * BATCH_SIZE + 4);
+		waitFor(other, 1);
+		assertInOrder(busy, 3 * BATCH_SIZE + 4);
+		// the other object's event is dispatched after the first batch of
+		// the busy one, not after all of it
+		synchronized (order) {
+			assertEquals(3 * BATCH_SIZE + 5, order.size());
+			for (int i = 0; i < BATCH_SIZE; i++)
+				assertSame(busy.id, order.get(i).target);
+			assertSame(other.id, order.get(BATCH_SIZE).target);
+		}
+	}
+
+	public void testDisposeEventDeliveredOnDeactivation() throws Exception {
+		createContainer(2);
+		final RecordingSharedObject so = add("disposed");
+		so.send(EVENTS);
+		container.getSharedObjectManager().removeSharedObject(so.id);
+		assertTrue(so.disposed.await(10, TimeUnit.SECONDS));
+		// dispose is dispatched like any other event, after those before it
+		assertEquals(EVENTS, so.receivedBeforeDispose);
+		assertInOrder(so, EVENTS);
+		assertEquals(0, so.overlaps.get());
+		synchronized (so.threads) {
+			assertTrue(so.threads.get(so.threads.size() - 1).startsWith("pool-"));
+		}
+		// the closed mailbox drops later events
+		so.send(1);
+		Thread.sleep(100);
+		assertEquals(EVENTS, so.received.size());
+	}
+}
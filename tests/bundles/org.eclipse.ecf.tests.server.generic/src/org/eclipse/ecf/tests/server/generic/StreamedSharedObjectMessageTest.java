@@ -0,0 +1,208 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+package org.eclipse.ecf.tests.server.generic;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.ecf.core.identity.ID;
+import org.eclipse.ecf.core.identity.IDFactory;
+import org.eclipse.ecf.core.sharedobject.ISharedObject;
+import org.eclipse.ecf.core.sharedobject.ISharedObjectConfig;
+import org.eclipse.ecf.core.sharedobject.SharedObjectInitException;
+import org.eclipse.ecf.core.util.Event;
+import org.eclipse.ecf.core.util.OSGIObjectInputStream;
+import org.eclipse.ecf.core.util.OSGIObjectOutputStream;
+import org.eclipse.ecf.provider.generic.BinaryContainerMessageCodec;
+import org.eclipse.ecf.provider.generic.ContainerMessage;
+import org.eclipse.ecf.provider.generic.ContainerMessageCodecs;
+import org.eclipse.ecf.provider.generic.IContainerMessageCodec;
+import org.eclipse.ecf.provider.generic.IStreamableSharedObjectMessage;
+import org.eclipse.ecf.provider.generic.IStreamableSharedObjectMessageReader;
+import org.eclipse.ecf.provider.generic.SOContainerConfig;
+import org.eclipse.ecf.provider.generic.ServerSOContainer;
+
+/**
+ * Sends a streamed shared object message through the container's shared
+ * object message serialization and the binary codec, and checks that its
+ * payload is written once, straight into the container's stream, and read
+ * back intact by the receiving shared object.
+ */
+public class StreamedSharedObjectMessageTest extends TestCase {
+
+	static class TestContainer extends ServerSOContainer {
+
+		TestContainer(ID id) {
+			super(new SOContainerConfig(id));
+		}
+
+		byte[] serialize(ID sharedObjectID, Object message) throws IOException {
+			return serializeSharedObjectMessage(sharedObjectID, message);
+		}
+
+		Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+			return deserializeSharedObjectMessage(bytes);
+		}
+	}
+
+	/**
+	 * Message that writes its payload into the stream it is given.
+	 */
+	static class PayloadMessage implements IStreamableSharedObjectMessage {
+		final byte[] payload;
+		ObjectOutputStream writtenTo;
+		int writes;
+
+		PayloadMessage(byte[] payload) {
+			this.payload = payload;
+		}
+
+		public void writeMessage(ObjectOutputStream out) throws IOException {
+			writtenTo = out;
+			writes++;
+			out.writeInt(payload.length);
+			out.write(payload);
+		}
+	}
+
+	static class PlainSharedObject implements ISharedObject {
+
+		public void init(ISharedObjectConfig initData) throws SharedObjectInitException {
+			// nothing to initialize
+		}
+
+		public void handleEvent(Event event) {
+			// events are not used
+		}
+
+		public void handleEvents(Event[] events) {
+			// events are not used
+		}
+
+		public void dispose(ID containerID) {
+			// nothing to dispose
+		}
+
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+	}
+
+	/**
+	 * Shared object that reads the payload written by {@link PayloadMessage}.
+	 */
+	static class ReadingSharedObject extends PlainSharedObject implements IStreamableSharedObjectMessageReader {
+		int reads;
+
+		public Object readMessage(OSGIObjectInputStream in) throws IOException {
+			reads++;
+			final byte[] payload = new byte[in.readInt()];
+			in.readFully(payload);
+			return payload;
+		}
+	}
+
+	private TestContainer container;
+	private ID from;
+	private ID to;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		from = IDFactory.getDefault().createStringID("ecftcp://localhost:3282/server");
+		to = IDFactory.getDefault().createGUID();
+		container = new TestContainer(from);
+	}
+
+	protected void tearDown() throws Exception {
+		container.dispose();
+		super.tearDown();
+	}
+
+	private static byte[] payload(int size) {
+		final byte[] payload = new byte[size];
+		new Random(size).nextBytes(payload);
+		return payload;
+	}
+
+	/**
+	 * @return the number of times the start of payload occurs in bytes
+	 */
+	private static int occurrences(byte[] bytes, byte[] payload) {
+		final int length = Math.min(payload.length, 64);
+		int count = 0;
+		for (int i = 0; i + length <= bytes.length; i++) {
+			int j = 0;
+			while (j < length && bytes[i + j] == payload[j])
+				j++;
+			if (j == length)
+				count++;
+		}
+		return count;
+	}
+
+	private ID add(String name, ISharedObject so) throws Exception {
+		final ID id = IDFactory.getDefault().createStringID(name);
+		container.getSharedObjectManager().addSharedObject(id, so, null);
+		return id;
+	}
+
+	public void testStreamedMessageRoundTrip() throws Exception {
+		final ReadingSharedObject so = new ReadingSharedObject();
+		final ID soID = add("reader", so);
+		final byte[] payload = payload(65536);
+		final PayloadMessage message = new PayloadMessage(payload);
+
+		final byte[] bytes = container.serialize(soID, message);
+		// written once, into the container's own stream rather than a byte[]
+		// of its own that the container would serialize again
+		assertEquals(1, message.writes);
+		assertTrue(message.writtenTo instanceof OSGIObjectOutputStream);
+		assertEquals(1, occurrences(bytes, payload));
+		assertTrue(bytes.length < payload.length + 1024);
+
+		// the binary codec writes the serialized message as it is
+		final IContainerMessageCodec codec = ContainerMessageCodecs.getCodec(BinaryContainerMessageCodec.NAME);
+		final byte[] encoded = codec.encode(ContainerMessage.createSharedObjectMessage(from, to, 1, soID, bytes));
+		assertEquals(1, occurrences(encoded, payload));
+		assertTrue(encoded.length < bytes.length + 1024);
+		final ContainerMessage decoded = codec.decode(encoded);
+		final ContainerMessage.SharedObjectMessage data = (ContainerMessage.SharedObjectMessage) decoded.getData();
+		assertEquals(soID, data.getFromSharedObjectID());
+		assertTrue(Arrays.equals(bytes, (byte[]) data.getData()));
+
+		final Object received = container.deserialize((byte[]) data.getData());
+		assertEquals(1, so.reads);
+		assertTrue(Arrays.equals(payload, (byte[]) received));
+	}
+
+	public void testSerializableMessageRoundTrip() throws Exception {
+		final ID soID = add("plain", new PlainSharedObject());
+		final byte[] bytes = container.serialize(soID, "message");
+		assertEquals("message", container.deserialize(bytes));
+	}
+
+	public void testStreamedMessageNeedsReader() throws Exception {
+		final ID soID = add("plain", new PlainSharedObject());
+		final byte[] bytes = container.serialize(soID, new PayloadMessage(payload(16)));
+		try {
+			container.deserialize(bytes);
+			fail("streamed message read by a shared object that is no reader");
+		} catch (final IOException expected) {
+			// expected
+		}
+	}
+}
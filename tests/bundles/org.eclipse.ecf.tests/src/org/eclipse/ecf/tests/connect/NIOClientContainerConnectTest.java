@@ -0,0 +1,29 @@
+/****************************************************************************
+ * Copyright (c) 2026 Composent, Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *    Composent, Inc. - initial API and implementation
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *****************************************************************************/
+
+package org.eclipse.ecf.tests.connect;
+
+/**
+ * Runs the client container connect tests against the generic provider's NIO
+ * transport.
+ */
+public class NIOClientContainerConnectTest extends ClientContainerConnectTest {
+
+	protected void setUp() throws Exception {
+		genericServerName = "ecf.generic.nio.server";
+		genericClientName = "ecf.generic.nio.client";
+		genericServerPort = 31000;
+		super.setUp();
+	}
+
+}